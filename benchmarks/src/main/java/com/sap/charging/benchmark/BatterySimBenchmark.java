@@ -0,0 +1,71 @@
+package com.sap.charging.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sap.charging.benchmark.BenchmarkData.BatteryModel;
+import com.sap.charging.model.Car;
+import com.sap.charging.model.battery.BatterySim;
+import com.sap.charging.model.battery.BatterySimParameters;
+
+/**
+ * BatterySim.simulate(...) of a car with nonlinear battery from its arrival for durationSeconds,
+ * with one second steps or adaptive steps and with or without the current lookup table.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BatterySimBenchmark {
+
+	@Param({"900", "28800"})
+	public int durationSeconds;
+
+	@Param({"false", "true"})
+	public boolean useAdaptiveStep;
+
+	@Param({"false", "true"})
+	public boolean useCurrentLookupTable;
+
+	private Car car;
+	private BatterySimParameters params;
+	private int startTimeSeconds;
+	private double maxCurrent;
+
+	@Setup(Level.Trial)
+	public void setupTrial() {
+		BenchmarkData data = new BenchmarkData(1, 1, 1, BatteryModel.NONLINEAR);
+		car = data.generateData().getCar(0);
+		car.setCurrentPlan(null);
+		startTimeSeconds = car.timestampArrival.toSecondOfDay();
+		maxCurrent = car.sumUsedPhases * car.maxCurrentPerPhase;
+
+		params = car.carBattery.batterySimParams.copy();
+		params.initialSoC = car.carBattery.getSoC();
+		params.maxtime = 24*60*60;
+		params.useAdaptiveStep = useAdaptiveStep;
+		params.useCurrentLookupTable = useCurrentLookupTable;
+	}
+
+	@Benchmark
+	public double simulate() {
+		BatterySim batterySim = new BatterySim(params, false, true);
+		batterySim.simulate(startTimeSeconds, Math.min(24*60*60, startTimeSeconds + durationSeconds), car, maxCurrent);
+		return batterySim.getSoC();
+	}
+
+}
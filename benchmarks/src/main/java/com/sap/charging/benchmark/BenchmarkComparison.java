@@ -0,0 +1,98 @@
+package com.sap.charging.benchmark;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Compares two JMH result files (-rf json), e.g. of two releases, and prints the change of each benchmark (matched by name and parameters) as tab separated values.
+ * Changes above the threshold (default 10%) are marked, with exit code 1 if any benchmark got slower by more than the threshold.
+ *
+ * Usage: java -cp target/benchmarks.jar com.sap.charging.benchmark.BenchmarkComparison baseline.json current.json [thresholdPercent]
+ */
+public class BenchmarkComparison {
+
+	public static void main(String[] args) throws IOException, ParseException {
+		if (args.length < 2) {
+			System.err.println("Usage: BenchmarkComparison baseline.json current.json [thresholdPercent]");
+			System.exit(2);
+		}
+		double thresholdPercent = (args.length > 2) ? Double.parseDouble(args[2]) : 10;
+
+		Map<String, JSONObject> baseline = readResults(args[0]);
+		Map<String, JSONObject> current = readResults(args[1]);
+
+		boolean anyRegression = false;
+		System.out.println("benchmark\tunit\tbaseline\tcurrent\tchangePercent\tresult");
+		for (Map.Entry<String, JSONObject> entry : current.entrySet()) {
+			JSONObject currentMetric = entry.getValue();
+			JSONObject baselineMetric = baseline.get(entry.getKey());
+			double currentScore = getScore(currentMetric);
+			if (baselineMetric == null) {
+				System.out.println(entry.getKey() + "\t" + currentMetric.get("scoreUnit") + "\t\t" + currentScore + "\t\tNEW");
+				continue;
+			}
+			double baselineScore = getScore(baselineMetric);
+			double changePercent = 100 * (currentScore - baselineScore) / baselineScore;
+			// Higher is better for throughput, lower is better for time per operation
+			boolean isHigherBetter = String.valueOf(currentMetric.get("scoreUnit")).contains("ops/");
+			double slowdownPercent = isHigherBetter ? -changePercent : changePercent;
+			String result = "";
+			if (slowdownPercent > thresholdPercent) {
+				result = "SLOWER";
+				anyRegression = true;
+			}
+			else if (slowdownPercent < -thresholdPercent) {
+				result = "FASTER";
+			}
+			System.out.println(entry.getKey() + "\t" + currentMetric.get("scoreUnit") + "\t" + baselineScore + "\t" + currentScore + "\t" +
+					String.format("%.1f", changePercent) + "\t" + result);
+		}
+		for (String key : baseline.keySet()) {
+			if (current.containsKey(key) == false) {
+				System.out.println(key + "\t" + baseline.get(key).get("scoreUnit") + "\t" + getScore(baseline.get(key)) + "\t\t\tREMOVED");
+			}
+		}
+		System.exit(anyRegression ? 1 : 0);
+	}
+
+	private static double getScore(JSONObject primaryMetric) {
+		return ((Number) primaryMetric.get("score")).doubleValue();
+	}
+
+	/**
+	 * @param path
+	 * @return Primary metric by benchmark name including parameters, e.g. "com.sap.charging.benchmark.BatterySimBenchmark.simulate(durationSeconds=900,useAdaptiveStep=false)"
+	 */
+	private static Map<String, JSONObject> readResults(String path) throws IOException, ParseException {
+		Map<String, JSONObject> results = new LinkedHashMap<>();
+		try (Reader reader = new FileReader(path)) {
+			JSONArray benchmarks = (JSONArray) new JSONParser().parse(reader);
+			for (Object object : benchmarks) {
+				JSONObject benchmark = (JSONObject) object;
+				StringBuilder key = new StringBuilder((String) benchmark.get("benchmark"));
+				JSONObject params = (JSONObject) benchmark.get("params");
+				if (params != null) {
+					key.append("(");
+					boolean isFirst = true;
+					for (Object param : new TreeMap<Object, Object>(params).entrySet()) {
+						key.append(isFirst ? "" : ",").append(param);
+						isFirst = false;
+					}
+					key.append(")");
+				}
+				results.put(key.toString(), (JSONObject) benchmark.get("primaryMetric"));
+			}
+		}
+		return results;
+	}
+
+}
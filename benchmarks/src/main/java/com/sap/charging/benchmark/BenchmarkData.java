@@ -0,0 +1,182 @@
+package com.sap.charging.benchmark;
+
+import java.util.List;
+
+import com.sap.charging.dataGeneration.DataGeneratorRandom;
+import com.sap.charging.model.Car;
+import com.sap.charging.model.ChargingStation;
+import com.sap.charging.model.EnergyUtil.Phase;
+import com.sap.charging.model.Fuse;
+import com.sap.charging.model.FuseTree;
+import com.sap.charging.realTime.State;
+import com.sap.charging.realTime.StrategyAlgorithmic;
+import com.sap.charging.sim.SimulationContext;
+
+/**
+ * Deterministic benchmark instances: nCars cars that all arrive at the same time, nChargingStations charging stations
+ * below a fuse tree with fuseTreeDepth levels of fuses (4 child fuses per fuse, charging stations distributed round robin
+ * over the fuses of the lowest level). Every fuse allows half of 32A per phase for each charging station below it,
+ * so that planning all cars violates fuses on every level.
+ *
+ * Since the instance is generated from a fixed seed, each call of buildState() or generateData() returns new but equal cars and charging stations.
+ */
+public class BenchmarkData {
+
+	public static final int SEED = 0;
+	public static final int N_CHILD_FUSES = 4;
+	public static final double FUSE_SIZE_PER_CHARGING_STATION = 16;
+
+	public enum BatteryModel {
+		LINEAR,
+		NONLINEAR
+	}
+
+	private final int nCars;
+	private final int nChargingStations;
+	private final int fuseTreeDepth;
+	private final BatteryModel batteryModel;
+
+	// Plans of the planned instance (see plan(...)), by car index
+	private double[][] plans;
+	private int[] chargingStationIndices;
+	private int nPlannedCars = 0;
+
+	public BenchmarkData(int nCars, int nChargingStations, int fuseTreeDepth, BatteryModel batteryModel) {
+		if (fuseTreeDepth < 1) {
+			throw new IllegalArgumentException("fuseTreeDepth must be at least 1: " + fuseTreeDepth);
+		}
+		this.nCars = nCars;
+		this.nChargingStations = nChargingStations;
+		this.fuseTreeDepth = fuseTreeDepth;
+		this.batteryModel = batteryModel;
+		SimulationContext.getGlobal().setVerbosity(0);
+	}
+
+	public boolean isNonlinear() {
+		return batteryModel == BatteryModel.NONLINEAR;
+	}
+
+	public DataGeneratorRandom generateData() {
+		DataGeneratorRandom data = new DataGeneratorRandom(SEED, false);
+		data.setNonlinearCharging(isNonlinear());
+		data.generateEnergyPriceHistory(96)
+			.generateCars(nCars)
+			.generateChargingStations(nChargingStations);
+
+		// All cars are available at the same time
+		Car firstCar = data.getCars().stream().min((car1, car2) -> car1.timestampArrival.compareTo(car2.timestampArrival)).get();
+		for (Car car : data.getCars()) {
+			car.timestampArrival = firstCar.timestampArrival;
+		}
+		return data;
+	}
+
+	/**
+	 * @return State at the arrival time of the cars without any car assignments
+	 */
+	public State buildEmptyState() {
+		DataGeneratorRandom data = generateData();
+		State state = new State(0, data);
+		state.fuseTree = buildFuseTree(data.getChargingStations(), fuseTreeDepth);
+		state.setTimeSeconds(data.getCar(0).timestampArrival.toSecondOfDay());
+		return state;
+	}
+
+	public StrategyAlgorithmic buildStrategy() {
+		StrategyAlgorithmic strategy = new StrategyAlgorithmic();
+		strategy.setRecognizeNonlinearCharging(isNonlinear());
+		return strategy;
+	}
+
+	/**
+	 * Plans the first nPlannedCars cars with StrategyAlgorithmic (once), buildState() then returns copies of the planned state
+	 * @param nPlannedCars
+	 * @return this
+	 */
+	public BenchmarkData plan(int nPlannedCars) {
+		State state = buildEmptyState();
+		StrategyAlgorithmic strategy = buildStrategy();
+		for (int i=0;i<Math.min(nPlannedCars, nCars);i++) {
+			strategy.reactCarArrival(state, state.getCars().get(i));
+		}
+
+		this.nPlannedCars = Math.min(nPlannedCars, nCars);
+		this.plans = new double[nCars][];
+		this.chargingStationIndices = new int[nCars];
+		List<ChargingStation> chargingStations = state.fuseTree.getListOfChargingStations();
+		for (int i=0;i<this.nPlannedCars;i++) {
+			Car car = state.getCars().get(i);
+			chargingStationIndices[i] = -1;
+			if (state.isCarCurrentlyAssigned(car)) {
+				chargingStationIndices[i] = chargingStations.indexOf(state.getCurrentCarAssignment(car).chargingStation);
+				plans[i] = car.getCurrentPlan().clone();
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * @return New state with the car assignments and plans computed by plan(...)
+	 */
+	public State buildState() {
+		State state = buildEmptyState();
+		List<ChargingStation> chargingStations = state.fuseTree.getListOfChargingStations();
+		for (int i=0;i<nPlannedCars;i++) {
+			if (chargingStationIndices[i] >= 0) {
+				Car car = state.getCars().get(i);
+				state.addCarAssignment(car, chargingStations.get(chargingStationIndices[i]));
+				car.setCurrentPlan(plans[i].clone());
+			}
+		}
+		return state;
+	}
+
+	/**
+	 * Fuse tree with depth levels of fuses, see class comment
+	 * @param chargingStations
+	 * @param depth
+	 * @return
+	 */
+	public static FuseTree buildFuseTree(List<ChargingStation> chargingStations, int depth) {
+		int nLeafFuses = (int) Math.pow(N_CHILD_FUSES, depth-1);
+		Fuse[] leafFuses = new Fuse[nLeafFuses];
+		int[] nextFuseID = {0};
+		int[] nextLeafIndex = {0};
+		Fuse rootFuse = buildFuse(chargingStations.size(), 1, depth, leafFuses, nextFuseID, nextLeafIndex);
+
+		for (int i=0;i<chargingStations.size();i++) {
+			ChargingStation chargingStation = chargingStations.get(i);
+			chargingStation.setPhaseMatching(Phase.PHASE_1, Phase.PHASE_2, Phase.PHASE_3);
+			leafFuses[i % nLeafFuses].addChild(chargingStation);
+		}
+		return new FuseTree(rootFuse, chargingStations.size());
+	}
+
+	private static Fuse buildFuse(int nChargingStations, int level, int depth, Fuse[] leafFuses, int[] nextFuseID, int[] nextLeafIndex) {
+		// Number of charging stations below this fuse (round robin over the leaf fuses)
+		int nFusesAtLevel = (int) Math.pow(N_CHILD_FUSES, level-1);
+		int nChargingStationsBelow = (int) Math.ceil(1.0 * nChargingStations / nFusesAtLevel);
+		Fuse fuse = new Fuse(nextFuseID[0]++, Math.max(32, nChargingStationsBelow * FUSE_SIZE_PER_CHARGING_STATION));
+		if (level == depth) {
+			leafFuses[nextLeafIndex[0]++] = fuse;
+			return fuse;
+		}
+		for (int i=0;i<N_CHILD_FUSES;i++) {
+			fuse.addChild(buildFuse(nChargingStations, level+1, depth, leafFuses, nextFuseID, nextLeafIndex));
+		}
+		return fuse;
+	}
+
+	public int getNCars() {
+		return nCars;
+	}
+
+	public int getNChargingStations() {
+		return nChargingStations;
+	}
+
+	public int getFuseTreeDepth() {
+		return fuseTreeDepth;
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.sap.charging.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sap.charging.benchmark.BenchmarkData.BatteryModel;
+import com.sap.charging.model.Car;
+import com.sap.charging.model.ChargingStation;
+import com.sap.charging.realTime.StrategyAlgorithmic;
+import com.sap.charging.realTime.StrategyAlgorithmicChargeScheduler;
+
+/**
+ * StrategyAlgorithmicChargeScheduler.getPlannedCapacity* for a planned car: until the end of the day, for a single timeslot
+ * and after a change of the plan (as done while filling or rescheduling plans).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PlannedCapacityBenchmark {
+
+	@Param({"LINEAR", "NONLINEAR"})
+	public BatteryModel batteryModel;
+
+	@Param({"true", "false"})
+	public boolean enablePlannedCapacityCache;
+
+	private StrategyAlgorithmicChargeScheduler scheduler;
+	private Car car;
+	private ChargingStation chargingStation;
+	private int currentTimeSeconds;
+	private int changedTimeslot;
+	private double originalValue;
+	private int nInvocations = 0;
+
+	@Setup(Level.Trial)
+	public void setupTrial() {
+		BenchmarkData data = new BenchmarkData(10, 10, 1, batteryModel).plan(10);
+		com.sap.charging.realTime.State state = data.buildState();
+		StrategyAlgorithmic strategy = data.buildStrategy();
+		scheduler = strategy.getScheduler();
+		scheduler.setEnablePlannedCapacityCache(enablePlannedCapacityCache);
+
+		car = state.getCars().get(0);
+		chargingStation = state.getCurrentCarAssignment(car).chargingStation;
+		currentTimeSeconds = state.currentTimeSeconds;
+
+		// Timeslot in the middle of the planned timeslots
+		int firstK = -1, lastK = -1;
+		for (int k=state.currentTimeslot;k<car.getCurrentPlan().length;k++) {
+			if (car.getCurrentPlan()[k] > 0) {
+				firstK = (firstK < 0) ? k : firstK;
+				lastK = k;
+			}
+		}
+		changedTimeslot = (firstK >= 0) ? (firstK + lastK) / 2 : state.currentTimeslot;
+		originalValue = car.getCurrentPlan()[changedTimeslot];
+	}
+
+	@Benchmark
+	public double plannedCapacityUntilEndOfDay() {
+		return scheduler.getPlannedCapacity(chargingStation, car, currentTimeSeconds);
+	}
+
+	@Benchmark
+	public double plannedCapacityOfTimeslot() {
+		int start = changedTimeslot*15*60;
+		return scheduler.getPlannedCapacity(chargingStation, car, currentTimeSeconds, Math.max(currentTimeSeconds, start), start+15*60);
+	}
+
+	@Benchmark
+	public double plannedCapacityAfterPlanChange() {
+		nInvocations++;
+		car.setCurrentPlanValue(changedTimeslot, (nInvocations % 2 == 0) ? originalValue : originalValue / 2);
+		return scheduler.getPlannedCapacity(chargingStation, car, currentTimeSeconds);
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.sap.charging.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sap.charging.benchmark.BenchmarkData.BatteryModel;
+import com.sap.charging.model.Car;
+import com.sap.charging.realTime.StrategyAlgorithmic;
+import com.sap.charging.sim.eval.exception.FuseTreeException;
+
+/**
+ * StrategyAlgorithmic.resolveViolations(state, violatingTimeslots) for plans that ignore the fuse tree:
+ * Every assigned car charges with its maximum current for the next maxCurrentTimeslots timeslots.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ResolveViolationsBenchmark {
+
+	@Param({"20", "200"})
+	public int nCars;
+
+	@Param({"200"})
+	public int nChargingStations;
+
+	@Param({"1", "3", "5"})
+	public int fuseTreeDepth;
+
+	@Param({"LINEAR", "NONLINEAR"})
+	public BatteryModel batteryModel;
+
+	@Param({"8"})
+	public int maxCurrentTimeslots;
+
+	private BenchmarkData data;
+
+	private com.sap.charging.realTime.State state;
+	private StrategyAlgorithmic strategy;
+	private Map<Integer, FuseTreeException> violatingTimeslots;
+
+	@Setup(Level.Trial)
+	public void setupTrial() {
+		data = new BenchmarkData(nCars, nChargingStations, fuseTreeDepth, batteryModel).plan(nCars);
+	}
+
+	@Setup(Level.Invocation)
+	public void setupInvocation() {
+		state = data.buildState();
+		strategy = data.buildStrategy();
+		for (Car car : state.getCars()) {
+			if (state.isCarCurrentlyAssigned(car) == false) {
+				continue;
+			}
+			for (int k=state.currentTimeslot;k<Math.min(car.getCurrentPlan().length, state.currentTimeslot+maxCurrentTimeslots);k++) {
+				car.setCurrentPlanValue(k, car.maxCurrentPerPhase);
+			}
+		}
+		violatingTimeslots = strategy.getInitialFuseViolations(state, null);
+	}
+
+	@Benchmark
+	public Map<Integer, FuseTreeException> resolveViolations() {
+		strategy.resolveViolations(state, violatingTimeslots);
+		return violatingTimeslots;
+	}
+
+}
@@ -0,0 +1,96 @@
+package com.sap.charging.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sap.charging.benchmark.BenchmarkData.BatteryModel;
+import com.sap.charging.model.Car;
+import com.sap.charging.model.ChargingStation;
+import com.sap.charging.realTime.model.CarAssignmentStore;
+import com.sap.charging.server.api.v1.OptimizeChargingProfilesRequest;
+import com.sap.charging.server.api.v1.store.EventStore;
+import com.sap.charging.server.api.v1.store.StateStore;
+import com.sap.charging.sim.event.EventType;
+
+/**
+ * Request handling of the server API without the optimization: JSON (de)serialization of OptimizeChargingProfilesRequest
+ * (with fuse tree, all cars assigned) and StateStore.toState().
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ServerApiBenchmark {
+
+	@Param({"20", "200"})
+	public int nCars;
+
+	@Param({"200"})
+	public int nChargingStations;
+
+	@Param({"1", "3", "5"})
+	public int fuseTreeDepth;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private OptimizeChargingProfilesRequest request;
+	private String requestJSON;
+
+	@Setup(Level.Trial)
+	public void setupTrial() throws JsonProcessingException {
+		BenchmarkData data = new BenchmarkData(nCars, nChargingStations, fuseTreeDepth, BatteryModel.LINEAR).plan(nCars);
+		com.sap.charging.realTime.State state = data.buildState();
+
+		List<CarAssignmentStore> carAssignments = new ArrayList<>();
+		List<Car> cars = new ArrayList<>();
+		for (Car car : state.getCars()) {
+			if (state.isCarCurrentlyAssigned(car)) {
+				ChargingStation chargingStation = state.getCurrentCarAssignment(car).chargingStation;
+				carAssignments.add(new CarAssignmentStore(car.getId(), chargingStation.getId()));
+				cars.add(car);
+			}
+		}
+		StateStore stateStore = new StateStore(state.currentTimeSeconds, state.fuseTree, null, null, cars, state.energyPriceHistory, carAssignments);
+		request = new OptimizeChargingProfilesRequest(stateStore, new EventStore(-1, -1, null, EventType.Reoptimize), null, 0);
+		// Clients pass either the fuse tree or charging stations, the serialized StateStore contains both
+		ObjectNode requestNode = objectMapper.valueToTree(request);
+		((ObjectNode) requestNode.get("state")).remove("chargingStations");
+		requestJSON = objectMapper.writeValueAsString(requestNode);
+	}
+
+	@Benchmark
+	public String serializeRequest() throws JsonProcessingException {
+		return objectMapper.writeValueAsString(request);
+	}
+
+	@Benchmark
+	public OptimizeChargingProfilesRequest deserializeRequest() throws IOException {
+		return objectMapper.readValue(requestJSON, OptimizeChargingProfilesRequest.class);
+	}
+
+	@Benchmark
+	public com.sap.charging.realTime.State toState() {
+		return request.state.toState();
+	}
+
+}
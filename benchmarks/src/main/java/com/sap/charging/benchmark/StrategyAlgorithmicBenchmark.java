@@ -0,0 +1,108 @@
+package com.sap.charging.benchmark;
+
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sap.charging.benchmark.BenchmarkData.BatteryModel;
+import com.sap.charging.dataGeneration.DataGeneratorRandom;
+import com.sap.charging.model.Car;
+import com.sap.charging.model.EnergyPriceHistory;
+import com.sap.charging.realTime.StrategyAlgorithmic;
+import com.sap.charging.sim.event.Event;
+import com.sap.charging.sim.event.EventCarArrival;
+import com.sap.charging.sim.event.EventCarDeparture;
+import com.sap.charging.sim.event.EventCarFinished;
+import com.sap.charging.sim.event.EventEnergyPriceChange;
+import com.sap.charging.sim.event.EventReoptimize;
+import com.sap.charging.sim.event.EventType;
+
+/**
+ * StrategyAlgorithmic.react(state, event) for each EventType. All cars but the last one are planned,
+ * the event concerns the last car (CarArrival) or the first planned car (CarDeparture, CarFinished).
+ * The state is rebuilt before each invocation since react changes it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StrategyAlgorithmicBenchmark {
+
+	@Param({"20", "200"})
+	public int nCars;
+
+	@Param({"200"})
+	public int nChargingStations;
+
+	@Param({"1", "3", "5"})
+	public int fuseTreeDepth;
+
+	@Param({"LINEAR", "NONLINEAR"})
+	public BatteryModel batteryModel;
+
+	@Param({"CarArrival", "CarDeparture", "CarFinished", "EnergyPriceChange", "Reoptimize"})
+	public EventType eventType;
+
+	private BenchmarkData data;
+	private EnergyPriceHistory newEnergyPriceHistory;
+
+	private com.sap.charging.realTime.State state;
+	private StrategyAlgorithmic strategy;
+	private Event event;
+
+	@Setup(Level.Trial)
+	public void setupTrial() {
+		data = new BenchmarkData(nCars, nChargingStations, fuseTreeDepth, batteryModel).plan(nCars-1);
+		DataGeneratorRandom priceData = new DataGeneratorRandom(BenchmarkData.SEED+1, false);
+		newEnergyPriceHistory = priceData.generateEnergyPriceHistory(96).getEnergyPriceHistory();
+	}
+
+	@Setup(Level.Invocation)
+	public void setupInvocation() {
+		state = data.buildState();
+		strategy = data.buildStrategy();
+		LocalTime timestamp = LocalTime.ofSecondOfDay(state.currentTimeSeconds);
+		Car lastCar = state.getCars().get(nCars-1);
+		Car firstCar = state.getCars().get(0);
+		switch (eventType) {
+		case CarArrival:
+			event = new EventCarArrival(timestamp, lastCar);
+			break;
+		case CarDeparture:
+			event = new EventCarDeparture(timestamp, firstCar);
+			break;
+		case CarFinished:
+			event = new EventCarFinished(timestamp, firstCar, state.getCurrentCarAssignment(firstCar).chargingStation);
+			break;
+		case EnergyPriceChange:
+			event = new EventEnergyPriceChange(timestamp, newEnergyPriceHistory);
+			break;
+		case Reoptimize:
+			event = new EventReoptimize(timestamp);
+			break;
+		default:
+			throw new RuntimeException("NOT IMPLEMENTED");
+		}
+	}
+
+	@Benchmark
+	public com.sap.charging.realTime.State react() {
+		strategy.react(state, event);
+		return state;
+	}
+
+}
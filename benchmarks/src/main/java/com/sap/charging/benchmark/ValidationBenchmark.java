@@ -0,0 +1,75 @@
+package com.sap.charging.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sap.charging.benchmark.BenchmarkData.BatteryModel;
+import com.sap.charging.sim.eval.Validation;
+import com.sap.charging.sim.eval.exception.FuseTreeException;
+
+/**
+ * Validation.checkSummedChildConsumptionAtTimeslot(...) of the whole fuse tree for the planned (valid) state,
+ * for the timeslot with the highest planned demand and for all timeslots of the day.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidationBenchmark {
+
+	@Param({"20", "200"})
+	public int nCars;
+
+	@Param({"200", "1000"})
+	public int nChargingStations;
+
+	@Param({"1", "3", "5"})
+	public int fuseTreeDepth;
+
+	private com.sap.charging.realTime.State state;
+	private int peakTimeslot;
+
+	@Setup(Level.Trial)
+	public void setupTrial() {
+		BenchmarkData data = new BenchmarkData(nCars, nChargingStations, fuseTreeDepth, BatteryModel.LINEAR).plan(nCars);
+		state = data.buildState();
+
+		double peakDemand = -1;
+		for (int k=state.currentTimeslot;k<state.energyPriceHistory.getNTimeslots();k++) {
+			double demand = state.getPlannedDemandProfile().getDemand(k);
+			if (demand > peakDemand) {
+				peakDemand = demand;
+				peakTimeslot = k;
+			}
+		}
+	}
+
+	@Benchmark
+	public com.sap.charging.realTime.State checkPeakTimeslot() throws FuseTreeException {
+		Validation.checkSummedChildConsumptionAtTimeslot(state.fuseTree.getRootFuse(), state, peakTimeslot);
+		return state;
+	}
+
+	@Benchmark
+	public com.sap.charging.realTime.State checkAllTimeslots() throws FuseTreeException {
+		for (int k=state.currentTimeslot;k<state.energyPriceHistory.getNTimeslots();k++) {
+			Validation.checkSummedChildConsumptionAtTimeslot(state.fuseTree.getRootFuse(), state, k);
+		}
+		return state;
+	}
+
+}
@@ -21,6 +21,7 @@ import com.sap.charging.realTime.StrategyAlgorithmic;
 import com.sap.charging.realTime.StrategyFromDayahead;
 import com.sap.charging.realTime.StrategyGreedy;
 import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.FileIO;
 import com.sap.charging.util.cli.CLArgumentInvalidFormat;
 import com.sap.charging.util.cli.CLArgumentInvalidName;
@@ -41,8 +42,8 @@ public class AppCLI {
 		cli.init(args);
 		
 		int verbosity = cli.verbosity.getValue();
-		Simulation.verbosity = verbosity;
-		InstanceLP.verbosity = verbosity;
+		SimulationContext.getGlobal().setVerbosity(verbosity);
+		SimulationContext.getGlobal().setLPVerbosity(verbosity);
 		
 		int fuseLevel0 = cli.fuseLevel0.getValue();
 		CONSTANTS.FUSE_LEVEL_0_SIZE = fuseLevel0;
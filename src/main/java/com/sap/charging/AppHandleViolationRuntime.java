@@ -0,0 +1,153 @@
+package com.sap.charging;
+
+import java.util.List;
+
+import com.sap.charging.dataGeneration.DataGeneratorRandom;
+import com.sap.charging.model.Car;
+import com.sap.charging.model.ChargingStation;
+import com.sap.charging.model.EnergyUtil.Phase;
+import com.sap.charging.model.Fuse;
+import com.sap.charging.model.FuseTree;
+import com.sap.charging.realTime.State;
+import com.sap.charging.realTime.StrategyAlgorithmic;
+import com.sap.charging.realTime.model.CarAssignment;
+import com.sap.charging.realTime.util.CarAssignmentPriorityQueue;
+import com.sap.charging.sim.SimulationContext;
+import com.sap.charging.sim.eval.Validation;
+import com.sap.charging.util.SortableElement;
+
+/**
+ * Measures violation handling of StrategyAlgorithmic on a 5 level fuse tree (root, 4 levels of 4 child fuses each) with 1000 cars
+ * that all arrive at the same time, so that fuses on every level are violated.
+ *
+ * 1. Planning all cars (reactCarArrival), i.e. resolving all violations
+ * 2. Selecting the cars to reschedule at the root fuse: Sorted list (previous implementation) vs. priority queue
+ */
+public class AppHandleViolationRuntime {
+
+	private static final int nCars = 1000;
+	private static final int nFuseLevels = 5;
+	private static final int nChildFuses = 4;
+	private static final double[] fuseSizes = {2000, 600, 200, 70, 40};
+	private static final int nRepetitions = 5;
+
+	public static void main(String[] args) {
+
+		SimulationContext.getGlobal().setVerbosity(0);
+
+		for (int repetition=0;repetition<nRepetitions;repetition++) {
+			State state = buildState();
+			StrategyAlgorithmic strategy = new StrategyAlgorithmic();
+
+			long startTime = System.nanoTime();
+			for (Car car : state.getCars()) {
+				strategy.reactCarArrival(state, car);
+			}
+			long planningTime = System.nanoTime() - startTime;
+			if (Validation.isFuseTreeValid(state) == false) {
+				throw new RuntimeException("Fuse tree is not valid after planning all cars");
+			}
+
+			// Reschedule every 4th car of the root fuse, skip the others
+			List<CarAssignment> carAssignments = state.getCarAssignmentsByFuse(state.fuseTree.getRootFuse());
+			int nReschedules = carAssignments.size() / 4;
+
+			startTime = System.nanoTime();
+			long checksumList = 0;
+			for (int i=0;i<10;i++) {
+				checksumList += selectWithSortedList(strategy, state, carAssignments, nReschedules);
+			}
+			long listTime = System.nanoTime() - startTime;
+
+			startTime = System.nanoTime();
+			long checksumQueue = 0;
+			for (int i=0;i<10;i++) {
+				checksumQueue += selectWithPriorityQueue(strategy, state, carAssignments, nReschedules);
+			}
+			long queueTime = System.nanoTime() - startTime;
+			if (checksumList != checksumQueue) {
+				throw new RuntimeException("Order differs: checksumList=" + checksumList + ", checksumQueue=" + checksumQueue);
+			}
+
+			System.out.println("Repetition " + repetition + ": Planning " + nCars + " cars: " + planningTime / 1000000 + "ms" +
+					", selecting " + nReschedules + " of " + carAssignments.size() + " cars at root fuse: " +
+					"sorted list " + listTime / 10 / 1000 + "us, priority queue " + queueTime / 10 / 1000 + "us");
+		}
+	}
+
+	private static boolean isRescheduled(CarAssignment carAssignment) {
+		return carAssignment.car.getId() % 4 == 0;
+	}
+
+	/**
+	 * Previous selection in handleViolation: Sort all cars, scan from the lowest priority, remove the selected car from the ArrayList
+	 */
+	private static long selectWithSortedList(StrategyAlgorithmic strategy, State state, List<CarAssignment> carAssignments, int nReschedules) {
+		List<SortableElement<CarAssignment>> sortedCars = strategy.getSortedCarsByPriority(carAssignments, state.currentTimeSeconds, state.currentTimeslot);
+		long checksum = 0;
+		for (int n=0;n<nReschedules;n++) {
+			int index = 0;
+			for (int i=0;i<sortedCars.size();i++) {
+				if (isRescheduled(sortedCars.get(i).index)) {
+					index = i;
+					break;
+				}
+			}
+			checksum = 31*checksum + sortedCars.remove(index).index.car.getId();
+		}
+		return checksum;
+	}
+
+	private static long selectWithPriorityQueue(StrategyAlgorithmic strategy, State state, List<CarAssignment> carAssignments, int nReschedules) {
+		CarAssignmentPriorityQueue queue = strategy.getCarsByPriority(carAssignments, state.currentTimeSeconds, state.currentTimeslot);
+		long checksum = 0;
+		for (int n=0;n<nReschedules;n++) {
+			checksum = 31*checksum + queue.pollFirstMatching(AppHandleViolationRuntime::isRescheduled).car.getId();
+		}
+		return checksum;
+	}
+
+	private static State buildState() {
+		DataGeneratorRandom data = new DataGeneratorRandom(0, false);
+		data.generateEnergyPriceHistory(96)
+			.generateCars(nCars)
+			.generateChargingStations(nCars);
+
+		Fuse rootFuse = new Fuse(0, fuseSizes[0]);
+		int[] counters = {1, 0};
+		addChildFuses(rootFuse, 1, data.getChargingStations(), counters);
+
+		// All cars are available at the same time
+		Car firstCar = data.getCars().stream().min((car1, car2) -> car1.timestampArrival.compareTo(car2.timestampArrival)).get();
+		for (Car car : data.getCars()) {
+			car.timestampArrival = firstCar.timestampArrival;
+		}
+
+		State state = new State(0, data);
+		state.fuseTree = new FuseTree(rootFuse, nCars);
+		state.setTimeSeconds(firstCar.timestampArrival.toSecondOfDay());
+		return state;
+	}
+
+	/**
+	 * Charging stations are distributed round robin over the fuses of the lowest level
+	 */
+	private static void addChildFuses(Fuse fuse, int level, List<ChargingStation> chargingStations, int[] counters) {
+		if (level == nFuseLevels) {
+			int nLeafFuses = (int) Math.pow(nChildFuses, nFuseLevels-1);
+			int leafIndex = counters[1]++;
+			for (int i=leafIndex;i<chargingStations.size();i+=nLeafFuses) {
+				ChargingStation chargingStation = chargingStations.get(i);
+				chargingStation.setPhaseMatching(Phase.PHASE_1, Phase.PHASE_2, Phase.PHASE_3);
+				fuse.addChild(chargingStation);
+			}
+			return;
+		}
+		for (int i=0;i<nChildFuses;i++) {
+			Fuse childFuse = new Fuse(counters[0]++, fuseSizes[level]);
+			fuse.addChild(childFuse);
+			addChildFuses(childFuse, level+1, chargingStations, counters);
+		}
+	}
+
+}
@@ -17,6 +17,7 @@ import com.sap.charging.opt.lp.util.SolverSCIP;
 import com.sap.charging.opt.solution.model.DayaheadSchedule;
 import com.sap.charging.realTime.StrategyFromDayahead;
 import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.FileIO;
 
 /**
@@ -82,7 +83,7 @@ public class AppLP {
 		cars.remove(0);
 		cars.add(car1);*/
 		
-		InstanceLP.verbosity = 3;
+		SimulationContext.getGlobal().setLPVerbosity(3);
 		InstanceLP instance = new InstanceLP(cars, chargingStations, energyPriceHistory, fuseTree);
 		//instance.setNormalizingCoefficients(true);
 		//System.out.println(instance.getCars().get(0));
@@ -109,7 +110,7 @@ public class AppLP {
 			double duration = (endTime - startTime) / 1000.0; 
 			System.out.println(duration);
 			
-			Simulation.verbosity = 0;
+			SimulationContext.getGlobal().setVerbosity(0);
 			Simulation sim = new Simulation(dataGenerator, new StrategyFromDayahead(new DayaheadSchedule(instance.getSolvedProblemInstanceJSON())));
 			//System.out.println(car1);
 			sim.simulate();
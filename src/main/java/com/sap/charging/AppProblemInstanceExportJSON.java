@@ -5,6 +5,7 @@ import com.sap.charging.opt.CONSTANTS;
 import com.sap.charging.realTime.Strategy;
 import com.sap.charging.realTime.StrategyGreedy;
 import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.FileIO;
 import com.sap.charging.util.random.Distribution;
 import com.sap.charging.util.random.NormalDistribution;
@@ -12,7 +13,7 @@ import com.sap.charging.util.random.NormalDistribution;
 public class AppProblemInstanceExportJSON {
 	
 	public static void main(String[] args) {
-		Simulation.verbosity = 1;
+		SimulationContext.getGlobal().setVerbosity(1);
 		
 		int seed = 0;
 		
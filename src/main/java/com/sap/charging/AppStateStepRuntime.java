@@ -0,0 +1,88 @@
+package com.sap.charging;
+
+import com.sap.charging.dataGeneration.DataGeneratorRandom;
+import com.sap.charging.model.Car;
+import com.sap.charging.realTime.StrategyGreedy;
+import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
+
+/**
+ * Measures the time of simulated seconds (Simulation.simulateNextStep: events, power assignments from plans, charging,
+ * validation) for a growing number of charging stations, with one car per charging station.
+ * Measured seconds start after all cars arrived. Strategy reactions to the remaining events (e.g. cars that are fully
+ * charged) are reported separately.
+ *
+ * With incremental validation (default) the time per second and charging station without reactions should stay roughly flat.
+ * With a full validation every second (Validation.validateState) it grows with the number of charging stations.
+ */
+public class AppStateStepRuntime {
+
+	private static final int[] nChargingStationsList = {100, 200, 400, 800, 1600, 3200};
+	private static final int nWarmupSteps = 300;
+	private static final int nSteps = 600;
+
+	public static void main(String[] args) {
+
+		SimulationContext.getGlobal().setVerbosity(0);
+
+		// Warm up
+		measureStepTimes(nChargingStationsList[0], 0);
+
+		for (int nChargingStations : nChargingStationsList) {
+			System.out.println("nChargingStations=" + nChargingStations + 
+					": " + format(measureStepTimes(nChargingStations, 0), nChargingStations) + 
+					", with full validation every second: " + format(measureStepTimes(nChargingStations, 1), nChargingStations));
+		}
+	}
+
+	private static String format(double[] stepTimes, int nChargingStations) {
+		double withoutReactions = stepTimes[0] - stepTimes[1];
+		return String.format("%.1fus per second (reactions %.1fus), without reactions %.1fns per second and charging station",
+				stepTimes[0] / 1000, stepTimes[1] / 1000, withoutReactions / nChargingStations);
+	}
+
+	/**
+	 * @param nChargingStations
+	 * @param fullValidationInterval See Simulation.setFullValidationInterval()
+	 * @return Average time per simulated second and average time of strategy reactions per simulated second in ns
+	 */
+	private static double[] measureStepTimes(int nChargingStations, int fullValidationInterval) {
+		Simulation sim = buildSimulation(nChargingStations);
+		sim.setFullValidationInterval(fullValidationInterval);
+		sim.init();
+
+		// Until all cars arrived and were planned
+		int arrivalSeconds = sim.getSecondsFirstCarArrival();
+		while (sim.getState().currentTimeSeconds <= arrivalSeconds) {
+			sim.simulateNextStep();
+		}
+		for (int step=0;step<nWarmupSteps;step++) {
+			sim.simulateNextStep();
+		}
+
+		double reactionTimeBefore = sim.getSimulationResult().timeSolution.getTime();
+		long startTime = System.nanoTime();
+		for (int step=0;step<nSteps;step++) {
+			sim.simulateNextStep();
+		}
+		double stepTime = (double) (System.nanoTime() - startTime) / nSteps;
+		double reactionTime = (sim.getSimulationResult().timeSolution.getTime() - reactionTimeBefore) * 1e9 / nSteps;
+		return new double[] {stepTime, reactionTime};
+	}
+
+	private static Simulation buildSimulation(int nChargingStations) {
+		DataGeneratorRandom data = new DataGeneratorRandom(0, false);
+		data.generateEnergyPriceHistory(96)
+			.generateCars(nChargingStations)
+			.generateChargingStations(nChargingStations)
+			.generateFuseTree(nChargingStations, true);
+
+		// All cars are available at the same time
+		Car firstCar = data.getCars().stream().min((car1, car2) -> car1.timestampArrival.compareTo(car2.timestampArrival)).get();
+		for (Car car : data.getCars()) {
+			car.timestampArrival = firstCar.timestampArrival;
+		}
+		return new Simulation(data, new StrategyGreedy());
+	}
+
+}
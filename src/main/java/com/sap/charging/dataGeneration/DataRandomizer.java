@@ -10,7 +10,7 @@ import java.util.Random;
 
 import com.sap.charging.model.Car;
 import com.sap.charging.model.EnergyPriceHistory;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.Loggable;
 import com.sap.charging.util.random.Distribution;
 
@@ -31,7 +31,7 @@ public class DataRandomizer extends DataGenerator implements Loggable {
 	private final Random random;
 	
 	public int getVerbosity() {
-		return Simulation.verbosity;
+		return SimulationContext.getCurrentVerbosity();
 	}
 	
 	/**
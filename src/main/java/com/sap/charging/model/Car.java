@@ -15,7 +15,7 @@ import com.sap.charging.model.CarFactory.CarType;
 import com.sap.charging.model.EnergyUtil.Phase;
 import com.sap.charging.model.battery.BatteryData;
 import com.sap.charging.model.battery.CarBattery;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.JSONKeys;
 import com.sap.charging.util.JSONSerializable;
 import com.sap.charging.util.Loggable;
@@ -151,6 +151,17 @@ public class Car implements JSONSerializable, Loggable {
 	 * value is currentPerPhase, for example to be given to OCPP.
 	 */
 	private double[] currentPlan = null;
+	
+	/**
+	 * Rolling hash of currentPlan, maintained by setCurrentPlan() and setCurrentPlanValue(). 
+	 * Writes directly into the array returned by getCurrentPlan() are not tracked.
+	 */
+	private long currentPlanFingerprint = 0;
+	
+	/**
+	 * Incremented by setCurrentPlan() and setCurrentPlanValue() (used to detect changed plans, e.g. by PlannedDemandProfile)
+	 */
+	private int currentPlanModificationCount = 0;
 
 	private CarProcessData carProcessData;
 
@@ -527,6 +538,58 @@ public class Car implements JSONSerializable, Loggable {
 					+ " availableTimeslots (" + availableTimeslots.length + ")");
 		}
 		this.currentPlan = currentPlan;
+		this.currentPlanFingerprint = computeCurrentPlanFingerprint(currentPlan);
+		this.currentPlanModificationCount++;
+	}
+	
+	/**
+	 * Sets the planned current per phase at timeslot k and updates the plan fingerprint
+	 * @param k
+	 * @param value
+	 */
+	public void setCurrentPlanValue(int k, double value) {
+		currentPlanFingerprint += getCurrentPlanFingerprintTerm(k, value) - getCurrentPlanFingerprintTerm(k, currentPlan[k]);
+		currentPlan[k] = value;
+		currentPlanModificationCount++;
+	}
+	
+	/**
+	 * Fingerprint (hash) of the current plan, equal plans have equal fingerprints. 
+	 * Only up to date if the plan was modified with setCurrentPlan() and setCurrentPlanValue().
+	 * @return
+	 */
+	@JsonIgnore
+	public long getCurrentPlanFingerprint() {
+		return currentPlanFingerprint;
+	}
+	
+	/**
+	 * Only changed by setCurrentPlan() and setCurrentPlanValue()
+	 * @return
+	 */
+	@JsonIgnore
+	public int getCurrentPlanModificationCount() {
+		return currentPlanModificationCount;
+	}
+	
+	public static long computeCurrentPlanFingerprint(double[] currentPlan) {
+		long result = 0;
+		if (currentPlan != null) {
+			for (int k=0;k<currentPlan.length;k++) {
+				result += getCurrentPlanFingerprintTerm(k, currentPlan[k]);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Mixes timeslot and value (splitmix64 finalizer), terms are summed so that single timeslots can be replaced
+	 */
+	private static long getCurrentPlanFingerprintTerm(int k, double value) {
+		long z = Double.doubleToLongBits(value) + (k+1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
 	}
 
 	public double getChargedCapacity() {
@@ -636,6 +699,7 @@ public class Car implements JSONSerializable, Loggable {
 		result.setChargedCapacity((double) o.get(JSONKeys.JSON_KEY_CAR_CHARGED_CAPACITY));
 		if (o.get(JSONKeys.JSON_KEY_CURRENT_PLAN) != null) {
 			result.currentPlan = JSONSerializable.getJSONAttributeAsDoubleArray(o.get(JSONKeys.JSON_KEY_CURRENT_PLAN));
+			result.currentPlanFingerprint = computeCurrentPlanFingerprint(result.currentPlan);
 		}
 		return result;
 	}
@@ -651,7 +715,7 @@ public class Car implements JSONSerializable, Loggable {
 
 	@Override
 	public int getVerbosity() {
-		return Simulation.verbosity;
+		return SimulationContext.getCurrentVerbosity();
 	}
 
 	@Override
@@ -6,14 +6,14 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.sap.charging.model.battery.BatteryData;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.Loggable;
 
 public class CarFactory implements Loggable {
 
 	@Override
 	public int getVerbosity() {
-		return Simulation.verbosity;
+		return SimulationContext.getCurrentVerbosity();
 	}
 	
 	private final static int initialId = -1;
@@ -8,21 +8,19 @@ import org.rosuda.REngine.REXPDouble;
 import org.rosuda.REngine.REXPInteger;
 import org.rosuda.REngine.REXPString;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.sap.charging.util.FileIO;
 import com.sap.charging.util.r.RConnector;
 
 public class CarProcessData {
 
 	
-	@JsonIgnore
-	public static final String pathModelCarProcessDistributions = FileIO.readJSONFile("config.json").get("pathToCarProcessDistributions").toString() + "/carProcessDistributions.bin";
-	@JsonIgnore
-	public static final String pathScriptSampleCarProcessDistribution = FileIO.readJSONFile("config.json").get("pathToCarProcessDistributions").toString() + "/sampleCarProcessDistributions.R";
-	@JsonIgnore
-	public static final String pathModelDataPaperJournal2019 = FileIO.readJSONFile("config.json").get("pathToCarProcessDistributions").toString() + "/dataPaperJournal2019.bin";
-	@JsonIgnore
-	public static final String pathScriptSampleDataPaperJournal2019 = FileIO.readJSONFile("config.json").get("pathToCarProcessDistributions").toString() + "/sampleCars.R";
+	/**
+	 * Only needed for sampling via R, so CarProcessData can be used without config.json (e.g. for forecasts evaluated in the JVM)
+	 * @return
+	 */
+	private static String getPathToCarProcessDistributions() {
+		return FileIO.readJSONFile("config.json").get("pathToCarProcessDistributions").toString();
+	}
 	
 	/**
 	 * Can be directly used as input for ML in R
@@ -76,8 +74,9 @@ public class CarProcessData {
 		long timeStart = System.currentTimeMillis();		
 		
 		// Load probability distributions
-		String rCommand = "load('" + pathModelCarProcessDistributions + "')\n";
-		rCommand += "source('" + pathScriptSampleCarProcessDistribution + "')\n";
+		String pathToCarProcessDistributions = getPathToCarProcessDistributions();
+		String rCommand = "load('" + pathToCarProcessDistributions + "/carProcessDistributions.bin')\n";
+		rCommand += "source('" + pathToCarProcessDistributions + "/sampleCarProcessDistributions.R')\n";
 		rCommand += "sampleCarProcessDistributions(" + nCars + ",seedParam=" + seed + ")\n";
 		
 		rCommand = rConnector.addRTryCtach(rCommand);
@@ -140,9 +139,10 @@ public class CarProcessData {
 		rConnector.log(1, "Sampling car process data from density for nCars=" + nCars + " via R...");
 		long timeStart = System.currentTimeMillis();		
 		
-		String rCommand = "load('" + pathModelDataPaperJournal2019 + "')\n";
+		String pathToCarProcessDistributions = getPathToCarProcessDistributions();
+		String rCommand = "load('" + pathToCarProcessDistributions + "/dataPaperJournal2019.bin')\n";
 		//rCommand += "install.packages('data.table')\n";
-		rCommand += "source('" + pathScriptSampleDataPaperJournal2019 + "')\n";
+		rCommand += "source('" + pathToCarProcessDistributions + "/sampleCars.R')\n";
 		rCommand += "sampleCars(" + nCars + ", seedParam=" + seed + ")\n";
 		
 		rCommand = rConnector.addRTryCtach(rCommand);
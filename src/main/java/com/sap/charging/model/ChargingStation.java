@@ -78,6 +78,22 @@ public class ChargingStation implements FuseTreeNode {
 	@JsonIgnore
 	private FuseTreeNode parent;
 
+	/**
+	 * Phase connectivity throughout the fuse tree, cached until the topology of the station or one of its ancestors changes (see CompiledFuseTree.topologyChanged)
+	 */
+	@JsonIgnore
+	private volatile PhaseConnectivity phaseConnectivity;
+
+	private static class PhaseConnectivity {
+		private final int gridPhaseMask;
+		private final int stationPhaseMask;
+
+		private PhaseConnectivity(int gridPhaseMask, int stationPhaseMask) {
+			this.gridPhaseMask = gridPhaseMask;
+			this.stationPhaseMask = stationPhaseMask;
+		}
+	}
+
 	@JsonCreator
 	public ChargingStation(@JsonProperty(value = "id", required = true) int id,
 			@JsonProperty("fusePhase1") double fusePhase1, @JsonProperty("fusePhase2") double fusePhase2,
@@ -158,6 +174,7 @@ public class ChargingStation implements FuseTreeNode {
 			throw new RuntimeException("Error assigning connected=false with fusePhase1=" + fusePhase1 + " greater 0"); 
 		}
 		this.phase1Connected = connected; 
+		CompiledFuseTree.topologyChanged(this);
 	}
 	
 	@Override
@@ -169,6 +186,7 @@ public class ChargingStation implements FuseTreeNode {
 			throw new RuntimeException("Error assigning connected=false with fusePhase2=" + fusePhase2 + " greater 0"); 
 		}
 		this.phase2Connected = connected; 
+		CompiledFuseTree.topologyChanged(this);
 	}
 
 	@Override
@@ -180,6 +198,7 @@ public class ChargingStation implements FuseTreeNode {
 			throw new RuntimeException("Error assigning connected=false with fusePhase3=" + fusePhase3 + " greater 0"); 
 		}
 		this.phase3Connected = connected; 
+		CompiledFuseTree.topologyChanged(this);
 	}
 
 	@JsonIgnore
@@ -213,6 +232,7 @@ public class ChargingStation implements FuseTreeNode {
 		phaseToChargingStation.put(phase1Grid, Phase.PHASE_1);
 		phaseToChargingStation.put(phase2Grid, Phase.PHASE_2);
 		phaseToChargingStation.put(phase3Grid, Phase.PHASE_3);
+		CompiledFuseTree.topologyChanged(this);
 	}
 
 	public Phase getPhaseConsumed(Phase phaseAtChargingStation) {
@@ -251,42 +271,64 @@ public class ChargingStation implements FuseTreeNode {
 	 * @return
 	 */
 	public boolean isPhaseAtGridConnectedInFuseTree(Phase phaseAtGrid) {
-		 
-		Phase phaseAtChargingStation = this.getPhaseGridToChargingStation(phaseAtGrid); 
-		
+		return (getPhaseConnectivity().gridPhaseMask & (1 << (phaseAtGrid.asInt()-1))) != 0; 
+	}
+
+	public boolean isPhaseAtStationConnectedInFuseTree(Phase phaseAtStation) {
+		return (getPhaseConnectivity().stationPhaseMask & (1 << (phaseAtStation.asInt()-1))) != 0; 
+	}
+
+	private PhaseConnectivity getPhaseConnectivity() {
+		PhaseConnectivity result = this.phaseConnectivity; 
+		if (result == null) {
+			int gridPhaseMask = 0; 
+			int stationPhaseMask = 0; 
+			for (Phase phase : Phase.values()) {
+				if (computeIsPhaseAtGridConnectedInFuseTree(phase)) {
+					gridPhaseMask |= 1 << (phase.asInt()-1); 
+				}
+				if (computeIsPhaseAtStationConnectedInFuseTree(phase)) {
+					stationPhaseMask |= 1 << (phase.asInt()-1); 
+				}
+			}
+			result = new PhaseConnectivity(gridPhaseMask, stationPhaseMask); 
+			this.phaseConnectivity = result; 
+		}
+		return result; 
+	}
+
+	void invalidatePhaseConnectivity() {
+		this.phaseConnectivity = null; 
+	}
+
+	private boolean computeIsPhaseAtGridConnectedInFuseTree(Phase phaseAtGrid) {
+		Phase phaseAtChargingStation = (phaseToChargingStation != null) ? this.getPhaseGridToChargingStation(phaseAtGrid) : phaseAtGrid; 
 		// Check whether charging station is connected on its local phase
 		if (this.isPhaseConnected(phaseAtChargingStation) == false) {
 			return false; 
 		}
-		
 		// Check the chain of parent FuseTreeNodes in the fuse tree if this phase is connected 
 		FuseTreeNode parent = this.getParent(); 
 		if (parent != null && parent.isPhaseAtGridConnectedInFuseTree(phaseAtGrid) == false) {
 			return false; 
 		}
-		
 		return true; 
 	}
-	
-	public boolean isPhaseAtStationConnectedInFuseTree(Phase phaseAtStation) {
-		
+
+	private boolean computeIsPhaseAtStationConnectedInFuseTree(Phase phaseAtStation) {
 		// Check whether charging station is connected on its local phase
 		if (this.isPhaseConnected(phaseAtStation) == false) {
 			return false; 
 		}
-		
-		Phase phaseAtGrid = this.getPhaseConsumed(phaseAtStation);
-		// Check the chain of parent fuseTreeNodes i nthe fuse tree if this phase is connected
+		Phase phaseAtGrid = (phaseToGrid != null) ? this.getPhaseConsumed(phaseAtStation) : phaseAtStation;
+		// Check the chain of parent fuseTreeNodes in the fuse tree if this phase is connected
 		FuseTreeNode parent = this.getParent(); 
 		if (parent != null && parent.isPhaseAtGridConnectedInFuseTree(phaseAtGrid) == false) {
 			return false; 
 		}
-		
 		return true; 
 	}
-	
-	
-	
+
 	@Override
 	public String toString() {
 		String result = "ChargingStation i" + getId() + ": " + fusePhase1 + "A/" + fusePhase2 + "A/" + fusePhase3 + "A. ";
@@ -316,7 +358,11 @@ public class ChargingStation implements FuseTreeNode {
 
 	@Override
 	public void setParent(FuseTreeNode parent) {
+		if (this.parent != null) {
+			CompiledFuseTree.topologyChanged(this.parent);
+		}
 		this.parent = parent;
+		CompiledFuseTree.topologyChanged(this);
 	}
 
 	@SuppressWarnings("unchecked")
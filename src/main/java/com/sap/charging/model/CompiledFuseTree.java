@@ -0,0 +1,328 @@
+package com.sap.charging.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sap.charging.model.EnergyUtil.Phase;
+
+/**
+ * Immutable, array based representation of a FuseTree for hot paths (validation, scheduling). Use FuseTree.getCompiledFuseTree().
+ *
+ * Nodes are numbered in the same depth first (pre-)order as FuseTree.traverseTree(), so the subtree of node i consists of the
+ * nodes i to getSubtreeEnd(i)-1 (Euler tour ranges) and the charging stations below a fuse are a contiguous range of the charging station list.
+ * Phase connectivity (see ChargingStation.isPhaseAtGridConnectedInFuseTree) and phase matching are stored as bit masks and lookup tables.
+ *
+ * Fuse sizes are not compiled, they are read from the nodes on every check.
+ * The topology (children, parents, phase connections, phase matching) is compiled: Any change of it gives the root of the changed tree
+ * a new topology version and the compiled tree is rebuilt on next access. Other trees are not affected.
+ */
+public class CompiledFuseTree {
+
+	/**
+	 * Source of unique topology versions. Its current value is also the version of nodes that are not below a fuse (detached
+	 * charging stations).
+	 */
+	private static final AtomicLong lastTopologyVersion = new AtomicLong();
+
+	private static final Phase[] PHASES = Phase.values();
+
+	private final Fuse rootFuse;
+	private final long version;
+
+	private final FuseTreeNode[] nodes;
+	private final IdentityHashMap<FuseTreeNode, Integer> nodeIndices;
+
+	/**
+	 * Index of the parent node, -1 for the root
+	 */
+	private final int[] parentIndices;
+
+	/**
+	 * Subtree of node i: [i, subtreeEnds[i])
+	 */
+	private final int[] subtreeEnds;
+
+	/**
+	 * Charging stations of the subtree of node i: [chargingStationsStart[i], chargingStationsEnd[i])
+	 */
+	private final int[] chargingStationsStart;
+	private final int[] chargingStationsEnd;
+
+	/**
+	 * Bit p (0-based grid phase) is set if the phase is connected from the node up to the root
+	 */
+	private final int[] gridPhaseMasks;
+
+	private final List<ChargingStation> chargingStations;
+	private final int[] chargingStationNodeIndices;
+
+	/**
+	 * Bit p (0-based station phase) is set if the phase at the charging station is connected throughout the fuse tree
+	 */
+	private final int[] stationPhaseMasks;
+
+	/**
+	 * Flat arrays with 3 entries per charging station (0-based phases)
+	 */
+	private final int[] gridToStationPhases;
+	private final int[] stationToGridPhases;
+
+	/**
+	 * Indices of all fuses, ordered by descending ID (order in which Validation checks fuses)
+	 */
+	private final int[] fuseIndicesByIdDescending;
+
+	public CompiledFuseTree(FuseTree fuseTree) {
+		this.rootFuse = fuseTree.getRootFuse();
+		this.version = getTopologyVersion(rootFuse);
+
+		// Preorder numbering
+		List<FuseTreeNode> nodeList = new ArrayList<>();
+		fuseTree.traverseTree(node -> nodeList.add(node));
+		int nNodes = nodeList.size();
+		this.nodes = nodeList.toArray(new FuseTreeNode[nNodes]);
+		this.nodeIndices = new IdentityHashMap<>(nNodes);
+		for (int i=0;i<nNodes;i++) {
+			nodeIndices.put(nodes[i], i);
+		}
+
+		this.parentIndices = new int[nNodes];
+		this.subtreeEnds = new int[nNodes];
+		Arrays.fill(parentIndices, -1);
+		for (int i=0;i<nNodes;i++) {
+			if (nodes[i].hasChildren()) {
+				for (FuseTreeNode child : nodes[i].getChildren()) {
+					parentIndices[nodeIndices.get(child)] = i;
+				}
+			}
+		}
+		// In preorder each node's subtree ends where the next node not below it starts, children come after their parents
+		for (int i=nNodes-1;i>=0;i--) {
+			subtreeEnds[i] = Math.max(subtreeEnds[i], i+1);
+			if (parentIndices[i] >= 0) {
+				subtreeEnds[parentIndices[i]] = Math.max(subtreeEnds[parentIndices[i]], subtreeEnds[i]);
+			}
+		}
+
+		List<ChargingStation> stations = new ArrayList<>();
+		this.chargingStationsStart = new int[nNodes];
+		this.chargingStationsEnd = new int[nNodes];
+		int[] stationCountBefore = new int[nNodes+1];
+		for (int i=0;i<nNodes;i++) {
+			stationCountBefore[i] = stations.size();
+			if (nodes[i] instanceof ChargingStation) {
+				stations.add((ChargingStation) nodes[i]);
+			}
+		}
+		stationCountBefore[nNodes] = stations.size();
+		for (int i=0;i<nNodes;i++) {
+			chargingStationsStart[i] = stationCountBefore[i];
+			chargingStationsEnd[i] = stationCountBefore[subtreeEnds[i]];
+		}
+		this.chargingStations = Collections.unmodifiableList(stations);
+
+		this.gridPhaseMasks = new int[nNodes];
+		for (int i=0;i<nNodes;i++) {
+			if (nodes[i] instanceof Fuse) {
+				for (Phase phase : PHASES) {
+					if (nodes[i].isPhaseAtGridConnectedInFuseTree(phase)) {
+						gridPhaseMasks[i] |= 1 << (phase.asInt()-1);
+					}
+				}
+			}
+		}
+
+		int nStations = stations.size();
+		this.chargingStationNodeIndices = new int[nStations];
+		this.stationPhaseMasks = new int[nStations];
+		this.gridToStationPhases = new int[nStations*3];
+		this.stationToGridPhases = new int[nStations*3];
+		for (int s=0;s<nStations;s++) {
+			ChargingStation chargingStation = stations.get(s);
+			int nodeIndex = nodeIndices.get(chargingStation);
+			chargingStationNodeIndices[s] = nodeIndex;
+			for (Phase phase : PHASES) {
+				int p = phase.asInt()-1;
+				if (chargingStation.isPhaseAtGridConnectedInFuseTree(phase)) {
+					gridPhaseMasks[nodeIndex] |= 1 << p;
+				}
+				if (chargingStation.isPhaseAtStationConnectedInFuseTree(phase)) {
+					stationPhaseMasks[s] |= 1 << p;
+				}
+				// Stations without phase matching consume the same phases as the grid
+				Phase phaseAtStation = chargingStation.getPhaseToChargingStation() != null ? chargingStation.getPhaseGridToChargingStation(phase) : phase;
+				Phase phaseAtGrid = chargingStation.getPhaseToGrid() != null ? chargingStation.getPhaseConsumed(phase) : phase;
+				gridToStationPhases[s*3 + p] = phaseAtStation.asInt()-1;
+				stationToGridPhases[s*3 + p] = phaseAtGrid.asInt()-1;
+			}
+		}
+
+		this.fuseIndicesByIdDescending = nodeList.stream()
+				.filter(node -> node instanceof Fuse)
+				.sorted((node1, node2) -> node2.getId() - node1.getId())
+				.mapToInt(node -> nodeIndices.get(node))
+				.toArray();
+	}
+
+	/**
+	 * Must be called by every change of the topology of a fuse tree (children, parents, phase connections, phase matching).
+	 * Also invalidates the cached phase connectivity of the charging stations below the node (only their ancestors determine it).
+	 * @param node Changed node (after the change)
+	 */
+	static void topologyChanged(FuseTreeNode node) {
+		FuseTreeNode root = getRoot(node);
+		long version = lastTopologyVersion.incrementAndGet();
+		if (root instanceof Fuse) {
+			((Fuse) root).topologyVersion = version;
+		}
+
+		Deque<FuseTreeNode> stack = new ArrayDeque<>();
+		stack.push(node);
+		while (stack.isEmpty() == false) {
+			FuseTreeNode currentNode = stack.pop();
+			if (currentNode instanceof ChargingStation) {
+				((ChargingStation) currentNode).invalidatePhaseConnectivity();
+			}
+			if (currentNode.hasChildren()) {
+				for (FuseTreeNode child : currentNode.getChildren()) {
+					stack.push(child);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Versions are unique across trees, so they also differ after a node was moved to another tree
+	 * @param node
+	 * @return Version of the tree the node belongs to
+	 */
+	static long getTopologyVersion(FuseTreeNode node) {
+		FuseTreeNode root = getRoot(node);
+		return (root instanceof Fuse) ? ((Fuse) root).topologyVersion : lastTopologyVersion.get();
+	}
+
+	private static FuseTreeNode getRoot(FuseTreeNode node) {
+		FuseTreeNode result = node;
+		while (result.getParent() != null) {
+			result = result.getParent();
+		}
+		return result;
+	}
+
+	/**
+	 * False if the topology of the tree changed since it was compiled
+	 */
+	public boolean isUpToDate() {
+		return version == getTopologyVersion(rootFuse);
+	}
+
+	public int getNumberNodes() {
+		return nodes.length;
+	}
+
+	public FuseTreeNode getNode(int nodeIndex) {
+		return nodes[nodeIndex];
+	}
+
+	/**
+	 * @return Index of the node or -1 if it is not part of this tree
+	 */
+	public int getNodeIndex(FuseTreeNode node) {
+		Integer index = nodeIndices.get(node);
+		return (index != null) ? index : -1;
+	}
+
+	/**
+	 * @return Index of the parent node or -1 for the root
+	 */
+	public int getParentIndex(int nodeIndex) {
+		return parentIndices[nodeIndex];
+	}
+
+	/**
+	 * @return Exclusive end of the subtree of the node
+	 */
+	public int getSubtreeEnd(int nodeIndex) {
+		return subtreeEnds[nodeIndex];
+	}
+
+	public boolean isInSubtree(int ancestorIndex, int nodeIndex) {
+		return nodeIndex >= ancestorIndex && nodeIndex < subtreeEnds[ancestorIndex];
+	}
+
+	public boolean isFuse(int nodeIndex) {
+		return nodes[nodeIndex] instanceof Fuse;
+	}
+
+	/**
+	 * Same as node.isPhaseAtGridConnectedInFuseTree(phase)
+	 */
+	public boolean isPhaseAtGridConnected(int nodeIndex, int phaseIndex) {
+		return (gridPhaseMasks[nodeIndex] & (1 << phaseIndex)) != 0;
+	}
+
+	/**
+	 * Charging stations in the same order as FuseTree.getListOfChargingStations()
+	 */
+	public List<ChargingStation> getChargingStations() {
+		return chargingStations;
+	}
+
+	public int getNumberChargingStations() {
+		return chargingStations.size();
+	}
+
+	public ChargingStation getChargingStation(int stationIndex) {
+		return chargingStations.get(stationIndex);
+	}
+
+	/**
+	 * @return Index in getChargingStations() of the charging station with the given node index or -1 if the node is a fuse
+	 */
+	public int getChargingStationIndex(int nodeIndex) {
+		return (nodes[nodeIndex] instanceof ChargingStation) ? chargingStationsStart[nodeIndex] : -1;
+	}
+
+	public int getChargingStationNodeIndex(int stationIndex) {
+		return chargingStationNodeIndices[stationIndex];
+	}
+
+	/**
+	 * All charging stations in the subtree of the node (the station itself for a charging station) without walking the tree
+	 */
+	public List<ChargingStation> getChargingStationsInSubtree(int nodeIndex) {
+		return chargingStations.subList(chargingStationsStart[nodeIndex], chargingStationsEnd[nodeIndex]);
+	}
+
+	/**
+	 * Same as chargingStation.isPhaseAtStationConnectedInFuseTree(phase)
+	 */
+	public boolean isPhaseAtStationConnected(int stationIndex, int phaseIndex) {
+		return (stationPhaseMasks[stationIndex] & (1 << phaseIndex)) != 0;
+	}
+
+	/**
+	 * Same as chargingStation.getPhaseGridToChargingStation(phase) with 0-based phases
+	 */
+	public int getStationPhase(int stationIndex, int gridPhaseIndex) {
+		return gridToStationPhases[stationIndex*3 + gridPhaseIndex];
+	}
+
+	/**
+	 * Same as chargingStation.getPhaseConsumed(phase) with 0-based phases
+	 */
+	public int getGridPhase(int stationIndex, int stationPhaseIndex) {
+		return stationToGridPhases[stationIndex*3 + stationPhaseIndex];
+	}
+
+	public int[] getFuseIndicesByIdDescending() {
+		return fuseIndicesByIdDescending;
+	}
+
+}
@@ -31,6 +31,11 @@ public class Fuse implements FuseTreeNode {
 	
 	private final int id;
 	
+	/**
+	 * Only used if this fuse is the root of a tree (see CompiledFuseTree.topologyChanged)
+	 */
+	volatile long topologyVersion = 0;
+	
 	/**
 	 * Assumption: Physically, each phase has its own fuse.
 	 * For ease of modeling the tree (of the electrical system), this class contains 
@@ -146,8 +151,9 @@ public class Fuse implements FuseTreeNode {
 	 * @param child Can be a fuse or a ChargingStation
 	 */
 	public void addChild(FuseTreeNode child) {
-	    child.setParent(this);
 		this.children.add(child);
+		// Gives the tree a new topology version and invalidates the subtree of the child
+		child.setParent(this);
 	}
 	
 	public ArrayList<FuseTreeNode> getChildren() {
@@ -164,7 +170,11 @@ public class Fuse implements FuseTreeNode {
 
 	@Override
 	public void setParent(FuseTreeNode parent) {
+		if (this.parent != null) {
+			CompiledFuseTree.topologyChanged(this.parent);
+		}
 		this.parent = parent;
+		CompiledFuseTree.topologyChanged(this);
 	}
 	
 
@@ -21,6 +21,9 @@ public class FuseTree implements JSONSerializable {
 	@JsonIgnore
 	private List<ChargingStation> listOfChargingStations;
 	
+	@JsonIgnore
+	private CompiledFuseTree compiledFuseTree;
+	
 
 	private final Fuse rootFuse;
 	
@@ -57,6 +60,7 @@ public class FuseTree implements JSONSerializable {
 	}
 	
 	public void refreshListOfChargingStations() {
+		compiledFuseTree = null;
 		listOfChargingStations = new ArrayList<ChargingStation>();
 		traverseTree(new Callback<FuseTreeNode>() {
 			public void callback(FuseTreeNode item) {
@@ -68,6 +72,7 @@ public class FuseTree implements JSONSerializable {
 	
 	// From JSON does not capture parent attributes of fuses
 	public void refreshFuseTreeNodeParents() {
+		compiledFuseTree = null;
 		Stack<FuseTreeNode> stack = new Stack<>();
 		stack.push(this.rootFuse);
 		while (stack.isEmpty() == false) {
@@ -92,6 +97,20 @@ public class FuseTree implements JSONSerializable {
 	}
 	
 	
+	/**
+	 * Array based representation of this tree, built on first access and rebuilt after the topology changed
+	 * @return
+	 */
+	@JsonIgnore
+	public CompiledFuseTree getCompiledFuseTree() {
+		CompiledFuseTree result = compiledFuseTree;
+		if (result == null || result.isUpToDate() == false) {
+			result = new CompiledFuseTree(this);
+			compiledFuseTree = result;
+		}
+		return result;
+	}
+	
 	/**
 	 * Traverse the tree in an iterative fashion, via a stack
 	 * http://www.geeksforgeeks.org/inorder-tree-traversal-without-recursion/
@@ -0,0 +1,259 @@
+package com.sap.charging.model.battery;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed charging current (before infrastructure limits) over the SoC on a dense, uniformly spaced grid from 0 to 1.
+ * Lookups use O(1) indexed linear interpolation instead of interpolating OCV and resistance (and solving the CPCV equation) per call.
+ *
+ * The current of both charge algorithms is the minimum of two branches: Constant current (CCCV) or constant power (CPCV) and 
+ * constant voltage. Each branch is stored separately since it is smooth between the SoC breakpoints of the battery data, 
+ * the kink where the algorithm switches to constant voltage is reproduced exactly by taking the minimum at lookup time.
+ * The grid contains the breakpoints of the battery data and is refined until linear interpolation deviates by at most 
+ * the configured tolerance (in A) from the exact current. If the tolerance can't be reached with the maximum resolution, building the table fails.
+ * 
+ * Tables are immutable and shared between all BatterySims with the same battery data and charge parameters.
+ */
+public class BatteryCurrentTable {
+
+	private static final int MIN_RESOLUTION = 1024;
+	private static final int MAX_RESOLUTION = 1 << 22;
+	private static final int ERROR_SAMPLES_PER_INTERVAL = 8;
+
+	private static final Map<Key, BatteryCurrentTable> tables = new ConcurrentHashMap<>();
+
+	/**
+	 * Only used for CCCV
+	 */
+	private final double constantCurrent;
+	
+	/**
+	 * Only used for CPCV (null for CCCV)
+	 */
+	private final double[] constantPowerCurrent;
+	private final double[] constantVoltageCurrent;
+	private final int resolution;
+	private final double tolerance;
+
+	private BatteryCurrentTable(double constantCurrent, double[] constantPowerCurrent, double[] constantVoltageCurrent, double tolerance) {
+		this.constantCurrent = constantCurrent;
+		this.constantPowerCurrent = constantPowerCurrent;
+		this.constantVoltageCurrent = constantVoltageCurrent;
+		this.resolution = constantVoltageCurrent.length - 1;
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Returns the (shared) table for the battery data and charge parameters of params, using params.currentLookupTableTolerance
+	 * @param params
+	 * @return
+	 */
+	public static BatteryCurrentTable getTable(BatterySimParameters params) {
+		return tables.computeIfAbsent(new Key(params), key -> build(params, MAX_RESOLUTION));
+	}
+
+	/**
+	 * Number of tables currently shared
+	 */
+	public static int getNumberTables() {
+		return tables.size();
+	}
+
+	/**
+	 * @param params
+	 * @param maxResolution Highest resolution the grid is refined to
+	 * @return
+	 * @throws IllegalArgumentException If the tolerance is not met with maxResolution
+	 */
+	static BatteryCurrentTable build(BatterySimParameters params, int maxResolution) {
+		double tolerance = params.currentLookupTableTolerance;
+		if (tolerance <= 0) {
+			throw new IllegalArgumentException("currentLookupTableTolerance=" + tolerance + " must be greater than 0");
+		}
+
+		int resolution = getBaseResolution(params.batteryData);
+		while (resolution < MIN_RESOLUTION) {
+			resolution = 2*resolution;
+		}
+		
+		boolean isCPCV = params.chargeAlgorithm == ChargeAlgorithm.CPCV;
+		double[] constantPowerCurrent = isCPCV ? computeGrid(params, resolution, true) : null;
+		double[] constantVoltageCurrent = computeGrid(params, resolution, false);
+		
+		// Compare linear interpolation to the exact current at several points within each interval, keep a margin for points in between
+		while (true) {
+			double maxError = getMaxError(params, constantVoltageCurrent, false);
+			if (isCPCV) {
+				maxError = Math.max(maxError, getMaxError(params, constantPowerCurrent, true));
+			}
+			if (maxError <= tolerance/2) {
+				break;
+			}
+			if (2*resolution > maxResolution) {
+				throw new IllegalArgumentException("currentLookupTableTolerance=" + tolerance + " is not reached with the maximum resolution=" + resolution + 
+						" (max error=" + maxError + "A), use a higher tolerance or disable useCurrentLookupTable");
+			}
+			resolution = 2*resolution;
+			constantPowerCurrent = isCPCV ? computeGrid(params, resolution, true) : null;
+			constantVoltageCurrent = computeGrid(params, resolution, false);
+		}
+		return new BatteryCurrentTable(params.constantCurrent, constantPowerCurrent, constantVoltageCurrent, tolerance);
+	}
+	
+	/**
+	 * Smallest resolution such that the (equidistant) SoC breakpoints of OCV and resistance data are grid points. 
+	 * Falls back to 1 if the spacing does not divide 1.
+	 */
+	private static int getBaseResolution(BatteryData batteryData) {
+		int ocvIntervals = getNumberIntervals(batteryData.getOCV_SOCArray());
+		int resistanceIntervals = getNumberIntervals(batteryData.getResistance_SOCArray());
+		int a = ocvIntervals;
+		int b = resistanceIntervals;
+		while (b != 0) {
+			int tmp = b;
+			b = a % b;
+			a = tmp;
+		}
+		return ocvIntervals / a * resistanceIntervals;
+	}
+	
+	private static int getNumberIntervals(double[] soc) {
+		if (soc.length < 2 || soc[0] != 0) {
+			return 1;
+		}
+		double intervals = 1 / (soc[1] - soc[0]);
+		long rounded = Math.round(intervals);
+		if (rounded < 1 || rounded > MIN_RESOLUTION || Math.abs(intervals - rounded) > 1e-6) {
+			return 1;
+		}
+		return (int) rounded;
+	}
+	
+	private static double getExactCurrent(BatterySimParameters params, double soc, boolean constantPower) {
+		double r0 = params.batteryData.getResistanceFromSOC(soc);
+		double v_ocv = params.batteryData.getOCVFromSOC(soc);
+		if (constantPower) {
+			return -BatterySim.getConstantPowerCellCurrent(params, r0, v_ocv);
+		}
+		return -BatterySim.getConstantVoltageCellCurrent(params, r0, v_ocv);
+	}
+
+	private static double getMaxError(BatterySimParameters params, double[] current, boolean constantPower) {
+		int resolution = current.length - 1;
+		double maxError = 0;
+		for (int i=0;i<resolution;i++) {
+			for (int j=1;j<ERROR_SAMPLES_PER_INTERVAL;j++) {
+				double fraction = 1.0*j/ERROR_SAMPLES_PER_INTERVAL;
+				double soc = (i + fraction)/resolution;
+				double interpolated = current[i] + fraction*(current[i+1] - current[i]);
+				maxError = Math.max(maxError, Math.abs(interpolated - getExactCurrent(params, soc, constantPower)));
+			}
+		}
+		return maxError;
+	}
+
+	private static double[] computeGrid(BatterySimParameters params, int resolution, boolean constantPower) {
+		double[] result = new double[resolution+1];
+		for (int i=0;i<=resolution;i++) {
+			result[i] = getExactCurrent(params, 1.0*i/resolution, constantPower);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns true if soc lies within the table (0 to 1)
+	 */
+	public boolean contains(double soc) {
+		return soc >= 0 && soc <= 1;
+	}
+
+	/**
+	 * Charging current at the given SoC, limited by maxCurrentAllowed. soc must lie between 0 and 1.
+	 * @param soc
+	 * @param maxCurrentAllowed
+	 * @return
+	 */
+	public double getCurrent(double soc, double maxCurrentAllowed) {
+		double position = soc*resolution;
+		int i = Math.min((int) position, resolution-1);
+		double fraction = position - i;
+		
+		double result = constantVoltageCurrent[i] + fraction*(constantVoltageCurrent[i+1] - constantVoltageCurrent[i]);
+		if (constantPowerCurrent != null) {
+			result = Math.min(result, constantPowerCurrent[i] + fraction*(constantPowerCurrent[i+1] - constantPowerCurrent[i]));
+		}
+		else {
+			result = Math.min(result, constantCurrent);
+		}
+		return Math.min(result, maxCurrentAllowed);
+	}
+
+	public int getResolution() {
+		return resolution;
+	}
+
+	public double getTolerance() {
+		return tolerance;
+	}
+
+	/**
+	 * Identifies tables by the battery data (class and data arrays) and all charge parameters that influence the current
+	 */
+	private static class Key {
+		private final Class<?> batteryDataClass;
+		private final double[] ocv;
+		private final double[] ocvSoC;
+		private final double[] resistance;
+		private final double[] resistanceSoC;
+		private final ChargeAlgorithm chargeAlgorithm;
+		private final double constantCurrent;
+		private final double constantPower;
+		private final double terminalVoltage;
+		private final double tolerance;
+		private final int hashCode;
+
+		private Key(BatterySimParameters params) {
+			this.batteryDataClass = params.batteryData.getClass();
+			this.ocv = params.batteryData.getOCVArray();
+			this.ocvSoC = params.batteryData.getOCV_SOCArray();
+			this.resistance = params.batteryData.getResistanceArray();
+			this.resistanceSoC = params.batteryData.getResistance_SOCArray();
+			this.chargeAlgorithm = params.chargeAlgorithm;
+			this.constantCurrent = params.constantCurrent;
+			this.constantPower = params.constantPower;
+			this.terminalVoltage = params.terminalVoltage;
+			this.tolerance = params.currentLookupTableTolerance;
+			this.hashCode = Arrays.hashCode(new Object[] {
+				batteryDataClass, Arrays.hashCode(ocv), Arrays.hashCode(ocvSoC), Arrays.hashCode(resistance), Arrays.hashCode(resistanceSoC),
+				chargeAlgorithm, constantCurrent, constantPower, terminalVoltage, tolerance
+			});
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+			Key other = (Key) obj;
+			return batteryDataClass == other.batteryDataClass &&
+					Arrays.equals(ocv, other.ocv) &&
+					Arrays.equals(ocvSoC, other.ocvSoC) &&
+					Arrays.equals(resistance, other.resistance) &&
+					Arrays.equals(resistanceSoC, other.resistanceSoC) &&
+					chargeAlgorithm == other.chargeAlgorithm &&
+					Double.compare(constantCurrent, other.constantCurrent) == 0 &&
+					Double.compare(constantPower, other.constantPower) == 0 &&
+					Double.compare(terminalVoltage, other.terminalVoltage) == 0 &&
+					Double.compare(tolerance, other.tolerance) == 0;
+		}
+	}
+
+}
@@ -3,6 +3,7 @@ package com.sap.charging.model.battery;
 import com.sap.charging.model.Car;
 import com.sap.charging.model.EnergyUtil;
 import com.sap.charging.opt.CONSTANTS;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.FileIO;
 import com.sap.charging.util.TimeUtil;
 
@@ -13,10 +14,12 @@ import com.sap.charging.util.TimeUtil;
  */
 public class BatterySim {
 
-	public static int nSimulationSteps = 0;
-	public static int nSimulations = 0;
-	
 	private final BatterySimParameters params;
+	
+	/**
+	 * Context of the run this BatterySim was created in (counts simulations and steps)
+	 */
+	private final SimulationContext context;
 
 	private int step = 0;
 	
@@ -33,6 +36,11 @@ public class BatterySim {
 	private double[] storePower;
 	private double[] storeR0;
 	
+	/**
+	 * Only used if params.useCurrentLookupTable is set (and store is disabled)
+	 */
+	private final BatteryCurrentTable currentTable;
+	
 	
 	public BatterySim(BatterySimParameters params) {	
 		this(params, false, true);
@@ -41,6 +49,7 @@ public class BatterySim {
 	// For performance reasons, give option to not store historical values
 	public BatterySim(BatterySimParameters params, boolean enableStore, boolean enableEfficiency) {
 		this.params = params;
+		this.context = SimulationContext.current();
 		this.enableStore = enableStore;
 		this.enableEfficiency = enableEfficiency;
 		
@@ -50,6 +59,7 @@ public class BatterySim {
 		
 		this.soc = params.initialSoC;
 		this.step = params.initialStep;
+		this.currentTable = (params.useCurrentLookupTable && enableStore == false) ? BatteryCurrentTable.getTable(params) : null;
 		
 		if (enableStore == true) {
 			this.storeSOC = new double[params.maxtime];
@@ -60,7 +70,7 @@ public class BatterySim {
 			this.storeR0 = new double[params.maxtime];
 		}
 		
-		nSimulations++;
+		context.incrementBatterySimulations();
 		
 	}
 	
@@ -86,24 +96,16 @@ public class BatterySim {
 	 * @return Current
 	 */
 	public double getCurrentBasedOnSoC(double soc, double maxCurrentAllowed) {
+		
+		if (currentTable != null && currentTable.contains(soc)) {
+			context.incrementBatterySimulationSteps();
+			return currentTable.getCurrent(soc, maxCurrentAllowed);
+		}
 
 		double r0 = params.batteryData.getResistanceFromSOC(soc);
 		double v_ocv = params.batteryData.getOCVFromSOC(soc); // Open circuit voltage which depends on SoC
-		double maxV = params.terminalVoltage;
-
-		double ik; // Cell current
-		if (params.chargeAlgorithm == ChargeAlgorithm.CCCV) {
-
-			ik = (v_ocv - maxV) / r0; // compute test ik to achieve maxV
-			ik = Math.max(-params.constantCurrent, ik); // but limit current to no more than CC in mag.
 
-		} else {
-			// CPCV
-			ik = (v_ocv - Math.sqrt(Math.pow(v_ocv, 2) - 4 * r0 * (-params.constantPower))) / (2 * r0);
-			if (v_ocv - ik * r0 > maxV) { // too much!
-				ik = (v_ocv - maxV) / r0; // do CV instead
-			}
-		}
+		double ik = getCellCurrent(params, r0, v_ocv); // Cell current
 		
 		// Check chargePlans. If infrastructure says to charge with less than this must be taken into account
 		ik = Math.max(ik, -maxCurrentAllowed);
@@ -117,11 +119,45 @@ public class BatterySim {
 			this.storeR0[step] = r0;
 		}
 		
-		BatterySim.nSimulationSteps++;
+		context.incrementBatterySimulationSteps();
 		
 		return -ik;
 	}
 	
+	/**
+	 * Cell current (negative while charging) according to the charge algorithm, before taking into account limits of the infrastructure 
+	 * @param params
+	 * @param r0 Resistance at current SoC
+	 * @param v_ocv Open circuit voltage at current SoC
+	 * @return
+	 */
+	static double getCellCurrent(BatterySimParameters params, double r0, double v_ocv) {
+		double maxV = params.terminalVoltage;
+
+		double ik; // Cell current
+		if (params.chargeAlgorithm == ChargeAlgorithm.CCCV) {
+
+			ik = getConstantVoltageCellCurrent(params, r0, v_ocv); // compute test ik to achieve maxV
+			ik = Math.max(-params.constantCurrent, ik); // but limit current to no more than CC in mag.
+
+		} else {
+			// CPCV
+			ik = getConstantPowerCellCurrent(params, r0, v_ocv);
+			if (v_ocv - ik * r0 > maxV) { // too much!
+				ik = getConstantVoltageCellCurrent(params, r0, v_ocv); // do CV instead
+			}
+		}
+		return ik;
+	}
+	
+	static double getConstantVoltageCellCurrent(BatterySimParameters params, double r0, double v_ocv) {
+		return (v_ocv - params.terminalVoltage) / r0;
+	}
+	
+	static double getConstantPowerCellCurrent(BatterySimParameters params, double r0, double v_ocv) {
+		return (v_ocv - Math.sqrt(Math.pow(v_ocv, 2) - 4 * r0 * (-params.constantPower))) / (2 * r0);
+	}
+	
 	/**
 	 * Each step is one second
 	 * 
@@ -148,6 +184,22 @@ public class BatterySim {
 
 	}
 	
+	/**
+	 * Equivalent to calling simulateNextStep(maxCurrentAllowed) nSteps times, uses adaptive steps if params.useAdaptiveStep is set
+	 * @param nSteps
+	 * @param maxCurrentAllowed
+	 */
+	public void simulateNextSteps(int nSteps, double maxCurrentAllowed) {
+		if (params.useAdaptiveStep && enableStore == false) {
+			simulateAdaptive(nSteps, maxCurrentAllowed);
+		}
+		else {
+			for (int i=0;i<nSteps;i++) {
+				simulateNextStep(maxCurrentAllowed);
+			}
+		}
+	}
+	
 	/**
 	 * Each step is one second
 	 * 
@@ -216,27 +268,157 @@ public class BatterySim {
 		}
 		
 		this.step = startTimeSeconds;
-		for (int step=startTimeSeconds; step<endTimeSeconds; step++) {
-			
-			int timeslot = TimeUtil.getTimeslotFromSeconds(step);
+		if (params.useAdaptiveStep && enableStore == false) {
+			// Integrate each interval with a constant limit (until the charge plan changes) at once
+			int intervalStart = startTimeSeconds;
+			while (intervalStart < endTimeSeconds) {
+				double maxCurrentAllowed = getMaxCurrentAllowed(TimeUtil.getTimeslotFromSeconds(intervalStart), car, maxCurrentAllowedStatic, ignoreChargePlanTimeslot);
+				int intervalEnd = intervalStart;
+				while (intervalEnd < endTimeSeconds && 
+						getMaxCurrentAllowed(TimeUtil.getTimeslotFromSeconds(intervalEnd), car, maxCurrentAllowedStatic, ignoreChargePlanTimeslot) == maxCurrentAllowed) {
+					intervalEnd = Math.min(endTimeSeconds, TimeUtil.getSecondsFromTimeslot(TimeUtil.getTimeslotFromSeconds(intervalEnd)+1));
+				}
+				this.simulateAdaptive(intervalEnd - intervalStart, maxCurrentAllowed);
+				intervalStart = intervalEnd;
+			}
+		}
+		else {
+			for (int step=startTimeSeconds; step<endTimeSeconds; step++) {
+				
+				int timeslot = TimeUtil.getTimeslotFromSeconds(step);
+				double maxCurrentAllowed = getMaxCurrentAllowed(timeslot, car, maxCurrentAllowedStatic, ignoreChargePlanTimeslot);
+				
+				this.simulateNextStep(maxCurrentAllowed);
+			}
+		}
+		
+		this.nextCurrent = this.getCurrentBasedOnSoC(this.getSoC(), maxCurrentAllowedStatic);
+	}
+	
+	
+	private double getMaxCurrentAllowed(int timeslot, Car car, double maxCurrentAllowedStatic, int ignoreChargePlanTimeslot) {
+		double maxCurrentAllowed = maxCurrentAllowedStatic;
+		if (car.getCurrentPlan() != null && car.getCurrentPlan()[timeslot] >= 0 && timeslot != ignoreChargePlanTimeslot) {
+			maxCurrentAllowed = Math.min(maxCurrentAllowedStatic, car.getCurrentPlan()[timeslot]*car.sumUsedPhases);
+		}
+		return maxCurrentAllowed;
+	}
+	
+	/**
+	 * Charged Ah per ampere second
+	 */
+	private double getAmpereHoursPerAmpereSecond() {
+		return (enableEfficiency) ? CONSTANTS.CHARGING_EFFICIENCY*EnergyUtil.getAmpereHours(1, 1) : EnergyUtil.getAmpereHours(1, 1);
+	}
+	
+	/**
+	 * Adaptive step alternative to calling simulateNextStep(maxCurrentAllowed) nSteps times.
+	 * 
+	 * While the current is capped (by maxCurrentAllowed or the constant current of CCCV) it stays constant, so the 
+	 * number of steps until the cap no longer applies (e.g. transition to CV) is found by bisection and skipped at once. 
+	 * Otherwise (CV, CP) steps of several seconds are taken, using step doubling as error estimate.
+	 * 
+	 * @param nSteps Number of seconds to simulate
+	 * @param maxCurrentAllowed
+	 */
+	private void simulateAdaptive(int nSteps, double maxCurrentAllowed) {
+		double ahPerAs = getAmpereHoursPerAmpereSecond();
+		int stepsLeft = nSteps;
+		int stepSize = 1;
+		while (stepsLeft > 0) {
+			double current = getCurrentBasedOnSoC(this.soc, maxCurrentAllowed);
 			
-			double maxCurrentAllowed = maxCurrentAllowedStatic;
-			if (car.getCurrentPlan() != null && car.getCurrentPlan()[timeslot] >= 0 && timeslot != ignoreChargePlanTimeslot) {
-				maxCurrentAllowed = Math.min(maxCurrentAllowedStatic, car.getCurrentPlan()[timeslot]*car.sumUsedPhases);
+			boolean isCapped = current == 0 || current == maxCurrentAllowed || 
+					(params.chargeAlgorithm == ChargeAlgorithm.CCCV && current == params.constantCurrent);
+			if (isCapped) {
+				// Constant current: Find the first step that is no longer capped
+				double chargedAhDelta = ahPerAs*current;
+				double chargedSoCDelta = chargedAhDelta / params.capacity;
+				int nCapped = stepsLeft;
+				if (current > 0) {
+					int lastCapped = 0;
+					int firstNotCapped = stepsLeft;
+					while (firstNotCapped - lastCapped > 1) {
+						int n = (lastCapped + firstNotCapped) / 2;
+						// Battery data is only defined up to SoC=1 (where the current drops below any cap)
+						if (getCurrentBasedOnSoC(Math.min(1, this.soc + n*chargedSoCDelta), maxCurrentAllowed) >= current) {
+							lastCapped = n;
+						}
+						else {
+							firstNotCapped = n;
+						}
+					}
+					nCapped = firstNotCapped;
+				}
+				this.step += nCapped;
+				this.chargedAh += nCapped*chargedAhDelta;
+				this.soc += nCapped*chargedSoCDelta;
+				stepsLeft -= nCapped;
+				stepSize = 1;
+				continue;
 			}
 			
+			// Decreasing current: Compare one step of size n to two steps of size n/2
+			int n = Math.min(stepSize, stepsLeft);
+			double chargedAhDelta;
+			if (n == 1) {
+				chargedAhDelta = ahPerAs*current;
+				stepSize = 2;
+			}
+			else {
+				int nFirstHalf = n / 2;
+				double chargedAhDeltaFull = getChargedAhAdaptiveStep(this.soc, current, n, maxCurrentAllowed, ahPerAs);
+				double chargedAhDeltaFirstHalf = getChargedAhAdaptiveStep(this.soc, current, nFirstHalf, maxCurrentAllowed, ahPerAs);
+				double socHalf = this.soc + chargedAhDeltaFirstHalf / params.capacity;
+				double chargedAhDeltaSecondHalf = getChargedAhAdaptiveStep(socHalf, getCurrentBasedOnSoC(socHalf, maxCurrentAllowed), 
+						n - nFirstHalf, maxCurrentAllowed, ahPerAs);
+				chargedAhDelta = chargedAhDeltaFirstHalf + chargedAhDeltaSecondHalf;
+				
+				double error = Math.abs(chargedAhDelta - chargedAhDeltaFull);
+				double maxError = ahPerAs * params.adaptiveStepTolerance * n;
+				if (error > maxError) {
+					stepSize = nFirstHalf;
+					continue;
+				}
+				stepSize = (error < maxError/4) ? 2*n : n;
+			}
 			
-			this.simulateNextStep(maxCurrentAllowed);
+			this.step += n;
+			this.chargedAh += chargedAhDelta;
+			this.soc += chargedAhDelta / params.capacity;
+			stepsLeft -= n;
 		}
-		
-		this.nextCurrent = this.getCurrentBasedOnSoC(this.getSoC(), maxCurrentAllowedStatic);
 	}
 	
+	/**
+	 * Approximates the charged Ah of n one second steps starting at soc with current: The current is assumed to change linearly 
+	 * until the end of the step (predicted once, then corrected once). Summing up the current at the start of each second 
+	 * then yields n*(current+currentEnd)/2 + (current-currentEnd)/2. For n=1 this is exactly one step of simulateNextStep(). 
+	 */
+	private double getChargedAhAdaptiveStep(double soc, double current, int n, double maxCurrentAllowed, double ahPerAs) {
+		double currentEnd = getCurrentBasedOnSoC(Math.min(1, soc + n*ahPerAs*current / params.capacity), maxCurrentAllowed);
+		double chargedAhDelta = ahPerAs * (n*(current + currentEnd) + (current - currentEnd)) / 2;
+		currentEnd = getCurrentBasedOnSoC(Math.min(1, soc + chargedAhDelta / params.capacity), maxCurrentAllowed);
+		return ahPerAs * (n*(current + currentEnd) + (current - currentEnd)) / 2;
+	}
 	
 	public void simulateBackwards(double maxCurrentAllowedStatic) {
 		
 	}
 	
+	/**
+	 * Resets the simulation to a previously recorded state (e.g. getSoC() and getChargedAh() after simulating until step). 
+	 * The simulation can then be continued with simulate(step, ...)
+	 * @param step
+	 * @param soc
+	 * @param chargedAh
+	 */
+	public void restoreState(int step, double soc, double chargedAh) {
+		this.step = step;
+		this.soc = soc;
+		this.chargedAh = chargedAh;
+	}
+	
 	
 	
 	
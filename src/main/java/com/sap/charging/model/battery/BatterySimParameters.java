@@ -16,6 +16,30 @@ public class BatterySimParameters {
 	
 	public int maxtime;
 	
+	/**
+	 * If true, BatterySim interpolates the charging current from a precomputed table (see BatteryCurrentTable) 
+	 * instead of computing it from OCV and resistance every second
+	 */
+	public boolean useCurrentLookupTable = false;
+	
+	/**
+	 * Maximum deviation (A) of the interpolated current from the exact current when using the lookup table
+	 */
+	public double currentLookupTableTolerance = 1e-3;
+	
+	/**
+	 * If true, BatterySim.simulate() integrates with adaptive steps instead of one second steps: Phases with constant current 
+	 * are skipped in a single step until the current starts to decrease or the charge plan changes, the remaining phases (CV, CP)
+	 * use larger steps as long as the estimated error is within adaptiveStepTolerance
+	 */
+	public boolean useAdaptiveStep = false;
+	
+	/**
+	 * Tolerated local error of the adaptive integrator relative to one second steps, as mean current error (A) per step. 
+	 * For example 1e-3A results in an error of roughly 1e-3Ah per hour of simulation.
+	 */
+	public double adaptiveStepTolerance = 1e-3;
+	
 	private BatterySimParameters() {
 
 	
@@ -65,6 +89,10 @@ public class BatterySimParameters {
 		params.capacity = this.capacity;
 		params.terminalVoltage = this.terminalVoltage;
 		params.maxtime = this.maxtime;
+		params.useCurrentLookupTable = this.useCurrentLookupTable;
+		params.currentLookupTableTolerance = this.currentLookupTableTolerance;
+		params.useAdaptiveStep = this.useAdaptiveStep;
+		params.adaptiveStepTolerance = this.adaptiveStepTolerance;
 		
 		return params;
 	}
@@ -11,11 +11,15 @@ import com.sap.charging.model.EnergyPriceHistory;
 import com.sap.charging.model.FuseTree;
 import com.sap.charging.opt.lp.Equation;
 import com.sap.charging.opt.lp.InstanceLP;
+import com.sap.charging.opt.lp.util.Solver;
 import com.sap.charging.opt.lp.util.SolverSCIP;
 
 public abstract class InstanceHeuristicLP extends InstanceHeuristic {
 
-	public SolverSCIP solver = null;
+	/**
+	 * SolverSCIP by default. Set an in-memory solver (e.g. SolverOjAlgo) before constructProblem() to solve without files.
+	 */
+	public Solver solver = null;
 	
 	public InstanceHeuristicLP(List<Car> cars, List<ChargingStation> chargingStations,
 			EnergyPriceHistory energyPriceHistory, FuseTree fuseTree) {
@@ -33,15 +37,19 @@ public abstract class InstanceHeuristicLP extends InstanceHeuristic {
 	
 	public abstract void prepareInstanceLP();
 	
-	
+	public void setSolver(Solver solver) {
+		this.solver = solver;
+	}
 	
 	public void constructProblem() {
 		this.prepareInstanceLP();
+		instanceLP.setSolver(solver);
 		instanceLP.constructProblem();
 		this.isProblemConstructed = true;
 	}
 	public void constructProblem(ArrayList<Equation> allRestrictions) {
 		this.prepareInstanceLP();
+		instanceLP.setSolver(solver);
 		instanceLP.constructProblem(allRestrictions);
 		this.isProblemConstructed = true;
 	}
@@ -53,8 +61,8 @@ public abstract class InstanceHeuristicLP extends InstanceHeuristic {
 			throw new RuntimeException("ERROR: Call .constructProblem first!");
 		}
 		
-		if (scipApplyRelativeGapSetting == true) {
-			solver.setApplyRelativeGapSetting(true);
+		if (scipApplyRelativeGapSetting == true && solver instanceof SolverSCIP) {
+			((SolverSCIP) solver).setApplyRelativeGapSetting(true);
 		}
 		
 		instanceLP.setSolver(solver);
@@ -1,5 +1,8 @@
 package com.sap.charging.opt.lp;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,8 +22,8 @@ import com.sap.charging.opt.Instance;
 import com.sap.charging.opt.lp.Equation.ConstraintType;
 import com.sap.charging.opt.lp.util.Solver;
 import com.sap.charging.opt.util.MethodTimer;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.Callback;
-import com.sap.charging.util.FileIO;
 import com.sap.charging.util.Loggable;
 import com.sap.charging.util.Util;
 
@@ -35,11 +38,9 @@ import com.sap.charging.util.Util;
 
 public class InstanceLP extends Instance implements Loggable {
 	
-	public static int verbosity = 2;
-	
 	@Override
 	public int getVerbosity() {
-		return verbosity;
+		return SimulationContext.current().getLPVerbosity();
 	}
 	
 	
@@ -312,19 +313,230 @@ public class InstanceLP extends Instance implements Loggable {
 		}
 	}
 	
+	/**
+	 * Constructs the problem and streams it to a .lp file (see pathInstanceLPFile): Restrictions are written as soon as they are
+	 * constructed (see LPModelWriter.streamLP), so only the variables and one restriction at a time are held in memory.
+	 * If an in-memory solver is set (see setSolver(...)) no file is written, the complete model is kept for solveProblem() instead.
+	 */
 	public void constructProblem() {
-		log(1, "Constructing problem file...");
+		constructProblem(null);
+	}
+
+	/**
+	 * @param allRestrictions OPTIONAL. Restrictions constructed by constructAllRestrictions(), otherwise restrictions are constructed while writing
+	 */
+	public void constructProblem(ArrayList<Equation> allRestrictions) {
+		log(1, "Constructing problem" + (allRestrictions != null ? " with previously constructed restrictions" : "") + "...");
 		try (MethodTimer t = new MethodTimer(this.timeProblemConstruction)) {
-			String result = constructProblemLPFile(null);
-			this.writeProblemLPFile(result);
+			if (solver != null && solver.isInMemory()) {
+				constructProblemModel(allRestrictions);
+			}
+			else {
+				constructProblemLPFile(allRestrictions);
+			}
 		}
 	}
-	
-	public void constructProblem(ArrayList<Equation> allRestrictions) {
-		log(1, "Constructing problem file with previously constructed restrictions...");
+
+	/**
+	 * Constructs the complete problem (variables, objective function and restrictions) as LPModel held in memory,
+	 * e.g. to write it as .mps file with LPModelWriter.writeMPS(...).
+	 * Column ids of the variables are returned by getColumnP(...), getColumnX(...), etc.
+	 * @return
+	 */
+	public LPModel constructModel() {
+		checkVariablesConstructed();
 		try (MethodTimer t = new MethodTimer(this.timeProblemConstruction)) {
-			String result = constructProblemLPFile(allRestrictions);
-			this.writeProblemLPFile(result);
+			LPModel model = new LPModel();
+			constructColumns(model);
+			constructObjectiveFunction(model);
+			constructAllRestrictions(model);
+			return model;
+		}
+	}
+
+
+	/**
+	 * Column ids in the LPModel: Each type of variable is a contiguous block of columns, see constructColumns(...).
+	 */
+	private int nTimeslotsColumns;
+	private int kStartColumns;
+	private int kEndColumns;
+	private int columnsP;
+	private int columnsX;
+	private int columnsD;
+	private int columnsE;
+	private int columnsQ;
+	private int columnsQPrime;
+	private int columnsU;
+	private int columnsUPrime;
+	private int columnsV;
+
+	/**
+	 * Adds one column per variable (same variables and names as constructVariables())
+	 * @param model
+	 */
+	private void constructColumns(LPModel model) {
+		LPNames names = model.getNames();
+		nTimeslotsColumns = energyPriceHistory.getNTimeslots();
+		kStartColumns = getKStart();
+		kEndColumns = getKEnd();
+
+		columnsP = model.getNumberOfColumns();
+		int nameP = names.intern("P", "i", "j", "k");
+		for (int i=0;i<chargingStations.size();i++) {
+			for (int j=1;j<=3;j++) {
+				for (int k=0;k<nTimeslotsColumns;k++) {
+					model.addColumn(nameP, false, i, j, k);
+				}
+			}
+		}
+
+		columnsX = model.getNumberOfColumns();
+		int nameX = names.intern("X", "i", "n");
+		for (int i=0;i<chargingStations.size();i++) {
+			for (int n=0;n<cars.size();n++) {
+				model.addColumn(nameX, true, i, n);
+			}
+		}
+
+		columnsD = model.getNumberOfColumns();
+		int nameD = names.intern("D", "k", "sign", "jFrom", "jTo");
+		for (int k=0;k<nTimeslotsColumns;k++) {
+			for (int sign=1;sign>=0;sign--) {
+				model.addColumn(nameD, false, k, sign, 1, 2);
+				model.addColumn(nameD, false, k, sign, 2, 3);
+				model.addColumn(nameD, false, k, sign, 1, 3);
+			}
+		}
+
+		columnsE = model.getNumberOfColumns();
+		int nameE = names.intern("E", "k", "sign");
+		for (int k=kStartColumns;k<kEndColumns-1;k++) {
+			for (int sign=1;sign>=0;sign--) {
+				model.addColumn(nameE, false, k, sign);
+			}
+		}
+
+		columnsQ = model.getNumberOfColumns();
+		int nameQ = names.intern("Q", "i", "k", "n");
+		for (int i=0;i<chargingStations.size();i++) {
+			for (int k=0;k<nTimeslotsColumns+1;k++) {
+				for (int n=0;n<cars.size();n++) {
+					model.addColumn(nameQ, false, i, k, n);
+				}
+			}
+		}
+
+		columnsQPrime = model.getNumberOfColumns();
+		int nameQPrime = names.intern("QPrime", "n", "below");
+		for (int n=0;n<cars.size();n++) {
+			model.addColumn(nameQPrime, false, n, 1);
+			model.addColumn(nameQPrime, false, n, 0);
+		}
+
+		columnsU = model.getNumberOfColumns();
+		int nameU = names.intern("U", "k", "n");
+		for (int n=0;n<cars.size();n++) {
+			for (int k=0;k<nTimeslotsColumns;k++) {
+				model.addColumn(nameU, true, k, n);
+			}
+		}
+
+		columnsUPrime = model.getNumberOfColumns();
+		int nameUPrime = names.intern("UPrime", "k", "n");
+		for (int n=0;n<cars.size();n++) {
+			model.addColumn(nameUPrime, true, nTimeslotsColumns, n);
+		}
+
+		columnsV = model.getNumberOfColumns();
+		int nameV = names.intern("V", "k", "n");
+		for (int n=0;n<cars.size();n++) {
+			for (int k=kStartColumns;k<kEndColumns;k++) {
+				model.addColumn(nameV, true, k, n);
+			}
+		}
+	}
+
+	public int getColumnP(int i, int j, int k) {
+		return columnsP + (i*3 + j-1)*nTimeslotsColumns + k;
+	}
+	public int getColumnX(int i, int n) {
+		return columnsX + i*cars.size() + n;
+	}
+	public int getColumnD(int k, int sign, int jFrom, int jTo) {
+		int phases = (jFrom == 2) ? 1 : (jTo == 2) ? 0 : 2;
+		return columnsD + (k*2 + 1-sign)*3 + phases;
+	}
+	public int getColumnE(int k, int sign) {
+		return columnsE + (k-kStartColumns)*2 + 1-sign;
+	}
+	public int getColumnQ(int i, int k, int n) {
+		return columnsQ + (i*(nTimeslotsColumns+1) + k)*cars.size() + n;
+	}
+	public int getColumnQPrime(int n, int below) {
+		return columnsQPrime + n*2 + 1-below;
+	}
+	public int getColumnU(int k, int n) {
+		return columnsU + n*nTimeslotsColumns + k;
+	}
+	/**
+	 * U'_{k,n} only exists for k=nTimeslots
+	 */
+	public int getColumnUPrime(int n) {
+		return columnsUPrime + n;
+	}
+	public int getColumnV(int k, int n) {
+		return columnsV + n*(kEndColumns-kStartColumns) + k-kStartColumns;
+	}
+
+	/**
+	 * Column id of a variable constructed by constructVariables()
+	 * @param variable
+	 * @return
+	 */
+	public int getColumn(Variable variable) {
+		switch (variable.getName()) {
+		case "P": return getColumnP(variable.getIndex("i"), variable.getIndex("j"), variable.getIndex("k"));
+		case "X": return getColumnX(variable.getIndex("i"), variable.getIndex("n"));
+		case "D": return getColumnD(variable.getIndex("k"), variable.getIndex("sign"), variable.getIndex("jFrom"), variable.getIndex("jTo"));
+		case "E": return getColumnE(variable.getIndex("k"), variable.getIndex("sign"));
+		case "Q": return getColumnQ(variable.getIndex("i"), variable.getIndex("k"), variable.getIndex("n"));
+		case "QPrime": return getColumnQPrime(variable.getIndex("n"), variable.getIndex("below"));
+		case "U": return getColumnU(variable.getIndex("k"), variable.getIndex("n"));
+		case "UPrime": return getColumnUPrime(variable.getIndex("n"));
+		case "V": return getColumnV(variable.getIndex("k"), variable.getIndex("n"));
+		default: throw new IllegalArgumentException("Unknown variable: " + variable.getNameWithIndices());
+		}
+	}
+
+	/**
+	 * Variable (constructed by constructVariables()) of a column
+	 * @param model
+	 * @param column
+	 * @return
+	 */
+	private Variable getVariable(LPModel model, int column) {
+		String name = model.getNames().getName(model.getColumnName(column));
+		int index0 = model.getColumnIndex(column, 0);
+		int index1 = model.getColumnIndex(column, 1);
+		switch (name) {
+		case "P": return getVariableP(index0, index1, model.getColumnIndex(column, 2));
+		case "X": return getVariableX(index0, index1);
+		case "D": return getVariableD(index0, index1, model.getColumnIndex(column, 2), model.getColumnIndex(column, 3));
+		case "E": return getVariableE(index0, index1);
+		case "Q": return getVariableQ(index0, index1, model.getColumnIndex(column, 2));
+		case "QPrime": return variablesQPrime.get(index0, index1);
+		case "U": return getVariableU(index0, index1);
+		case "UPrime": return getVariableUPrime(index0, index1);
+		case "V": return getVariableV(index0, index1);
+		default: throw new IllegalArgumentException("Unknown variable: " + model.getColumnNameWithIndices(column));
+		}
+	}
+
+	private void checkVariablesConstructed() {
+		if (variablesP == null) {
+			log(0, "ERROR: Call constructVariables first!");
+			throw new NullPointerException();
 		}
 	}
 	
@@ -406,45 +618,39 @@ public class InstanceLP extends Instance implements Loggable {
 	
 	
 	
-	private Equation constructObjectiveFunction() {
-		if (variablesP == null) {
-			log(0, "ERROR: Call constructVariables first!");
-			throw new NullPointerException();
-		}
-		
+	private void constructObjectiveFunction(LPModel model) {
 		// Helper variables
 		int kStart = getKStart();
 		int kEnd = getKEnd();
-				
-		
+
+
 		// OBJECTIVE FUNCTION
 		// P = power
-		Equation objectiveFunction = new Equation("OBJ", Equation.ConstraintType.OBJ);
-		
-		if (useNormalizingCoefficients == true && verbosity >= 2) {
+		if (useNormalizingCoefficients == true && getVerbosity() >= 2) {
 			printNormalizingCoefficients();
 		}
-		
+
 		if (this.objectiveFairShare.getWeight() >= 0) {
-			
-			for (Variable variableQPrime : variablesQPrime.values()) {
-				double weight = (variableQPrime.getIndex("below") == 1) ? 
-						objectiveFairShare.getWeight() :
-						objectiveFairShare.getWeight() / 10;
-						
-				if (useNormalizingCoefficients == true) {
-					weight *= getNormalizingCoefficientFairShare(); 
+
+			for (int n=0;n<cars.size();n++) {
+				for (int below=1;below>=0;below--) {
+					double weight = (below == 1) ?
+							objectiveFairShare.getWeight() :
+							objectiveFairShare.getWeight() / 10;
+
+					if (useNormalizingCoefficients == true) {
+						weight *= getNormalizingCoefficientFairShare();
+					}
+
+					model.addObjectiveCoefficient(getColumnQPrime(n, below), weight);
 				}
-				
-				objectiveFunction.cloneAndAddVariable(variableQPrime, weight);
-				
 			}
-			
-			
+
+
 			/*for (int i=0;i<chargingStations.size();i++) {
 				for (int k=kStart;k<kEnd;k++) {
 					for (int n=0;n<cars.size();n++) {
-						
+
 					}
 				}
 			}
@@ -455,935 +661,784 @@ public class InstanceLP extends Instance implements Loggable {
 							// Constants are left out, ignored by solvers
 						}*/
 		}
-		
+
 		if (this.objectiveEnergyCosts.getWeight() > 0) {
-			
+
 			double weight = objectiveEnergyCosts.getWeight();
-			
+
 			if (useNormalizingCoefficients == true) {
-				weight *= getNormalizingCoefficientEnergyCosts(); 
+				weight *= getNormalizingCoefficientEnergyCosts();
 			}
-			
+
 			// Minimize energy prices
 			for (int i=0;i<getChargingStations().size();i++) {
 				for (int j=1;j<=3;j++) {
 					for (int k=kStart; k<kEnd; k++) {
-						Variable power = getVariableP(i, j, k);
-						
+						int power = getColumnP(i, j, k);
+
 						double energyPrice;
 						if (useNormalizingCoefficients) {
 							// Retrieve energy price of this variable's timeslot k
 							energyPrice = energyPriceHistory.getPrice(k); // Convert from MWh to Wh with / 10^6
-							
+
 							// [A]*230V * 1/[€] * [€/Wh]
 							// [Wh] * 1/[€] * [€/Wh]
-							objectiveFunction.cloneAndAddVariable(power, weight * 0.25 * energyPrice);
+							model.addObjectiveCoefficient(power, weight * 0.25 * energyPrice);
 						}
 						else {
 							energyPrice = energyPriceHistory.getPrice(k);
-							objectiveFunction.cloneAndAddVariable(power, objectiveEnergyCosts.getWeight() * 0.25 * energyPrice);
+							model.addObjectiveCoefficient(power, objectiveEnergyCosts.getWeight() * 0.25 * energyPrice);
 						}
-							
+
 					}
 				}
 			}
 		}
-		
+
 		if (this.objectivePeakShaving.getWeight() > 0) {
 			double weight = objectivePeakShaving.getWeight();
-			
+
 			if (useNormalizingCoefficients == true) {
 				weight *= getNormalizingCoefficientPeakShaving();
 			}
-			
-			for (Variable variableE : variablesE.values()) {
-				
-				objectiveFunction.cloneAndAddVariable(variableE, weight);
+
+			for (int k=kStart;k<kEnd-1;k++) {
+				for (int sign=1;sign>=0;sign--) {
+					model.addObjectiveCoefficient(getColumnE(k, sign), weight);
+				}
 			}
 		}
-		
+
 		if (this.objectiveLoadImbalance.getWeight() > 0) {
 			// Penalty for bad load distribution (Schieflast), load imbalance
-			
+
 			double weight = objectiveLoadImbalance.getWeight();
-			
+
 			if (useNormalizingCoefficients == true) {
 				weight *= getNormalizingCoefficientLoadImbalance();
 			}
-			
-			for (Variable variableD : variablesD.values()) {
-				if (variableD.getIndex("k") >= kStart && variableD.getIndex("k") < kEnd) {
-					// Only add relevant ones
-					
-					if (useNormalizingCoefficients==true) {
-						objectiveFunction.cloneAndAddVariable(variableD, weight * 0.5);
-					}
-					else {
-						objectiveFunction.cloneAndAddVariable(variableD, weight);
+
+			// Only add relevant ones
+			int[][] phasesD = new int[][] {{1, 2}, {2, 3}, {1, 3}};
+			for (int k=kStart;k<kEnd;k++) {
+				for (int sign=1;sign>=0;sign--) {
+					for (int[] phases : phasesD) {
+						int variableD = getColumnD(k, sign, phases[0], phases[1]);
+						if (useNormalizingCoefficients==true) {
+							model.addObjectiveCoefficient(variableD, weight * 0.5);
+						}
+						else {
+							model.addObjectiveCoefficient(variableD, weight);
+						}
 					}
-			
 				}
 			}
 		}
-		return objectiveFunction;
 	}
-	
+
+	/**
+	 * Restrictions as Equation objects (one cloned Variable per term). For large instances use constructModel() or constructProblem() instead.
+	 * @return
+	 */
 	public ArrayList<Equation> constructAllRestrictions() {
+		LPModel model = new LPModel();
+		constructColumns(model);
+		constructAllRestrictions(model);
+
+		ArrayList<Equation> allRestrictions = new ArrayList<>();
+		for (int row=0;row<model.getNumberOfRows();row++) {
+			int name = model.getRowName(row);
+			Equation equation = new Equation(model.getNames().getName(name), model.getRowType(row));
+			String[] indexNames = model.getNames().getIndexNames(name);
+			for (int index=0;index<indexNames.length;index++) {
+				equation.setIndex(indexNames[index], model.getRowIndex(row, index));
+			}
+			for (int position=model.getRowStart(row);position<model.getRowEnd(row);position++) {
+				equation.cloneAndAddVariable(getVariable(model, model.getTermColumn(position)), model.getTermCoefficient(position));
+			}
+			equation.RHS = model.getRightHandSide(row);
+			allRestrictions.add(equation);
+		}
+		return allRestrictions;
+	}
+
+	/**
+	 * Adds all restrictions as rows of the model (columns have to be constructed with constructColumns(...) before)
+	 * @param model
+	 */
+	private void constructAllRestrictions(LPModel model) {
+		LPNames names = model.getNames();
+
 		// Helper variables
 		int kStart = getKStart();
 		int kEnd = getKEnd();
 		log(1, "Running with kStart=" + kStart + ", kEnd=" + kEnd);
-		
+
 		// Construct restrictions
 		// R1: One equation per car, station: Don't overload each car
 		log(1, "Constructing R1... ", true, false);
-		ArrayList<Equation> equationsR1 = new ArrayList<>();
+		int nameR1 = names.intern("R1", "i", "n");
 		for (int i=0;i<chargingStations.size();i++) {
 			for (int n=0;n<cars.size();n++) {
-				Variable variableX = getVariableX(i, n);
-				
-				Equation equation = new Equation("R1", Equation.ConstraintType.LEQ);
-				equation.setIndex("i", i);
-				equation.setIndex("n", n);
-				
+				model.beginRow(nameR1, ConstraintType.LEQ, i, n);
+
 				for (int j=1;j<=3;j++) {
 					for (int k=kStart;k<kEnd;k++) {
-						Variable power = getVariableP(i,j,k);
 						double isAvailable = cars.get(n).isAvailableInt(k);
 						// 0.25* w*n*d_{k,n}*P_{i,j,k}
-						equation.cloneAndAddVariable(power, 0.25*CONSTANTS.CHARGING_EFFICIENCY*isAvailable);
+						model.addTerm(getColumnP(i, j, k), 0.25*CONSTANTS.CHARGING_EFFICIENCY*isAvailable);
 					}
 				}
-				
-				equation.cloneAndAddVariable(variableX, CONSTANTS.M_HIGH_BOUND);
-				
-				equation.RHS = cars.get(n).getMaxCapacity() - cars.get(n).getCurrentCapacity() + CONSTANTS.M_HIGH_BOUND; //b_n + M
-				equationsR1.add(equation);
+
+				model.addTerm(getColumnX(i, n), CONSTANTS.M_HIGH_BOUND);
+
+				model.endRow(cars.get(n).getMaxCapacity() - cars.get(n).getCurrentCapacity() + CONSTANTS.M_HIGH_BOUND); //b_n + M
 			}
 		}
-		
-		
+
+
 		// R2: One equation per i,j,k,n: Ein Auto steht da
 		log(1, "R2... ", false, false);
-		ArrayList<Equation> equationsR2 = new ArrayList<>();
+		int nameR2 = names.intern("R2", "i", "j", "k");
 		for (int i=0;i<getChargingStations().size();i++) {
 			for (int j=1;j<=3;j++) {
 				for (int k=kStart; k<kEnd;k++) {
-					Variable power = getVariableP(i, j, k);
-					
-					Equation equation = new Equation("R2", Equation.ConstraintType.LEQ);
-					equation.setIndex("i", i);
-					equation.setIndex("j", j);
-					equation.setIndex("k", k);
-					
-					equation.cloneAndAddVariable(power, 1);
+					model.beginRow(nameR2, ConstraintType.LEQ, i, j, k);
+
+					model.addTerm(getColumnP(i, j, k), 1);
 					double fuse = chargingStations.get(i).getFusePhase(j); // -e_i,j * X_i,n
-					
+
 					for (int n=0;n<cars.size();n++) {
 						int isAvailable = cars.get(n).isAvailableInt(k);
-						equation.cloneAndAddVariable(getVariableX(i, n), -1 * fuse * isAvailable);
+						model.addTerm(getColumnX(i, n), -1 * fuse * isAvailable);
 					}
-					
-					equation.RHS = 0;
-					equationsR2.add(equation);
+
+					model.endRow(0);
 				}
 			}
 		}
-		
-		
-		// R3: One equation per i,j,k,n: Sicherung 
-		ArrayList<Equation> equationsR3 = new ArrayList<>();
+
+
+		// R3: One equation per i,j,k,n: Sicherung
+		int nameR3 = names.intern("R3", "i", "j", "k");
 		for (int i=0;i<getChargingStations().size();i++) {
 			for (int j=1;j<=3;j++) {
 				for (int k=kStart; k<kEnd;k++) {
-					Variable power = getVariableP(i, j, k);
-					
-					Equation equation = new Equation("R3", Equation.ConstraintType.LEQ);
-					equation.setIndex("i", i);
-					equation.setIndex("j", j);
-					equation.setIndex("k", k);
-					
+					model.beginRow(nameR3, ConstraintType.LEQ, i, j, k);
+
 					double fuse = chargingStations.get(i).getFusePhase(j); // -e_i,j * X_i,n
-					
-					equation.cloneAndAddVariable(power, 1);
-					equation.RHS = fuse;
-					equationsR3.add(equation);
+
+					model.addTerm(getColumnP(i, j, k), 1);
+					model.endRow(fuse);
 				}
 			}
 		}
-		
+
 		// R4: One equation per n: Jedes Auto max 1 Säule
-		ArrayList<Equation> equationsR4 = new ArrayList<>();
+		int nameR4 = names.intern("R4", "n");
 		for (int n=0;n<cars.size();n++) {
-			Equation equation = new Equation("R4", Equation.ConstraintType.LEQ);
-			equation.setIndex("n", n);
-			
+			model.beginRow(nameR4, ConstraintType.LEQ, n);
+
 			for (int i=0;i<chargingStations.size();i++) {
-				Variable variableX = getVariableX(i, n);
-				equation.cloneAndAddVariable(variableX, 1);
+				model.addTerm(getColumnX(i, n), 1);
 			}
-			equation.RHS = 1;
-			equationsR4.add(equation);
+			model.endRow(1);
 		}
-		
+
 		// R5: One equation per i,k: Jede Säule max 1 Auto zu Zeitpunkt k
-		ArrayList<Equation> equationsR5 = new ArrayList<>();
+		int nameR5 = names.intern("R5", "i", "k");
 		for (int i=0;i<chargingStations.size();i++) {
 			for (int k=kStart;k<kEnd;k++) {
-				Equation equation = new Equation("R5", Equation.ConstraintType.LEQ);
-				equation.setIndex("i", i);
-				equation.setIndex("k", k);
-				
+				model.beginRow(nameR5, ConstraintType.LEQ, i, k);
+
 				for (int n=0;n<cars.size();n++) {
 					//X_i,n * d_k,n
-					Variable variableX = getVariableX(i, n);
-					equation.cloneAndAddVariable(variableX, cars.get(n).isAvailableInt(k));
+					model.addTerm(getColumnX(i, n), cars.get(n).isAvailableInt(k));
 				}
-								
-				equation.RHS = 1;
-				equationsR5.add(equation);
+
+				model.endRow(1);
 			}
 		}
-		
-		
+
+
 		// R6_1, R6_2: One equation per i,k,n Festlegen 1. Phase 2. Verhältnis UPPER/LOWER bound
 		// R7_1, R6_3: One equation per i,k,n Festlegen 1. Phase 3. Verhältnis UPPER/LOWER bound
 		log(1, "R6-R7... ", false, false);
-		ArrayList<Equation> equationsR6 = new ArrayList<>();
-		ArrayList<Equation> equationsR7 = new ArrayList<>();
+		int nameR6_1 = names.intern("R6_1", "i", "k", "n");
+		int nameR6_2 = names.intern("R6_2", "i", "k", "n");
+		int nameR7_1 = names.intern("R7_1", "i", "k", "n");
+		int nameR7_2 = names.intern("R7_2", "i", "k", "n");
 		for (int i=0;i<chargingStations.size();i++) {
 			for (int k=kStart;k<kEnd;k++) {
-				Variable powerPhase1 = getVariableP(i, 1, k);
-				Variable powerPhase2 = getVariableP(i, 2, k);
-				Variable powerPhase3 = getVariableP(i, 3, k);
-				
+				int powerPhase1 = getColumnP(i, 1, k);
+				int powerPhase2 = getColumnP(i, 2, k);
+				int powerPhase3 = getColumnP(i, 3, k);
+
 				for (int n=0;n<cars.size();n++) {
-					Variable variableX = getVariableX(i, n);
-					
+					int variableX = getColumnX(i, n);
+					Car car = cars.get(n);
+					int isAvailable = car.isAvailableInt(k);
+
 					// Set upper bound for ratio of phase 1 to phase 2. If X_{i,n}=1, lower and upper bound should both be equal 0.
-					// If X_{i,n}=0, lower and upper bound should be ignorable, which is why a large value is chosen. 
-					Equation equationP1P2HIGH = new Equation("R6_1", Equation.ConstraintType.LEQ);
-					equationP1P2HIGH.setIndex("i", i);
-					equationP1P2HIGH.setIndex("k", k);
-					equationP1P2HIGH.setIndex("n", n);
-					int isAvailable = cars.get(n).isAvailableInt(k);
-					
-					equationP1P2HIGH.cloneAndAddVariable(powerPhase1, cars.get(n).canLoadPhase(2));
-					equationP1P2HIGH.cloneAndAddVariable(powerPhase2, -1*cars.get(n).canLoadPhase(1));
-					equationP1P2HIGH.cloneAndAddVariable(variableX, isAvailable * CONSTANTS.M_HIGH_BOUND);
-					equationP1P2HIGH.RHS = CONSTANTS.M_HIGH_BOUND;
-					equationsR6.add(equationP1P2HIGH);
-					
+					// If X_{i,n}=0, lower and upper bound should be ignorable, which is why a large value is chosen.
+					model.beginRow(nameR6_1, ConstraintType.LEQ, i, k, n);
+					model.addTerm(powerPhase1, car.canLoadPhase(2));
+					model.addTerm(powerPhase2, -1*car.canLoadPhase(1));
+					model.addTerm(variableX, isAvailable * CONSTANTS.M_HIGH_BOUND);
+					model.endRow(CONSTANTS.M_HIGH_BOUND);
+
 					// Set lower bound for ratio of phase 1 to phase 2
-					Equation equationP1P2LOW = new Equation("R6_2", Equation.ConstraintType.GEQ);
-					equationP1P2LOW.setIndex("i", i);
-					equationP1P2LOW.setIndex("k", k);
-					equationP1P2LOW.setIndex("n", n);
-					
-					equationP1P2LOW.cloneAndAddVariable(powerPhase1, cars.get(n).canLoadPhase(2));
-					equationP1P2LOW.cloneAndAddVariable(powerPhase2, -1*cars.get(n).canLoadPhase(1));
-					equationP1P2LOW.cloneAndAddVariable(variableX, -1 * isAvailable * CONSTANTS.M_HIGH_BOUND);
-					equationP1P2LOW.RHS = -1 * CONSTANTS.M_HIGH_BOUND;
-					equationsR6.add(equationP1P2LOW);
-					
-					
+					model.beginRow(nameR6_2, ConstraintType.GEQ, i, k, n);
+					model.addTerm(powerPhase1, car.canLoadPhase(2));
+					model.addTerm(powerPhase2, -1*car.canLoadPhase(1));
+					model.addTerm(variableX, -1 * isAvailable * CONSTANTS.M_HIGH_BOUND);
+					model.endRow(-1 * CONSTANTS.M_HIGH_BOUND);
+
+
 					// Set upper bound for ratio of phase 1 to phase 3. If X_{i,n}=1, lower and upper bound should both be equal 0.
-					// If X_{i,n}=0, lower and upper bound should be ignorable, which is why a large value is chosen. 
-					Equation equationP1P3HIGH = new Equation("R7_1", Equation.ConstraintType.LEQ);
-					equationP1P3HIGH.setIndex("i", i);
-					equationP1P3HIGH.setIndex("k", k);
-					equationP1P3HIGH.setIndex("n", n);
-					
-					equationP1P3HIGH.cloneAndAddVariable(powerPhase1, cars.get(n).canLoadPhase(3));
-					equationP1P3HIGH.cloneAndAddVariable(powerPhase3, -1*cars.get(n).canLoadPhase(1));
-					equationP1P3HIGH.cloneAndAddVariable(variableX, isAvailable * CONSTANTS.M_HIGH_BOUND);
-					equationP1P3HIGH.RHS = CONSTANTS.M_HIGH_BOUND;
-					equationsR6.add(equationP1P3HIGH);
-					
+					// If X_{i,n}=0, lower and upper bound should be ignorable, which is why a large value is chosen.
+					model.beginRow(nameR7_1, ConstraintType.LEQ, i, k, n);
+					model.addTerm(powerPhase1, car.canLoadPhase(3));
+					model.addTerm(powerPhase3, -1*car.canLoadPhase(1));
+					model.addTerm(variableX, isAvailable * CONSTANTS.M_HIGH_BOUND);
+					model.endRow(CONSTANTS.M_HIGH_BOUND);
+
 					// Set lower bound for ratio of phase 1 to phase 2
-					Equation equationP1P3LOW = new Equation("R7_2", Equation.ConstraintType.GEQ);
-					equationP1P3LOW.setIndex("i", i);
-					equationP1P3LOW.setIndex("k", k);
-					equationP1P3LOW.setIndex("n", n);
-					
-					equationP1P3LOW.cloneAndAddVariable(powerPhase1, cars.get(n).canLoadPhase(3));
-					equationP1P3LOW.cloneAndAddVariable(powerPhase3, -1*cars.get(n).canLoadPhase(1));
-					equationP1P3LOW.cloneAndAddVariable(variableX, -1 * isAvailable * CONSTANTS.M_HIGH_BOUND);
-					equationP1P3LOW.RHS = -1 * CONSTANTS.M_HIGH_BOUND;
-					equationsR6.add(equationP1P3LOW);
+					model.beginRow(nameR7_2, ConstraintType.GEQ, i, k, n);
+					model.addTerm(powerPhase1, car.canLoadPhase(3));
+					model.addTerm(powerPhase3, -1*car.canLoadPhase(1));
+					model.addTerm(variableX, -1 * isAvailable * CONSTANTS.M_HIGH_BOUND);
+					model.endRow(-1 * CONSTANTS.M_HIGH_BOUND);
 				}
 			}
 		}
-		
+
 		// R8, R9: Minimale / Maximale Ladeleistung Auto (for each i, j, k, n)
 		log(1, "R8-R9... ", false, false);
-		ArrayList<Equation> equationsR8 = new ArrayList<>();
-		ArrayList<Equation> equationsR9 = new ArrayList<>();
+		int nameR8 = names.intern("R8", "i", "j", "k", "n");
 		for (int i=0;i<getChargingStations().size();i++) {
 			for (int j=1;j<=3;j++) {
 				for (int k=kStart;k<kEnd;k++) {
-					Variable power = getVariableP(i, j, k);
-					
 					double fuse = chargingStations.get(i).getFusePhase(j);
-					
+
+					for (int n=0;n<cars.size();n++) {
+						Car car = cars.get(n);
+						int variableX = getColumnX(i, n);
+						int isAvailable = car.isAvailableInt(k);
+
+						model.beginRow(nameR8, ConstraintType.LEQ, i, j, k, n);
+						model.addTerm(getColumnP(i, j, k), 1); // P_{i,j,k}
+						model.addTerm(variableX, isAvailable * fuse); // e_{i,j}*X_{i,n}
+						model.addTerm(variableX, -1 * isAvailable * car.maxCurrentPerPhase); // -f_{j,n}*X_{i,n}
+						model.endRow(fuse);
+					}
+				}
+			}
+		}
+		int nameR9 = names.intern("R9", "i", "j", "k", "n");
+		for (int i=0;i<getChargingStations().size();i++) {
+			for (int j=1;j<=3;j++) {
+				for (int k=kStart;k<kEnd;k++) {
 					for (int n=0;n<cars.size();n++) {
 						Car car = cars.get(n);
-						Variable variableX = getVariableX(i, n);
-						Variable variableU = getVariableU(k, n);
-						Variable variableV = getVariableV(k, n);
-						
-						int isAvailable = cars.get(n).isAvailableInt(k);
-						
-						Equation equationMax = new Equation("R8", Equation.ConstraintType.LEQ);
-						equationMax.setIndex("i", i);
-						equationMax.setIndex("j", j);
-						equationMax.setIndex("k", k);
-						equationMax.setIndex("n", n);
-						
-						equationMax.cloneAndAddVariable(power, 1); // P_{i,j,k}
-						equationMax.cloneAndAddVariable(variableX, isAvailable * fuse); // e_{i,j}*X_{i,n}
-						
-						
-						equationMax.cloneAndAddVariable(variableX, -1 * isAvailable * car.maxCurrentPerPhase); // -f_{j,n}*X_{i,n}    
-
-						equationMax.RHS = fuse; 
-						
-						equationsR8.add(equationMax);
-
-						
-						//double minAverageCurrent = 4*(car.maxCapacity-car.getCurrentCapacity()) / (car.getLastAvailableTimeslot()-car.getFirstAvailableTimeslot()+1);
-						//int minAverageGreaterMinCurrent = (car.minCurrent <= minAverageCurrent) ? 1 : 0;
-						//if (minAverageGreaterMinCurrent == 0) {
-							//System.out.println(minAverageCurrent);
-							//System.out.println(car);
-						//}
-						Equation equationMin = new Equation("R9", Equation.ConstraintType.GEQ);
-						equationMin.setIndex("i", i);
-						equationMin.setIndex("j", j);
-						equationMin.setIndex("k", k);
-						equationMin.setIndex("n", n);
-						
-						equationMin.cloneAndAddVariable(power, 1);
-						equationMin.cloneAndAddVariable(variableX, -1*CONSTANTS.M_HIGH_BOUND);
-						equationMin.cloneAndAddVariable(variableU, -1*CONSTANTS.M_HIGH_BOUND);
 						int isSuspendable = (car.isSuspendable()) ? 1 : 0;
-						equationMin.cloneAndAddVariable(variableV, -1*CONSTANTS.M_HIGH_BOUND*isSuspendable);
-						
-						equationMin.RHS = car.minCurrentPerPhase*car.canLoadPhase(j) 
-								* car.isAvailableInt(k) - 2*CONSTANTS.M_HIGH_BOUND 
-								- isSuspendable*CONSTANTS.M_HIGH_BOUND; 
-						
-						equationsR9.add(equationMin);
+
+						model.beginRow(nameR9, ConstraintType.GEQ, i, j, k, n);
+						model.addTerm(getColumnP(i, j, k), 1);
+						model.addTerm(getColumnX(i, n), -1*CONSTANTS.M_HIGH_BOUND);
+						model.addTerm(getColumnU(k, n), -1*CONSTANTS.M_HIGH_BOUND);
+						model.addTerm(getColumnV(k, n), -1*CONSTANTS.M_HIGH_BOUND*isSuspendable);
+						model.endRow(car.minCurrentPerPhase*car.canLoadPhase(j)
+								* car.isAvailableInt(k) - 2*CONSTANTS.M_HIGH_BOUND
+								- isSuspendable*CONSTANTS.M_HIGH_BOUND);
 					}
 				}
 			}
 		}
-		
+
 		// R10: Hierarchical fuse system
 		// Traverse fuseTree: For each pre-fuse, get all bottom level nodes and create one restriction for it
 		log(1, "R10... ", false, false);
-		ArrayList<Equation> equationsR10 = new ArrayList<>();
+		final int nameR10 = names.intern("R10", "l", "j", "k");
 		for (int kCounter=kStart;kCounter<kEnd;kCounter++) {
 			final int k = kCounter;
-			
+
 			fuseTree.traverseTree(new Callback<FuseTreeNode>() {
 				public void callback(FuseTreeNode item) {
 					// Outer loop: Construct three equations (one per phase) per higher level fuse
 					if (item instanceof Fuse) {
 						final Fuse currentFuse = (Fuse) item;
 						FuseTree subtree = fuseTree.getSubtree(currentFuse);
-						
+
 						for (int jCounter=1;jCounter<=3;jCounter++) {
 							final int j = jCounter;
-							
-							final Equation equationPhaseJ = new Equation("R10", Equation.ConstraintType.LEQ);
-							equationPhaseJ.setIndex("l", currentFuse.getId());
-							equationPhaseJ.setIndex("j", j);
-							equationPhaseJ.setIndex("k", k);
-							equationPhaseJ.RHS = currentFuse.getFusePhase(Phase.getByInt(j));
-							
-							// Note: Repeatedly traversing the subtrees is probably less efficient 
+
+							model.beginRow(nameR10, ConstraintType.LEQ, currentFuse.getId(), j, k);
+
+							// Note: Repeatedly traversing the subtrees is probably less efficient
 							// than an recursive approach, but hopefully more readable...
 							subtree.traverseTree(new Callback<FuseTreeNode>() {
 								public void callback(FuseTreeNode item) {
 									// Inner loop: Add variables to equation. Three variables per charging station
 									if (item instanceof ChargingStation) {
 										ChargingStation chargingStation = (ChargingStation) item;
-										Variable powerConsumedPhaseJ = getVariableP(
-												chargingStation.getId(), 
-												chargingStation.getPhaseGridToChargingStation(Phase.getByInt(j)).asInt(), //chargingStation.getPhaseConsumed(Phase.getByInt(j)).asInt(), 
+										int powerConsumedPhaseJ = getColumnP(
+												chargingStation.getId(),
+												chargingStation.getPhaseGridToChargingStation(Phase.getByInt(j)).asInt(),
 												k);
-										/*if (k==43) {
-											System.out.println("Fuse fuse id=" + currentFuse.getIndexL() + ", " + powerConsumedPhaseJ.getNameWithIndices());
-										}*/
-										
-										//System.out.println("i=" + chargingStation.getIndexI() + ", j=" + j + ", k=" + k);
-										//System.out.println(variablesX.values());
-										equationPhaseJ.cloneAndAddVariable(powerConsumedPhaseJ, 1);
+										model.addTerm(powerConsumedPhaseJ, 1);
 									}
 								}
 							});
-							
-							if (equationPhaseJ.hasVariables() == true) {
-								equationsR10.add(equationPhaseJ);
+
+							if (model.getCurrentRowLength() > 0) {
+								model.endRow(currentFuse.getFusePhase(Phase.getByInt(j)));
+							}
+							else {
+								model.discardRow();
 							}
 						}
-						
+
 					}
-					
+
 				}
 			});
 		}
-		
+
 		// R11: One equation per i, j, n:  Immediate start needed
 		log(1, "R11... ", false, false);
-		ArrayList<Equation> equationsR11 = new ArrayList<>();
-		for (Variable variableX : variablesX.values()) {
-			Car car = cars.get(variableX.getIndex("n"));
-			int kFirst = car.getFirstAvailableTimeslot();
-			for (int j=1;j<=3;j++) {
-				Equation equationR11 = new Equation("R11", Equation.ConstraintType.GEQ);
-				equationR11.setIndex("i", variableX.getIndex("i"));
-				equationR11.setIndex("j", j);
-				equationR11.setIndex("k", kFirst);
-				equationR11.setIndex("n", variableX.getIndex("n"));
-				
-				Variable variableP = getVariableP(variableX.getIndex("i"), j, kFirst);
-				equationR11.cloneAndAddVariable(variableP, 1);
+		int nameR11 = names.intern("R11", "i", "j", "k", "n");
+		for (int i=0;i<chargingStations.size();i++) {
+			for (int n=0;n<cars.size();n++) {
+				Car car = cars.get(n);
+				int kFirst = car.getFirstAvailableTimeslot();
 				int immediateStart = car.isImmediateStartNeeded() ? 1 : 0;
-				equationR11.cloneAndAddVariable(variableX, 
-						-1*car.minCurrentPerPhase*car.canLoadPhase(j)*immediateStart);
-				equationR11.RHS = 0;
-				
-				equationsR11.add(equationR11);
+				for (int j=1;j<=3;j++) {
+					model.beginRow(nameR11, ConstraintType.GEQ, i, j, kFirst, n);
+					model.addTerm(getColumnP(i, j, kFirst), 1);
+					model.addTerm(getColumnX(i, n), -1*car.minCurrentPerPhase*car.canLoadPhase(j)*immediateStart);
+					model.endRow(0);
+				}
 			}
 		}
 
 		// R12: Suspendable
 		log(1, "R12... ", false, false);
-		ArrayList<Equation> equationsR12 = new ArrayList<>();
+		int nameR12 = names.intern("R12", "i", "j", "k", "n");
 		for (Car car : cars) {
 			int n = car.getId();
+			int isSuspendable = (car.isSuspendable()) ? 1 : 0;
 			for (int i=0;i<getChargingStations().size(); i++) {
 				for (int j=1;j<=3;j++) {
 					for (int k=kStart; k<kEnd; k++) {
-						Variable variableP = getVariableP(i, j, k);
-						Variable variableX = getVariableX(i, n);
-						Variable variableV = getVariableV(k, n);
-						
-						Equation equationR12 = new Equation("R12", ConstraintType.LEQ);
-						equationR12.setIndex("i", i);
-						equationR12.setIndex("j", j);
-						equationR12.setIndex("k", k);
-						equationR12.setIndex("n", n);
-						
-						equationR12.cloneAndAddVariable(variableP, 1);
-						equationR12.cloneAndAddVariable(variableV, -1*CONSTANTS.M_HIGH_BOUND);
-						equationR12.cloneAndAddVariable(variableX, CONSTANTS.M_HIGH_BOUND);
-						
-						int isSuspendable = (car.isSuspendable()) ? 1 : 0;
-						equationR12.RHS = CONSTANTS.M_HIGH_BOUND*(1-isSuspendable) 
-										  + CONSTANTS.M_HIGH_BOUND*(1-car.isAvailableInt(k))
-										  + CONSTANTS.M_HIGH_BOUND;
-						
-						equationsR12.add(equationR12);
+						model.beginRow(nameR12, ConstraintType.LEQ, i, j, k, n);
+						model.addTerm(getColumnP(i, j, k), 1);
+						model.addTerm(getColumnV(k, n), -1*CONSTANTS.M_HIGH_BOUND);
+						model.addTerm(getColumnX(i, n), CONSTANTS.M_HIGH_BOUND);
+						model.endRow(CONSTANTS.M_HIGH_BOUND*(1-isSuspendable)
+									 + CONSTANTS.M_HIGH_BOUND*(1-car.isAvailableInt(k))
+									 + CONSTANTS.M_HIGH_BOUND);
 					}
 				}
 			}
 		}
-		
+
 		// R13: Variable power allowed
 		log(1, "R13... ", false, false);
-		ArrayList<Equation> equationsR13 = new ArrayList<>();
+		int nameR13_1 = names.intern("R13_1", "i", "j", "k", "n");
+		int nameR13_2 = names.intern("R13_2", "i", "j", "k", "n");
 		for (Car car : cars) {
 			int n = car.getId();
-			
+
 			if (car.canUseVariablePower()) {
 				// Only add these restrictions if car does NOT have variable power
 				continue;
 			}
-			
+
 			int canUseVariablePower = (car.canUseVariablePower()) ? 1 : 0;
-			
+
 			for (int i=0;i<chargingStations.size();i++) {
 				for (int j=1;j<=3;j++) {
 					for (int k=car.getFirstAvailableTimeslot();k<car.getLastAvailableTimeslot();k++) {
-						Variable variableP0 = getVariableP(i, j, k);
-					
-						Variable variableP1 = getVariableP(i, j, k+1);
-						Variable variableX = getVariableX(i,n);
-						Variable variableU = getVariableU(k+1, n);
-						
-						Equation equationR13UP = new Equation("R13_1", ConstraintType.LEQ);
-						equationR13UP.setIndex("i", i);
-						equationR13UP.setIndex("j", j);
-						equationR13UP.setIndex("k", k);
-						equationR13UP.setIndex("n", n);
-						Equation equationR13LO = new Equation("R13_2", ConstraintType.GEQ);
-						equationR13LO.setIndex("i", i);
-						equationR13LO.setIndex("j", j);
-						equationR13LO.setIndex("k", k);
-						equationR13LO.setIndex("n", n);
-						
-						equationR13UP.cloneAndAddVariable(variableP0, 1);
-						equationR13UP.cloneAndAddVariable(variableP1, -1);
-						equationR13UP.cloneAndAddVariable(variableX, CONSTANTS.M_HIGH_BOUND);
-						equationR13UP.cloneAndAddVariable(variableU, CONSTANTS.M_HIGH_BOUND);
-						equationR13UP.RHS = CONSTANTS.M_HIGH_BOUND * canUseVariablePower
-											+ CONSTANTS.M_HIGH_BOUND * (1-car.isAvailableInt(k+1))
-											+ 2*CONSTANTS.M_HIGH_BOUND;
-						
-						equationR13LO.cloneAndAddVariable(variableP0, 1);
-						equationR13LO.cloneAndAddVariable(variableP1, -1);
-						equationR13LO.cloneAndAddVariable(variableX, -1*CONSTANTS.M_HIGH_BOUND);
-						equationR13LO.cloneAndAddVariable(variableU, -1*CONSTANTS.M_HIGH_BOUND);
-						equationR13LO.RHS = - CONSTANTS.M_HIGH_BOUND * canUseVariablePower
-								  		    - CONSTANTS.M_HIGH_BOUND * (1-car.isAvailableInt(k+1)) 
-								  			- 2*CONSTANTS.M_HIGH_BOUND;
-						
-						equationsR13.add(equationR13UP);
-						equationsR13.add(equationR13LO);
+						int variableP0 = getColumnP(i, j, k);
+						int variableP1 = getColumnP(i, j, k+1);
+						int variableX = getColumnX(i, n);
+						int variableU = getColumnU(k+1, n);
+
+						model.beginRow(nameR13_1, ConstraintType.LEQ, i, j, k, n);
+						model.addTerm(variableP0, 1);
+						model.addTerm(variableP1, -1);
+						model.addTerm(variableX, CONSTANTS.M_HIGH_BOUND);
+						model.addTerm(variableU, CONSTANTS.M_HIGH_BOUND);
+						model.endRow(CONSTANTS.M_HIGH_BOUND * canUseVariablePower
+									 + CONSTANTS.M_HIGH_BOUND * (1-car.isAvailableInt(k+1))
+									 + 2*CONSTANTS.M_HIGH_BOUND);
+
+						model.beginRow(nameR13_2, ConstraintType.GEQ, i, j, k, n);
+						model.addTerm(variableP0, 1);
+						model.addTerm(variableP1, -1);
+						model.addTerm(variableX, -1*CONSTANTS.M_HIGH_BOUND);
+						model.addTerm(variableU, -1*CONSTANTS.M_HIGH_BOUND);
+						model.endRow(- CONSTANTS.M_HIGH_BOUND * canUseVariablePower
+									 - CONSTANTS.M_HIGH_BOUND * (1-car.isAvailableInt(k+1))
+									 - 2*CONSTANTS.M_HIGH_BOUND);
 					}
 				}
 			}
 		}
-		
+
 		// R14 and R15: BEV/PHEV allowed at each charging station
 		log(1, "R14-R15... ", false, false);
-		ArrayList<Equation> equationsR14 = new ArrayList<>();
-		ArrayList<Equation> equationsR15 = new ArrayList<>();
+		int nameR14 = names.intern("R14", "i", "n");
 		for (int i=0;i<chargingStations.size();i++) {
 			for (int n=0;n<cars.size();n++) {
-				Car car = cars.get(n);
-				int isBEV = car.isBEV() ? 1 : 0;
-				int isPHEV= car.isPHEV()? 1 : 0;
-				
-				ChargingStation chargingStation = chargingStations.get(i);
-				int isBEVAllowed = chargingStation.isBEVAllowed ? 1 : 0;
-				int isPHEVAllowed= chargingStation.isPHEVAllowed? 1 : 0;
-				
-				Variable variableX = getVariableX(i, n);
-				
-				Equation equationR14 = new Equation("R14", ConstraintType.LEQ);
-				equationR14.setIndex("i", i);
-				equationR14.setIndex("n", n);
-				equationR14.cloneAndAddVariable(variableX, 1);
-				equationR14.RHS = 1 - isBEV + isBEVAllowed;
-				
-				Equation equationR15 = new Equation("R15", ConstraintType.LEQ);
-				equationR15.setIndex("i", i);
-				equationR15.setIndex("n", n);
-				equationR15.cloneAndAddVariable(variableX, 1);
-				equationR15.RHS = 1 - isPHEV + isPHEVAllowed;
-				
-				
-				equationsR14.add(equationR14);
-				equationsR15.add(equationR15);
+				int isBEV = cars.get(n).isBEV() ? 1 : 0;
+				int isBEVAllowed = chargingStations.get(i).isBEVAllowed ? 1 : 0;
+
+				model.beginRow(nameR14, ConstraintType.LEQ, i, n);
+				model.addTerm(getColumnX(i, n), 1);
+				model.endRow(1 - isBEV + isBEVAllowed);
 			}
 		}
-		
-		
-		
-		
-		// V1,V2,V3: Construct helper variables for distances to calculate good load distributions
-		ArrayList<Equation> equationsV1 = new ArrayList<>();
-		ArrayList<Equation> equationsV2 = new ArrayList<>();
-		ArrayList<Equation> equationsV3 = new ArrayList<>();
-		for (int k=kStart;k<kEnd; k++) {
-			Equation equationP1P2 = new Equation("V1", ConstraintType.EQU);
-			equationP1P2.setIndex("k", k);
-			Equation equationP2P3 = new Equation("V2", ConstraintType.EQU);
-			equationP2P3.setIndex("k", k);
-			Equation equationP1P3 = new Equation("V3", ConstraintType.EQU);
-			equationP1P3.setIndex("k", k);
-			
-			for (int i=0;i<getChargingStations().size();i++) {
-				ChargingStation chargingStation = getChargingStations().get(i);
-				//chargingStation.get
-				//Variable power1 = getVariableP(i, chargingStation.getPhaseConsumed(1).asInt(), k);
-				//Variable power2 = getVariableP(i, chargingStation.getPhaseConsumed(2).asInt(), k);
-				//Variable power3 = getVariableP(i, chargingStation.getPhaseConsumed(3).asInt(), k);
-				
-				Variable power1 = getVariableP(i, chargingStation.getPhaseGridToChargingStation(Phase.getByInt(1)).asInt(), k);
-				Variable power2 = getVariableP(i, chargingStation.getPhaseGridToChargingStation(Phase.getByInt(2)).asInt(), k);
-				Variable power3 = getVariableP(i, chargingStation.getPhaseGridToChargingStation(Phase.getByInt(3)).asInt(), k);
-				
-				equationP1P2.cloneAndAddVariable(power1,  1);
-				equationP1P2.cloneAndAddVariable(power2, -1);
-				equationP2P3.cloneAndAddVariable(power2,  1);
-				equationP2P3.cloneAndAddVariable(power3, -1);
-				equationP1P3.cloneAndAddVariable(power1, -1);
-				equationP1P3.cloneAndAddVariable(power3, -1);
+		int nameR15 = names.intern("R15", "i", "n");
+		for (int i=0;i<chargingStations.size();i++) {
+			for (int n=0;n<cars.size();n++) {
+				int isPHEV= cars.get(n).isPHEV()? 1 : 0;
+				int isPHEVAllowed= chargingStations.get(i).isPHEVAllowed? 1 : 0;
+
+				model.beginRow(nameR15, ConstraintType.LEQ, i, n);
+				model.addTerm(getColumnX(i, n), 1);
+				model.endRow(1 - isPHEV + isPHEVAllowed);
 			}
-			
-			
-			equationP1P2.cloneAndAddVariable(getVariableD(k, 1, 1, 2), -1);
-			equationP1P2.cloneAndAddVariable(getVariableD(k, 0, 1, 2),  1);
-			equationP1P2.RHS = 0;
+		}
 
-			equationP2P3.cloneAndAddVariable(getVariableD(k, 1, 2, 3), -1);
-			equationP2P3.cloneAndAddVariable(getVariableD(k, 0, 2, 3),  1);
-			equationP2P3.RHS = 0;
 
-			
-			equationP1P3.cloneAndAddVariable(getVariableD(k, 1, 1, 3), -1);
-			equationP1P3.cloneAndAddVariable(getVariableD(k, 0, 1, 3),  1);
-			equationP1P3.RHS = 0;
-			
-			
-			equationsV1.add(equationP1P2);
-			equationsV2.add(equationP2P3);
-			equationsV3.add(equationP1P3);
-			
-			
-			
+
+
+		// V1,V2,V3: Construct helper variables for distances to calculate good load distributions
+		// V1: P1-P2, V2: P2-P3, V3: -P1-P3
+		int[] namesV1V3 = new int[] {names.intern("V1", "k"), names.intern("V2", "k"), names.intern("V3", "k")};
+		int[][] phasesV1V3 = new int[][] {{1, 2}, {2, 3}, {1, 3}};
+		double[] coefficientsPhaseFromV1V3 = new double[] {1, 1, -1};
+		for (int v=0;v<3;v++) {
+			int jFrom = phasesV1V3[v][0];
+			int jTo = phasesV1V3[v][1];
+			for (int k=kStart;k<kEnd; k++) {
+				model.beginRow(namesV1V3[v], ConstraintType.EQU, k);
+
+				for (int i=0;i<getChargingStations().size();i++) {
+					ChargingStation chargingStation = getChargingStations().get(i);
+					int powerFrom = getColumnP(i, chargingStation.getPhaseGridToChargingStation(Phase.getByInt(jFrom)).asInt(), k);
+					int powerTo = getColumnP(i, chargingStation.getPhaseGridToChargingStation(Phase.getByInt(jTo)).asInt(), k);
+
+					model.addTerm(powerFrom, coefficientsPhaseFromV1V3[v]);
+					model.addTerm(powerTo, -1);
+				}
+
+				model.addTerm(getColumnD(k, 1, jFrom, jTo), -1);
+				model.addTerm(getColumnD(k, 0, jFrom, jTo), 1);
+				model.endRow(0);
+			}
 		}
-		
-		
-		
+
+
+
 		// V4-V7: Helper variables for previously loaded power
 		log(1, "V4-V7... ", false, false);
-		ArrayList<Equation> equationsV4 = new ArrayList<>();
-		ArrayList<Equation> equationsV5 = new ArrayList<>();
-		ArrayList<Equation> equationsV6 = new ArrayList<>();
-		ArrayList<Equation> equationsV7 = new ArrayList<>();
-		for (Variable variableQ : variablesQ.values()) {
-			int i = variableQ.getIndex("i");
-			int k = variableQ.getIndex("k");
-			int n = variableQ.getIndex("n");
-			Variable variableX = getVariableX(i, n);
-			if (!(variableX.hasValue() && variableX.getValue() == 0)) {
-				// If X_i,n=0: Q_i,k,n is not restricted by V4 and V5
-				Car car = cars.get(n);
-				
-				Equation equationV4 = new Equation("V4", ConstraintType.GEQ);
-				equationV4.setIndex("i", i);
-				equationV4.setIndex("k", k);
-				equationV4.setIndex("n", n);
-				Equation equationV5 = new Equation("V5", ConstraintType.LEQ);
-				equationV5.setIndex("i", i);
-				equationV5.setIndex("k", k);
-				equationV5.setIndex("n", n);
-				
-				
-				// iterate over timeslots BEFORE current k
-				for (int kPrime=0;kPrime<k;kPrime++) {
-					for (int j=1;j<=3;j++) {
-						Variable variableP = getVariableP(i, j, kPrime);
-						equationV4.cloneAndAddVariable(variableP, 0.25*CONSTANTS.CHARGING_EFFICIENCY*car.isAvailableInt(kPrime));
-						equationV5.cloneAndAddVariable(variableP, 0.25*CONSTANTS.CHARGING_EFFICIENCY*car.isAvailableInt(kPrime));
+		int nameV4 = names.intern("V4", "i", "k", "n");
+		int nameV5 = names.intern("V5", "i", "k", "n");
+		int nameV6 = names.intern("V6", "i", "k", "n");
+		int nameV7 = names.intern("V7", "i", "k", "n");
+		for (int v=4;v<=7;v++) {
+			for (int i=0;i<chargingStations.size();i++) {
+				for (int k=0;k<energyPriceHistory.getNTimeslots()+1;k++) {
+					for (int n=0;n<cars.size();n++) {
+						Variable variableX = getVariableX(i, n);
+						int columnX = getColumnX(i, n);
+						int columnQ = getColumnQ(i, k, n);
+
+						// If X_i,n=0: Q_i,k,n is not restricted by V4 and V5
+						if (v == 4 && !(variableX.hasValue() && variableX.getValue() == 0)) {
+							model.beginRow(nameV4, ConstraintType.GEQ, i, k, n);
+							addChargedPowerTerms(model, i, k, cars.get(n));
+							model.addTerm(columnX, -1 * CONSTANTS.M_HIGH_BOUND);
+							model.addTerm(columnQ, -1);
+							model.endRow(-1 * CONSTANTS.M_HIGH_BOUND);
+						}
+						if (v == 5 && !(variableX.hasValue() && variableX.getValue() == 0)) {
+							model.beginRow(nameV5, ConstraintType.LEQ, i, k, n);
+							addChargedPowerTerms(model, i, k, cars.get(n));
+							model.addTerm(columnX, CONSTANTS.M_HIGH_BOUND);
+							model.addTerm(columnQ, -1);
+							model.endRow(CONSTANTS.M_HIGH_BOUND);
+						}
+
+						// If X_i,n=1: Q_i,k,n is not restricted by V6 and V7
+						if (v == 6 && !(variableX.hasValue() && variableX.getValue() == 1)) {
+							// UP bound for Q
+							model.beginRow(nameV6, ConstraintType.LEQ, i, k, n);
+							model.addTerm(columnQ, 1);
+							model.addTerm(columnX, -1*CONSTANTS.M_HIGH_BOUND);
+							model.endRow(0);
+						}
+						if (v == 7 && !(variableX.hasValue() && variableX.getValue() == 1)) {
+							// LO bound for Q
+							model.beginRow(nameV7, ConstraintType.GEQ, i, k, n);
+							model.addTerm(columnQ, 1);
+							model.addTerm(columnX, CONSTANTS.M_HIGH_BOUND);
+							model.endRow(0);
+						}
 					}
 				}
-				
-				equationV4.cloneAndAddVariable(variableX, -1 * CONSTANTS.M_HIGH_BOUND);
-				equationV4.cloneAndAddVariable(variableQ, -1);
-				equationV4.RHS = -1 * CONSTANTS.M_HIGH_BOUND;
-				equationsV4.add(equationV4);
-				
-				equationV5.cloneAndAddVariable(variableX, CONSTANTS.M_HIGH_BOUND);
-				equationV5.cloneAndAddVariable(variableQ, -1);
-				equationV5.RHS = CONSTANTS.M_HIGH_BOUND;
-				equationsV5.add(equationV5);
-			}
-			
-			if (!(variableX.hasValue() && variableX.getValue() == 1)) {
-				// If X_i,n=1: Q_i,k,n is not restricted by V6 and V7
-				// UP bound for Q
-				Equation equationV6 = new Equation("V6", ConstraintType.LEQ);
-				equationV6.setIndex("i", i);
-				equationV6.setIndex("k", k);
-				equationV6.setIndex("n", n);
-				
-				equationV6.cloneAndAddVariable(variableQ, 1);
-				equationV6.cloneAndAddVariable(variableX, -1*CONSTANTS.M_HIGH_BOUND);
-				equationV6.RHS = 0;
-				equationsV6.add(equationV6);
-				
-				// LO bound for Q
-				Equation equationV7 = new Equation("V7", ConstraintType.GEQ);
-				equationV7.setIndex("i", i);
-				equationV7.setIndex("k", k);
-				equationV7.setIndex("n", n);
-				
-				equationV7.cloneAndAddVariable(variableQ, 1);
-				equationV7.cloneAndAddVariable(variableX, CONSTANTS.M_HIGH_BOUND);
-				equationV7.RHS = 0;
-				equationsV7.add(equationV7);
 			}
 		}
-		
+
 		// V8-V9: Helper variables for isChargingNeeded
 		log(1, "V8-V9... ", false, false);
-		ArrayList<Equation> equationsV8 = new ArrayList<>();
-		ArrayList<Equation> equationsV9 = new ArrayList<>();
-		for (Variable variableU : variablesU.values()) {
-			int k = variableU.getIndex("k");
-			int n = variableU.getIndex("n");
-			Car car = cars.get(n);
-			
-			Equation equationV8 = new Equation("V8", ConstraintType.GEQ);
-			equationV8.setIndex("k", k);
-			equationV8.setIndex("n", n);
-			
-			Equation equationV9 = new Equation("V9", ConstraintType.LEQ);
-			equationV9.setIndex("k", k);
-			equationV9.setIndex("n", n);
-			
-			equationV8.cloneAndAddVariable(variableU, car.getMaxCapacity());
-			equationV9.cloneAndAddVariable(variableU, car.getMaxCapacity());
-			
-			for (int i=0;i<chargingStations.size();i++) {
-				Variable variableQ = getVariableQ(i, k, n);
-				equationV8.cloneAndAddVariable(variableQ, 1);
-				equationV9.cloneAndAddVariable(variableQ, 1);
+		int nameV8 = names.intern("V8", "k", "n");
+		int nameV9 = names.intern("V9", "k", "n");
+		for (int v=8;v<=9;v++) {
+			for (int n=0;n<cars.size();n++) {
+				Car car = cars.get(n);
+				for (int k=0;k<energyPriceHistory.getNTimeslots();k++) {
+					if (v == 8) {
+						model.beginRow(nameV8, ConstraintType.GEQ, k, n);
+					}
+					else {
+						model.beginRow(nameV9, ConstraintType.LEQ, k, n);
+					}
+
+					model.addTerm(getColumnU(k, n), car.getMaxCapacity());
+					for (int i=0;i<chargingStations.size();i++) {
+						model.addTerm(getColumnQ(i, k, n), 1);
+					}
+
+					if (v == 8) {
+						model.endRow(car.getMaxCapacity()-car.getCurrentCapacity());
+					}
+					else {
+						model.endRow(car.getMaxCapacity() * 1.999 - car.getCurrentCapacity());
+					}
+				}
 			}
-			
-			equationV8.RHS = car.getMaxCapacity()-car.getCurrentCapacity();
-			equationV9.RHS = car.getMaxCapacity() * 1.999 - car.getCurrentCapacity();
-			
-			equationsV8.add(equationV8);
-			equationsV9.add(equationV9);
 		}
-		
+
 		// V10: Helper variable for summed difference of power between two timeslots
 		// 2nd objective function minimizes this
 		log(1, "V10... ", false, false);
-		ArrayList<Equation> equationsV10 = new ArrayList<>();
+		int nameV10 = names.intern("V10", "k");
 		for (int k=getKStart();k<getKEnd()-1 && this.objectivePeakShaving.getWeight()>0;k++) {
-			Equation equationV10 = new Equation("V10", ConstraintType.EQU);
-			equationV10.setIndex("k", k);
-			equationV10.RHS = 0;
-			
+			model.beginRow(nameV10, ConstraintType.EQU, k);
+
 			for (int i=0;i<chargingStations.size();i++) {
 				for (int j=1;j<=3;j++) {
-					Variable variableP = getVariableP(i, j, k);
-					equationV10.cloneAndAddVariable(variableP, -1);
-					
-					Variable variablePNext = getVariableP(i, j, k+1);
-					equationV10.cloneAndAddVariable(variablePNext, 1);
+					model.addTerm(getColumnP(i, j, k), -1);
+					model.addTerm(getColumnP(i, j, k+1), 1);
 				}
 			}
-			
-			equationV10.cloneAndAddVariable(getVariableE(k, 1), 1);
-			equationV10.cloneAndAddVariable(getVariableE(k, 0), -1);
-			equationsV10.add(equationV10);
+
+			model.addTerm(getColumnE(k, 1), 1);
+			model.addTerm(getColumnE(k, 0), -1);
+			model.endRow(0);
 		}
-		
-		
+
+
 		// V11-12: Helper variable for is car below min charging needs
 		// Used by objective function for fair share
 		log(1, "V11-V12...", false, false);
-		ArrayList<Equation> equationsV11 = new ArrayList<>();
-		ArrayList<Equation> equationsV12 = new ArrayList<>();
-		for (Variable variableUPrime : variablesUPrime.values()) {
-			int k = variableUPrime.getIndex("k");
-			int n = variableUPrime.getIndex("n");
-			Car car = cars.get(n);
-			
-			Equation equationV11 = new Equation("V11", ConstraintType.GEQ);
-			equationV11.setIndex("k", k);
-			equationV11.setIndex("n", n);
-			
-			Equation equationV12 = new Equation("V12", ConstraintType.LEQ);
-			equationV12.setIndex("k", k);
-			equationV12.setIndex("n", n);
-			
-			equationV11.cloneAndAddVariable(variableUPrime, car.minLoadingState);
-			equationV12.cloneAndAddVariable(variableUPrime, car.minLoadingState*CONSTANTS.M_HIGH_BOUND);
-			
-			for (int i=0;i<chargingStations.size();i++) {
-				Variable variableQ = getVariableQ(i, k, n);
-				equationV11.cloneAndAddVariable(variableQ, 1);
-				equationV12.cloneAndAddVariable(variableQ, 1);
+		int kMax = energyPriceHistory.getNTimeslots(); // get timeslot after last one is finished, to include the last P_i,j,k
+		int nameV11 = names.intern("V11", "k", "n");
+		int nameV12 = names.intern("V12", "k", "n");
+		for (int v=11;v<=12;v++) {
+			for (int n=0;n<cars.size();n++) {
+				Car car = cars.get(n);
+				int variableUPrime = getColumnUPrime(n);
+
+				if (v == 11) {
+					model.beginRow(nameV11, ConstraintType.GEQ, kMax, n);
+					model.addTerm(variableUPrime, car.minLoadingState);
+				}
+				else {
+					model.beginRow(nameV12, ConstraintType.LEQ, kMax, n);
+					model.addTerm(variableUPrime, car.minLoadingState*CONSTANTS.M_HIGH_BOUND);
+				}
+
+				for (int i=0;i<chargingStations.size();i++) {
+					model.addTerm(getColumnQ(i, kMax, n), 1);
+				}
+
+				if (v == 11) {
+					model.endRow(car.minLoadingState - car.getCurrentCapacity());
+				}
+				else {
+					model.endRow(car.minLoadingState - car.getCurrentCapacity() + car.minLoadingState*CONSTANTS.M_HIGH_BOUND);
+				}
 			}
-			
-			equationV11.RHS = car.minLoadingState - car.getCurrentCapacity();
-			equationV12.RHS = car.minLoadingState - car.getCurrentCapacity() + car.minLoadingState*CONSTANTS.M_HIGH_BOUND;
-			
-			
-			equationsV11.add(equationV11);
-			equationsV12.add(equationV12);
 		}
-		
+
 		// V13-V16: Helper variable for % minSoC reached or % above minSoC
 		log(1, "V13-V16...", false, true);
-		ArrayList<Equation> equationsV13 = new ArrayList<>();
-		ArrayList<Equation> equationsV14 = new ArrayList<>();
-		ArrayList<Equation> equationsV15 = new ArrayList<>();
-		ArrayList<Equation> equationsV16 = new ArrayList<>();
-		for (Variable variableQPrime : variablesQPrime.values()) {
-			int kMax = energyPriceHistory.getNTimeslots(); // get timeslot after last one is finished, to include the last P_i,j,k
-			int n = variableQPrime.getIndex("n");
-			Car car = cars.get(n);
-			int below = variableQPrime.getIndex("below");
-			
-			if (below == 1) {
-				Equation equationV13 = new Equation("V13", ConstraintType.GEQ);
-				equationV13.setIndex("n", n);
-				
-				equationV13.cloneAndAddVariable(variableQPrime, 1);
-				for (int i=0;i<chargingStations.size();i++) {
-					Variable variableQ = getVariableQ(i, kMax, n);
-					equationV13.cloneAndAddVariable(variableQ, 1.0/car.minLoadingState);
+		int nameV13 = names.intern("V13", "n");
+		int nameV14 = names.intern("V14", "n");
+		int nameV15 = names.intern("V15", "n");
+		int nameV16 = names.intern("V16", "n");
+		for (int v=13;v<=16;v++) {
+			for (int n=0;n<cars.size();n++) {
+				Car car = cars.get(n);
+				// Q'_{n,below} for V13 and V14, Q'_{n,above} for V15 and V16
+				int variableQPrime = getColumnQPrime(n, (v <= 14) ? 1 : 0);
+				int variableUPrime = getColumnUPrime(n);
+
+				if (v == 13) {
+					model.beginRow(nameV13, ConstraintType.GEQ, n);
+					model.addTerm(variableQPrime, 1);
+					for (int i=0;i<chargingStations.size();i++) {
+						model.addTerm(getColumnQ(i, kMax, n), 1.0/car.minLoadingState);
+					}
+					model.addTerm(variableUPrime, -1 * CONSTANTS.M_HIGH_BOUND);
+					model.endRow(1 - car.getCurrentCapacity()/car.minLoadingState - CONSTANTS.M_HIGH_BOUND);
 				}
-				Variable variableUPrime = getVariableUPrime(kMax, n);
-				equationV13.cloneAndAddVariable(variableUPrime, -1 * CONSTANTS.M_HIGH_BOUND);
-				equationV13.RHS = 1 - car.getCurrentCapacity()/car.minLoadingState - CONSTANTS.M_HIGH_BOUND;
-				
-				
-				Equation equationV14 = new Equation("V14", ConstraintType.GEQ);
-				equationV14.setIndex("n", n);
-				
-				equationV14.cloneAndAddVariable(variableQPrime, 1);
-				equationV14.cloneAndAddVariable(variableUPrime, CONSTANTS.M_HIGH_BOUND);
-				equationV14.RHS = 0;
-				
-				equationsV13.add(equationV13);
-				equationsV14.add(equationV14);
-			}
-			else if (below == 0) {
-				Equation equationV15 = new Equation("V15", ConstraintType.GEQ);
-				equationV15.setIndex("n", n);
-				
-				equationV15.cloneAndAddVariable(variableQPrime, 1);
-				for (int i=0;i<chargingStations.size();i++) {
-					Variable variableQ = getVariableQ(i, kMax, n);
-					equationV15.cloneAndAddVariable(variableQ, 1.0 / (car.getMaxCapacity() - car.minLoadingState));
+				else if (v == 14) {
+					model.beginRow(nameV14, ConstraintType.GEQ, n);
+					model.addTerm(variableQPrime, 1);
+					model.addTerm(variableUPrime, CONSTANTS.M_HIGH_BOUND);
+					model.endRow(0);
+				}
+				else if (v == 15) {
+					model.beginRow(nameV15, ConstraintType.GEQ, n);
+					model.addTerm(variableQPrime, 1);
+					for (int i=0;i<chargingStations.size();i++) {
+						model.addTerm(getColumnQ(i, kMax, n), 1.0 / (car.getMaxCapacity() - car.minLoadingState));
+					}
+					model.addTerm(variableUPrime, CONSTANTS.M_HIGH_BOUND);
+					model.endRow(1 + (-car.getCurrentCapacity() + car.minLoadingState )/ (car.getMaxCapacity() - car.minLoadingState));
+				}
+				else {
+					model.beginRow(nameV16, ConstraintType.GEQ, n);
+					model.addTerm(variableQPrime, 1);
+					model.addTerm(variableUPrime, -1 * CONSTANTS.M_HIGH_BOUND);
+					model.endRow(1 - CONSTANTS.M_HIGH_BOUND);
 				}
-				Variable variableUPrime = getVariableUPrime(kMax, n);
-				equationV15.cloneAndAddVariable(variableUPrime, CONSTANTS.M_HIGH_BOUND);
-				equationV15.RHS = 1 + (-car.getCurrentCapacity() + car.minLoadingState )/ (car.getMaxCapacity() - car.minLoadingState); 
-				
-				Equation equationV16 = new Equation("V16", ConstraintType.GEQ);
-				equationV16.setIndex("n", n);
-				
-				equationV16.cloneAndAddVariable(variableQPrime, 1);
-				equationV16.cloneAndAddVariable(variableUPrime, -1 * CONSTANTS.M_HIGH_BOUND);
-				equationV16.RHS = 1 - CONSTANTS.M_HIGH_BOUND;
-				
-				equationsV15.add(equationV15);
-				equationsV16.add(equationV16);
 			}
-			
-			
-			
 		}
-		
-		
+
+
 		// Assignment variable values for X from previous algorithms
-		ArrayList<Equation> assignmentsX = new ArrayList<>();
-		for (Variable variableX : variablesX.values())  {
-			if (variableX.hasValue()) {
-				Equation equationAssignment = new Equation("AX", ConstraintType.EQU);
-				equationAssignment.setIndex("i", variableX.getIndex("i"));
-				equationAssignment.setIndex("n", variableX.getIndex("n"));
-				equationAssignment.cloneAndAddVariable(variableX, 1);
-				equationAssignment.RHS = variableX.getValue();
-				assignmentsX.add(equationAssignment);
-				if (variableX.getValue() == 1) {
-					log(2, "Assigning X_i" + variableX.getIndex("i")+"_n" + variableX.getIndex("n")+"=" + variableX.getValue());
+		int nameAX = names.intern("AX", "i", "n");
+		for (int i=0;i<chargingStations.size();i++) {
+			for (int n=0;n<cars.size();n++) {
+				Variable variableX = getVariableX(i, n);
+				if (variableX.hasValue()) {
+					model.beginRow(nameAX, ConstraintType.EQU, i, n);
+					model.addTerm(getColumnX(i, n), 1);
+					model.endRow(variableX.getValue());
+					if (variableX.getValue() == 1) {
+						log(2, "Assigning X_i{}_n{}={}", i, n, variableX.getValue());
+					}
 				}
 			}
 		}
 		// Assignment variable values for V isAboveMin to 1 if car is not suspendable
-		ArrayList<Equation> assignmentsV = new ArrayList<>();
-		for (Variable variableV : variablesV.values()) {
-			int n = variableV.getIndex("n");
+		int nameAV = names.intern("AV", "k", "n");
+		for (int n=0;n<cars.size();n++) {
 			Car car = cars.get(n);
 			if (car.isSuspendable() == false) {
-				int k = variableV.getIndex("k");
-				Equation equationAssigment = new Equation("AV", ConstraintType.EQU);
-				equationAssigment.setIndex("k", k);
-				equationAssigment.setIndex("n", n);
-				equationAssigment.cloneAndAddVariable(variableV, 1);
-				equationAssigment.RHS = 1;
-				assignmentsV.add(equationAssigment);
-				log(2, "Assigning V_k" + k+"_n" + k+"=" + 1);
+				for (int k=kStart;k<kEnd;k++) {
+					model.beginRow(nameAV, ConstraintType.EQU, k, n);
+					model.addTerm(getColumnV(k, n), 1);
+					model.endRow(1);
+					log(2, "Assigning V_k{}_n{}=1", k, n);
+				}
 			}
 		}
-		
-		
-		
-		ArrayList<Equation> allRestrictions = new ArrayList<>();
-		allRestrictions.addAll(equationsR1);
-		allRestrictions.addAll(equationsR2);
-		allRestrictions.addAll(equationsR3);
-		allRestrictions.addAll(equationsR4);
-		allRestrictions.addAll(equationsR5);
-		allRestrictions.addAll(equationsR6);
-		allRestrictions.addAll(equationsR7);
-		allRestrictions.addAll(equationsR8);
-		allRestrictions.addAll(equationsR9);
-		allRestrictions.addAll(equationsR10);
-		allRestrictions.addAll(equationsR11);
-		allRestrictions.addAll(equationsR12);
-		allRestrictions.addAll(equationsR13);
-		allRestrictions.addAll(equationsR14);
-		allRestrictions.addAll(equationsR15);
-		allRestrictions.addAll(equationsV1);
-		allRestrictions.addAll(equationsV2);
-		allRestrictions.addAll(equationsV3);
-		allRestrictions.addAll(equationsV4);
-		allRestrictions.addAll(equationsV5);
-		allRestrictions.addAll(equationsV6);
-		allRestrictions.addAll(equationsV7);
-		allRestrictions.addAll(equationsV8);
-		allRestrictions.addAll(equationsV9);
-		allRestrictions.addAll(equationsV10);
-		allRestrictions.addAll(equationsV11);
-		allRestrictions.addAll(equationsV12);
-		allRestrictions.addAll(equationsV13);
-		allRestrictions.addAll(equationsV14);
-		allRestrictions.addAll(equationsV15);
-		allRestrictions.addAll(equationsV16);
-		
-		allRestrictions.addAll(assignmentsX);
-		allRestrictions.addAll(assignmentsV);
-		
-		return allRestrictions;
 	}
 
-	
 	/**
-	 * 
-	 * @param allRestrictions OPTIONAL. 
-	 * @return
+	 * Power charged at charging station i before timeslot k: sum over k' < k and j of 0.25*w*d_{k',n}*P_{i,j,k'} (used by V4 and V5)
 	 */
-	private String constructProblemLPFile(ArrayList<Equation> allRestrictions) {
-		if (variablesP == null) {
-			log(0, "ERROR: Call constructVariables first!");
-			throw new NullPointerException();
+	private void addChargedPowerTerms(LPModel model, int i, int k, Car car) {
+		// iterate over timeslots BEFORE current k
+		for (int kPrime=0;kPrime<k;kPrime++) {
+			for (int j=1;j<=3;j++) {
+				model.addTerm(getColumnP(i, j, kPrime), 0.25*CONSTANTS.CHARGING_EFFICIENCY*car.isAvailableInt(kPrime));
+			}
 		}
-		
-		
-		Equation objectiveFunction = constructObjectiveFunction();
+	}
+
+	/**
+	 * Streams the problem to a new .lp file
+	 * @param allRestrictions OPTIONAL. Restrictions constructed by constructAllRestrictions(), otherwise restrictions are constructed while writing
+	 */
+	private void constructProblemLPFile(ArrayList<Equation> allRestrictions) {
+		checkVariablesConstructed();
+
+		LPModel model = new LPModel();
+		constructColumns(model);
+		constructObjectiveFunction(model);
+
+		log(1, "Constructing CPLEX file...");
+		String pathInstanceLPFile = CONSTANTS.PATH_DIR_GEN_TEMP + Util.generateGUID() + ".lp";
+		try (LPModelWriter writer = LPModelWriter.streamLP(model, Paths.get(pathInstanceLPFile))) {
+			constructRestrictions(model, allRestrictions);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.pathInstanceLPFile = pathInstanceLPFile;
+		this.model = null;
+
+		logProblemSize(model);
+		log(1, "Wrote " + pathInstanceLPFile);
+	}
+
+	/**
+	 * Keeps the complete problem in memory for an in-memory solver
+	 * @param allRestrictions OPTIONAL. Restrictions constructed by constructAllRestrictions()
+	 */
+	private void constructProblemModel(ArrayList<Equation> allRestrictions) {
+		checkVariablesConstructed();
+
+		LPModel model = new LPModel();
+		constructColumns(model);
+		constructObjectiveFunction(model);
+		constructRestrictions(model, allRestrictions);
+		this.pathInstanceLPFile = null;
+		this.model = model;
+
+		logProblemSize(model);
+	}
+
+	private void constructRestrictions(LPModel model, ArrayList<Equation> allRestrictions) {
 		if (allRestrictions == null) {
-			allRestrictions = constructAllRestrictions();
+			constructAllRestrictions(model);
 		}
-		
-		
-		ArrayList<Equation> allEquations = new ArrayList<>();
-		allEquations.add(objectiveFunction);
-		allEquations.addAll(allRestrictions);
-		
+		else {
+			for (Equation restriction : allRestrictions) {
+				addRestriction(model, restriction);
+			}
+		}
+	}
+
+	private void logProblemSize(LPModel model) {
 		log(1, "--------------------------------------", false);
-		log(1, "---- Number of variables: " 
-				+ (variablesP.size()+variablesD.size()+variablesQ.size()+variablesQPrime.size()) + "cont+" 
+		log(1, "---- Number of variables: "
+				+ (variablesP.size()+variablesD.size()+variablesQ.size()+variablesQPrime.size()) + "cont+"
 				+ (variablesX.size()+variablesU.size()+variablesUPrime.size()+variablesV.size()) +"bin ----", false);
-		log(1, "---- Number of restrictions: " + allRestrictions.size() + " ----", false);
+		log(1, "---- Number of restrictions: " + model.getNumberOfRowsAdded() + " ----", false);
 		log(1, "--------------------------------------", false);
-		
-		log(1, "Constructing CPLEX file...");
-		InstanceWriter instanceWriter = new InstanceWriter();
-		String lpFileContent = instanceWriter.generateLPFile(objectiveFunction, 
-				allRestrictions, variablesX, variablesU, variablesUPrime, variablesV);
-		return lpFileContent;
 	}
-	
-	private void writeProblemLPFile(String content) {
-		String pathInstanceLPFile = CONSTANTS.PATH_DIR_GEN_TEMP + Util.generateGUID() + ".lp";
-		this.pathInstanceLPFile = pathInstanceLPFile;
-		FileIO.writeFile(pathInstanceLPFile, content);
+
+	private void addRestriction(LPModel model, Equation restriction) {
+		String[] indexNames = restriction.getIndices().keySet().toArray(new String[0]);
+		int[] indices = new int[indexNames.length];
+		for (int index=0;index<indexNames.length;index++) {
+			indices[index] = restriction.getIndex(indexNames[index]);
+		}
+		model.beginRow(model.getNames().intern(restriction.getName(), indexNames), restriction.constraintType, indices);
+		for (Variable variable : restriction.getVariables()) {
+			model.addTerm(getColumn(variable), variable.getCoefficient());
+		}
+		model.endRow(restriction.RHS);
 	}
 
 	public Variable getVariableX(int i, int n) {
@@ -1415,20 +1470,44 @@ public class InstanceLP extends Instance implements Loggable {
 	private Solver solver;
 	public String pathInstanceLPFile;
 	public String pathOutputSolFile;
+	/**
+	 * Complete problem for in-memory solvers (constructed instead of the .lp file)
+	 */
+	private LPModel model;
+	private JSONObject solution;
 	
+	/**
+	 * Set in-memory solvers (see Solver.isInMemory()) before calling constructProblem(), no files are written for them
+	 * @param solver
+	 */
 	public void setSolver(Solver solver) {
 		this.solver = solver;
-		this.pathOutputSolFile = CONSTANTS.PATH_DIR_GEN_TEMP + Util.generateGUID() + ".sol";
+		this.solution = null;
+		this.pathOutputSolFile = solver.isInMemory() ? null : CONSTANTS.PATH_DIR_GEN_TEMP + Util.generateGUID() + ".sol";
 	}
 	
 	public void solveProblem() {
 		try (MethodTimer t = new MethodTimer(this.timeSolution)) {
-			solver.solveProblem(pathInstanceLPFile, pathOutputSolFile);
+			if (solver.isInMemory()) {
+				if (model == null) {
+					throw new IllegalStateException("ERROR: Set the in-memory solver before calling constructProblem!");
+				}
+				solution = solver.solveModel(model);
+			}
+			else {
+				solver.solveProblem(pathInstanceLPFile, pathOutputSolFile);
+			}
 		}
 	}
 	
 	@Override
 	public JSONObject getSolutionJSON() {
+		if (solver.isInMemory()) {
+			if (solution == null) {
+				throw new IllegalStateException("ERROR: Call solveProblem first!");
+			}
+			return solution;
+		}
 		JSONObject result = solver.getSolutionJSON(this.pathOutputSolFile);
 		return result;
 	}
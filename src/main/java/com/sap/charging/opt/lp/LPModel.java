@@ -0,0 +1,407 @@
+package com.sap.charging.opt.lp;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+import com.sap.charging.opt.lp.Equation.ConstraintType;
+
+/**
+ * Sparse, array based representation of a (mixed integer) linear program for large instances.
+ * The objective is minimized, all variables have a lower bound of 0, integer variables are binary (like in the .lp files written by InstanceWriter).
+ *
+ * Columns (variables) have dense integer ids in the order in which they are added. Rows (restrictions) are stored in
+ * compressed sparse row (CSR) form: The terms of row r are at positions [getRowStart(r), getRowEnd(r)) of flat column and coefficient arrays.
+ * Names are interned (see LPNames): Columns and rows only store a name id and their index values.
+ *
+ * Rows are built with beginRow(...), addTerm(...) and endRow(...). Terms with a coefficient of 0 are dropped and
+ * terms of the same column are merged.
+ *
+ * If a RowConsumer is set (e.g. LPModelWriter.streamLP(...)), each row is passed to it when it is ended and not kept in the model,
+ * so only the columns and the current row are held in memory.
+ */
+public class LPModel {
+
+	/**
+	 * Receives rows of a model as soon as they are ended (see setRowConsumer(...))
+	 */
+	@FunctionalInterface
+	public interface RowConsumer {
+		void accept(LPModel model, int row) throws IOException;
+	}
+
+	private static final ConstraintType[] CONSTRAINT_TYPES = ConstraintType.values();
+
+	private final LPNames names = new LPNames();
+
+	// Columns
+	private int nColumns = 0;
+	private int[] columnNames = new int[16];
+	private boolean[] columnIsInteger = new boolean[16];
+	private double[] objectiveCoefficients = new double[16];
+	private int[] columnIndexStarts = new int[17];
+	private int[] columnIndexValues = new int[64];
+
+	// Rows
+	private int nRows = 0;
+	private int nRowsAdded = 0;
+	private int[] rowNames = new int[16];
+	private byte[] rowTypes = new byte[16];
+	private double[] rightHandSides = new double[16];
+	private int[] rowIndexStarts = new int[17];
+	private int[] rowIndexValues = new int[64];
+
+	// Terms (CSR): Terms of row r are at [rowStarts[r], rowStarts[r+1])
+	private int[] rowStarts = new int[17];
+	private int nTerms = 0;
+	private int[] termColumns = new int[64];
+	private double[] termCoefficients = new double[64];
+
+	// Current row
+	private boolean isRowOpen = false;
+	/**
+	 * Position of a column's term in the current row, -1 if the column is not part of it
+	 */
+	private int[] termPositions = new int[0];
+	private int firstZeroColumn;
+
+	private RowConsumer rowConsumer;
+
+	public LPNames getNames() {
+		return names;
+	}
+
+	/**
+	 * Rows are passed to the consumer when they are ended and are discarded afterwards (they are not available for later reads,
+	 * e.g. by LPModelWriter.writeMPS(...)). Set to null to keep rows in the model (default).
+	 * @param rowConsumer
+	 */
+	public void setRowConsumer(RowConsumer rowConsumer) {
+		if (isRowOpen) {
+			throw new IllegalStateException("Can't change the row consumer while a row is being built.");
+		}
+		this.rowConsumer = rowConsumer;
+	}
+
+	public boolean isStreaming() {
+		return rowConsumer != null;
+	}
+
+	/**
+	 * Adds a column (variable) and returns its id
+	 * @param name Id of the interned name (see LPNames.intern(...))
+	 * @param isInteger Integer variables are binary
+	 * @param indices Index values in the order of the index names of the interned name
+	 * @return
+	 */
+	public int addColumn(int name, boolean isInteger, int... indices) {
+		checkIndices(name, indices);
+		if (nColumns == columnNames.length) {
+			int capacity = 2*nColumns;
+			columnNames = Arrays.copyOf(columnNames, capacity);
+			columnIsInteger = Arrays.copyOf(columnIsInteger, capacity);
+			objectiveCoefficients = Arrays.copyOf(objectiveCoefficients, capacity);
+			columnIndexStarts = Arrays.copyOf(columnIndexStarts, capacity+1);
+		}
+		int indexStart = columnIndexStarts[nColumns];
+		columnIndexValues = ensureCapacity(columnIndexValues, indexStart + indices.length);
+		System.arraycopy(indices, 0, columnIndexValues, indexStart, indices.length);
+
+		columnNames[nColumns] = name;
+		columnIsInteger[nColumns] = isInteger;
+		columnIndexStarts[nColumns+1] = indexStart + indices.length;
+		return nColumns++;
+	}
+
+	public int getNumberOfColumns() {
+		return nColumns;
+	}
+
+	public boolean isInteger(int column) {
+		return columnIsInteger[column];
+	}
+
+	public int getColumnName(int column) {
+		return columnNames[column];
+	}
+
+	/**
+	 * @param column
+	 * @param index Position of the index (in the order of the index names of the column's name)
+	 * @return
+	 */
+	public int getColumnIndex(int column, int index) {
+		return columnIndexValues[columnIndexStarts[column] + index];
+	}
+
+	/**
+	 * Full name of the column, e.g. "P_i1_j2_k3"
+	 */
+	public String getColumnNameWithIndices(int column) {
+		return names.getNameWithIndices(columnNames[column], columnIndexValues, columnIndexStarts[column]);
+	}
+
+	void appendColumnName(Appendable out, int column) throws IOException {
+		names.appendNameWithIndices(out, columnNames[column], columnIndexValues, columnIndexStarts[column]);
+	}
+
+	public double getObjectiveCoefficient(int column) {
+		return objectiveCoefficients[column];
+	}
+
+	public void setObjectiveCoefficient(int column, double coefficient) {
+		objectiveCoefficients[column] = coefficient;
+	}
+
+	public void addObjectiveCoefficient(int column, double coefficient) {
+		objectiveCoefficients[column] += coefficient;
+	}
+
+
+	/**
+	 * Starts a new row (restriction). Add its terms with addTerm(...), then end it with endRow(...) or discardRow()
+	 * @param name Id of the interned name (see LPNames.intern(...))
+	 * @param type
+	 * @param indices Index values in the order of the index names of the interned name
+	 */
+	public void beginRow(int name, ConstraintType type, int... indices) {
+		if (isRowOpen) {
+			throw new IllegalStateException("Row " + getRowNameWithIndices(nRows) + " was not ended.");
+		}
+		if (type == ConstraintType.OBJ) {
+			throw new IllegalArgumentException("Objective coefficients are set per column (see setObjectiveCoefficient).");
+		}
+		checkIndices(name, indices);
+		if (nRows == rowNames.length) {
+			int capacity = 2*nRows;
+			rowNames = Arrays.copyOf(rowNames, capacity);
+			rowTypes = Arrays.copyOf(rowTypes, capacity);
+			rightHandSides = Arrays.copyOf(rightHandSides, capacity);
+			rowIndexStarts = Arrays.copyOf(rowIndexStarts, capacity+1);
+			rowStarts = Arrays.copyOf(rowStarts, capacity+1);
+		}
+		int indexStart = rowIndexStarts[nRows];
+		rowIndexValues = ensureCapacity(rowIndexValues, indexStart + indices.length);
+		System.arraycopy(indices, 0, rowIndexValues, indexStart, indices.length);
+
+		rowNames[nRows] = name;
+		rowTypes[nRows] = (byte) type.ordinal();
+		rowIndexStarts[nRows+1] = indexStart + indices.length;
+		rowStarts[nRows+1] = nTerms;
+
+		if (termPositions.length < nColumns) {
+			int previousLength = termPositions.length;
+			termPositions = Arrays.copyOf(termPositions, nColumns);
+			Arrays.fill(termPositions, previousLength, nColumns, -1);
+		}
+		firstZeroColumn = -1;
+		isRowOpen = true;
+	}
+
+	/**
+	 * Adds coefficient*column to the current row. Terms of the same column are merged.
+	 * @param column
+	 * @param coefficient
+	 */
+	public void addTerm(int column, double coefficient) {
+		if (coefficient == 0) {
+			if (firstZeroColumn == -1) {
+				firstZeroColumn = column;
+			}
+			return;
+		}
+		int position = termPositions[column];
+		if (position >= 0) {
+			termCoefficients[position] += coefficient;
+			return;
+		}
+		ensureTermCapacity();
+		termPositions[column] = nTerms;
+		termColumns[nTerms] = column;
+		termCoefficients[nTerms] = coefficient;
+		nTerms++;
+	}
+
+	/**
+	 * Number of terms of the current row (terms with a coefficient of 0 are not counted)
+	 */
+	public int getCurrentRowLength() {
+		return nTerms - rowStarts[nRows];
+	}
+
+	/**
+	 * Ends the current row. A row without terms is discarded if it is always satisfied (e.g. 0 <= 1).
+	 * @param rightHandSide
+	 * @return Id of the row (only valid until the next row is ended if a RowConsumer is set), -1 if the row was discarded
+	 */
+	public int endRow(double rightHandSide) {
+		checkRowOpen();
+		int start = rowStarts[nRows];
+
+		// Merged terms may have cancelled out
+		int end = start;
+		for (int position=start;position<nTerms;position++) {
+			termPositions[termColumns[position]] = -1;
+			if (termCoefficients[position] != 0) {
+				termColumns[end] = termColumns[position];
+				termCoefficients[end] = termCoefficients[position];
+				end++;
+			}
+			else if (firstZeroColumn == -1) {
+				firstZeroColumn = termColumns[position];
+			}
+		}
+		nTerms = end;
+		isRowOpen = false;
+
+		ConstraintType type = CONSTRAINT_TYPES[rowTypes[nRows]];
+		if (nTerms == start) {
+			if (isSatisfiedByZero(type, rightHandSide)) {
+				return -1;
+			}
+			if (firstZeroColumn == -1) {
+				throw new IllegalArgumentException("Row " + getRowNameWithIndices(nRows) + " has no terms and can never be satisfied.");
+			}
+			// Keep the row (with a coefficient of 0) so that the solver reports the model as infeasible
+			ensureTermCapacity();
+			termColumns[nTerms] = firstZeroColumn;
+			termCoefficients[nTerms] = 0;
+			nTerms++;
+		}
+
+		rightHandSides[nRows] = rightHandSide;
+		rowStarts[nRows+1] = nTerms;
+		int row = nRows++;
+		nRowsAdded++;
+
+		if (rowConsumer != null) {
+			try {
+				rowConsumer.accept(this, row);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			finally {
+				nRows = 0;
+				nTerms = 0;
+			}
+		}
+		return row;
+	}
+
+	/**
+	 * Discards the current row, e.g. if it has no terms
+	 */
+	public void discardRow() {
+		checkRowOpen();
+		for (int position=rowStarts[nRows];position<nTerms;position++) {
+			termPositions[termColumns[position]] = -1;
+		}
+		nTerms = rowStarts[nRows];
+		isRowOpen = false;
+	}
+
+	/**
+	 * Number of rows held by the model (0 if a RowConsumer is set)
+	 */
+	public int getNumberOfRows() {
+		return (rowConsumer != null) ? 0 : nRows;
+	}
+
+	/**
+	 * Number of rows ended so far, including rows passed to a RowConsumer
+	 */
+	public int getNumberOfRowsAdded() {
+		return nRowsAdded;
+	}
+
+	public int getNumberOfTerms() {
+		return nTerms;
+	}
+
+	public int getRowName(int row) {
+		return rowNames[row];
+	}
+
+	public int getRowIndex(int row, int index) {
+		return rowIndexValues[rowIndexStarts[row] + index];
+	}
+
+	/**
+	 * Full name of the row, e.g. "R1_i0_n2"
+	 */
+	public String getRowNameWithIndices(int row) {
+		return names.getNameWithIndices(rowNames[row], rowIndexValues, rowIndexStarts[row]);
+	}
+
+	void appendRowName(Appendable out, int row) throws IOException {
+		names.appendNameWithIndices(out, rowNames[row], rowIndexValues, rowIndexStarts[row]);
+	}
+
+	public ConstraintType getRowType(int row) {
+		return CONSTRAINT_TYPES[rowTypes[row]];
+	}
+
+	public double getRightHandSide(int row) {
+		return rightHandSides[row];
+	}
+
+	/**
+	 * Position of the first term of the row
+	 */
+	public int getRowStart(int row) {
+		return rowStarts[row];
+	}
+
+	/**
+	 * Position after the last term of the row
+	 */
+	public int getRowEnd(int row) {
+		return rowStarts[row+1];
+	}
+
+	public int getTermColumn(int position) {
+		return termColumns[position];
+	}
+
+	public double getTermCoefficient(int position) {
+		return termCoefficients[position];
+	}
+
+
+	private void checkIndices(int name, int[] indices) {
+		if (names.getNumberOfIndices(name) != indices.length) {
+			throw new IllegalArgumentException(names.getName(name) + " has " + names.getNumberOfIndices(name)
+				+ " indices, got " + indices.length + " values.");
+		}
+	}
+
+	private void checkRowOpen() {
+		if (isRowOpen == false) {
+			throw new IllegalStateException("No row was begun.");
+		}
+	}
+
+	private void ensureTermCapacity() {
+		if (nTerms == termColumns.length) {
+			termColumns = Arrays.copyOf(termColumns, 2*nTerms);
+			termCoefficients = Arrays.copyOf(termCoefficients, 2*nTerms);
+		}
+	}
+
+	private static boolean isSatisfiedByZero(ConstraintType type, double rightHandSide) {
+		switch (type) {
+		case LEQ: return 0 <= rightHandSide;
+		case GEQ: return 0 >= rightHandSide;
+		case EQU: return 0 == rightHandSide;
+		default: return true;
+		}
+	}
+
+	private static int[] ensureCapacity(int[] array, int capacity) {
+		if (capacity <= array.length) {
+			return array;
+		}
+		return Arrays.copyOf(array, Math.max(capacity, 2*array.length));
+	}
+
+}
@@ -0,0 +1,270 @@
+package com.sap.charging.opt.lp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.sap.charging.opt.lp.Equation.ConstraintType;
+
+/**
+ * Writes an LPModel to (CPLEX) .lp files (same format and names as InstanceWriter) or to free .mps files.
+ * Files are written with a buffered writer without building the file content in memory.
+ *
+ * streamLP(...) writes rows while the model is built: The writer is set as the RowConsumer of the model,
+ * so rows are not kept in memory. The BINARY section is written on close().
+ */
+public class LPModelWriter implements LPModel.RowConsumer, Closeable {
+
+	private static final String LINE_ENDING = "\r\n";
+	private static final String OBJECTIVE_ROW_NAME = "OBJ";
+
+	private final LPModel model;
+	private final Writer writer;
+	/**
+	 * .lp files end with the BINARY section (written on close)
+	 */
+	private final boolean isLPFile;
+
+	private LPModelWriter(LPModel model, Path path, boolean isLPFile) throws IOException {
+		this.model = model;
+		this.writer = Files.newBufferedWriter(path, StandardCharsets.US_ASCII);
+		this.isLPFile = isLPFile;
+	}
+
+	/**
+	 * Writes the complete model (with rows) to a .lp file
+	 * @param model
+	 * @param path
+	 * @throws IOException
+	 */
+	public static void writeLP(LPModel model, Path path) throws IOException {
+		if (model.isStreaming()) {
+			throw new IllegalStateException("Rows of a streaming model are passed to its row consumer, use streamLP(...) instead.");
+		}
+		try (LPModelWriter lpWriter = new LPModelWriter(model, path, true)) {
+			lpWriter.writeObjective();
+			for (int row=0;row<model.getNumberOfRows();row++) {
+				lpWriter.writeRow(row);
+			}
+		}
+	}
+
+	/**
+	 * Writes the objective to a .lp file and sets the returned writer as the RowConsumer of the model:
+	 * Rows are written as soon as they are ended. All columns and objective coefficients have to be added before.
+	 * Close the writer to write the BINARY section, this also removes the row consumer from the model.
+	 * @param model
+	 * @param path
+	 * @return
+	 * @throws IOException
+	 */
+	public static LPModelWriter streamLP(LPModel model, Path path) throws IOException {
+		LPModelWriter lpWriter = new LPModelWriter(model, path, true);
+		try {
+			lpWriter.writeObjective();
+		}
+		catch (IOException e) {
+			lpWriter.writer.close();
+			throw e;
+		}
+		model.setRowConsumer(lpWriter);
+		return lpWriter;
+	}
+
+	@Override
+	public void accept(LPModel model, int row) throws IOException {
+		writeRow(row);
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			if (isLPFile) {
+				if (model.isStreaming()) {
+					model.setRowConsumer(null);
+				}
+				writeBinaries();
+			}
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * MINIMIZE
+	 *   + 0.25 P_i0_j1_k0 + 1.0 X_i0_n0 ...
+	 * SUBJECT TO
+	 */
+	private void writeObjective() throws IOException {
+		writer.write("MINIMIZE");
+		writer.write(LINE_ENDING);
+		writer.write("  ");
+		for (int column=0;column<model.getNumberOfColumns();column++) {
+			double coefficient = model.getObjectiveCoefficient(column);
+			if (coefficient == 0) {
+				continue;
+			}
+			writer.write(coefficient >= 0 ? "+ " : "- ");
+			writer.write(Double.toString(Math.abs(coefficient)));
+			writer.write(' ');
+			model.appendColumnName(writer, column);
+			writer.write(' ');
+		}
+		writer.write(LINE_ENDING);
+		writer.write("SUBJECT TO");
+		writer.write(LINE_ENDING);
+	}
+
+	/**
+	 *   R1_i0_n0: + 0.25 P_i0_j1_k0 + X_i0_n0  <= 1.0
+	 */
+	private void writeRow(int row) throws IOException {
+		writer.write("  ");
+		model.appendRowName(writer, row);
+		writer.write(": ");
+		for (int position=model.getRowStart(row);position<model.getRowEnd(row);position++) {
+			double coefficient = model.getTermCoefficient(position);
+			writer.write(coefficient >= 0 ? "+ " : "- ");
+			if (Math.abs(coefficient) != 1.0) {
+				writer.write(Double.toString(Math.abs(coefficient)));
+				writer.write(' ');
+			}
+			model.appendColumnName(writer, model.getTermColumn(position));
+			writer.write(' ');
+		}
+		writer.write(' ');
+		writer.write(model.getRowType(row).lpString);
+		writer.write(' ');
+		writer.write(Double.toString(model.getRightHandSide(row)));
+		writer.write(LINE_ENDING);
+	}
+
+	/**
+	 * BINARY
+	 *   X_i0_n0 X_i1_n0 ...
+	 * END
+	 */
+	private void writeBinaries() throws IOException {
+		writer.write("BINARY");
+		writer.write(LINE_ENDING);
+		writer.write("  ");
+		for (int column=0;column<model.getNumberOfColumns();column++) {
+			if (model.isInteger(column)) {
+				model.appendColumnName(writer, column);
+				writer.write(' ');
+			}
+		}
+		writer.write(LINE_ENDING);
+		writer.write("END");
+		writer.write(LINE_ENDING);
+	}
+
+
+	/**
+	 * Writes the complete model (with rows) to a free .mps file.
+	 * The terms are transposed to columns first (MPS files are written column by column), so this needs memory for a second copy of all terms.
+	 * @param model
+	 * @param path
+	 * @throws IOException
+	 */
+	public static void writeMPS(LPModel model, Path path) throws IOException {
+		if (model.isStreaming()) {
+			throw new IllegalStateException("Rows of a streaming model are not kept in memory, .mps files can't be written.");
+		}
+		int nColumns = model.getNumberOfColumns();
+		int nRows = model.getNumberOfRows();
+
+		// Transpose terms (CSR to CSC)
+		int[] columnStarts = new int[nColumns+1];
+		for (int position=0;position<model.getNumberOfTerms();position++) {
+			columnStarts[model.getTermColumn(position)+1]++;
+		}
+		for (int column=0;column<nColumns;column++) {
+			columnStarts[column+1] += columnStarts[column];
+		}
+		int[] nextPositions = columnStarts.clone();
+		int[] termRows = new int[model.getNumberOfTerms()];
+		double[] termCoefficients = new double[model.getNumberOfTerms()];
+		for (int row=0;row<nRows;row++) {
+			for (int position=model.getRowStart(row);position<model.getRowEnd(row);position++) {
+				int target = nextPositions[model.getTermColumn(position)]++;
+				termRows[target] = row;
+				termCoefficients[target] = model.getTermCoefficient(position);
+			}
+		}
+
+		try (LPModelWriter mpsWriter = new LPModelWriter(model, path, false)) {
+			Writer writer = mpsWriter.writer;
+			writer.write("NAME");
+			writer.write(LINE_ENDING);
+
+			writer.write("ROWS");
+			writer.write(LINE_ENDING);
+			writer.write(" " + ConstraintType.OBJ.mpsString + " " + OBJECTIVE_ROW_NAME);
+			writer.write(LINE_ENDING);
+			for (int row=0;row<nRows;row++) {
+				writer.write(" " + model.getRowType(row).mpsString + " ");
+				model.appendRowName(writer, row);
+				writer.write(LINE_ENDING);
+			}
+
+			writer.write("COLUMNS");
+			writer.write(LINE_ENDING);
+			for (int column=0;column<nColumns;column++) {
+				double objectiveCoefficient = model.getObjectiveCoefficient(column);
+				boolean isEmpty = columnStarts[column] == columnStarts[column+1];
+				if (objectiveCoefficient != 0 || isEmpty) {
+					// Columns without any terms are declared with an objective coefficient of 0
+					mpsWriter.writeMPSEntry(column, OBJECTIVE_ROW_NAME, -1, objectiveCoefficient);
+				}
+				for (int position=columnStarts[column];position<columnStarts[column+1];position++) {
+					mpsWriter.writeMPSEntry(column, null, termRows[position], termCoefficients[position]);
+				}
+			}
+
+			writer.write("RHS");
+			writer.write(LINE_ENDING);
+			for (int row=0;row<nRows;row++) {
+				if (model.getRightHandSide(row) != 0) {
+					writer.write(" RHS ");
+					model.appendRowName(writer, row);
+					writer.write(' ');
+					writer.write(Double.toString(model.getRightHandSide(row)));
+					writer.write(LINE_ENDING);
+				}
+			}
+
+			writer.write("BOUNDS");
+			writer.write(LINE_ENDING);
+			for (int column=0;column<nColumns;column++) {
+				if (model.isInteger(column)) {
+					writer.write(" BV BND ");
+					model.appendColumnName(writer, column);
+					writer.write(LINE_ENDING);
+				}
+			}
+			writer.write("ENDATA");
+			writer.write(LINE_ENDING);
+		}
+	}
+
+	private void writeMPSEntry(int column, String rowName, int row, double coefficient) throws IOException {
+		writer.write(" ");
+		model.appendColumnName(writer, column);
+		writer.write(' ');
+		if (rowName != null) {
+			writer.write(rowName);
+		}
+		else {
+			model.appendRowName(writer, row);
+		}
+		writer.write(' ');
+		writer.write(Double.toString(coefficient));
+		writer.write(LINE_ENDING);
+	}
+
+}
@@ -0,0 +1,102 @@
+package com.sap.charging.opt.lp;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Interned names of variables and restrictions in an LPModel.
+ * Each name with its index names (e.g. "P" with i, j, k) is stored once and referenced by an id.
+ * Columns and rows only store this id and their index values, the full name (e.g. "P_i1_j2_k3", like Indexable.getNameWithIndices())
+ * is only built when it is written.
+ */
+public class LPNames {
+
+	private final List<String> names = new ArrayList<>();
+	private final List<String[]> indexNames = new ArrayList<>();
+	/**
+	 * Per id: The parts of the full name before each index value, e.g. "P_i", "_j", "_k"
+	 */
+	private final List<String[]> prefixes = new ArrayList<>();
+	private final HashMap<String,Integer> ids = new HashMap<>();
+
+	/**
+	 * Returns the id of the name with the given index names, e.g. intern("P", "i", "j", "k")
+	 * @param name
+	 * @param indexNames
+	 * @return
+	 */
+	public int intern(String name, String... indexNames) {
+		String key = (indexNames.length == 0) ? name : name + "_" + String.join("_", indexNames);
+		Integer id = ids.get(key);
+		if (id != null) {
+			return id;
+		}
+
+		String[] namePrefixes = new String[indexNames.length];
+		for (int index=0;index<indexNames.length;index++) {
+			namePrefixes[index] = ((index == 0) ? name + "_" : "_") + indexNames[index];
+		}
+
+		id = names.size();
+		names.add(name);
+		this.indexNames.add(indexNames.clone());
+		prefixes.add(namePrefixes);
+		ids.put(key, id);
+		return id;
+	}
+
+	public int size() {
+		return names.size();
+	}
+
+	public String getName(int id) {
+		return names.get(id);
+	}
+
+	public String[] getIndexNames(int id) {
+		return indexNames.get(id).clone();
+	}
+
+	public int getNumberOfIndices(int id) {
+		return indexNames.get(id).length;
+	}
+
+	/**
+	 * Full name with index values, e.g. "P_i1_j2_k3"
+	 * @param id
+	 * @param values Index values
+	 * @param offset Position of the first index value in values
+	 * @return
+	 */
+	public String getNameWithIndices(int id, int[] values, int offset) {
+		StringBuilder builder = new StringBuilder();
+		try {
+			appendNameWithIndices(builder, id, values, offset);
+		} catch (IOException e) {
+			throw new IllegalStateException(e); // Not thrown by StringBuilder
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Appends the full name with index values without building it as a String first
+	 * @param out
+	 * @param id
+	 * @param values Index values
+	 * @param offset Position of the first index value in values
+	 * @throws IOException
+	 */
+	public void appendNameWithIndices(Appendable out, int id, int[] values, int offset) throws IOException {
+		String[] namePrefixes = prefixes.get(id);
+		if (namePrefixes.length == 0) {
+			out.append(names.get(id));
+			return;
+		}
+		for (int index=0;index<namePrefixes.length;index++) {
+			out.append(namePrefixes[index]).append(Integer.toString(values[offset+index]));
+		}
+	}
+
+}
@@ -6,14 +6,15 @@ import java.util.Arrays;
 
 import org.json.simple.JSONObject;
 
-import com.sap.charging.opt.lp.InstanceLP;
+import com.sap.charging.opt.lp.LPModel;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.Loggable;
 
 
 public abstract class Solver implements Loggable {
 	
 	public int getVerbosity() {
-		return InstanceLP.verbosity;
+		return SimulationContext.current().getLPVerbosity();
 	}
 
 	protected abstract String[] getCLCommand(String pathInputFile, String pathOutputFile);
@@ -30,7 +31,7 @@ public abstract class Solver implements Loggable {
 		try {
 			ProcessBuilder b = new ProcessBuilder(command);
 			
-			if (InstanceLP.verbosity >= 2) {
+			if (getVerbosity() >= 2) {
 				b.redirectOutput(Redirect.INHERIT);
 			}
 			b.redirectError(Redirect.INHERIT);
@@ -46,6 +47,23 @@ public abstract class Solver implements Loggable {
 	
 	public abstract JSONObject getSolutionJSON(String pathInputFileSolution);
 	
+	/**
+	 * In-memory solvers are passed the LPModel directly (see solveModel(...)) instead of reading and writing files
+	 * @return
+	 */
+	public boolean isInMemory() {
+		return false;
+	}
+	
+	/**
+	 * Solve the complete model (with rows) in memory. Only supported if isInMemory() is true.
+	 * @param model
+	 * @return Solution in the same format as getSolutionJSON(...)
+	 */
+	public JSONObject solveModel(LPModel model) {
+		throw new UnsupportedOperationException(getClass().getSimpleName() + " reads the problem from a file, use solveProblem(...) instead.");
+	}
+	
 	protected boolean isWindows() {
 		String os = System.getProperty("os.name").toLowerCase();
 		return (os.indexOf("win") >= 0);
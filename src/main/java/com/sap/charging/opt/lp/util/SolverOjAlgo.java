@@ -0,0 +1,185 @@
+package com.sap.charging.opt.lp.util;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.ojalgo.optimisation.Expression;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.Optimisation.State;
+
+import com.sap.charging.opt.lp.LPModel;
+import com.sap.charging.util.JSONKeys;
+
+/**
+ * Solves an LPModel in the same JVM with ojAlgo (simplex for LPs, branch and bound for MIPs).
+ * No files are written and no solver binaries are needed, the model is passed directly (see InstanceLP.setSolver(...)).
+ *
+ * Binary columns can be relaxed to continuous columns in [0,1] (setRelaxIntegers(true)), e.g. for the LP relaxations
+ * of InstanceHeuristicLP. A time limit and a relative gap limit may be set for MIPs: The best solution found when
+ * a limit is reached is returned.
+ */
+public class SolverOjAlgo extends Solver {
+
+	private double timeLimit = 0;
+	private double relativeGap = 0;
+	private boolean relaxIntegers = false;
+
+	/**
+	 * @param timeLimit In seconds, 0 for no time limit
+	 */
+	public void setTimeLimit(double timeLimit) {
+		if (timeLimit < 0) {
+			throw new IllegalArgumentException("Time limit must not be negative: " + timeLimit);
+		}
+		this.timeLimit = timeLimit;
+	}
+	public double getTimeLimit() {
+		return timeLimit;
+	}
+
+	/**
+	 * @param relativeGap E.g. 0.01 to stop branch and bound within 1% of the best bound, 0 for ojAlgo's default
+	 */
+	public void setRelativeGap(double relativeGap) {
+		if (relativeGap < 0) {
+			throw new IllegalArgumentException("Relative gap must not be negative: " + relativeGap);
+		}
+		this.relativeGap = relativeGap;
+	}
+	public double getRelativeGap() {
+		return relativeGap;
+	}
+
+	/**
+	 * @param relaxIntegers If true binary columns are solved as continuous columns in [0,1]
+	 */
+	public void setRelaxIntegers(boolean relaxIntegers) {
+		this.relaxIntegers = relaxIntegers;
+	}
+	public boolean isRelaxIntegers() {
+		return relaxIntegers;
+	}
+
+	@Override
+	public boolean isInMemory() {
+		return true;
+	}
+
+	@Override
+	protected String[] getCLCommand(String pathInputFile, String pathOutputFile) {
+		throw new UnsupportedOperationException("SolverOjAlgo runs in memory, use solveModel(...) instead.");
+	}
+
+	@Override
+	public void solveProblem(String pathInputFile, String pathOutputFile) {
+		throw new UnsupportedOperationException("SolverOjAlgo runs in memory, use solveModel(...) instead.");
+	}
+
+	@Override
+	public JSONObject getSolutionJSON(String pathInputFileSolution) {
+		throw new UnsupportedOperationException("SolverOjAlgo runs in memory, use solveModel(...) instead.");
+	}
+
+	private Optimisation.Options getOptions() {
+		Optimisation.Options options = new Optimisation.Options();
+		if (timeLimit > 0) {
+			long timeLimitMillis = (long) Math.ceil(timeLimit * 1000);
+			options.time_abort = timeLimitMillis;
+			options.time_suffice = timeLimitMillis;
+		}
+		if (relativeGap > 0) {
+			options.mip_gap = relativeGap;
+		}
+		return options;
+	}
+
+	/**
+	 * Columns: Lower bound of 0, binary columns have an upper bound of 1.
+	 * Rows: LEQ rows have an upper limit, GEQ rows a lower limit and EQU rows both.
+	 */
+	private ExpressionsBasedModel buildModel(LPModel model) {
+		ExpressionsBasedModel result = new ExpressionsBasedModel(getOptions());
+		for (int column=0;column<model.getNumberOfColumns();column++) {
+			org.ojalgo.optimisation.Variable variable = result.addVariable(model.getColumnNameWithIndices(column)).lower(0);
+			if (model.isInteger(column)) {
+				variable.upper(1);
+				if (relaxIntegers == false) {
+					variable.integer(true);
+				}
+			}
+			double coefficient = model.getObjectiveCoefficient(column);
+			if (coefficient != 0) {
+				variable.weight(coefficient);
+			}
+		}
+
+		for (int row=0;row<model.getNumberOfRows();row++) {
+			Expression expression = result.addExpression(model.getRowNameWithIndices(row));
+			for (int position=model.getRowStart(row);position<model.getRowEnd(row);position++) {
+				expression.set(model.getTermColumn(position), model.getTermCoefficient(position));
+			}
+			double rhs = model.getRightHandSide(row);
+			switch (model.getRowType(row)) {
+			case LEQ: expression.upper(rhs); break;
+			case GEQ: expression.lower(rhs); break;
+			case EQU: expression.level(rhs); break;
+			default: throw new IllegalArgumentException("Unsupported row type: " + model.getRowType(row));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Solution in the same format as SolverSCIP.getSolutionJSON(...): Only variables with a value other than 0 are listed.
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public JSONObject solveModel(LPModel model) {
+		if (model.isStreaming()) {
+			throw new IllegalStateException("Rows of a streaming model are not kept in memory, the model can't be solved.");
+		}
+		log(1, "Solving " + model.getNumberOfColumns() + " columns and " + model.getNumberOfRows() + " rows with ojAlgo"
+				+ (relaxIntegers ? " (relaxed)" : "") + "...");
+
+		Optimisation.Result result = buildModel(model).minimise();
+		State state = result.getState();
+		log(1, "Solution status: " + state + ", objective value: " + result.getValue());
+
+		if (state == State.INFEASIBLE) {
+			throw new RuntimeException("Problem is infeasible!");
+		}
+		if (state.isFeasible() == false) {
+			throw new RuntimeException("No feasible solution found (status: " + state + ")");
+		}
+
+		JSONObject solution = new JSONObject();
+		solution.put(JSONKeys.JSON_KEY_SOLUTION_STATUS, getSolutionStatus(state));
+		solution.put(JSONKeys.JSON_KEY_OBJECTIVE_VALUE, result.getValue());
+
+		JSONArray variables = new JSONArray();
+		for (int column=0;column<model.getNumberOfColumns();column++) {
+			double value = result.doubleValue(column);
+			if (value == 0) {
+				continue;
+			}
+			JSONObject variable = new JSONObject();
+			variable.put(JSONKeys.JSON_KEY_VARIABLE_NAME, model.getColumnNameWithIndices(column));
+			variable.put(JSONKeys.JSON_KEY_VARIABLE_VALUE, value);
+			variable.put(JSONKeys.JSON_KEY_VARIABLE_OBJECTIVE_COEFFICIENT, model.getObjectiveCoefficient(column));
+			variables.add(variable);
+		}
+		solution.put(JSONKeys.JSON_KEY_VARIABLES, variables);
+		return solution;
+	}
+
+	/**
+	 * Same wording as SCIP for optimal solutions
+	 */
+	private String getSolutionStatus(State state) {
+		if (state.isOptimal()) {
+			return "optimal solution found";
+		}
+		return state.toString().toLowerCase();
+	}
+
+}
@@ -6,7 +6,6 @@ import java.util.Arrays;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
-import com.sap.charging.opt.lp.InstanceLP;
 import com.sap.charging.util.FileIO;
 import com.sap.charging.util.JSONKeys;
 
@@ -93,7 +92,7 @@ public class SolverSCIP extends Solver {
 		String solutionFileContent = FileIO.readFile(pathInputFileSolution); 
 		String[] lines = solutionFileContent.split("\n");
 		
-		int nLines = (InstanceLP.verbosity >= 3) ? lines.length :
+		int nLines = (getVerbosity() >= 3) ? lines.length :
 			Math.min(10, lines.length);
 		
 		for (int i=0;i<nLines; i++) {
@@ -13,14 +13,14 @@ import com.sap.charging.model.Car;
 import com.sap.charging.model.EnergyPriceHistory;
 import com.sap.charging.opt.lp.Variable;
 import com.sap.charging.realTime.State;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.JSONKeys;
 import com.sap.charging.util.Loggable;
 
 public class DayaheadSchedule implements Loggable {
 	
 	public int getVerbosity() {
-		return Simulation.verbosity;
+		return SimulationContext.getCurrentVerbosity();
 	}
 	
 	private MultiKeyMap<Integer, Variable> variablesX;
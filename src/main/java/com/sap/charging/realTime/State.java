@@ -24,7 +24,9 @@ import com.sap.charging.realTime.exception.ChargingStationAlreadyOccupiedExcepti
 import com.sap.charging.realTime.exception.ChargingStationNotOccupiedException;
 import com.sap.charging.realTime.model.CarAssignment;
 import com.sap.charging.realTime.model.PowerAssignment;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.realTime.util.FuseTreeLoadIndex;
+import com.sap.charging.realTime.util.PlannedDemandProfile;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.JSONKeys;
 import com.sap.charging.util.JSONSerializable;
 import com.sap.charging.util.Loggable;
@@ -33,27 +35,38 @@ import com.sap.charging.util.TimeUtil;
 public class State implements Loggable, JSONSerializable {
 	
 	public int getVerbosity() {
-		return Simulation.verbosity;
+		return SimulationContext.getCurrentVerbosity();
 	}
 	
 	private final List<ChargingStation> chargingStationsFree;
 	private final List<ChargingStation> chargingStationsOccupied;
+	private final HashMap<Integer, ChargingStation> chargingStationsFreeByID;
+	private final HashMap<Integer, ChargingStation> chargingStationsOccupiedByID;
 	public final int nChargingStations;
 	
 	public FuseTree fuseTree;
 	public final List<Car> cars;
+	/**
+	 * Car ID to index in cars. Cars may be added or removed from outside (e.g. by the simulation), 
+	 * so a lookup is verified and the index is rebuilt if it is outdated.
+	 */
+	private final HashMap<Integer, Integer> carIndicesByID;
 	public EnergyPriceHistory energyPriceHistory;
 	
 	private final List<CarAssignment> currentCarAssignments;
 	private final HashMap<Car, CarAssignment> currentCarAssignmentsByCar;
 	private final HashMap<ChargingStation, CarAssignment> currentCarAssignmentsByChargingStation;
-	// List retrieval: O(1) by CarAssignment, O(n) by car or charging station
+	private final HashMap<Integer, CarAssignment> currentCarAssignmentsByCarID;
+	// Retrieval: O(1) by car or charging station (maps are kept consistent with the lists by the add/remove methods)
+	private int carAssignmentsModificationCount = 0;
 	
 	private final List<Car> currentUnassignedCars;
 	
 	
 	
 	private final List<PowerAssignment> currentPowerAssignments;
+	private final HashMap<Car, PowerAssignment> currentPowerAssignmentsByCar;
+	private final HashMap<ChargingStation, PowerAssignment> currentPowerAssignmentsByChargingStation;
 	
 	private final List<CarAssignment> allCarAssignments;
 	//private final List<PowerAssignment> allPowerAssignments;
@@ -62,6 +75,9 @@ public class State implements Loggable, JSONSerializable {
 	public int currentTimeSeconds;
 	public int currentTimeslot;
 	
+	private FuseTreeLoadIndex fuseTreeLoadIndex;
+	private final PlannedDemandProfile plannedDemandProfile = new PlannedDemandProfile();
+	
 	
 	/**
 	 * Captures a state of the parking lot (timeless):
@@ -83,19 +99,28 @@ public class State implements Loggable, JSONSerializable {
 		this.chargingStationsFree = new ArrayList<>();
 		this.chargingStationsFree.addAll(chargingStations);
 		this.chargingStationsOccupied = new ArrayList<>();
+		this.chargingStationsFreeByID = new HashMap<>();
+		this.chargingStationsOccupiedByID = new HashMap<>();
+		for (ChargingStation chargingStation : chargingStations) {
+			chargingStationsFreeByID.putIfAbsent(chargingStation.getId(), chargingStation);
+		}
 		this.nChargingStations = chargingStations.size();
 		
 		this.fuseTree = fuseTree;
 		this.energyPriceHistory = energyPriceHistory;
 		this.cars = cars;
+		this.carIndicesByID = new HashMap<>();
 		
 		this.currentCarAssignments = new ArrayList<CarAssignment>();
+		this.currentCarAssignmentsByCarID = new HashMap<>();
 		this.currentCarAssignmentsByCar = new HashMap<>();
 		this.currentCarAssignmentsByChargingStation = new HashMap<>();
 		
 		this.currentUnassignedCars = new ArrayList<Car>();
 		
 		this.currentPowerAssignments = new ArrayList<PowerAssignment>();
+		this.currentPowerAssignmentsByCar = new HashMap<>();
+		this.currentPowerAssignmentsByChargingStation = new HashMap<>();
 		this.allCarAssignments = new ArrayList<CarAssignment>();
 		//this.allPowerAssignments = new ArrayList<PowerAssignment>();
 		
@@ -153,14 +178,15 @@ public class State implements Loggable, JSONSerializable {
 	 * @param chargingStation
 	 */
 	public void addFreeChargingStation(ChargingStation chargingStation) {
-		if (this.chargingStationsFree.contains(chargingStation) == true) {
+		if (isChargingStationFree(chargingStation) == true) {
 			throw new RuntimeException("Attempted to add free chargingStation, but already contained in list chargingStationsFree.");
 		}
-		else if (this.chargingStationsOccupied.contains(chargingStation) == true) {
+		else if (isChargingStationOccupied(chargingStation) == true) {
 			throw new RuntimeException("Attempted to add free chargingStation, but already contained in list chargingStationsOccupied.");
 		}
 		else {
 			this.chargingStationsFree.add(chargingStation);
+			this.chargingStationsFreeByID.putIfAbsent(chargingStation.getId(), chargingStation);
 		}
 	}
 	
@@ -178,20 +204,10 @@ public class State implements Loggable, JSONSerializable {
 	 * @return
 	 */
 	public ChargingStation getFreeChargingStation(int chargingStationID) {
-		for (ChargingStation chargingStation : chargingStationsFree) {
-			if (chargingStation.getId() == chargingStationID) {
-				return chargingStation;
-			}
-		}
-		return null;
+		return chargingStationsFreeByID.get(chargingStationID);
 	}
 	public ChargingStation getOccupiedChargingStation(int chargingStationID) {
-		for (ChargingStation chargingStation : chargingStationsOccupied) {
-			if (chargingStation.getId() == chargingStationID) {
-				return chargingStation;
-			}
-		}
-		return null;
+		return chargingStationsOccupiedByID.get(chargingStationID);
 	}
 	public ChargingStation getChargingStation(int chargingStationID) {
 		ChargingStation result = getFreeChargingStation(chargingStationID); 
@@ -201,34 +217,72 @@ public class State implements Loggable, JSONSerializable {
 		return result; 
 	}
 	
+	private boolean isChargingStationFree(ChargingStation chargingStation) {
+		return chargingStationsFreeByID.get(chargingStation.getId()) == chargingStation || 
+				(chargingStationsFreeByID.containsKey(chargingStation.getId()) && chargingStationsFree.contains(chargingStation)); // Duplicate IDs
+	}
+	private boolean isChargingStationOccupied(ChargingStation chargingStation) {
+		return chargingStationsOccupiedByID.get(chargingStation.getId()) == chargingStation || 
+				(chargingStationsOccupiedByID.containsKey(chargingStation.getId()) && chargingStationsOccupied.contains(chargingStation)); // Duplicate IDs
+	}
 	
 	private void setChargingStationOccupied(ChargingStation chargingStation) {
-		if (chargingStationsFree.contains(chargingStation) == false || 
-			chargingStationsOccupied.contains(chargingStation) == true) {
+		if (isChargingStationFree(chargingStation) == false || 
+			isChargingStationOccupied(chargingStation) == true) {
 			throw new ChargingStationAlreadyOccupiedException(chargingStation);
 		}
 		
 		chargingStationsFree.remove(chargingStation);
 		chargingStationsOccupied.add(chargingStation);
+		moveByID(chargingStation, chargingStationsFree, chargingStationsFreeByID, chargingStationsOccupiedByID);
 	}
 	private void setChargingStationFree(ChargingStation chargingStation) {
-		if (chargingStationsFree.contains(chargingStation) == true || 
-			chargingStationsOccupied.contains(chargingStation) == false) {
+		if (isChargingStationFree(chargingStation) == true || 
+			isChargingStationOccupied(chargingStation) == false) {
 			throw new ChargingStationNotOccupiedException(chargingStation);
 		}
 		
 		chargingStationsOccupied.remove(chargingStation);
 		chargingStationsFree.add(chargingStation);
+		moveByID(chargingStation, chargingStationsOccupied, chargingStationsOccupiedByID, chargingStationsFreeByID);
 	}
 	
+	/**
+	 * Moves the charging station between the maps by ID. If several charging stations share an ID 
+	 * the first one in the list is kept in the map (same result as a linear search).
+	 */
+	private static void moveByID(ChargingStation chargingStation, List<ChargingStation> listFrom, 
+			HashMap<Integer, ChargingStation> mapFrom, HashMap<Integer, ChargingStation> mapTo) {
+		int id = chargingStation.getId(); 
+		if (mapFrom.get(id) == chargingStation) {
+			mapFrom.remove(id); 
+			for (ChargingStation other : listFrom) {
+				if (other.getId() == id) {
+					mapFrom.put(id, other); 
+					break;
+				}
+			}
+		}
+		mapTo.putIfAbsent(id, chargingStation); 
+	}
 	
+	/**
+	 * O(1) if the index of cars is up to date, otherwise the index is rebuilt
+	 * @param carID
+	 * @return The first car with this ID or null
+	 */
 	public Car getCar(int carID) {
-		for (Car car : cars) {
-			if (car.getId() == carID) {
-				return car;
-			}
+		Integer index = carIndicesByID.get(carID); 
+		if (index != null && index < cars.size() && cars.get(index).getId() == carID) {
+			return cars.get(index); 
 		}
-		return null;
+		// Cars were added or removed: Rebuild the index
+		carIndicesByID.clear(); 
+		for (int i=0;i<cars.size();i++) {
+			carIndicesByID.putIfAbsent(cars.get(i).getId(), i); 
+		}
+		index = carIndicesByID.get(carID); 
+		return (index != null) ? cars.get(index) : null;
 	}
 	
 	public boolean isCarCurrentlyAssigned(Car car) {
@@ -243,6 +297,14 @@ public class State implements Loggable, JSONSerializable {
 	}
 	
 	
+	/**
+	 * Incremented whenever a car assignment is added or removed (used by IncrementalValidation)
+	 * @return
+	 */
+	public int getCarAssignmentsModificationCount() {
+		return carAssignmentsModificationCount;
+	}
+	
 	public CarAssignment getCurrentCarAssignment(Car car) {
 		/*for (CarAssignment carAssignment : currentCarAssignments) {
 			if (carAssignment.car.equals(car)) 
@@ -252,11 +314,7 @@ public class State implements Loggable, JSONSerializable {
 		return currentCarAssignmentsByCar.get(car);
 	}
 	public CarAssignment getCurrentCarAssignment(int indexN) {
-		for (CarAssignment carAssignment : currentCarAssignments) {
-			if (carAssignment.car.getId() == indexN) 
-				return carAssignment;
-		}
-		return null;
+		return currentCarAssignmentsByCarID.get(indexN);
 	}
 	
 	public CarAssignment getCurrentCarAssignment(ChargingStation chargingStation) {
@@ -287,26 +345,36 @@ public class State implements Loggable, JSONSerializable {
 		currentCarAssignments.add(assignment);
 		currentCarAssignmentsByCar.put(car, assignment);
 		currentCarAssignmentsByChargingStation.put(chargingStation, assignment);
+		currentCarAssignmentsByCarID.putIfAbsent(car.getId(), assignment);
+		carAssignmentsModificationCount++;
 		allCarAssignments.add(assignment);
 		return assignment;
 	}
 	public void removeCarAssignment(Car car) {
-		int removeIndex = -1;
-		for (int i=0;i<currentCarAssignments.size();i++) {
-			if (currentCarAssignments.get(i).car.equals(car)) 
-				removeIndex = i;
-		}
-		
-		if (removeIndex == -1) {
+		CarAssignment assignment = currentCarAssignmentsByCar.get(car);
+		if (assignment == null) {
 			throw new CarNotAssignedException(car);
 		}
 		
-		CarAssignment assignment = currentCarAssignments.get(removeIndex);
-		
 		setChargingStationFree(assignment.chargingStation);
-		currentCarAssignments.remove(removeIndex);
+		currentCarAssignments.remove(assignment);
 		currentCarAssignmentsByCar.remove(car);
 		currentCarAssignmentsByChargingStation.remove(assignment.chargingStation);
+		carAssignmentsModificationCount++;
+		if (currentCarAssignmentsByCarID.get(car.getId()) == assignment) {
+			currentCarAssignmentsByCarID.remove(car.getId());
+			// Several cars with the same ID: Keep the first remaining assignment (same result as a linear search)
+			for (CarAssignment other : currentCarAssignments) {
+				if (other.car.getId() == car.getId()) {
+					currentCarAssignmentsByCarID.put(car.getId(), other);
+					break;
+				}
+			}
+		}
+		
+		if (fuseTreeLoadIndex != null) {
+			fuseTreeLoadIndex.removeCar(car);
+		}
 	}
 	
 	/**
@@ -357,8 +425,13 @@ public class State implements Loggable, JSONSerializable {
 	 * @return
 	 */
 	public List<CarAssignment> getCarAssignmentsByFuse(FuseTreeNode fuseTreeNode) {
-		ArrayList<ChargingStation> chargingStations = null; 
-		if (fuseTreeNode instanceof Fuse) {
+		List<ChargingStation> chargingStations = null; 
+		int nodeIndex = (fuseTree != null) ? fuseTree.getCompiledFuseTree().getNodeIndex(fuseTreeNode) : -1; 
+		if (nodeIndex >= 0) {
+			// Range of the compiled fuse tree instead of walking the subtree
+			chargingStations = fuseTree.getCompiledFuseTree().getChargingStationsInSubtree(nodeIndex); 
+		}
+		else if (fuseTreeNode instanceof Fuse) {
 			chargingStations = ((Fuse) fuseTreeNode).getChargingStationChildren();
 		}
 		else if (fuseTreeNode instanceof ChargingStation) {
@@ -379,6 +452,34 @@ public class State implements Loggable, JSONSerializable {
 	
 	
 	
+	/**
+	 * Returns the per fuse, per timeslot and per phase sums of the planned currents of all current car assignments. 
+	 * The index is kept between calls and only the timeslots of plans that changed since the last call 
+	 * (see Car.getCurrentPlanModificationCount()) are updated.
+	 * It is rebuilt if the fuse tree or the number of timeslots changed. 
+	 * @return
+	 */
+	@JsonIgnore
+	public FuseTreeLoadIndex getFuseTreeLoadIndex() {
+		int nTimeslots = energyPriceHistory.getNTimeslots(); 
+		if (fuseTreeLoadIndex == null || fuseTreeLoadIndex.isValidFor(fuseTree, nTimeslots) == false) {
+			fuseTreeLoadIndex = new FuseTreeLoadIndex(fuseTree, nTimeslots); 
+		}
+		fuseTreeLoadIndex.update(this);
+		return fuseTreeLoadIndex;
+	}
+	
+	/**
+	 * Returns the planned current summed over all cars per timeslot. Only plans changed since the last call 
+	 * (see Car.getCurrentPlanModificationCount()) are compared and only their timeslots are summed up again. 
+	 * @return
+	 */
+	@JsonIgnore
+	public PlannedDemandProfile getPlannedDemandProfile() {
+		plannedDemandProfile.update(cars);
+		return plannedDemandProfile;
+	}
+	
 	/**
 	 * Returns true if there is a variable powerAssignment containing
 	 * car in currentPowerAssignments. The value 
@@ -387,25 +488,13 @@ public class State implements Loggable, JSONSerializable {
 	 * @return
 	 */
 	public boolean isCarPowerAssigned(Car car) {
-		for (PowerAssignment powerAssignment : currentPowerAssignments) {
-			if (powerAssignment.car.equals(car)) 
-				return true;
-		}
-		return false;
+		return currentPowerAssignmentsByCar.get(car) != null;
 	}
 	public PowerAssignment getCurrentPowerAssignment(Car car) {
-		for (PowerAssignment powerAssignment : currentPowerAssignments) {
-			if (powerAssignment.car.equals(car)) 
-				return powerAssignment;
-		}
-		return null;
+		return currentPowerAssignmentsByCar.get(car);
 	}
 	public PowerAssignment getCurrentPowerAssignment(ChargingStation chargingStation) {
-		for (PowerAssignment powerAssignment : currentPowerAssignments) {
-			if (powerAssignment.chargingStation.equals(chargingStation)) 
-				return powerAssignment;
-		}
-		return null;
+		return currentPowerAssignmentsByChargingStation.get(chargingStation);
 	}
 	
 	
@@ -431,19 +520,18 @@ public class State implements Loggable, JSONSerializable {
 		
 		PowerAssignment assignment = new PowerAssignment(chargingStation, car, phase1, phase2, phase3);
 		currentPowerAssignments.add(assignment);
+		currentPowerAssignmentsByCar.put(car, assignment);
+		currentPowerAssignmentsByChargingStation.put(chargingStation, assignment);
 		
 		return assignment;
 		//allPowerAssignments.add(assignment);
 	}
 	public void removePowerAssignment(Car car) {
-		int removeIndex = -1;
-		for (int i=0;i<currentPowerAssignments.size();i++) {
-			if (currentPowerAssignments.get(i).car.equals(car)) 
-				removeIndex = i;
-		}
-		log(2, "Removing powerAssignment for car n=" + car.getId() + " at t=" + currentTimeSeconds + ". RemoveIndex=" + removeIndex);
-		if(removeIndex>=0){
-			currentPowerAssignments.remove(removeIndex);
+		PowerAssignment assignment = currentPowerAssignmentsByCar.remove(car);
+		log(2, () -> "Removing powerAssignment for car n=" + car.getId() + " at t=" + currentTimeSeconds + ". Found=" + (assignment != null));
+		if (assignment != null) {
+			currentPowerAssignments.remove(assignment);
+			currentPowerAssignmentsByChargingStation.remove(assignment.chargingStation);
 		}
 	}
 
@@ -2,13 +2,14 @@ package com.sap.charging.realTime;
 
 import com.sap.charging.model.Car;
 import com.sap.charging.model.EnergyPriceHistory;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.sim.event.Event;
 import com.sap.charging.sim.event.EventCarArrival;
 import com.sap.charging.sim.event.EventCarDeparture;
 import com.sap.charging.sim.event.EventCarFinished;
 import com.sap.charging.sim.event.EventEnergyPriceChange;
 import com.sap.charging.sim.event.EventReoptimize;
+import com.sap.charging.util.LogSink;
 import com.sap.charging.util.Loggable;
 
 /**
@@ -25,31 +26,60 @@ import com.sap.charging.util.Loggable;
  */
 public abstract class Strategy implements Loggable{
 	
+	/**
+	 * If null the SimulationContext bound to the current thread is used 
+	 */
+	private SimulationContext context;
+	
 	public int getVerbosity() {
-		return Simulation.verbosity;
+		return getContext().getVerbosity();
+	}
+	
+	@Override
+	public LogSink getLogSink() {
+		return getContext().getLogSink();
+	}
+	
+	/**
+	 * Context passed explicitly (e.g. per server request) or the context bound to the current thread
+	 */
+	public SimulationContext getContext() {
+		return (context != null) ? context : SimulationContext.current();
+	}
+	public void setContext(SimulationContext context) {
+		this.context = context;
 	}
 	
 	// Called once per simulation iteration (e.g. new car, new energy prices)
 	// ==> min every 15 minutes
 	public final void react(State currentState, Event event) {
+		long startNanos = System.nanoTime();
+		SimulationContext context = getContext();
+		context.incrementStrategyReactions();
 		int minVerbosity = (event instanceof EventEnergyPriceChange) ? 1 : 2; // First 2 generates less messages
-		log(minVerbosity, "Reacting to " + event.getClass().getSimpleName()
+		log(minVerbosity, () -> "Reacting to " + event.getClass().getSimpleName()
 				+ " at t=" + event.getSecondsOfDay() + " (k=" + currentState.currentTimeslot + ")");
 		
-		if (event instanceof EventCarArrival) {
-			reactCarArrivalWrapper(currentState, ((EventCarArrival) event).car);
-		}
-		if (event instanceof EventCarFinished) {
-			reactCarFinishedWrapper(currentState, ((EventCarFinished) event).car);
-		}
-		if (event instanceof EventCarDeparture) {
-			reactCarDepartureWrapper(currentState, ((EventCarDeparture) event).car);
-		}
-		if (event instanceof EventEnergyPriceChange) {
-			reactEnergyPriceChangeWrapper(currentState, ((EventEnergyPriceChange) event).history);
+		try {
+			if (event instanceof EventCarArrival) {
+				reactCarArrivalWrapper(currentState, ((EventCarArrival) event).car);
+			}
+			if (event instanceof EventCarFinished) {
+				reactCarFinishedWrapper(currentState, ((EventCarFinished) event).car);
+			}
+			if (event instanceof EventCarDeparture) {
+				reactCarDepartureWrapper(currentState, ((EventCarDeparture) event).car);
+			}
+			if (event instanceof EventEnergyPriceChange) {
+				reactEnergyPriceChangeWrapper(currentState, ((EventEnergyPriceChange) event).history);
+			}
+			if (event instanceof EventReoptimize) {
+				reactReoptimizeWrapper(currentState); 
+			}
 		}
-		if (event instanceof EventReoptimize) {
-			reactReoptimizeWrapper(currentState); 
+		finally {
+			// Failed reactions are recorded as well
+			context.onStrategyReaction(event, System.nanoTime() - startNanos);
 		}
 	}
 	
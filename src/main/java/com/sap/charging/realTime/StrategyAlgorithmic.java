@@ -19,6 +19,10 @@ import com.sap.charging.opt.lp.Variable;
 import com.sap.charging.opt.solution.model.DayaheadSchedule;
 import com.sap.charging.realTime.model.CarAssignment;
 import com.sap.charging.realTime.model.forecasting.departure.CarDepartureForecast;
+import com.sap.charging.realTime.model.forecasting.departure.CarDepartureForecastMemoized;
+import com.sap.charging.realTime.util.CarAssignmentPriorityQueue;
+import com.sap.charging.realTime.util.FuseTreeLoadIndex;
+import com.sap.charging.realTime.util.SortedTimeslots;
 import com.sap.charging.realTime.util.TimeslotSorter;
 import com.sap.charging.realTime.util.TimeslotSortingCriteria;
 import com.sap.charging.sim.eval.Validation;
@@ -30,6 +34,7 @@ import com.sap.charging.util.Util;
 public class StrategyAlgorithmic extends Strategy {
 	
 	private final CarDepartureForecast carDepartureForecast;
+	private final CarDepartureForecastMemoized carDepartureForecastMemoized; // Repeated reoptimizations reuse predictions until CarProcessData changes
 	private final DayaheadSchedule schedule;
 	private boolean recognizeNonlinearCharging = false; // Do we assume cars charge linearly (always with max current) or CCCV (exponential falloff at high SoC)? 
 	private boolean reoptimizeOnStillAvailableAfterExpectedDepartureTimeslot = true; // for legacy code: previously, on last timestamp if currentTimeslot >= timeslotDeparture, car was reoptimized one last time
@@ -40,6 +45,8 @@ public class StrategyAlgorithmic extends Strategy {
 	private boolean rescheduleCarsWith0A = true;  
 	
 	private final StrategyAlgorithmicChargeScheduler scheduler;
+	private final SortedTimeslots sortedTimeslotsBuffer = new SortedTimeslots();
+	private final CarAssignmentPriorityQueue carsByPriorityBuffer = new CarAssignmentPriorityQueue();
 	
 	public StrategyAlgorithmic() {
 		this(CarDepartureForecast.getDefaultCarDepartureForecast(), null);
@@ -55,6 +62,7 @@ public class StrategyAlgorithmic extends Strategy {
 	
 	public StrategyAlgorithmic(CarDepartureForecast carDepartureForecast, DayaheadSchedule schedule) {
 		this.carDepartureForecast = carDepartureForecast;
+		this.carDepartureForecastMemoized = new CarDepartureForecastMemoized(carDepartureForecast);
 		this.schedule = schedule;
 		this.scheduler = new StrategyAlgorithmicChargeScheduler(this);
 	}
@@ -176,7 +184,7 @@ public class StrategyAlgorithmic extends Strategy {
 	@Override
 	public void reactCarArrival(State state, Car car) {
 		if (state.isAnyChargingStationFree() == false && state.isCarCurrentlyAssigned(car) == false) {
-			log(1, "No free charging station for car id=" + car.getId()) ;
+			log(1, "No free charging station for car id={}", car.getId());
 			return;
 		}
 		
@@ -248,16 +256,16 @@ public class StrategyAlgorithmic extends Strategy {
 				
 				scheduler.fillChargingPlanByCost(state, currentK, expectedDepartureTimeslot, car, chargingStation, currentTimeSeconds);
 				
-				log(2, "car n=" + car.getId() + " is early! Applying currentPlan:");
-				log(2, "currentPlan=" + Arrays.toString(currentPlan));
+				log(2, () -> "car n=" + car.getId() + " is early! Applying currentPlan:");
+				log(2, () -> "currentPlan=" + Arrays.toString(currentPlan));
 			}
 			else {
 				// EV is late, fill up with cheapest available slot (where not planned)
 				currentPlan = schedule.getChargingStationPlan(originalChargingStationId);
 				car.setCurrentPlan(currentPlan);
 				int latenessSeconds = currentTimeSeconds - plannedEVArrival;
-				log(2, "car n=" + car.getId() + " is late by " + latenessSeconds + "s! originalPlannedCapacity=" + scheduler.getPlannedCapacity(chargingStation, car, currentTimeSeconds));
-				log(2, "originalPlan=" + Arrays.toString(currentPlan));
+				log(2, () -> "car n=" + car.getId() + " is late by " + latenessSeconds + "s! originalPlannedCapacity=" + scheduler.getPlannedCapacity(chargingStation, car, currentTimeSeconds));
+				log(2, () -> "originalPlan=" + Arrays.toString(currentPlan));
 				
 				int expectedDepartureTimeslot = car.getLastAvailableTimeslot();
 				
@@ -266,10 +274,10 @@ public class StrategyAlgorithmic extends Strategy {
 					//int kSeconds = TimeUtil.getTimestampFromTimeslot(k).toSecondOfDay();
 					//int diffSeconds = currentTimeSeconds - kSeconds;
 					if (k < currentK) {
-						currentPlan[k] = 0;
+						car.setCurrentPlanValue(k, 0);
 					}
 				}
-				log(2, "correctedPlan=" + Arrays.toString(currentPlan));
+				log(2, () -> "correctedPlan=" + Arrays.toString(currentPlan));
 				
 				
 				scheduler.fillChargingPlanByCost(state, currentK, expectedDepartureTimeslot, car, chargingStation, currentTimeSeconds);
@@ -277,7 +285,7 @@ public class StrategyAlgorithmic extends Strategy {
 				/*// Calculate how much additional charging this car needs due to being late
 				final double currentPlannedSum = getPlannedCapacity(car, currentTimeSeconds);
 				double desiredCapacity = car.getMissingCapacity() - currentPlannedSum;
-				log(2, "car n=" + car.getId() +  ": currentPlannedSum=" + currentPlannedSum + 
+				log(2, () -> "car n=" + car.getId() +  ": currentPlannedSum=" + currentPlannedSum + 
 						", desiredCapacity=" + desiredCapacity);
 				
 				// Fill up with cheapest available slot (where not planned)
@@ -289,7 +297,7 @@ public class StrategyAlgorithmic extends Strategy {
 		}
 		else {
 			// EV is not in plan
-			log(2, "Unplanned EV arrival n=" + car.getId() + ", car.curCapacity=" + car.getCurrentCapacity());
+			log(2, () -> "Unplanned EV arrival n=" + car.getId() + ", car.curCapacity=" + car.getCurrentCapacity());
 			currentPlan = new double[state.energyPriceHistory.getNTimeslots()];
 			
 			if (isNonlinearChargingRecognized()) {
@@ -305,7 +313,7 @@ public class StrategyAlgorithmic extends Strategy {
 			//int expectedDepartureTimeslot = (int) (carDepartureForecast.getExpectedDepartureTimeslot(state, car) *
 			//		state.energyPriceHistory.getNTimeslots()*1.0 /96.0); 
 			
-			int expectedDepartureTimeSeconds = carDepartureForecast.getExpectedDepartureTimeSeconds(state, car);
+			int expectedDepartureTimeSeconds = carDepartureForecastMemoized.getExpectedDepartureTimeSeconds(state, car);
 			int expectedDepartureTimeslot = TimeUtil.getTimeslotFromSeconds(expectedDepartureTimeSeconds);
 			if (currentK >= expectedDepartureTimeslot || expectedDepartureTimeslot > state.energyPriceHistory.getNTimeslots()-1) {
 				expectedDepartureTimeSeconds = state.energyPriceHistory.getNTimeslots() * 15 * 60 - 1;
@@ -321,8 +329,10 @@ public class StrategyAlgorithmic extends Strategy {
 		// Validity check for cars below minCurrent
 		for (int k=0;k<currentPlan.length;k++) {
 			if (currentPlan[k] < car.minCurrentPerPhase && currentPlan[k] > 0) {
-				log(2, "car n=" + car.getId() + " is below minCurrent with currentPlan[" + k + "]=" + currentPlan[k] + ". Correcting to minCurrent=" + car.minCurrentPerPhase);
-				currentPlan[k] = car.minCurrentPerPhase; // TODO: This is not optimal
+				final int timeslot = k;
+				log(2, () -> "car n=" + car.getId() + " is below minCurrent with currentPlan[" + timeslot + "]=" + currentPlan[timeslot] + 
+						". Correcting to minCurrent=" + car.minCurrentPerPhase);
+				car.setCurrentPlanValue(k, car.minCurrentPerPhase); // TODO: This is not optimal
 			}
 		}
 		
@@ -364,6 +374,36 @@ public class StrategyAlgorithmic extends Strategy {
 		return this.getSortedCarsByPriority(carAssignments, currentTimeSeconds, TimeUtil.getTimeslotFromSeconds(currentTimeSeconds)); 
 	}
 
+	/**
+	 * Same order as getSortedCarsByPriority(carAssignments, currentTimeSeconds, timeslot) (lowest priority first, ties in the order of carAssignments). 
+	 * The returned queue is reused by the next call. 
+	 * @param carAssignments
+	 * @param currentTimeSeconds
+	 * @param timeslot
+	 * @return
+	 */
+	public CarAssignmentPriorityQueue getCarsByPriority(List<CarAssignment> carAssignments, int currentTimeSeconds, int timeslot) {
+		carsByPriorityBuffer.clear();
+		for (CarAssignment carAssignment : carAssignments) {
+			int departureTimeSeconds = carAssignment.getExpectedDepartureTimeSeconds();
+			carsByPriorityBuffer.add(carAssignment, getChargingPriority(carAssignment, currentTimeSeconds, departureTimeSeconds));
+		}
+		return carsByPriorityBuffer;
+	}
+	
+	/**
+	 * Check consumption on correct phase --> Check whether EV causes exception. 
+	 * Differentiate between charging station exceptions and fuse exceptions: 
+	 * On fuses use currentPerGridPhase, 
+	 * on chargingStation use currentPerStationPhase (so that it matches the correct fuseSize)
+	 */
+	private double getPlannedCurrentOnViolatedPhase(CarAssignment carAssignment, FuseTreeException fuseTreeException, int violatingK) {
+		double[] consumption = fuseTreeException.getFuse() instanceof Fuse ? 
+				carAssignment.getCurrentPerGridPhase(violatingK) :
+				carAssignment.getCurrentPerStationPhase(violatingK); 
+		return consumption[fuseTreeException.getPhaseWithHighestDelta().asInt()-1];
+	}
+
 	
 	
 	
@@ -395,7 +435,7 @@ public class StrategyAlgorithmic extends Strategy {
 			
 
 			double currentPerPhase = current / car.sumUsedPhases;
-			log(2, "After simulating from currentTimeSeconds=" + currentTimeSeconds + " to timeSeconds=" + timeSeconds + "(maxtime=" + maxtime + ") soc=" + soc + " and current=" + current + " with params=" + params);
+			log(2, () -> "After simulating from currentTimeSeconds=" + currentTimeSeconds + " to timeSeconds=" + timeSeconds + "(maxtime=" + maxtime + ") soc=" + soc + " and current=" + current + " with params=" + params);
 			return currentPerPhase;
 			
 		}
@@ -454,20 +494,27 @@ public class StrategyAlgorithmic extends Strategy {
 	}
 	
 	/**
-	 * Checks the state for any violations to the fuse tree, for each timeslot k.
+	 * Checks the state for any violations to the fuse tree, for each timeslot k. 
+	 * Timeslots are first checked against the precomputed sums of the fuse tree load index, only timeslots 
+	 * close to a limit are validated in full (to build the FuseTreeException). 
 	 * @param state
 	 * @param newCar
 	 * @return
 	 */
 	public Map<Integer, FuseTreeException> getInitialFuseViolations(State state, Car newCar) {
 		Map<Integer, FuseTreeException> violatingTimeslots = new TreeMap<>();
+		FuseTreeLoadIndex fuseTreeLoadIndex = state.getFuseTreeLoadIndex(); 
 		for (int k=state.currentTimeslot;k<state.energyPriceHistory.getNTimeslots();k++) { 
+			if (fuseTreeLoadIndex.isPossiblyViolated(k) == false) {
+				continue; 
+			}
 			try {
 				Validation.validateFuseTreeAtTimeslot(state,  k);
 			}
 			catch (FuseTreeException e) {
 				if (newCar != null) {
-					log(2, e.getFuse() + " planned for k=" + k + " by " + Util.formatDoubleArray(e.getSumConsumed()) + " while planning car=n" + newCar.getId());
+					final int violatingK = k;
+					log(2, () -> e.getFuse() + " planned for k=" + violatingK + " by " + Util.formatDoubleArray(e.getSumConsumed()) + " while planning car=n" + newCar.getId());
 				}
 				violatingTimeslots.put(k, e);
 			}
@@ -479,6 +526,10 @@ public class StrategyAlgorithmic extends Strategy {
 	
 	/**
 	 * Resolve all fuse violations. 
+	 * 
+	 * violatingTimeslots is used as worklist (earliest timeslot first). The first violation is followed by a check of all timeslots, 
+	 * after each further violation only the timeslots where a rescheduled car's plan changed are checked again 
+	 * (the result of all other timeslots cannot have changed). 
 	 * @param state
 	 * @param violatingTimeslots
 	 */
@@ -486,22 +537,33 @@ public class StrategyAlgorithmic extends Strategy {
 		boolean[] blockedTimeslots = new boolean[state.energyPriceHistory.getNTimeslots()];
 		boolean blockedAny = false;
 		
-		while (violatingTimeslots.keySet().isEmpty() == false) { // While there are any violations left while planning this car
+		FuseTreeLoadIndex fuseTreeLoadIndex = state.getFuseTreeLoadIndex(); 
+		boolean[] changedTimeslots = null; 
+		getContext().addViolationsFound(violatingTimeslots.size());
+		
+		while (violatingTimeslots.isEmpty() == false) { // While there are any violations left while planning this car
 			// Handle one violation (at earliest timeslot)
-			int violatingK = (int) violatingTimeslots.keySet().toArray()[0];
+			int violatingK = violatingTimeslots.keySet().iterator().next();
 			blockedTimeslots[violatingK] = true;
 			blockedAny = true;
-			log(2, "Blocking timeslot k=" + violatingK);
-			handleViolation(state, violatingK, blockedTimeslots, violatingTimeslots);
+			log(2, () -> "Blocking timeslot k=" + violatingK);
+			handleViolation(state, violatingK, blockedTimeslots, violatingTimeslots, fuseTreeLoadIndex, changedTimeslots);
+			
+			if (changedTimeslots == null) {
+				changedTimeslots = new boolean[blockedTimeslots.length];
+			}
+			else {
+				Arrays.fill(changedTimeslots, false);
+			}
 		}
 		
-		if (blockedAny == true) {
-			log(2, "Blocked timeslots after resolving violations: ", true, false);
+		if (blockedAny == true && isLogEnabled(2)) {
+			StringBuilder message = new StringBuilder("Blocked timeslots after resolving violations: ");
 			for (int k=0;k<blockedTimeslots.length;k++) {
 				if (blockedTimeslots[k] == true)
-					log(2, k + ", ", false, false);
+					message.append(k).append(", ");
 			}
-			log(2, "", false, true);
+			log(2, message.toString());
 		}
 	}
 	
@@ -513,6 +575,22 @@ public class StrategyAlgorithmic extends Strategy {
 	 * @param violatingTimeslots
 	 */
 	public void handleViolation(State state, int violatingK, boolean[] blockedTimeslots, Map<Integer, FuseTreeException> violatingTimeslots) {
+		handleViolation(state, violatingK, blockedTimeslots, violatingTimeslots, state.getFuseTreeLoadIndex(), null);
+	}
+	
+	/**
+	 * Handle a single violation
+	 * @param state
+	 * @param violatingK
+	 * @param blockedTimeslots
+	 * @param violatingTimeslots
+	 * @param fuseTreeLoadIndex Must be up to date with the car plans in state
+	 * @param changedTimeslots If null, all timeslots are checked for new violations afterwards. 
+	 * Otherwise only violatingK and the timeslots where a rescheduled car's plan changed (marked in this array) are checked. 
+	 * This requires violatingTimeslots to be up to date for all other timeslots that are not blocked.  
+	 */
+	private void handleViolation(State state, int violatingK, boolean[] blockedTimeslots, Map<Integer, FuseTreeException> violatingTimeslots, 
+			FuseTreeLoadIndex fuseTreeLoadIndex, boolean[] changedTimeslots) {
 		// Get all car assignments relevant to this violation
 		FuseTreeException fuseTreeException = violatingTimeslots.get(violatingK);
 		if (fuseTreeException == null) {
@@ -521,66 +599,59 @@ public class StrategyAlgorithmic extends Strategy {
 		
 		FuseTreeNode violatedFuse = fuseTreeException.getFuse();
 		List<CarAssignment> carAssignments = state.getCarAssignmentsByFuse(violatedFuse);
-		List<SortableElement<CarAssignment>> sortedViolatingCars = getSortedCarsByPriority(carAssignments, state.currentTimeSeconds, violatingK);
+		CarAssignmentPriorityQueue violatingCars = getCarsByPriority(carAssignments, state.currentTimeSeconds, violatingK);
 		
 		boolean thisFuseViolationFixed = false; // Has the violation for THIS fuse been fixed?
 		while (thisFuseViolationFixed == false) {
 			
-			log(2, "Handling violation at timeslot k=" + violatingK + " with exception=" + fuseTreeException.getMessage());
+			log(2, "Handling violation at timeslot k={} with exception={}", violatingK, fuseTreeException.getMessage());
 			
 			// Make changes to charging plan for car with lowest priority
-			if (sortedViolatingCars.size() == 0) {
+			if (violatingCars.isEmpty()) {
 				throw new RuntimeException("Rescheduled all n=" + state.cars.size() + " cars at k=" + violatingK + " but violation is not fixed!");
 			}
-			int indexViolatingCar = 0;
-			// Loop through the list of cars until a car is found, which can reduce the power of the fuse with the highest delta
-			for (int indexCurrentCar=0; indexCurrentCar<sortedViolatingCars.size();indexCurrentCar++) {
-				CarAssignment carAssignmentLowestPriority = sortedViolatingCars.get(indexCurrentCar).index;
-				// Check consumption on correct phase --> Check whether EV with lowest priority causes exception
-				// Differentiate between charging station exceptions and fuse exceptions:
-				// On fuses use currentPerGridPhase
-				// On chargingStation use currentPerStationPhase (so that it matches the correct fuseSize)
-				double[] consumption = fuseTreeException.getFuse() instanceof Fuse ? 
-						carAssignmentLowestPriority.getCurrentPerGridPhase(violatingK) :
-						carAssignmentLowestPriority.getCurrentPerStationPhase(violatingK); 
-						
-				double plannedCurrent = consumption[fuseTreeException.getPhaseWithHighestDelta().asInt()-1];
-				
-				log(2, "Car n=" + carAssignmentLowestPriority.car.getId() + " has lowest priority (" 
-						+ sortedViolatingCars.get(0).value 
+			// Find the car with the lowest priority which can reduce the power of the fuse with the highest delta. 
+			// Cars with a lower priority that can't reduce it stay in the queue. If no car can, the car with the lowest priority is removed. 
+			final FuseTreeException currentException = fuseTreeException; 
+			final double lowestPriority = violatingCars.peekPriority(); 
+			CarAssignment carAssignmentLowestPriority = violatingCars.pollFirstMatching(carAssignment -> {
+				double plannedCurrent = getPlannedCurrentOnViolatedPhase(carAssignment, currentException, violatingK); 
+				log(2, () -> "Car n=" + carAssignment.car.getId() + " has lowest priority (" 
+						+ lowestPriority 
 						+ ") in violatingK=" + violatingK + ", plannedCurrent=" + Util.formatDouble(plannedCurrent) + "A");
+				return plannedCurrent > 0; 
+			}); 
+			
+			if (getPlannedCurrentOnViolatedPhase(carAssignmentLowestPriority, currentException, violatingK) > 0) {
 				
-				if (plannedCurrent > 0) {
-					
-					rescheduleCar(state, carAssignmentLowestPriority, blockedTimeslots, violatingK, fuseTreeException);
-					
-					// Check if this violation was fixed: FuseTreeException e must be updated
-					try {
+				rescheduleCar(state, carAssignmentLowestPriority, blockedTimeslots, violatingK, fuseTreeException);
+				fuseTreeLoadIndex.updateCarAssignment(carAssignmentLowestPriority, changedTimeslots); 
+				
+				// Check if this violation was fixed: FuseTreeException e must be updated
+				try {
+					if (fuseTreeLoadIndex.isPossiblyViolated(violatingK)) {
 						Validation.validateFuseAtTimeslot(violatedFuse, state, violatingK);
-						thisFuseViolationFixed = true;
 					}
-					catch (FuseTreeException updatedException) {
-						log(2, "New fuseTreeException: " + updatedException.getMessage());
-						if (updatedException.getFuse() != violatedFuse) {
-							log(3, "New fuseTreeException describes a different fuse (index=" + updatedException.getFuse().getId() + ") " +
-								"compared to the resolved fuseTreeException (index=" + violatedFuse.getId() + ")");
-							thisFuseViolationFixed = true; 
-						}
-						else {
-							fuseTreeException = updatedException;
-						}
+					thisFuseViolationFixed = true;
+				}
+				catch (FuseTreeException updatedException) {
+					log(2, () -> "New fuseTreeException: " + updatedException.getMessage());
+					if (updatedException.getFuse() != violatedFuse) {
+						log(3, () -> "New fuseTreeException describes a different fuse (index=" + updatedException.getFuse().getId() + ") " +
+							"compared to the resolved fuseTreeException (index=" + violatedFuse.getId() + ")");
+						thisFuseViolationFixed = true; 
+					}
+					else {
+						fuseTreeException = updatedException;
 					}
-					// Relevant Car was rescheduled. Break the loop and check if the violation was fixed
-					indexViolatingCar = indexCurrentCar;
-					break;
 				}
 			}
-			sortedViolatingCars.remove(indexViolatingCar); // Remove the car which was rescheduled	
 		}
 		// Remove violation from map
 		violatingTimeslots.remove(violatingK);
+		getContext().incrementViolationsResolved();
 		
-		log(2, "Checking for new violations after rescheduling violatingK=" + violatingK + "...");		
+		log(2, () -> "Checking for new violations after rescheduling violatingK=" + violatingK + "...");		
 		// Check for any new violations and add them
 		for (int kCheck=state.currentTimeslot;kCheck<state.energyPriceHistory.getNTimeslots();kCheck++) {
 			if (//violatingTimeslots.get(kCheck) != null ||   // check a timeslot even if there is no violation already saved for it, since data of the violation may have changed
@@ -588,11 +659,20 @@ public class StrategyAlgorithmic extends Strategy {
 				// If the timeslot is blocked, don't check it. However, the current violatingK could have created a new exception so it must be rechecked
 				continue;
 			}
+			if (changedTimeslots != null && violatingK != kCheck && changedTimeslots[kCheck] == false) {
+				// No plan changed in this timeslot, the result of its last check still holds
+				continue; 
+			}
+			if (fuseTreeLoadIndex.isPossiblyViolated(kCheck) == false) {
+				continue; 
+			}
 				
 			try {
 				Validation.validateFuseTreeAtTimeslot(state, kCheck);
 			} catch (FuseTreeException eNewError) {
-				violatingTimeslots.put(eNewError.timeslot, eNewError);
+				if (violatingTimeslots.put(eNewError.timeslot, eNewError) == null) {
+					getContext().addViolationsFound(1);
+				}
 			}
 		}
 	}
@@ -608,6 +688,7 @@ public class StrategyAlgorithmic extends Strategy {
 	public void rescheduleCar(State state, CarAssignment carAssignment, boolean[] blockedTimeslots, int violatingK, FuseTreeException fuseTreeException) {
 		Car car = carAssignment.car;
 		ChargingStation chargingStation = carAssignment.chargingStation;
+		getContext().incrementReschedules();
 		
 		TimeslotSortingCriteria sortingCriteria;
 		if (car.getMissingCapacityToMinSoC() > 0) {
@@ -620,14 +701,14 @@ public class StrategyAlgorithmic extends Strategy {
 		}
 		
 		// Reschedule from now until end of day
-		List<SortableElement<Integer>> sortedTimeslots = TimeslotSorter.getSortedTimeslots(state, state.currentTimeslot, 96, sortingCriteria, blockedTimeslots); 
+		SortedTimeslots sortedTimeslots = TimeslotSorter.sortTimeslots(state, state.currentTimeslot, 96, sortingCriteria, blockedTimeslots, sortedTimeslotsBuffer); 
 		double[] planToChange = carAssignment.car.getCurrentPlan();
 		double capacityWithPlan = scheduler.getPlannedCapacity(chargingStation, car, state.currentTimeSeconds);
 		double originalPlannedCurrent = planToChange[violatingK];
 		
 		if (rescheduleCarsWith0A) {
 			// Legacy / backwards compatible behaviour: Cars are rescheduled by assigning 0A to the violated timeslot instead of the maximum possible
-			planToChange[violatingK] = 0;
+			car.setCurrentPlanValue(violatingK, 0);
 		}
 		else {
 			// Example: 
@@ -645,12 +726,12 @@ public class StrategyAlgorithmic extends Strategy {
 	        // Possibly car is planned with less than 14A
 	        double amountToReducePlanBy = Math.min(planToChange[violatingK], amountToReduceBy); 
 	        // Reduce car plan by 14A (or less, if it was only planned with less)
-	        planToChange[violatingK] = planToChange[violatingK] - amountToReducePlanBy;
+	        car.setCurrentPlanValue(violatingK, planToChange[violatingK] - amountToReducePlanBy);
 	        // Check minCurrent validity
 	        if (planToChange[violatingK] < car.minCurrentPerPhase) {
-	            planToChange[violatingK] = 0;
+	            car.setCurrentPlanValue(violatingK, 0);
 	        }
-	        log(2, "Rescheduling car=" + car.getId() + " at violatingK=" + violatingK + ": Reducing originalCurrent=" + Util.formatDouble(originalPlannedCurrent) +
+	        log(2, () -> "Rescheduling car=" + car.getId() + " at violatingK=" + violatingK + ": Reducing originalCurrent=" + Util.formatDouble(originalPlannedCurrent) +
 	        	   "A by amountToReducePlanBy=" + Util.formatDouble(amountToReducePlanBy) + "A to " + Util.formatDouble(planToChange[violatingK]) + 
 	        	   "A, phaseHighestDelta=" + phaseHighestDelta + 
 	        	   ", consumption=" + fuseTreeException.getSumConsumedByPhase(phaseHighestDelta) + 
@@ -665,7 +746,7 @@ public class StrategyAlgorithmic extends Strategy {
 					if (k != violatingK && // don't reset violatingK: this was just adapted
 						blockedTimeslots[k] == false) // don't reset those slots that are blocked, because we are unable to refill those after here
 					{
-						planToChange[k] = 0;
+						car.setCurrentPlanValue(k, 0);
 					}
 			}
 		}
@@ -676,7 +757,7 @@ public class StrategyAlgorithmic extends Strategy {
 		// Now we must fill plan by the difference
 		double desiredCapacity = capacityWithPlan - capacityWithoutPlan;
 		
-		log(2, "Rescheduling car=" + car.getId() + " at violatingK=" + violatingK + ": capacityWithPlan=" + Util.formatDouble(capacityWithPlan) + 
+		log(2, () -> "Rescheduling car=" + car.getId() + " at violatingK=" + violatingK + ": capacityWithPlan=" + Util.formatDouble(capacityWithPlan) + 
 				"Ah, capacityWithoutPlan=" + Util.formatDouble(capacityWithoutPlan) + "Ah, originalCurrentPlan[" + violatingK + "]=" + originalPlannedCurrent + "A, newCurrentPlan[" + violatingK + "]=" +
 				car.getCurrentPlan()[violatingK] + "A at t=" + state.currentTimeSeconds + " with assignment.expectedDepartureTimeslot=" + carAssignment.getExpectedDepartureTimeslot());
 		
@@ -689,6 +770,9 @@ public class StrategyAlgorithmic extends Strategy {
 	
 	@Override
 	public void reactCarDeparture(State state, Car carLeaving) {
+		scheduler.removeCar(carLeaving);
+		carDepartureForecastMemoized.invalidate(carLeaving);
+		
 		//log(2, "Reacting to car n=" + car.getId() + " leaving, meaning flexibilities may have opened up");
 		
 		int currentK = state.currentTimeslot;
@@ -742,7 +826,7 @@ public class StrategyAlgorithmic extends Strategy {
 				reoptimizeOnStillAvailableAfterExpectedDepartureTimeslot() // backwards compatible results (default true): With expectedDepartureTimeslot=actualDepartureTimeslot, car is reoptimized if not full yet
 			     ) {
 				
-				log(2, "Car n=" + car.getId() + " is unexpectedly still here and not fully charged! Lacking " +
+				log(2, () -> "Car n=" + car.getId() + " is unexpectedly still here and not fully charged! Lacking " +
 						Util.formatDouble(car.getMissingCapacity()) + "Ah");
 				
 				scheduler.fillChargingPlanToFull(state, currentK, state.energyPriceHistory.getNTimeslots(), car, chargingStation, state.currentTimeSeconds);
@@ -767,7 +851,7 @@ public class StrategyAlgorithmic extends Strategy {
 				//System.out.println("currentPlanValue: " + currentPlanValue);
 				//System.out.println("maxCurrentPossible: " + maxCurrentPossible);
 				if (maxCurrentPossible < currentPlanValue) {
-					car.getCurrentPlan()[currentK] = maxCurrentPossible / car.sumUsedPhases;
+					car.setCurrentPlanValue(currentK, maxCurrentPossible / car.sumUsedPhases);
 				}
 			}
 		}
@@ -781,19 +865,31 @@ public class StrategyAlgorithmic extends Strategy {
 	}
 	
 	private void reoptimize(State state) {
-		log(1, "Reoptimizing " + state.getCurrentCarAssignments().size() + " current car assignments (nonlinear batteries recognized=" + this.isNonlinearChargingRecognized() + ")..."); 
-		log(2, "Fuse tree: " + state.fuseTree.toString()); 
+		log(1, "Reoptimizing {} current car assignments (nonlinear batteries recognized={})...", state.getCurrentCarAssignments().size(), this.isNonlinearChargingRecognized()); 
+		log(2, () -> "Fuse tree: " + state.fuseTree.toString()); 
 		int currentK = state.currentTimeslot;
+		
+		// Forecast departure times of all cars where there was no forecasting done in one call 
+		List<CarAssignment> carAssignmentsWithoutForecast = new ArrayList<>();
+		List<Car> carsWithoutForecast = new ArrayList<>();
 		for (CarAssignment carAssignment : state.getCurrentCarAssignments()) {
-			Car car = carAssignment.car;
-			ChargingStation chargingStation = carAssignment.chargingStation;
-			
-			// Check if there was no forecasting done
 			if (carAssignment.getExpectedDepartureTimeSeconds() == -1) {
-				int expectedDepartureTimeSeconds = carDepartureForecast.getExpectedDepartureTimeSeconds(state, car);
-				carAssignment.setExpectedDepartureTimeSeconds(expectedDepartureTimeSeconds);
-				log(2, "No expected departure time passed in, setting to expectedDepartureTimeSeconds=" + expectedDepartureTimeSeconds); 
+				carAssignmentsWithoutForecast.add(carAssignment);
+				carsWithoutForecast.add(carAssignment.car);
+			}
+		}
+		if (carsWithoutForecast.isEmpty() == false) {
+			int[] expectedDepartureTimesSeconds = carDepartureForecastMemoized.getExpectedDepartureTimesSeconds(state, carsWithoutForecast);
+			for (int n=0;n<carAssignmentsWithoutForecast.size();n++) {
+				int expectedDepartureTimeSeconds = expectedDepartureTimesSeconds[n];
+				carAssignmentsWithoutForecast.get(n).setExpectedDepartureTimeSeconds(expectedDepartureTimeSeconds);
+				log(2, () -> "No expected departure time passed in, setting to expectedDepartureTimeSeconds=" + expectedDepartureTimeSeconds); 
 			}
+		}
+		
+		for (CarAssignment carAssignment : state.getCurrentCarAssignments()) {
+			Car car = carAssignment.car;
+			ChargingStation chargingStation = carAssignment.chargingStation;
 			
 			// Always reoptimize
 			if (car.isFullyCharged() == false) {
@@ -813,7 +909,7 @@ public class StrategyAlgorithmic extends Strategy {
 				double maxCurrentPossible = sim.getCurrentBasedOnSoC(sim.getSoC(), maxCurrentStatic);
 				
 				if (maxCurrentPossible < currentPlanValue) {
-					car.getCurrentPlan()[currentK] = maxCurrentPossible / car.sumUsedPhases;
+					car.setCurrentPlanValue(currentK, maxCurrentPossible / car.sumUsedPhases);
 				}
 			}
 		}
@@ -1,7 +1,7 @@
 package com.sap.charging.realTime;
 
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 
 import com.sap.charging.model.Car;
@@ -10,10 +10,13 @@ import com.sap.charging.model.EnergyUtil.Phase;
 import com.sap.charging.model.battery.BatterySim;
 import com.sap.charging.model.battery.BatterySimParameters;
 import com.sap.charging.opt.CONSTANTS;
+import com.sap.charging.realTime.util.PlannedCapacityCache;
+import com.sap.charging.realTime.util.PlannedCapacityCheckpoints;
 import com.sap.charging.realTime.util.PlannedCapacityKey;
+import com.sap.charging.realTime.util.SortedTimeslots;
 import com.sap.charging.realTime.util.TimeslotSorter;
 import com.sap.charging.realTime.util.TimeslotSortingCriteria;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.util.LogSink;
 import com.sap.charging.util.Loggable;
 import com.sap.charging.util.SortableElement;
 import com.sap.charging.util.TimeUtil;
@@ -22,12 +25,19 @@ import com.sap.charging.util.Util;
 public class StrategyAlgorithmicChargeScheduler implements Loggable {
 
 	public int getVerbosity() {
-		return Simulation.verbosity;
+		return strategy.getVerbosity();
+	}
+	
+	@Override
+	public LogSink getLogSink() {
+		return strategy.getLogSink();
 	}
 	
 	private boolean recognizeNonlinearCharging;
 	private final StrategyAlgorithmic strategy;
+	private final SortedTimeslots sortedTimeslots = new SortedTimeslots();
 	private boolean enablePlannedCapacityCache = false;
+	private boolean enablePlannedCapacityCheckpoints = true;
 	
 	public StrategyAlgorithmicChargeScheduler(StrategyAlgorithmic strategy) {
 		this.strategy = strategy;
@@ -51,6 +61,21 @@ public class StrategyAlgorithmicChargeScheduler implements Loggable {
 	public void setEnablePlannedCapacityCache(boolean enablePlannedCapacityCache) {
 		this.enablePlannedCapacityCache = enablePlannedCapacityCache;
 	}
+	
+	
+	public boolean isEnablePlannedCapacityCheckpoints() {
+		return enablePlannedCapacityCheckpoints;
+	}
+
+	/**
+	 * If enabled (default), nonlinear planned capacities are computed from per car checkpoints at each timeslot boundary
+	 * instead of simulating the battery from currentTimeSeconds on every call. Results are identical. 
+	 * @param enablePlannedCapacityCheckpoints
+	 */
+	public void setEnablePlannedCapacityCheckpoints(boolean enablePlannedCapacityCheckpoints) {
+		this.enablePlannedCapacityCheckpoints = enablePlannedCapacityCheckpoints;
+		this.plannedCapacityCheckpoints.clear();
+	}
 
 
 	/**
@@ -167,28 +192,45 @@ public class StrategyAlgorithmicChargeScheduler implements Loggable {
 	}
 	
 	
-	HashMap<PlannedCapacityKey, Double> plannedCapacityHashMap = new HashMap<>();
-	public int plannedCapacityHashMapHits = 0;
-	private PlannedCapacityKey getCacheKey(Car car, int currentTimeSeconds, int intervalSecondsStart, int intervalSecondsEnd) {
-		//return car.carBattery.getSoC() + ";" + currentTimeSeconds + ";" + intervalSecondsStart + ";" + 
-		//	intervalSecondsEnd + ";" + Arrays.toString(car.getCurrentPlan());
-		
-		return new PlannedCapacityKey(car.carBattery.getSoC(), currentTimeSeconds, intervalSecondsStart, intervalSecondsEnd, car.getCurrentPlan());
+	private PlannedCapacityCache plannedCapacityCache = new PlannedCapacityCache(); 
+	
+	public PlannedCapacityCache getPlannedCapacityCache() {
+		return plannedCapacityCache;
 	}
 	
-	private void cacheGetPlannedCapacityNonlinear(Car car, int currentTimeSeconds, 
-			int intervalSecondsStart, int intervalSecondsEnd, double plannedCapacity) {
-		PlannedCapacityKey key = getCacheKey(car, currentTimeSeconds, intervalSecondsStart, intervalSecondsEnd);
-		//System.out.println("key=" + key + ", hashCode=" + key.hashCode());
-		plannedCapacityHashMap.put(key, plannedCapacity);
+	/**
+	 * Replaces the planned capacity cache by an empty one with the given capacity (number of entries)
+	 * @param capacity
+	 */
+	public void setPlannedCapacityCacheCapacity(int capacity) {
+		this.plannedCapacityCache = new PlannedCapacityCache(capacity); 
 	}
-	/*private Double getPlannedCapacityNonlinearFromCache(Car car, int currentTimeSeconds, 
-			int intervalSecondsStart, int intervalSecondsEnd) {
-		String key = getCacheKey(car, currentTimeSeconds, intervalSecondsStart, intervalSecondsEnd);
-		return plannedCapacityHashMap.get(key);
-	}*/
-	public HashMap<PlannedCapacityKey, Double> getPlannedCapacityHashMap() {
-		return plannedCapacityHashMap;
+	
+	private final IdentityHashMap<Car, PlannedCapacityCheckpoints> plannedCapacityCheckpoints = new IdentityHashMap<>(); 
+	
+	/**
+	 * Returns the checkpoints of the car's current plan. They are recorded again if the car's SoC, currentTimeSeconds or 
+	 * the battery parameters changed and invalidated from the first modified timeslot if the plan changed. 
+	 */
+	private PlannedCapacityCheckpoints getPlannedCapacityCheckpoints(Car car, int currentTimeSeconds, double maxCurrentStatic) {
+		PlannedCapacityCheckpoints checkpoints = plannedCapacityCheckpoints.get(car); 
+		if (checkpoints == null || checkpoints.isValidFor(car, currentTimeSeconds, maxCurrentStatic) == false) {
+			checkpoints = new PlannedCapacityCheckpoints(car, currentTimeSeconds, maxCurrentStatic); 
+			plannedCapacityCheckpoints.put(car, checkpoints); 
+		}
+		else {
+			checkpoints.update();
+		}
+		return checkpoints; 
+	}
+	
+	/**
+	 * Removes the planned capacity checkpoints and cache entries of a car (e.g. on departure)
+	 * @param car
+	 */
+	public void removeCar(Car car) {
+		plannedCapacityCheckpoints.remove(car); 
+		plannedCapacityCache.removeCar(car); 
 	}
 	
 	/**
@@ -217,37 +259,40 @@ public class StrategyAlgorithmicChargeScheduler implements Loggable {
 			throw new RuntimeException("currentTimeSeconds=" + currentTimeSeconds + ", intervalSecondsStart=" + intervalSecondsStart + ", intervalSecondsEnd=" + intervalSecondsEnd);
 		}
 		
+		double maxCurrentStatic = Math.min(car.sumUsedPhases*chargingStation.fusePhase1, car.sumUsedPhases*car.maxCurrent);
+		
 		Double result;
-		PlannedCapacityKey key = isEnablePlannedCapacityCache() ? getCacheKey(car, currentTimeSeconds, intervalSecondsStart, intervalSecondsEnd) : null;
-		//if ((result = getPlannedCapacityNonlinearFromCache(car, currentTimeSeconds, intervalSecondsStart, intervalSecondsEnd)) != null) {
-		if (getPlannedCapacityHashMap().containsKey(key) && isEnablePlannedCapacityCache()) {
-			//System.out.println(result);
-			//System.out.println("Key=" + key + " already exists");
-			plannedCapacityHashMapHits++;
-			result = getPlannedCapacityHashMap().get(key);
-			return result;
+		PlannedCapacityKey key = null; 
+		if (isEnablePlannedCapacityCache()) {
+			key = new PlannedCapacityKey(car, maxCurrentStatic, currentTimeSeconds, intervalSecondsStart, intervalSecondsEnd); 
+			result = plannedCapacityCache.get(key);
+			strategy.getContext().incrementPlannedCapacityCacheLookups(result != null);
+			if (result != null) {
+				return result;
+			}
+		}
+		
+		if (isEnablePlannedCapacityCheckpoints() && car.getCurrentPlan() != null) {
+			PlannedCapacityCheckpoints checkpoints = getPlannedCapacityCheckpoints(car, currentTimeSeconds, maxCurrentStatic); 
+			result = checkpoints.getPlannedCapacity(intervalSecondsStart, intervalSecondsEnd); 
 		}
 		else {
+			BatterySim sim = BatterySim.createBatterySimFromCar(car);
 			
+			// First, simulate until start of interval and record result
+			sim.simulate(currentTimeSeconds, intervalSecondsStart, car, maxCurrentStatic);
+			double chargedAhUntilInterval = sim.getChargedAh(); // t0 to t1
+			
+			// Next, simulate until end of interval and record result
+			sim.simulate(intervalSecondsStart, intervalSecondsEnd, car, maxCurrentStatic);
+			double chargedAhEndOfInterval = sim.getChargedAh(); // t0 to t2
+			
+			result = chargedAhEndOfInterval - chargedAhUntilInterval;
 		}
-		
-		
-		BatterySim sim = BatterySim.createBatterySimFromCar(car);
-		double maxCurrentStatic = Math.min(car.sumUsedPhases*chargingStation.fusePhase1, car.sumUsedPhases*car.maxCurrent);
-		
-		// First, simulate until start of interval and record result
-		sim.simulate(currentTimeSeconds, intervalSecondsStart, car, maxCurrentStatic);
-		double chargedAhUntilInterval = sim.getChargedAh(); // t0 to t1
-		
-		// Next, simulate until end of interval and record result
-		sim.simulate(intervalSecondsStart, intervalSecondsEnd, car, maxCurrentStatic);
-		double chargedAhEndOfInterval = sim.getChargedAh(); // t0 to t2
-		
-		result = chargedAhEndOfInterval - chargedAhUntilInterval;
 	
-		if (isEnablePlannedCapacityCache())
-			cacheGetPlannedCapacityNonlinear(car, currentTimeSeconds, intervalSecondsStart, intervalSecondsEnd, result);
-		//System.out.println("Key=" + key + " : " + result + ", does not exist yet");
+		if (isEnablePlannedCapacityCache()) {
+			plannedCapacityCache.put(key, result);
+		}
 		
 		return result;
 	}
@@ -267,12 +312,12 @@ public class StrategyAlgorithmicChargeScheduler implements Loggable {
 	 */
 	public void fillChargingPlanToMinSoC(State state, int minK, int maxK, Car car, ChargingStation chargingStation, int currentTimeSeconds) {
 		// Fill to minimum state of charge
-		List<SortableElement<Integer>> timeslotsByIndex = TimeslotSorter.getSortedTimeslots(state, minK, maxK, TimeslotSortingCriteria.INDEX); // getSortedTimeslotsByIndex(state, minK, maxK);
+		SortedTimeslots timeslotsByIndex = TimeslotSorter.sortTimeslots(state, minK, maxK, TimeslotSortingCriteria.INDEX, null, sortedTimeslots);
 		double currentPlannedSum = getPlannedCapacity(chargingStation, car, currentTimeSeconds);
 		double missingCapacityToMinSoC = car.getMissingCapacityToMinSoC() - currentPlannedSum;
 		if (missingCapacityToMinSoC > 0) {
 			// Fill greedy using min state of charge
-			log(2, "Filling up to minimum SoC with desiredCapacity=" + missingCapacityToMinSoC + "Ah...");
+			log(2, () -> "Filling up to minimum SoC with desiredCapacity=" + missingCapacityToMinSoC + "Ah...");
 			fillChargingPlan(car, chargingStation, missingCapacityToMinSoC, timeslotsByIndex, currentTimeSeconds);
 		}
 	}
@@ -280,12 +325,12 @@ public class StrategyAlgorithmicChargeScheduler implements Loggable {
 	
 	public void fillChargingPlanByCost(State state, int minK, int maxK, Car car, ChargingStation chargingStation, int currentTimeSeconds) {
 		// Fill up optimally
-		List<SortableElement<Integer>> timeslotsByPrice = TimeslotSorter.getSortedTimeslots(state, minK, maxK, strategy.getSortingCriteriaByObjective());  // getSortedTimeslotsByPrice(state, minK, maxK);
+		SortedTimeslots timeslotsByPrice = TimeslotSorter.sortTimeslots(state, minK, maxK, strategy.getSortingCriteriaByObjective(), null, sortedTimeslots);
 		double currentPlannedSum = getPlannedCapacity(chargingStation, car, currentTimeSeconds);
 		double desiredCapacity = car.getMissingCapacity() - currentPlannedSum; //- Math.max(car.getCurrentCapacity()+car.getChargedCapacity(), 
 												   //			car.minLoadingState);
 		if (desiredCapacity > 0) {
-			log(2, "Filling up rest (n=" + car.getId() + ") with missingCapacity=" + car.getMissingCapacity() + "-currentPlannedSum=" + currentPlannedSum + " ==> desiredCapacity=" + desiredCapacity + "Ah, minK=" + minK + ", maxK=expectedDepartureTimeslot=" + maxK + "...");
+			log(2, () -> "Filling up rest (n=" + car.getId() + ") with missingCapacity=" + car.getMissingCapacity() + "-currentPlannedSum=" + currentPlannedSum + " ==> desiredCapacity=" + desiredCapacity + "Ah, minK=" + minK + ", maxK=expectedDepartureTimeslot=" + maxK + "...");
 			// Fill greedy using min state of charge
 			fillChargingPlan(car, chargingStation, desiredCapacity, timeslotsByPrice, currentTimeSeconds);
 		}
@@ -294,10 +339,10 @@ public class StrategyAlgorithmicChargeScheduler implements Loggable {
 	
 	public void fillChargingPlanToFull(State state, int minK, int maxK, Car car, ChargingStation chargingStation, int currentTimeSeconds) {
 		// Fill to full as soon as possible
-		List<SortableElement<Integer>> timeslotsByIndex = TimeslotSorter.getSortedTimeslots(state, minK, maxK, TimeslotSortingCriteria.INDEX); // getSortedTimeslotsByIndex(state, minK, maxK);
+		SortedTimeslots timeslotsByIndex = TimeslotSorter.sortTimeslots(state, minK, maxK, TimeslotSortingCriteria.INDEX, null, sortedTimeslots);
 		double currentPlannedSum = getPlannedCapacity(chargingStation, car, currentTimeSeconds);
 		double missingCapacity = car.getMissingCapacity() - currentPlannedSum;
-		log(2, "Filling up to full SoC with desiredCapacity=" + missingCapacity + "Ah...");
+		log(2, "Filling up to full SoC with desiredCapacity={}Ah...", missingCapacity);
 		if (missingCapacity > 0) {
 			fillChargingPlan(car, chargingStation, missingCapacity, timeslotsByIndex, currentTimeSeconds);
 		}
@@ -337,6 +382,14 @@ public class StrategyAlgorithmicChargeScheduler implements Loggable {
 	 */
 	public void fillChargingPlan(Car car, ChargingStation chargingStation,
 			double desiredCapacity, List<SortableElement<Integer>> sortedEnergyPrices, int currentTimeSeconds) {
+		fillChargingPlan(car, chargingStation, desiredCapacity, SortedTimeslots.fromList(sortedEnergyPrices), currentTimeSeconds);
+	}
+	
+	/**
+	 * Same as fillChargingPlan(...) with timeslots sorted by TimeslotSorter.sortTimeslots(...)
+	 */
+	public void fillChargingPlan(Car car, ChargingStation chargingStation,
+			double desiredCapacity, SortedTimeslots sortedEnergyPrices, int currentTimeSeconds) {
 		
 		double[] currentPlan = car.getCurrentPlan();
 		BatterySim batterySim = (isNonlinearChargingRecognized()) ? BatterySim.createBatterySimFromCar(car) : null;
@@ -345,15 +398,17 @@ public class StrategyAlgorithmicChargeScheduler implements Loggable {
 		double maxCurrentStatic = car.sumUsedPhases * maxCurrentPerPhaseStatic;
 		
 		
-		log(2, "Filling charging plan for car=" + car.getId() + " at t=" + currentTimeSeconds + " with desiredCapacity=" + desiredCapacity + "Ah..."); 
+		log(2, "Filling charging plan for car={} at t={} with desiredCapacity={}Ah...", car.getId(), currentTimeSeconds, desiredCapacity); 
 		
 		// When was the start of the last timeslot? Needed for progressing nonlinear battery simulation
 		// Initialize with current time so we only progress simulation by fraction of first timeslot
 		int lastStartTimeSeconds = currentTimeSeconds;
 		
-		for (SortableElement<Integer> element : sortedEnergyPrices) {
+		int nIterations = 0;
+		for (int i=0;i<sortedEnergyPrices.size();i++) {
+			nIterations++;
 			boolean breakAfterThis = false;
-			int k = element.index;
+			int k = sortedEnergyPrices.get(i);
 			int timeslotStartSeconds = Math.max(currentTimeSeconds, TimeUtil.getSecondsFromTimeslot(k)); // If we call fillChargingPlan() in middle of timeslot, only use part of timeslot
 			int timeslotEndSeconds = TimeUtil.getSecondsFromTimeslot(k+1);
 			
@@ -420,7 +475,9 @@ public class StrategyAlgorithmicChargeScheduler implements Loggable {
 					double capacityRestWithLinear = nextCurrent * step / 3600.0 * CONSTANTS.CHARGING_EFFICIENCY;
 					
 					// If we can fill rest of the capacity with linear in order to exactly reach desiredCapacity, stop taking max current here and instead take linear current
-					log(4, "step=" + step + ", nextCurrent=" + nextCurrent + "A, capacitySoFarNonlinear=" + capacitySoFarNonlinear + "Ah, capacityRestWithLinear=" + capacityRestWithLinear + "Ah");	
+					if (isLogEnabled(4)) {
+						log(4, "step=" + step + ", nextCurrent=" + nextCurrent + "A, capacitySoFarNonlinear=" + capacitySoFarNonlinear + "Ah, capacityRestWithLinear=" + capacityRestWithLinear + "Ah");
+					}
 					if (capacityRestWithLinear + capacitySoFarNonlinear > desiredCapacity + originalPlannedTimeslotCapacity) {
 						// Don't use nextCurrent (since this might be way too much), instead recalculate exact amount
 						
@@ -429,10 +486,12 @@ public class StrategyAlgorithmicChargeScheduler implements Loggable {
 						maxLinearCurrent = maxLinearCurrent / (step/900.0); // maybe we are in middle of timeslot
 
 						maxCurrentPerPhaseSimBackwards = maxLinearCurrent / car.sumUsedPhases; 
-						log(3, "Stopping with maxCurrentPerPhaseSimBackwards=" + maxCurrentPerPhaseSimBackwards + "A  at step=" + step + 
-							   " with initialSoC=" + paramsSimBackwards.initialSoC + ", soc(" + step + ")=" + simBackwards.getSoC() + 
-							   ", capacityRestWithLinear=" + capacityRestWithLinear + "Ah, capacitySoFarNonLinear=" + capacitySoFarNonlinear + 
-							   "Ah, originalPlannedCapacity=" + originalPlannedTimeslotCapacity + "Ah");
+						if (isLogEnabled(3)) {
+							log(3, "Stopping with maxCurrentPerPhaseSimBackwards=" + maxCurrentPerPhaseSimBackwards + "A  at step=" + step + 
+								   " with initialSoC=" + paramsSimBackwards.initialSoC + ", soc(" + step + ")=" + simBackwards.getSoC() + 
+								   ", capacityRestWithLinear=" + capacityRestWithLinear + "Ah, capacitySoFarNonLinear=" + capacitySoFarNonlinear + 
+								   "Ah, originalPlannedCapacity=" + originalPlannedTimeslotCapacity + "Ah");
+						}
 						breakAfterThis = true;
 						break;
 					}
@@ -461,18 +520,18 @@ public class StrategyAlgorithmicChargeScheduler implements Loggable {
 				if (isNonlinearChargingRecognized() == false) {
 					// If linear charging: This statement fills up the last slot (dont use max current but spread it out over 15 mins)
 					double sumUsedPhases = this.getSumUsedPhases(chargingStation, car); 
-					currentPlan[k] = Math.min(maxCurrentPerPhase, this.getCurrentToFillTimeslot_linear(desiredCapacity, sumUsedPhases, timeslotStartSeconds, timeslotEndSeconds, originalPlannedTimeslotCurrent)); 
+					car.setCurrentPlanValue(k, Math.min(maxCurrentPerPhase, this.getCurrentToFillTimeslot_linear(desiredCapacity, sumUsedPhases, timeslotStartSeconds, timeslotEndSeconds, originalPlannedTimeslotCurrent))); 
 				}
 				else {
 					// In nonlinear charging, the "filling up" is done during simulation
-					currentPlan[k] = maxCurrentPerPhase;
+					car.setCurrentPlanValue(k, maxCurrentPerPhase);
 				}
 				
 				
 				// Check if this would lead to charging below min power
 				if (currentPlan[k] < car.minCurrentPerPhase) {
-					log(3, "Current=" + currentPlan[k] + "A is less than car.minCurrentPerPhase=" + car.minCurrentPerPhase + ", setting to minCurrentPerPhase."); 
-					currentPlan[k] = car.minCurrentPerPhase; // Note: This is not optimal. 
+					log(3, () -> "Current=" + currentPlan[k] + "A is less than car.minCurrentPerPhase=" + car.minCurrentPerPhase + ", setting to minCurrentPerPhase."); 
+					car.setCurrentPlanValue(k, car.minCurrentPerPhase); // Note: This is not optimal. 
 				}
 				
 				// After update of chargePlan, how many chargedAh did we gain?
@@ -482,11 +541,13 @@ public class StrategyAlgorithmicChargeScheduler implements Loggable {
 				double desiredCapacityChange = newPlannedCapacity - originalPlannedCapacity;
 				
 				
-				log(3, "Filling n=" + car.getId() + ", k=" + k + " with " + 
-						currentPlan[k] + 
-						"A (previously=" + originalPlannedTimeslotCurrent + "A," + originalPlannedTimeslotCapacity + "Ah). " +
-						"desiredCapacityChange=" + desiredCapacityChange + "Ah" + 
-						", remaining to be planned: desiredCapacity=" + (desiredCapacity-desiredCapacityChange));
+				if (isLogEnabled(3)) {
+					log(3, "Filling n=" + car.getId() + ", k=" + k + " with " + 
+							currentPlan[k] + 
+							"A (previously=" + originalPlannedTimeslotCurrent + "A," + originalPlannedTimeslotCapacity + "Ah). " +
+							"desiredCapacityChange=" + desiredCapacityChange + "Ah" + 
+							", remaining to be planned: desiredCapacity=" + (desiredCapacity-desiredCapacityChange));
+				}
 				
 				/*if (desiredCapacityChange < 0) {
 					//log(0, Arrays.toString(car.getCurrentPlan()));
@@ -507,9 +568,12 @@ public class StrategyAlgorithmicChargeScheduler implements Loggable {
 			} 
 			else if (desiredCapacity <= 1e-8) { break; }
 		}
-		log(2, "After filling: desiredCapacity=" + Util.formatDouble(desiredCapacity) + 
-				"Ah, plannedCapacity=" + Util.formatDouble(getPlannedCapacity(chargingStation, car, currentTimeSeconds)) + "Ah");
-		log(2, "currentPlan=" + Arrays.toString(currentPlan));
+		strategy.getContext().addFillIterations(nIterations);
+		if (isLogEnabled(2)) {
+			log(2, "After filling: desiredCapacity=" + Util.formatDouble(desiredCapacity) + 
+					"Ah, plannedCapacity=" + Util.formatDouble(getPlannedCapacity(chargingStation, car, currentTimeSeconds)) + "Ah");
+		}
+		log(2, () -> "currentPlan=" + Arrays.toString(currentPlan));
 	}
 	
 	
@@ -1,7 +1,5 @@
 package com.sap.charging.realTime;
 
-import java.util.Arrays;
-
 import com.sap.charging.model.Car;
 import com.sap.charging.model.ChargingStation;
 import com.sap.charging.model.EnergyPriceHistory;
@@ -41,14 +39,14 @@ public class StrategyGreedy extends Strategy {
 					phase1, phase2, phase3); 
 
 			for (int k=newCar.getFirstAvailableTimeslot(); k<=newCar.getLastAvailableTimeslot();k++) {
-				newCar.getCurrentPlan()[k] = powerAssignment.getPhase1();
+				newCar.setCurrentPlanValue(k, powerAssignment.getPhase1());
 			}
 			
 			if (Validation.isFuseTreeValid(state) == false) {
 				powerAssignment.setPhase1(0);
 				powerAssignment.setPhase2(0);
 				powerAssignment.setPhase3(0);
-				Arrays.fill(newCar.getCurrentPlan(), 0);
+				newCar.setCurrentPlan(new double[newCar.getCurrentPlan().length]);
 			}
 		}
 		else {
@@ -0,0 +1,305 @@
+package com.sap.charging.realTime.model.forecasting;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sap.charging.util.FileIO;
+
+/**
+ * Gradient boosted tree ensemble evaluated in the JVM, loaded from a text dump of an xgboost model, e.g. in R:
+ * xgb.dump(model, "gen/models/departureForecastXGBoost.txt") (with or without stats).
+ *
+ * Predictions follow xgboost: Features and split conditions are compared as floats (x < condition goes to "yes",
+ * NaN goes to "missing"), leaf values are summed as floats starting from the base score. The base score and objective
+ * are not part of the dump and have to match the training parameters (xgboost's defaults are 0.5 and reg:linear).
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+public class TreeEnsemble {
+
+	public enum Objective {
+		/**
+		 * reg:linear / reg:squarederror: The sum of leaf values is returned as is
+		 */
+		REG_LINEAR,
+		/**
+		 * reg:logistic / binary:logistic: The sigmoid of the sum of leaf values is returned
+		 */
+		REG_LOGISTIC
+	}
+
+	public static final float DEFAULT_BASE_SCORE = 0.5f;
+
+	private static final int LEAF = -1;
+
+	private final String[] featureNames;
+	private final float baseScore;
+	private final Objective objective;
+
+	/**
+	 * Nodes of all trees, node j of tree t is at treeStarts[t] + j
+	 */
+	private final int[] treeStarts;
+	/**
+	 * Feature index of split nodes, LEAF for leaves
+	 */
+	private final int[] splitFeatures;
+	/**
+	 * Split condition of split nodes, leaf value of leaves
+	 */
+	private final float[] values;
+	private final int[] childrenYes;
+	private final int[] childrenNo;
+	private final int[] childrenMissing;
+
+	private TreeEnsemble(String[] featureNames, float baseScore, Objective objective,
+			int[] treeStarts, int[] splitFeatures, float[] values, int[] childrenYes, int[] childrenNo, int[] childrenMissing) {
+		this.featureNames = featureNames;
+		this.baseScore = baseScore;
+		this.objective = objective;
+		this.treeStarts = treeStarts;
+		this.splitFeatures = splitFeatures;
+		this.values = values;
+		this.childrenYes = childrenYes;
+		this.childrenNo = childrenNo;
+		this.childrenMissing = childrenMissing;
+	}
+
+	/**
+	 * @param path One feature name per line (columns of the training matrix in order), e.g. gen/models/departureForecastFeatures.csv
+	 * @return
+	 */
+	public static String[] readFeatureNames(String path) {
+		return FileIO.readFile(path).trim().split("\\s*\\n\\s*");
+	}
+
+	/**
+	 * Loads a model trained with the default base score (0.5) and objective (reg:linear)
+	 * @param dumpFilePath
+	 * @param featureNames Columns of the matrix used for training (in order). Features in the dump are referenced either by these names or by index (f0, f1, ...).
+	 * @return
+	 */
+	public static TreeEnsemble fromXGBoostDump(String dumpFilePath, String[] featureNames) {
+		return fromXGBoostDump(dumpFilePath, featureNames, DEFAULT_BASE_SCORE, Objective.REG_LINEAR);
+	}
+
+	public static TreeEnsemble fromXGBoostDump(String dumpFilePath, String[] featureNames, float baseScore, Objective objective) {
+		try {
+			List<String> lines = Files.readAllLines(Paths.get(dumpFilePath), StandardCharsets.UTF_8);
+			return parseXGBoostDump(lines, featureNames, baseScore, objective);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Lines of a text dump:
+	 * booster[0]
+	 * 0:[timestampArrival<30600] yes=1,no=2,missing=1
+	 * 	1:leaf=2.5
+	 * 	2:leaf=-1.25
+	 * booster[1]
+	 * ...
+	 */
+	public static TreeEnsemble parseXGBoostDump(List<String> lines, String[] featureNames, float baseScore, Objective objective) {
+		Map<String, Integer> featureIndices = new HashMap<>();
+		for (int f=0;f<featureNames.length;f++) {
+			featureIndices.put(featureNames[f], f);
+		}
+
+		List<Integer> treeStarts = new ArrayList<>();
+		List<String[]> nodes = new ArrayList<>();
+		int treeStart = 0;
+		for (String rawLine : lines) {
+			String line = rawLine.trim();
+			if (line.isEmpty()) {
+				continue;
+			}
+			if (line.startsWith("booster[")) {
+				treeStart = nodes.size();
+				treeStarts.add(treeStart);
+				continue;
+			}
+			if (treeStarts.isEmpty()) {
+				throw new IllegalArgumentException("Expected booster[0] before the first node: " + line);
+			}
+			int colon = line.indexOf(':');
+			if (colon <= 0) {
+				throw new IllegalArgumentException("Unknown line in xgboost dump: " + line);
+			}
+			int nodeID = Integer.parseInt(line.substring(0, colon));
+			int position = treeStart + nodeID;
+			// Node IDs of a tree are not necessarily dumped in order
+			while (nodes.size() <= position) {
+				nodes.add(null);
+			}
+			nodes.set(position, new String[] {line.substring(colon+1), line});
+		}
+		if (treeStarts.isEmpty()) {
+			throw new IllegalArgumentException("xgboost dump does not contain any trees.");
+		}
+
+		int nNodes = nodes.size();
+		int[] splitFeatures = new int[nNodes];
+		float[] values = new float[nNodes];
+		int[] childrenYes = new int[nNodes];
+		int[] childrenNo = new int[nNodes];
+		int[] childrenMissing = new int[nNodes];
+		Arrays.fill(splitFeatures, LEAF);
+
+		for (int t=0;t<treeStarts.size();t++) {
+			int start = treeStarts.get(t);
+			int end = (t+1 < treeStarts.size()) ? treeStarts.get(t+1) : nNodes;
+			if (start == end || nodes.get(start) == null) {
+				throw new IllegalArgumentException("Tree " + t + " of xgboost dump has no root node.");
+			}
+			for (int position=start;position<end;position++) {
+				String[] node = nodes.get(position);
+				if (node == null) {
+					// Unused ID (e.g. of a pruned node)
+					continue;
+				}
+				String content = node[0];
+				if (content.startsWith("leaf=")) {
+					values[position] = Float.parseFloat(getAttribute(content, "leaf=", node[1]));
+				}
+				else if (content.startsWith("[")) {
+					int less = content.indexOf('<');
+					int bracket = content.indexOf(']');
+					if (less < 0 || bracket < less) {
+						throw new IllegalArgumentException("Only splits of the form [feature<condition] are supported: " + node[1]);
+					}
+					splitFeatures[position] = getFeatureIndex(content.substring(1, less), featureIndices, featureNames.length, node[1]);
+					values[position] = Float.parseFloat(content.substring(less+1, bracket));
+					childrenYes[position] = start + Integer.parseInt(getAttribute(content, "yes=", node[1]));
+					childrenNo[position] = start + Integer.parseInt(getAttribute(content, "no=", node[1]));
+					childrenMissing[position] = start + Integer.parseInt(getAttribute(content, "missing=", node[1]));
+					for (int child : new int[] {childrenYes[position], childrenNo[position], childrenMissing[position]}) {
+						if (child >= end || nodes.get(child) == null) {
+							throw new IllegalArgumentException("Child node of split does not exist: " + node[1]);
+						}
+					}
+				}
+				else {
+					throw new IllegalArgumentException("Unknown node in xgboost dump: " + node[1]);
+				}
+			}
+		}
+
+		int[] treeStartsArray = treeStarts.stream().mapToInt(Integer::intValue).toArray();
+		return new TreeEnsemble(featureNames.clone(), baseScore, objective,
+				treeStartsArray, splitFeatures, values, childrenYes, childrenNo, childrenMissing);
+	}
+
+	/**
+	 * Value of e.g. "yes=" in "[f0<0.5] yes=1,no=2,missing=1,gain=12.5,cover=20"
+	 */
+	private static String getAttribute(String content, String key, String line) {
+		int start = content.indexOf(key);
+		if (start < 0) {
+			throw new IllegalArgumentException("Missing " + key + " in xgboost dump: " + line);
+		}
+		start += key.length();
+		int end = content.indexOf(',', start);
+		return content.substring(start, end < 0 ? content.length() : end).trim();
+	}
+
+	private static int getFeatureIndex(String feature, Map<String, Integer> featureIndices, int nFeatures, String line) {
+		Integer index = featureIndices.get(feature);
+		if (index == null && feature.matches("f\\d+")) {
+			index = Integer.parseInt(feature.substring(1));
+		}
+		if (index == null || index >= nFeatures) {
+			throw new IllegalArgumentException("Unknown feature " + feature + " in xgboost dump: " + line);
+		}
+		return index;
+	}
+
+
+	public String[] getFeatureNames() {
+		return featureNames.clone();
+	}
+	public int getNumberOfFeatures() {
+		return featureNames.length;
+	}
+	public int getNumberOfTrees() {
+		return treeStarts.length;
+	}
+	public float getBaseScore() {
+		return baseScore;
+	}
+	public Objective getObjective() {
+		return objective;
+	}
+
+	private int getLeaf(int tree, double[] features, int offset) {
+		int node = treeStarts[tree];
+		while (splitFeatures[node] != LEAF) {
+			float value = (float) features[offset + splitFeatures[node]];
+			if (Float.isNaN(value)) {
+				node = childrenMissing[node];
+			}
+			else {
+				node = (value < values[node]) ? childrenYes[node] : childrenNo[node];
+			}
+		}
+		return node;
+	}
+
+	private double transform(float margin) {
+		switch (objective) {
+		case REG_LOGISTIC: return 1.0f / (1.0f + (float) Math.exp(-margin));
+		default: return margin;
+		}
+	}
+
+	/**
+	 * @param features One row with getNumberOfFeatures() values, NaN for missing values
+	 * @return
+	 */
+	public double predict(double[] features) {
+		if (features.length != featureNames.length) {
+			throw new IllegalArgumentException("Expected " + featureNames.length + " features, got " + features.length);
+		}
+		float margin = baseScore;
+		for (int tree=0;tree<treeStarts.length;tree++) {
+			margin += values[getLeaf(tree, features, 0)];
+		}
+		return transform(margin);
+	}
+
+	/**
+	 * Predicts all rows at once (tree by tree, so each tree stays in cache for all rows)
+	 * @param features nRows rows with getNumberOfFeatures() values each (row-major), NaN for missing values
+	 * @param nRows
+	 * @return One prediction per row
+	 */
+	public double[] predict(double[] features, int nRows) {
+		int nFeatures = featureNames.length;
+		if (features.length != nRows * nFeatures) {
+			throw new IllegalArgumentException("Expected " + nRows + "x" + nFeatures + " features, got " + features.length);
+		}
+		float[] margins = new float[nRows];
+		Arrays.fill(margins, baseScore);
+		for (int tree=0;tree<treeStarts.length;tree++) {
+			for (int row=0;row<nRows;row++) {
+				margins[row] += values[getLeaf(tree, features, row*nFeatures)];
+			}
+		}
+		double[] result = new double[nRows];
+		for (int row=0;row<nRows;row++) {
+			result[row] = transform(margins[row]);
+		}
+		return result;
+	}
+
+}
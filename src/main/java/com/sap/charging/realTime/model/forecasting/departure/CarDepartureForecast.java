@@ -1,5 +1,7 @@
 package com.sap.charging.realTime.model.forecasting.departure;
 
+import java.util.List;
+
 import com.sap.charging.model.Car;
 import com.sap.charging.model.CarProcessData;
 import com.sap.charging.realTime.State;
@@ -12,6 +14,39 @@ public abstract class CarDepartureForecast extends Forecast {
 
 	public abstract int getExpectedDepartureTimeSeconds(State state, Car car);
 	
+	/**
+	 * Expected departure times of several cars at once. Forecasts with expensive model invocations (e.g. XGBoost or NN) 
+	 * override this to predict all cars in one call.
+	 * @param state
+	 * @param cars
+	 * @return Expected departure time in seconds per car (same order as cars)
+	 */
+	public int[] getExpectedDepartureTimesSeconds(State state, List<Car> cars) {
+		int[] result = new int[cars.size()];
+		for (int n=0;n<cars.size();n++) {
+			result[n] = getExpectedDepartureTimeSeconds(state, cars.get(n));
+		}
+		return result;
+	}
+	
+	/**
+	 * Expected departure times of all cars of the state (state.getCars()) at once
+	 * @param state
+	 * @return
+	 */
+	public int[] getExpectedDepartureTimesSeconds(State state) {
+		return getExpectedDepartureTimesSeconds(state, state.getCars());
+	}
+	
+	/**
+	 * True if predictions only depend on the car (its id and CarProcessData) and not on the state, 
+	 * so they may be reused until the CarProcessData of the car changes (see CarDepartureForecastMemoized)
+	 * @return
+	 */
+	public boolean isMemoizable() {
+		return false;
+	}
+	
 	/**
 	 * The default value (17:03) is the median departure time of a historical dataset 
 	 * @return
@@ -26,6 +61,22 @@ public abstract class CarDepartureForecast extends Forecast {
 		return matrixString;
 	}
 	
+	/**
+	 * One row per car
+	 * @param cars
+	 * @return
+	 */
+	public String getRMatrixString(List<Car> cars) {
+		StringBuilder matrixString = new StringBuilder("as.matrix(data.table::rbindlist(list(");
+		for (int n=0;n<cars.size();n++) {
+			if (n > 0) 
+				matrixString.append(", ");
+			matrixString.append("data.table::").append(cars.get(n).getCarProcessData().oneHotEncodedRaw);
+		}
+		matrixString.append(")))");
+		return matrixString.toString();
+	}
+	
 	
 	
 }
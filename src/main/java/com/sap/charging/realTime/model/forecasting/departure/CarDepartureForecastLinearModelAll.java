@@ -29,6 +29,11 @@ public class CarDepartureForecastLinearModelAll extends CarDepartureForecast {
 	public int getExpectedDepartureTimeslot(State state, Car car) {
 		return -1;
 	}
+	
+	@Override
+	public boolean isMemoizable() {
+		return true;
+	}
 
 	@Override
 	public int getExpectedDepartureTimeSeconds(State state, Car car) {
@@ -0,0 +1,140 @@
+package com.sap.charging.realTime.model.forecasting.departure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.sap.charging.model.Car;
+import com.sap.charging.model.CarProcessData;
+import com.sap.charging.realTime.State;
+
+/**
+ * Reuses expected departure times of a memoizable forecast (see CarDepartureForecast.isMemoizable()):
+ * Predictions are keyed by car id and are invalidated when the CarProcessData of the car changes.
+ * Only cars without a valid prediction are passed to the forecast (in one batch).
+ * Failed predictions (-1, e.g. if R is not available) are not memoized, they are repeated on the next call.
+ * Forecasts that depend on the state are always called.
+ */
+public class CarDepartureForecastMemoized extends CarDepartureForecast {
+
+	private static class Prediction {
+		private final CarProcessData carProcessData;
+		private final int expectedDepartureTimeSeconds;
+		private Prediction(CarProcessData carProcessData, int expectedDepartureTimeSeconds) {
+			this.carProcessData = carProcessData;
+			this.expectedDepartureTimeSeconds = expectedDepartureTimeSeconds;
+		}
+	}
+
+	private final CarDepartureForecast forecast;
+	private final Map<Integer, Prediction> predictions = new ConcurrentHashMap<>();
+
+	public CarDepartureForecastMemoized(CarDepartureForecast forecast) {
+		this.forecast = forecast;
+	}
+
+	public CarDepartureForecast getForecast() {
+		return forecast;
+	}
+
+	@Override
+	public boolean isMemoizable() {
+		return forecast.isMemoizable();
+	}
+
+	/**
+	 * @param car
+	 * @return null if there is no prediction or the CarProcessData of the car changed since
+	 */
+	private Prediction getPrediction(Car car) {
+		Prediction prediction = predictions.get(car.getId());
+		if (prediction == null || prediction.carProcessData != car.getCarProcessData()) {
+			return null;
+		}
+		return prediction;
+	}
+
+	@Override
+	@Deprecated
+	public int getExpectedDepartureTimeslot(State state, Car car) {
+		return forecast.getExpectedDepartureTimeslot(state, car);
+	}
+
+	@Override
+	public int getExpectedDepartureTimeSeconds(State state, Car car) {
+		if (forecast.isMemoizable() == false) {
+			return forecast.getExpectedDepartureTimeSeconds(state, car);
+		}
+		Prediction prediction = getPrediction(car);
+		if (prediction != null) {
+			return prediction.expectedDepartureTimeSeconds;
+		}
+		int expectedDepartureTimeSeconds = forecast.getExpectedDepartureTimeSeconds(state, car);
+		memoize(car, expectedDepartureTimeSeconds);
+		return expectedDepartureTimeSeconds;
+	}
+
+	@Override
+	public int[] getExpectedDepartureTimesSeconds(State state, List<Car> cars) {
+		if (forecast.isMemoizable() == false) {
+			return forecast.getExpectedDepartureTimesSeconds(state, cars);
+		}
+		int[] result = new int[cars.size()];
+		List<Car> carsToPredict = new ArrayList<>();
+		List<Integer> indicesToPredict = new ArrayList<>();
+		for (int n=0;n<cars.size();n++) {
+			Prediction prediction = getPrediction(cars.get(n));
+			if (prediction != null) {
+				result[n] = prediction.expectedDepartureTimeSeconds;
+			}
+			else {
+				carsToPredict.add(cars.get(n));
+				indicesToPredict.add(n);
+			}
+		}
+		if (carsToPredict.isEmpty()) {
+			return result;
+		}
+
+		log(2, "Forecasting departure times of {} of {} cars...", carsToPredict.size(), cars.size());
+		int[] expectedDepartureTimesSeconds = forecast.getExpectedDepartureTimesSeconds(state, carsToPredict);
+		for (int i=0;i<carsToPredict.size();i++) {
+			Car car = carsToPredict.get(i);
+			memoize(car, expectedDepartureTimesSeconds[i]);
+			result[indicesToPredict.get(i)] = expectedDepartureTimesSeconds[i];
+		}
+		return result;
+	}
+
+	private void memoize(Car car, int expectedDepartureTimeSeconds) {
+		if (expectedDepartureTimeSeconds < 0) {
+			// Fallback of a failed prediction
+			predictions.remove(car.getId());
+			return;
+		}
+		predictions.put(car.getId(), new Prediction(car.getCarProcessData(), expectedDepartureTimeSeconds));
+	}
+
+	/**
+	 * Removes the prediction of a car, e.g. after it departed
+	 * @param car
+	 */
+	public void invalidate(Car car) {
+		predictions.remove(car.getId());
+	}
+
+	public void clear() {
+		predictions.clear();
+	}
+
+	public int size() {
+		return predictions.size();
+	}
+
+	@Override
+	public String getRMatrixString(Car car) {
+		return forecast.getRMatrixString(car);
+	}
+
+}
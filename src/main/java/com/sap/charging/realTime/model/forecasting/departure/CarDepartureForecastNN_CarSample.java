@@ -1,5 +1,8 @@
 package com.sap.charging.realTime.model.forecasting.departure;
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.rosuda.REngine.REXP;
 import org.rosuda.REngine.REXPMismatchException;
 
@@ -54,6 +57,49 @@ public class CarDepartureForecastNN_CarSample extends CarDepartureForecast {
 	
 	
 	
+	/**
+	 * Predicts the departure times of all cars in one R call
+	 * @param state
+	 * @param cars
+	 * @return Expected departure time in seconds per car
+	 */
+	@Override
+	public int[] getExpectedDepartureTimesSeconds(State state, List<Car> cars) {
+		int[] result = new int[cars.size()];
+		if (cars.isEmpty()) {
+			return result;
+		}
+		String matrixString = getRMatrixString(cars);
+		
+		String rString = rConnector.addRTryCtach("\tpredict(modelNN, " + matrixString + ")[,1]\n");
+		
+		log(2, "Executing r String: ");
+		log(2, rString);
+		REXP rResult = rConnector.evalRString(rString);
+		if (rResult.isNumeric()) {
+			try {
+				double[] predictions = rResult.asDoubles();
+				for (int n=0;n<cars.size();n++) {
+					result[n] = Math.max((int) predictions[n], 1);
+				}
+				return result;
+			} catch (REXPMismatchException e) {
+				e.printStackTrace();
+			}
+		}
+		else {
+			System.out.println(rResult.toDebugString());
+			throw new RuntimeException("Error executing NN prediction");
+		}
+		Arrays.fill(result, -1);
+		return result;
+	}
+	
+	@Override
+	public boolean isMemoizable() {
+		return true;
+	}
+	
 	@Override
 	@Deprecated
 	public int getExpectedDepartureTimeslot(State state, Car car) {
@@ -1,23 +1,36 @@
 package com.sap.charging.realTime.model.forecasting.departure;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.rosuda.REngine.REXP;
 import org.rosuda.REngine.REXPMismatchException;
 
 import com.sap.charging.model.Car;
 import com.sap.charging.model.CarProcessData;
 import com.sap.charging.realTime.State;
-import com.sap.charging.util.FileIO;
+import com.sap.charging.realTime.model.forecasting.TreeEnsemble;
 import com.sap.charging.util.TimeUtil;
 import com.sap.charging.util.r.RConnector;
 
 
 
+/**
+ * Predicts departure times with an xgboost model, either via R (Rserve) or in the JVM (see fromModelDump(...)) 
+ */
 public class CarDepartureForecastXGBoost_CarDistribution extends CarDepartureForecast {
 	
 	private RConnector rConnector;
+	private final TreeEnsemble model;
+	private final CarProcessDataEncoder encoder;
 	public final String[] featureNames;
 	
 	public CarDepartureForecastXGBoost_CarDistribution(String modelFilePath) {
+		featureNames = TreeEnsemble.readFeatureNames(CarProcessDataEncoder.PATH_FEATURE_NAMES);
+		encoder = new CarProcessDataEncoder(featureNames);
+		model = null;
+		
 		rConnector = new RConnector();
 		String rString = "model <- xgboost::xgb.load('" + modelFilePath + "')\n";
 		rString = rConnector.addRTryCtach(rString);
@@ -26,14 +39,41 @@ public class CarDepartureForecastXGBoost_CarDistribution extends CarDepartureFor
 		log(3, rString);
 		
 		log(1, "XGBoost model loaded.");
-		
-		String featureNamesRaw = FileIO.readFile("gen/models/departureForecastFeatures.csv");
-		featureNames = featureNamesRaw.split("\\n");
+	}
+	
+	/**
+	 * Predictions are evaluated in the JVM, R is not used
+	 * @param model Trained with the features of encoder
+	 * @param encoder
+	 */
+	public CarDepartureForecastXGBoost_CarDistribution(TreeEnsemble model, CarProcessDataEncoder encoder) {
+		if (model.getNumberOfFeatures() != encoder.getNumberOfFeatures()) {
+			throw new IllegalArgumentException("Model expects " + model.getNumberOfFeatures() + " features, encoder builds " + encoder.getNumberOfFeatures());
+		}
+		this.model = model;
+		this.encoder = encoder;
+		this.featureNames = encoder.getFeatureNames();
+		log(1, "XGBoost model loaded with " + model.getNumberOfTrees() + " trees.");
+	}
+	
+	/**
+	 * Loads a text dump of the xgboost model (xgb.dump(...) in R) with the features of gen/models/departureForecastFeatures.csv
+	 * @param modelDumpFilePath
+	 * @return
+	 */
+	public static CarDepartureForecastXGBoost_CarDistribution fromModelDump(String modelDumpFilePath) {
+		String[] featureNames = TreeEnsemble.readFeatureNames(CarProcessDataEncoder.PATH_FEATURE_NAMES);
+		return new CarDepartureForecastXGBoost_CarDistribution(
+				TreeEnsemble.fromXGBoostDump(modelDumpFilePath, featureNames),
+				new CarProcessDataEncoder(featureNames));
 	}
 	
 	@Deprecated
 	@Override
 	public int getExpectedDepartureTimeslot(State state, Car car) {
+		if (rConnector == null) {
+			return -1;
+		}
 		String rString = "tryCatch({\n" 
 				+ "\tpredict(model, matrix(" + state.currentTimeSeconds + "))\n"
 				+ "}, error=function(e) {\n"
@@ -51,65 +91,29 @@ public class CarDepartureForecastXGBoost_CarDistribution extends CarDepartureFor
 		return -1;
 	}
 	
-	private String getMatrixString(CarProcessData data) {
-		String matrixString = "matrix(c(";
-		
-		// Create one-hot encoded matrix that was used to train xgboost
-		int count=0;
-		for (int i=0;i<featureNames.length;i++) {
-			String featureName = featureNames[i];
-			if (featureName.startsWith("carPark")) {
-				// Example: carPark_WDF40
-				if (featureName.contains(data.carPark)) {
-					matrixString += "1";
-				}
-				else {
-					matrixString += "0";
-				}
-				count++;
-			}
-			else if (featureName.startsWith("wday")) {
-				// Example: wday_1
-				if (featureName.contains(data.wday + "")) {
-					matrixString += "1";
-				}
-				else {
-					matrixString += "0";
-				}
-				count++;
-			}
-			else if (featureName.startsWith("carType")) {
-				// Example: carType_B
-				if (featureName.contains(data.carType)) {
-					matrixString += "1";
-				}
-				else {
-					matrixString += "0";
-				}
-				count++;
+	/**
+	 * One-hot encoded matrix that was used to train xgboost, one row per car 
+	 */
+	private String getMatrixString(List<CarProcessData> dataList) {
+		double[] row = new double[encoder.getNumberOfFeatures()];
+		StringBuilder matrixString = new StringBuilder("matrix(c(");
+		for (int n=0;n<dataList.size();n++) {
+			encoder.encode(dataList.get(n), row, 0);
+			for (int i=0;i<row.length;i++) {
+				if (n > 0 || i > 0)
+					matrixString.append(",");
+				matrixString.append((int) row[i]);
 			}
-			else if (featureName.startsWith("timestampArrival")) {
-				matrixString += data.timestampArrival + "";
-				count++;
-			}
-			
-			if (i != featureNames.length-1)
-				matrixString += ",";
 		}
-		if (count != featureNames.length)
-			throw new RuntimeException("Error: Matrix is shorter than it should be!");
-		
-		matrixString += "), nrow=1)";
+		matrixString.append("), nrow=" + dataList.size() + ", byrow=TRUE)");
 		
 		log(2, "matrixString:");
-		log(2, matrixString);
-		return matrixString;
+		log(2, matrixString.toString());
+		return matrixString.toString();
 	}
 	
-	@Override
-	public int getExpectedDepartureTimeSeconds(State state, Car car) {
-		CarProcessData data = car.getCarProcessData();
-		String matrixString = getMatrixString(data);  
+	private double[] predictR(List<CarProcessData> dataList) {
+		String matrixString = getMatrixString(dataList);  
 		
 		String rString = rConnector.addRTryCtach("\tpredict(model, " + matrixString + ")\n");
 		
@@ -118,8 +122,7 @@ public class CarDepartureForecastXGBoost_CarDistribution extends CarDepartureFor
 		REXP result = rConnector.evalRString(rString);
 		if (result.isNumeric()) {
 			try {
-				int resultTimestamp = (int) result.asDouble();
-				return resultTimestamp;
+				return result.asDoubles();
 			} catch (REXPMismatchException e) {
 				e.printStackTrace();
 			}
@@ -128,7 +131,51 @@ public class CarDepartureForecastXGBoost_CarDistribution extends CarDepartureFor
 			System.out.println(result.toDebugString());
 			throw new RuntimeException("Error executing XGBoost prediction");
 		}
-		return -1;
+		return null;
+	}
+	
+	@Override
+	public int getExpectedDepartureTimeSeconds(State state, Car car) {
+		CarProcessData data = car.getCarProcessData();
+		if (model != null) {
+			return (int) model.predict(encoder.encode(data));
+		}
+		double[] result = predictR(Collections.singletonList(data));
+		return (result != null) ? (int) result[0] : -1;
+	}
+	
+	/**
+	 * Predicts the departure times of all cars at once (one model evaluation or R call)
+	 * @param state
+	 * @param cars
+	 * @return Expected departure time in seconds per car
+	 */
+	@Override
+	public int[] getExpectedDepartureTimesSeconds(State state, List<Car> cars) {
+		if (cars.isEmpty()) {
+			return new int[0];
+		}
+		double[] predictions;
+		if (model != null) {
+			predictions = model.predict(encoder.encode(cars), cars.size());
+		}
+		else {
+			List<CarProcessData> dataList = new ArrayList<>();
+			for (Car car : cars) {
+				dataList.add(car.getCarProcessData());
+			}
+			predictions = predictR(dataList);
+		}
+		int[] result = new int[cars.size()];
+		for (int n=0;n<cars.size();n++) {
+			result[n] = (predictions != null) ? (int) predictions[n] : -1;
+		}
+		return result;
+	}
+	
+	@Override
+	public boolean isMemoizable() {
+		return true;
 	}
 	
 	
@@ -1,17 +1,24 @@
 package com.sap.charging.realTime.model.forecasting.departure;
 
+import java.util.List;
+
 import org.rosuda.REngine.REXP;
 import org.rosuda.REngine.REXPMismatchException;
 
 import com.sap.charging.model.Car;
 import com.sap.charging.realTime.State;
+import com.sap.charging.realTime.model.forecasting.TreeEnsemble;
 import com.sap.charging.util.r.RConnector;
 
 public class CarDepartureForecastXGBoost_CarSample extends CarDepartureForecast{
 
 	private RConnector rConnector;
+	private final TreeEnsemble model;
+	private final CarProcessDataEncoder encoder;
 	
 	public CarDepartureForecastXGBoost_CarSample(String modelFilePath) {
+		model = null;
+		encoder = null;
 		rConnector = new RConnector();
 		String rString = "model <- xgboost::xgb.load('" + modelFilePath + "')\n";
 		rString = rConnector.addRTryCtach(rString);
@@ -23,16 +30,40 @@ public class CarDepartureForecastXGBoost_CarSample extends CarDepartureForecast{
 		
 	}
 	
+	/**
+	 * Predictions are evaluated in the JVM, R is not used. Features are built from CarProcessData (instead of CarProcessData.oneHotEncodedRaw).
+	 * @param model Trained with the features of encoder
+	 * @param encoder
+	 */
+	public CarDepartureForecastXGBoost_CarSample(TreeEnsemble model, CarProcessDataEncoder encoder) {
+		if (model.getNumberOfFeatures() != encoder.getNumberOfFeatures()) {
+			throw new IllegalArgumentException("Model expects " + model.getNumberOfFeatures() + " features, encoder builds " + encoder.getNumberOfFeatures());
+		}
+		this.model = model;
+		this.encoder = encoder;
+		log(1, "XGBoost model loaded with " + model.getNumberOfTrees() + " trees.");
+	}
+	
+	/**
+	 * Loads a text dump of the xgboost model (xgb.dump(...) in R)
+	 * @param modelDumpFilePath
+	 * @param featureNamesFilePath Columns of the training matrix, one per line
+	 * @return
+	 */
+	public static CarDepartureForecastXGBoost_CarSample fromModelDump(String modelDumpFilePath, String featureNamesFilePath) {
+		String[] featureNames = TreeEnsemble.readFeatureNames(featureNamesFilePath);
+		return new CarDepartureForecastXGBoost_CarSample(
+				TreeEnsemble.fromXGBoostDump(modelDumpFilePath, featureNames),
+				new CarProcessDataEncoder(featureNames));
+	}
+	
 	@Override
 	@Deprecated
 	public int getExpectedDepartureTimeslot(State state, Car car) {
 		return -1;
 	}
 
-	@Override
-	public int getExpectedDepartureTimeSeconds(State state, Car car) {
-		String matrixString = getRMatrixString(car);
-		
+	private double[] predictR(String matrixString) {
 		String rString = rConnector.addRTryCtach("\tpredict(model, " + matrixString + ")\n");
 		
 		log(2, "Executing r String: ");
@@ -40,8 +71,7 @@ public class CarDepartureForecastXGBoost_CarSample extends CarDepartureForecast{
 		REXP result = rConnector.evalRString(rString);
 		if (result.isNumeric()) {
 			try {
-				int resultTimestamp = (int) result.asDouble();
-				return resultTimestamp;
+				return result.asDoubles();
 			} catch (REXPMismatchException e) {
 				e.printStackTrace();
 			}
@@ -50,7 +80,42 @@ public class CarDepartureForecastXGBoost_CarSample extends CarDepartureForecast{
 			System.out.println(result.toDebugString());
 			throw new RuntimeException("Error executing XGBoost prediction");
 		}
-		return -1;
+		return null;
+	}
+
+	@Override
+	public int getExpectedDepartureTimeSeconds(State state, Car car) {
+		if (model != null) {
+			return (int) model.predict(encoder.encode(car.getCarProcessData()));
+		}
+		double[] result = predictR(getRMatrixString(car));
+		return (result != null) ? (int) result[0] : -1;
+	}
+	
+	/**
+	 * Predicts the departure times of all cars at once (one model evaluation or R call)
+	 * @param state
+	 * @param cars
+	 * @return Expected departure time in seconds per car
+	 */
+	@Override
+	public int[] getExpectedDepartureTimesSeconds(State state, List<Car> cars) {
+		int[] result = new int[cars.size()];
+		if (cars.isEmpty()) {
+			return result;
+		}
+		double[] predictions = (model != null) ?
+				model.predict(encoder.encode(cars), cars.size()) :
+				predictR(getRMatrixString(cars));
+		for (int n=0;n<cars.size();n++) {
+			result[n] = (predictions != null) ? (int) predictions[n] : -1;
+		}
+		return result;
+	}
+	
+	@Override
+	public boolean isMemoizable() {
+		return true;
 	}
 	
 }
@@ -0,0 +1,94 @@
+package com.sap.charging.realTime.model.forecasting.departure;
+
+import java.util.List;
+
+import com.sap.charging.model.Car;
+import com.sap.charging.model.CarProcessData;
+
+/**
+ * Encodes CarProcessData as one row of the one-hot encoded matrix that was used to train the departure forecasts,
+ * e.g. for the feature names carPark_WDF40, wday_1, carType_B, timestampArrival.
+ * One-hot features are 1 if the feature name contains the car's value (same encoding as the R matrix strings).
+ */
+public class CarProcessDataEncoder {
+
+	public static final String PATH_FEATURE_NAMES = "gen/models/departureForecastFeatures.csv";
+
+	private static final int FEATURE_CAR_PARK = 0;
+	private static final int FEATURE_WDAY = 1;
+	private static final int FEATURE_CAR_TYPE = 2;
+	private static final int FEATURE_TIMESTAMP_ARRIVAL = 3;
+
+	private final String[] featureNames;
+	private final int[] featureTypes;
+
+	public CarProcessDataEncoder(String[] featureNames) {
+		this.featureNames = featureNames.clone();
+		this.featureTypes = new int[featureNames.length];
+		for (int f=0;f<featureNames.length;f++) {
+			String featureName = featureNames[f];
+			if (featureName.startsWith("carPark")) {
+				featureTypes[f] = FEATURE_CAR_PARK;
+			}
+			else if (featureName.startsWith("wday")) {
+				featureTypes[f] = FEATURE_WDAY;
+			}
+			else if (featureName.startsWith("carType")) {
+				featureTypes[f] = FEATURE_CAR_TYPE;
+			}
+			else if (featureName.startsWith("timestampArrival")) {
+				featureTypes[f] = FEATURE_TIMESTAMP_ARRIVAL;
+			}
+			else {
+				throw new IllegalArgumentException("Feature can't be built from CarProcessData: " + featureName);
+			}
+		}
+	}
+
+	public String[] getFeatureNames() {
+		return featureNames.clone();
+	}
+
+	public int getNumberOfFeatures() {
+		return featureNames.length;
+	}
+
+	/**
+	 * Writes getNumberOfFeatures() values to row, starting at offset
+	 * @param data
+	 * @param row
+	 * @param offset
+	 */
+	public void encode(CarProcessData data, double[] row, int offset) {
+		String wday = Integer.toString(data.wday);
+		for (int f=0;f<featureNames.length;f++) {
+			double value;
+			switch (featureTypes[f]) {
+			case FEATURE_CAR_PARK: value = featureNames[f].contains(data.carPark) ? 1 : 0; break;
+			case FEATURE_WDAY: value = featureNames[f].contains(wday) ? 1 : 0; break;
+			case FEATURE_CAR_TYPE: value = featureNames[f].contains(data.carType) ? 1 : 0; break;
+			default: value = data.timestampArrival; break;
+			}
+			row[offset + f] = value;
+		}
+	}
+
+	public double[] encode(CarProcessData data) {
+		double[] row = new double[featureNames.length];
+		encode(data, row, 0);
+		return row;
+	}
+
+	/**
+	 * @param cars
+	 * @return One row per car (row-major), e.g. for TreeEnsemble.predict(features, cars.size())
+	 */
+	public double[] encode(List<Car> cars) {
+		double[] rows = new double[cars.size() * featureNames.length];
+		for (int n=0;n<cars.size();n++) {
+			encode(cars.get(n).getCarProcessData(), rows, n * featureNames.length);
+		}
+		return rows;
+	}
+
+}
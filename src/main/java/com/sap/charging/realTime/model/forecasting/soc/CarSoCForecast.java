@@ -12,10 +12,12 @@ import com.sap.charging.util.FileIO;
 
 public abstract class CarSoCForecast extends Forecast {
 
+	public static final String PATH_FEATURE_NAMES = "gen/models/socForecastFeatures.csv";
+	
 	public final String[] featureNames;
 	
 	public CarSoCForecast() {
-		String featureNamesRaw = FileIO.readFile("gen/models/socForecastFeatures.csv");
+		String featureNamesRaw = FileIO.readFile(PATH_FEATURE_NAMES);
 		featureNames = featureNamesRaw.split("\\n");
 	}
 		
@@ -7,14 +7,17 @@ import org.rosuda.REngine.Rserve.RserveException;
 
 import com.sap.charging.model.Car;
 import com.sap.charging.opt.lp.Variable;
+import com.sap.charging.realTime.model.forecasting.TreeEnsemble;
 
 public class CarSoCForecastXGBoost extends CarSoCForecast {
 
 	private RConnection rConnection;
+	private final TreeEnsemble model;
 	
 	
 	public CarSoCForecastXGBoost(String modelFilePath) {
 		super();
+		model = null;
 		String rString = "tryCatch({\n"
 				+ "setwd('" + getJavaWD() + "')\n"
 				+ "if(!require(xgboost)) install.packages('xgboost') \n"
@@ -27,10 +30,40 @@ public class CarSoCForecastXGBoost extends CarSoCForecast {
 		log(1, "XGBoost model loaded.");
 	}
 	
+	/**
+	 * Predictions are evaluated in the JVM, R is not used
+	 * @param model Trained with the features of gen/models/socForecastFeatures.csv
+	 */
+	public CarSoCForecastXGBoost(TreeEnsemble model) {
+		super();
+		if (model.getNumberOfFeatures() != featureNames.length) {
+			throw new IllegalArgumentException("Model expects " + model.getNumberOfFeatures() + " features, " + PATH_FEATURE_NAMES + " has " + featureNames.length);
+		}
+		this.model = model;
+		log(1, "XGBoost model loaded with " + model.getNumberOfTrees() + " trees.");
+	}
+	
+	/**
+	 * Loads a text dump of the xgboost model (xgb.dump(...) in R) with the features of gen/models/socForecastFeatures.csv
+	 * @param modelDumpFilePath
+	 * @return
+	 */
+	public static CarSoCForecastXGBoost fromModelDump(String modelDumpFilePath) {
+		return new CarSoCForecastXGBoost(TreeEnsemble.fromXGBoostDump(modelDumpFilePath, TreeEnsemble.readFeatureNames(PATH_FEATURE_NAMES)));
+	}
+	
 	
 	@Override
 	public double getExpectedSoC(Car carPreviousDay, Car car, int lastDay, int currentDay) {
 		Variable[] variables = getVariablesArray(carPreviousDay, car, lastDay, currentDay);
+		if (model != null) {
+			double[] features = new double[featureNames.length];
+			for (int i=0;i<featureNames.length;i++) {
+				features[i] = getVariableByName(variables, featureNames[i]).getValue();
+			}
+			return model.predict(features);
+		}
+		
 		String valueString = "";
 		for (int i=0;i<this.featureNames.length;i++) {
 			String featureName = this.featureNames[i];
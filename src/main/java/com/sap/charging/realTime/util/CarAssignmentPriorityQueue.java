@@ -0,0 +1,308 @@
+package com.sap.charging.realTime.util;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import com.sap.charging.realTime.model.CarAssignment;
+
+/**
+ * Indexed binary min-heap of car assignments by charging priority (lowest priority first).
+ *
+ * Car assignments with the same priority are returned in the order they were added,
+ * i.e. the order is the same as the one of a stable sort (Collections.sort of SortableElements).
+ * Car assignments can be removed or their priority updated (decrease or increase key) in O(log n).
+ *
+ * pollFirstMatching(...) scans the car assignments in ascending order of priority. Car assignments that are scanned but not removed
+ * are kept in a sorted prefix in front of the heap, so the next scan does not take them out of the heap again.
+ * Not thread safe, the arrays are reused after clear().
+ */
+public class CarAssignmentPriorityQueue {
+
+	// Per entry (index = order in which car assignments were added since clear())
+	private CarAssignment[] carAssignments;
+	private double[] priorities;
+	private int[] heapPositions; // -1 if in the sorted prefix or removed
+	private int nEntries = 0;
+
+	private int[] heap;
+	private int heapSize = 0;
+
+	// Entries taken out of the heap in ascending order, all have a lower (or equal) priority than the entries in the heap
+	private int[] sortedPrefix;
+	private int sortedPrefixSize = 0;
+
+	private final IdentityHashMap<CarAssignment, Integer> entries = new IdentityHashMap<>();
+
+	public CarAssignmentPriorityQueue() {
+		this(16);
+	}
+
+	public CarAssignmentPriorityQueue(int capacity) {
+		capacity = Math.max(1, capacity);
+		carAssignments = new CarAssignment[capacity];
+		priorities = new double[capacity];
+		heapPositions = new int[capacity];
+		heap = new int[capacity];
+		sortedPrefix = new int[capacity];
+	}
+
+	public void clear() {
+		Arrays.fill(carAssignments, 0, nEntries, null);
+		entries.clear();
+		nEntries = 0;
+		heapSize = 0;
+		sortedPrefixSize = 0;
+	}
+
+	public int size() {
+		return sortedPrefixSize + heapSize;
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	public boolean contains(CarAssignment carAssignment) {
+		return entries.containsKey(carAssignment);
+	}
+
+	/**
+	 * Adds a car assignment behind all car assignments with the same priority
+	 * @param carAssignment
+	 * @param priority
+	 */
+	public void add(CarAssignment carAssignment, double priority) {
+		if (entries.containsKey(carAssignment)) {
+			throw new IllegalArgumentException("Car assignment of car n=" + carAssignment.car.getId() + " is already in the queue");
+		}
+		if (nEntries == carAssignments.length) {
+			int capacity = 2*nEntries;
+			carAssignments = Arrays.copyOf(carAssignments, capacity);
+			priorities = Arrays.copyOf(priorities, capacity);
+			heapPositions = Arrays.copyOf(heapPositions, capacity);
+			heap = Arrays.copyOf(heap, capacity);
+			sortedPrefix = Arrays.copyOf(sortedPrefix, capacity);
+		}
+		int entry = nEntries++;
+		carAssignments[entry] = carAssignment;
+		priorities[entry] = priority;
+		entries.put(carAssignment, entry);
+
+		if (sortedPrefixSize > 0 && isLower(entry, sortedPrefix[sortedPrefixSize-1])) {
+			// The sorted prefix must stay below the heap
+			returnSortedPrefixToHeap();
+		}
+		heap[heapSize] = entry;
+		heapPositions[entry] = heapSize;
+		heapSize++;
+		siftUp(heapSize-1);
+	}
+
+	/**
+	 * @return Car assignment with the lowest priority (null if empty)
+	 */
+	public CarAssignment peek() {
+		int entry = getLowestEntry();
+		return (entry >= 0) ? carAssignments[entry] : null;
+	}
+
+	public double peekPriority() {
+		int entry = getLowestEntry();
+		if (entry < 0) {
+			throw new IllegalStateException("Queue is empty");
+		}
+		return priorities[entry];
+	}
+
+	/**
+	 * Removes and returns the car assignment with the lowest priority (null if empty)
+	 * @return
+	 */
+	public CarAssignment poll() {
+		int entry = getLowestEntry();
+		if (entry < 0) {
+			return null;
+		}
+		remove(entry);
+		return carAssignments[entry];
+	}
+
+	public double getPriority(CarAssignment carAssignment) {
+		return priorities[getEntry(carAssignment)];
+	}
+
+	/**
+	 * @param carAssignment
+	 * @return True if the car assignment was in the queue
+	 */
+	public boolean remove(CarAssignment carAssignment) {
+		Integer entry = entries.get(carAssignment);
+		if (entry == null) {
+			return false;
+		}
+		remove(entry);
+		return true;
+	}
+
+	/**
+	 * Changes the priority of a car assignment (decrease or increase key), e.g. after its missing capacity changed.
+	 * Among car assignments with the same priority it keeps its original position.
+	 * @param carAssignment
+	 * @param priority
+	 */
+	public void updatePriority(CarAssignment carAssignment, double priority) {
+		int entry = getEntry(carAssignment);
+		if (heapPositions[entry] < 0) {
+			returnSortedPrefixToHeap();
+		}
+		double oldPriority = priorities[entry];
+		priorities[entry] = priority;
+		if (priority < oldPriority) {
+			if (sortedPrefixSize > 0 && isLower(entry, sortedPrefix[sortedPrefixSize-1])) {
+				returnSortedPrefixToHeap();
+			}
+			siftUp(heapPositions[entry]);
+		}
+		else {
+			siftDown(heapPositions[entry]);
+		}
+	}
+
+	/**
+	 * Removes the car assignment with the lowest priority that matches the filter, car assignments with a lower priority stay in the queue.
+	 * If no car assignment matches, the one with the lowest priority is removed and returned.
+	 * @param filter
+	 * @return Null if empty
+	 */
+	public CarAssignment pollFirstMatching(CarAssignmentFilter filter) {
+		if (isEmpty()) {
+			return null;
+		}
+		for (int i=0;i<sortedPrefixSize;i++) {
+			int entry = sortedPrefix[i];
+			if (filter.matches(carAssignments[entry])) {
+				removeFromSortedPrefix(i);
+				return carAssignments[entry];
+			}
+		}
+		while (heapSize > 0) {
+			int entry = removeFromHeap(0);
+			if (filter.matches(carAssignments[entry])) {
+				entries.remove(carAssignments[entry]);
+				return carAssignments[entry];
+			}
+			sortedPrefix[sortedPrefixSize++] = entry;
+		}
+		return poll();
+	}
+
+	public interface CarAssignmentFilter {
+		boolean matches(CarAssignment carAssignment);
+	}
+
+	private int getEntry(CarAssignment carAssignment) {
+		Integer entry = entries.get(carAssignment);
+		if (entry == null) {
+			throw new IllegalArgumentException("Car assignment of car n=" + carAssignment.car.getId() + " is not in the queue");
+		}
+		return entry;
+	}
+
+	private int getLowestEntry() {
+		if (sortedPrefixSize > 0) {
+			return sortedPrefix[0];
+		}
+		return (heapSize > 0) ? heap[0] : -1;
+	}
+
+	private void remove(int entry) {
+		entries.remove(carAssignments[entry]);
+		if (heapPositions[entry] >= 0) {
+			removeFromHeap(heapPositions[entry]);
+			return;
+		}
+		for (int i=0;i<sortedPrefixSize;i++) {
+			if (sortedPrefix[i] == entry) {
+				removeFromSortedPrefix(i);
+				return;
+			}
+		}
+	}
+
+	private void removeFromSortedPrefix(int i) {
+		entries.remove(carAssignments[sortedPrefix[i]]);
+		System.arraycopy(sortedPrefix, i+1, sortedPrefix, i, sortedPrefixSize-i-1);
+		sortedPrefixSize--;
+	}
+
+	private void returnSortedPrefixToHeap() {
+		for (int i=0;i<sortedPrefixSize;i++) {
+			int entry = sortedPrefix[i];
+			heap[heapSize] = entry;
+			heapPositions[entry] = heapSize;
+			heapSize++;
+			siftUp(heapSize-1);
+		}
+		sortedPrefixSize = 0;
+	}
+
+	/**
+	 * @return Entry that was removed
+	 */
+	private int removeFromHeap(int position) {
+		int entry = heap[position];
+		heapPositions[entry] = -1;
+		heapSize--;
+		if (position < heapSize) {
+			heap[position] = heap[heapSize];
+			heapPositions[heap[position]] = position;
+			siftDown(position);
+			siftUp(position);
+		}
+		return entry;
+	}
+
+	private boolean isLower(int entry1, int entry2) {
+		if (priorities[entry1] != priorities[entry2]) {
+			return priorities[entry1] < priorities[entry2];
+		}
+		return entry1 < entry2;
+	}
+
+	private void siftUp(int position) {
+		int entry = heap[position];
+		while (position > 0) {
+			int parent = (position-1) / 2;
+			if (isLower(entry, heap[parent]) == false) {
+				break;
+			}
+			heap[position] = heap[parent];
+			heapPositions[heap[position]] = position;
+			position = parent;
+		}
+		heap[position] = entry;
+		heapPositions[entry] = position;
+	}
+
+	private void siftDown(int position) {
+		int entry = heap[position];
+		while (true) {
+			int child = 2*position + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (child+1 < heapSize && isLower(heap[child+1], heap[child])) {
+				child++;
+			}
+			if (isLower(heap[child], entry) == false) {
+				break;
+			}
+			heap[position] = heap[child];
+			heapPositions[heap[position]] = position;
+			position = child;
+		}
+		heap[position] = entry;
+		heapPositions[entry] = position;
+	}
+
+}
@@ -0,0 +1,282 @@
+package com.sap.charging.realTime.util;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+
+import com.sap.charging.model.Car;
+import com.sap.charging.model.ChargingStation;
+import com.sap.charging.model.CompiledFuseTree;
+import com.sap.charging.model.EnergyUtil.Phase;
+import com.sap.charging.model.FuseTree;
+import com.sap.charging.model.FuseTreeNode;
+import com.sap.charging.realTime.State;
+import com.sap.charging.realTime.model.CarAssignment;
+
+/**
+ * Persistent per fuse, per timeslot and per phase sums of the planned currents (car.getCurrentPlan()) of all car assignments.
+ *
+ * Charging stations hold the current per station phase, fuses hold the summed current per grid phase of all charging stations below them
+ * (same aggregation as Validation.checkSummedChildConsumptionAtTimeslot).
+ *
+ * Changed plans are recognized by Car.getCurrentPlanModificationCount() (setCurrentPlan() and setCurrentPlanValue()), unchanged cars are
+ * skipped. Only changed cars are compared against the snapshot taken during the last update and only the timeslots that differ are applied
+ * as deltas to the sums.
+ */
+public class FuseTreeLoadIndex {
+
+	/**
+	 * Same tolerance as Validation.isFuseUsageValid
+	 */
+	private static final double TOLERANCE = 1e-6;
+
+	/**
+	 * Sums are updated with deltas and may drift slightly from a fresh summation. Loads within this margin
+	 * of the tolerance are reported as possibly violated so that the exact check in Validation has the final say.
+	 */
+	private static final double GUARD = 1e-7;
+
+	private final FuseTree fuseTree;
+	private final CompiledFuseTree compiledFuseTree;
+	private final int nTimeslots;
+
+	/**
+	 * For each node index of a charging station: Indices of all parent fuses (bottom up)
+	 */
+	private final int[][] parentIndices;
+
+	/**
+	 * Flat array, use getLoadIndex(node, k, phase)
+	 */
+	private final double[] load;
+
+	private final IdentityHashMap<Car, CarContribution> carContributions;
+	private int updateNumber = 0;
+
+	private static class CarContribution {
+		private final ChargingStation chargingStation;
+		private final int stationIndex;
+		private final int nodeIndex;
+		private final double[] gridFactors;
+		private final double[] stationFactors;
+		private final double[] plan;
+		private double[] planReference;
+		private int planModificationCount;
+		private int lastUpdateNumber;
+
+		private CarContribution(ChargingStation chargingStation, int stationIndex, int nodeIndex, double[] gridFactors, double[] stationFactors, int nTimeslots) {
+			this.chargingStation = chargingStation;
+			this.stationIndex = stationIndex;
+			this.nodeIndex = nodeIndex;
+			this.gridFactors = gridFactors;
+			this.stationFactors = stationFactors;
+			this.plan = new double[nTimeslots];
+		}
+	}
+
+	public FuseTreeLoadIndex(FuseTree fuseTree, int nTimeslots) {
+		this.fuseTree = fuseTree;
+		this.compiledFuseTree = fuseTree.getCompiledFuseTree();
+		this.nTimeslots = nTimeslots;
+
+		int nNodes = compiledFuseTree.getNumberNodes();
+		this.parentIndices = new int[nNodes][];
+		for (int s=0;s<compiledFuseTree.getNumberChargingStations();s++) {
+			int nodeIndex = compiledFuseTree.getChargingStationNodeIndex(s);
+			int depth = 0;
+			for (int parent = compiledFuseTree.getParentIndex(nodeIndex); parent >= 0; parent = compiledFuseTree.getParentIndex(parent)) {
+				depth++;
+			}
+			parentIndices[nodeIndex] = new int[depth];
+			int j = 0;
+			for (int parent = compiledFuseTree.getParentIndex(nodeIndex); parent >= 0; parent = compiledFuseTree.getParentIndex(parent)) {
+				parentIndices[nodeIndex][j++] = parent;
+			}
+		}
+
+		this.load = new double[nNodes * nTimeslots * 3];
+		this.carContributions = new IdentityHashMap<>();
+	}
+
+	/**
+	 * Returns true if this index was built for the given fuse tree (same instance and same compiled topology) and number of timeslots
+	 */
+	public boolean isValidFor(FuseTree fuseTree, int nTimeslots) {
+		return this.fuseTree == fuseTree &&
+				this.compiledFuseTree == fuseTree.getCompiledFuseTree() &&
+				this.nTimeslots == nTimeslots;
+	}
+
+	public int getNTimeslots() {
+		return nTimeslots;
+	}
+
+	private int getLoadIndex(int nodeIndex, int k, int phaseIndex) {
+		return (nodeIndex*nTimeslots + k)*3 + phaseIndex;
+	}
+
+	/**
+	 * Synchronizes the index with the current car assignments and plans of the state.
+	 * Cars that are no longer assigned are removed.
+	 */
+	public void update(State state) {
+		updateNumber++;
+		for (CarAssignment carAssignment : state.getCurrentCarAssignments()) {
+			updateCarAssignment(carAssignment, null);
+		}
+		Iterator<CarContribution> iterator = carContributions.values().iterator();
+		while (iterator.hasNext()) {
+			CarContribution contribution = iterator.next();
+			if (contribution.lastUpdateNumber != updateNumber) {
+				applyPlan(contribution, new double[0], null);
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Synchronizes the index with the current plan of a single car assignment.
+	 * @param carAssignment
+	 * @param changedTimeslots Optional (may be null), set to true for each timeslot where the car's plan changed
+	 * @return True if any timeslot changed
+	 */
+	public boolean updateCarAssignment(CarAssignment carAssignment, boolean[] changedTimeslots) {
+		Car car = carAssignment.car;
+		CarContribution contribution = carContributions.get(car);
+
+		int nodeIndex = compiledFuseTree.getNodeIndex(carAssignment.chargingStation);
+		boolean changed = false;
+		if (contribution != null &&
+				(contribution.chargingStation != carAssignment.chargingStation ||
+				areFactorsEqual(contribution, car) == false)) {
+			// Assigned to a different charging station or phases were reconfigured: remove completely and add again
+			changed |= applyPlan(contribution, new double[0], changedTimeslots);
+			carContributions.remove(car);
+			contribution = null;
+		}
+		if (nodeIndex < 0) {
+			// Not part of the fuse tree, Validation does not check this charging station either
+			return changed;
+		}
+		if (contribution == null) {
+			int stationIndex = compiledFuseTree.getChargingStationIndex(nodeIndex);
+			contribution = new CarContribution(carAssignment.chargingStation, stationIndex, nodeIndex,
+					getGridFactors(car, stationIndex), getStationFactors(car, stationIndex), nTimeslots);
+			carContributions.put(car, contribution);
+		}
+		contribution.lastUpdateNumber = updateNumber;
+		if (contribution.planReference == car.getCurrentPlan() &&
+				contribution.planModificationCount == car.getCurrentPlanModificationCount()) {
+			return changed;
+		}
+		changed |= applyPlan(contribution, car.getCurrentPlan(), changedTimeslots);
+		contribution.planReference = car.getCurrentPlan();
+		contribution.planModificationCount = car.getCurrentPlanModificationCount();
+		return changed;
+	}
+
+	/**
+	 * Removes a car from the index (e.g. on departure)
+	 * @param car
+	 */
+	public void removeCar(Car car) {
+		CarContribution contribution = carContributions.remove(car);
+		if (contribution != null) {
+			applyPlan(contribution, new double[0], null);
+		}
+	}
+
+	private boolean applyPlan(CarContribution contribution, double[] newPlan, boolean[] changedTimeslots) {
+		boolean changed = false;
+		int[] parents = parentIndices[contribution.nodeIndex];
+		for (int k=0;k<nTimeslots;k++) {
+			double oldValue = contribution.plan[k];
+			double newValue = (newPlan != null && k < newPlan.length) ? newPlan[k] : 0;
+			if (oldValue == newValue) {
+				continue;
+			}
+			changed = true;
+			if (changedTimeslots != null) {
+				changedTimeslots[k] = true;
+			}
+			contribution.plan[k] = newValue;
+			for (int p=0;p<3;p++) {
+				load[getLoadIndex(contribution.nodeIndex, k, p)] += contribution.stationFactors[p]*newValue - contribution.stationFactors[p]*oldValue;
+				double gridDelta = contribution.gridFactors[p]*newValue - contribution.gridFactors[p]*oldValue;
+				for (int parentIndex : parents) {
+					load[getLoadIndex(parentIndex, k, p)] += gridDelta;
+				}
+			}
+		}
+		return changed;
+	}
+
+	private boolean areFactorsEqual(CarContribution contribution, Car car) {
+		double[] gridFactors = getGridFactors(car, contribution.stationIndex);
+		double[] stationFactors = getStationFactors(car, contribution.stationIndex);
+		for (int p=0;p<3;p++) {
+			if (gridFactors[p] != contribution.gridFactors[p] || stationFactors[p] != contribution.stationFactors[p]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Share of the planned current drawn per grid phase, see Assignment.getCurrentPerGridPhase
+	 */
+	private double[] getGridFactors(Car car, int stationIndex) {
+		double[] result = new double[3];
+		int nodeIndex = compiledFuseTree.getChargingStationNodeIndex(stationIndex);
+		for (int p=0;p<3;p++) {
+			result[p] = compiledFuseTree.isPhaseAtGridConnected(nodeIndex, p) ?
+					car.canLoadPhase(compiledFuseTree.getStationPhase(stationIndex, p)+1) : 0;
+		}
+		return result;
+	}
+
+	/**
+	 * Share of the planned current drawn per station phase, see Assignment.getCurrentPerStationPhase
+	 */
+	private double[] getStationFactors(Car car, int stationIndex) {
+		double[] result = new double[3];
+		for (int p=0;p<3;p++) {
+			result[p] = compiledFuseTree.isPhaseAtStationConnected(stationIndex, p) ? car.canLoadPhase(p+1) : 0;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the summed current at timeslot k: Per station phase for charging stations, per grid phase for fuses.
+	 * Returns null if the node is not part of the index.
+	 */
+	public double[] getLoad(FuseTreeNode node, int k) {
+		int nodeIndex = compiledFuseTree.getNodeIndex(node);
+		if (nodeIndex < 0) {
+			return null;
+		}
+		return new double[] {
+			load[getLoadIndex(nodeIndex, k, 0)],
+			load[getLoadIndex(nodeIndex, k, 1)],
+			load[getLoadIndex(nodeIndex, k, 2)]
+		};
+	}
+
+	/**
+	 * Returns false if no fuse or charging station is close to being overloaded at timeslot k, i.e.
+	 * Validation.validateFuseTreeAtTimeslot is guaranteed to pass.
+	 * Returns true if any load is at or above its limit (minus a small guard band).
+	 */
+	public boolean isPossiblyViolated(int k) {
+		for (int i=0;i<compiledFuseTree.getNumberNodes();i++) {
+			FuseTreeNode node = compiledFuseTree.getNode(i);
+			int index = getLoadIndex(i, k, 0);
+			if (load[index] > node.getFusePhase(Phase.PHASE_1) + TOLERANCE - GUARD ||
+				load[index+1] > node.getFusePhase(Phase.PHASE_2) + TOLERANCE - GUARD ||
+				load[index+2] > node.getFusePhase(Phase.PHASE_3) + TOLERANCE - GUARD) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,143 @@
+package com.sap.charging.realTime.util;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.sap.charging.model.Car;
+
+/**
+ * Capacity bounded cache of nonlinear planned capacities. If the capacity is exceeded the least recently used entry is evicted.
+ * Keys are additionally indexed by car so that the entries of a car can be removed without scanning the cache.
+ * Keeps hit, miss and eviction statistics.
+ */
+public class PlannedCapacityCache {
+
+	public static final int DEFAULT_CAPACITY = 100000;
+
+	private final int capacity;
+	private final LinkedHashMap<PlannedCapacityKey, Double> map;
+	private final Map<Car, Set<PlannedCapacityKey>> keysByCar = new IdentityHashMap<>();
+
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	public PlannedCapacityCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public PlannedCapacityCache(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity=" + capacity + " must be greater than 0");
+		}
+		this.capacity = capacity;
+		this.map = new LinkedHashMap<PlannedCapacityKey, Double>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<PlannedCapacityKey, Double> eldest) {
+				if (size() > PlannedCapacityCache.this.capacity) {
+					evictions++;
+					removeFromIndex(eldest.getKey());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached planned capacity or null (counted as hit or miss)
+	 * @param key
+	 * @return
+	 */
+	public Double get(PlannedCapacityKey key) {
+		Double result = map.get(key);
+		if (result != null) {
+			hits++;
+		}
+		else {
+			misses++;
+		}
+		return result;
+	}
+
+	/**
+	 * Stores a copy of the key (with a snapshot of the plan)
+	 * @param key
+	 * @param plannedCapacity
+	 */
+	public void put(PlannedCapacityKey key, double plannedCapacity) {
+		PlannedCapacityKey snapshot = key.withPlanSnapshot();
+		if (map.put(snapshot, plannedCapacity) == null) {
+			// New entry (an existing entry keeps its key)
+			keysByCar.computeIfAbsent(snapshot.getCar(), car -> Collections.newSetFromMap(new IdentityHashMap<>())).add(snapshot);
+		}
+	}
+
+	private void removeFromIndex(PlannedCapacityKey key) {
+		Set<PlannedCapacityKey> keys = keysByCar.get(key.getCar());
+		keys.remove(key);
+		if (keys.isEmpty()) {
+			keysByCar.remove(key.getCar());
+		}
+	}
+
+	/**
+	 * Removes all entries of a car (e.g. on departure)
+	 * @param car
+	 * @return Number of removed entries
+	 */
+	public int removeCar(Car car) {
+		Set<PlannedCapacityKey> keys = keysByCar.remove(car);
+		if (keys == null) {
+			return 0;
+		}
+		for (PlannedCapacityKey key : keys) {
+			map.remove(key);
+		}
+		return keys.size();
+	}
+
+	public void clear() {
+		map.clear();
+		keysByCar.clear();
+	}
+
+	public int size() {
+		return map.size();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Share of lookups that were hits (0 if there were no lookups)
+	 */
+	public double getHitRate() {
+		long lookups = hits + misses;
+		return (lookups > 0) ? 1.0 * hits / lookups : 0;
+	}
+
+	@Override
+	public String toString() {
+		return "PlannedCapacityCache: size=" + size() + ", capacity=" + capacity + ", hits=" + hits + ", misses=" + misses +
+				", evictions=" + evictions + ", hitRate=" + getHitRate();
+	}
+
+}
@@ -0,0 +1,149 @@
+package com.sap.charging.realTime.util;
+
+import com.sap.charging.model.Car;
+import com.sap.charging.model.battery.BatterySim;
+import com.sap.charging.model.battery.BatterySimParameters;
+import com.sap.charging.util.TimeUtil;
+
+/**
+ * Records the nonlinear battery simulation of a car's current plan (SoC and charged Ah) at each timeslot boundary,
+ * starting at currentTimeSeconds with the car's current SoC.
+ *
+ * Checkpoint k holds the state at max(currentTimeSeconds, start of timeslot k). It only depends on the plan before timeslot k,
+ * so when the plan is changed at timeslot j only checkpoints after j are invalidated. A query for any point in time simulates
+ * at most one timeslot from the nearest checkpoint.
+ *
+ * The checkpoints continue exactly the same second by second simulation as a single BatterySim started at currentTimeSeconds,
+ * so results are identical.
+ */
+public class PlannedCapacityCheckpoints {
+
+	private final Car car;
+	private final BatterySimParameters batterySimParams;
+	private final int startTimeSeconds;
+	private final double startSoC;
+	private final double maxCurrentAllowedStatic;
+	private final double sumUsedPhases;
+
+	private final BatterySim sim;
+
+	private final int firstTimeslot;
+	private final double[] plan;
+	private final double[] checkpointSoC;
+	private final double[] checkpointChargedAh;
+
+	/**
+	 * Highest timeslot index with a valid checkpoint
+	 */
+	private int lastValidCheckpoint;
+
+	public PlannedCapacityCheckpoints(Car car, int startTimeSeconds, double maxCurrentAllowedStatic) {
+		this.car = car;
+		this.batterySimParams = car.carBattery.batterySimParams.copy();
+		this.startTimeSeconds = startTimeSeconds;
+		this.startSoC = car.carBattery.getSoC();
+		this.maxCurrentAllowedStatic = maxCurrentAllowedStatic;
+		this.sumUsedPhases = car.sumUsedPhases;
+
+		this.sim = BatterySim.createBatterySimFromCar(car);
+
+		int nTimeslots = car.getCurrentPlan().length;
+		this.firstTimeslot = TimeUtil.getTimeslotFromSeconds(startTimeSeconds);
+		this.plan = car.getCurrentPlan().clone();
+		this.checkpointSoC = new double[nTimeslots+1];
+		this.checkpointChargedAh = new double[nTimeslots+1];
+
+		checkpointSoC[firstTimeslot] = startSoC;
+		checkpointChargedAh[firstTimeslot] = 0;
+		this.lastValidCheckpoint = firstTimeslot;
+	}
+
+	/**
+	 * Returns true if the checkpoints were recorded for the same car, starting time, SoC and battery parameters.
+	 * The plan may differ, use update() to invalidate checkpoints of changed timeslots.
+	 */
+	public boolean isValidFor(Car car, int startTimeSeconds, double maxCurrentAllowedStatic) {
+		BatterySimParameters params = car.carBattery.batterySimParams;
+		return this.car == car &&
+				this.startTimeSeconds == startTimeSeconds &&
+				this.startSoC == car.carBattery.getSoC() &&
+				this.maxCurrentAllowedStatic == maxCurrentAllowedStatic &&
+				this.sumUsedPhases == car.sumUsedPhases &&
+				this.plan.length == car.getCurrentPlan().length &&
+				batterySimParams.batteryData == params.batteryData &&
+				batterySimParams.capacity == params.capacity &&
+				batterySimParams.chargeAlgorithm == params.chargeAlgorithm &&
+				batterySimParams.constantCurrent == params.constantCurrent &&
+				batterySimParams.constantPower == params.constantPower &&
+				batterySimParams.terminalVoltage == params.terminalVoltage &&
+				batterySimParams.useCurrentLookupTable == params.useCurrentLookupTable &&
+				batterySimParams.currentLookupTableTolerance == params.currentLookupTableTolerance &&
+				batterySimParams.useAdaptiveStep == params.useAdaptiveStep &&
+				batterySimParams.adaptiveStepTolerance == params.adaptiveStepTolerance;
+	}
+
+	/**
+	 * Compares the car's current plan to the plan the checkpoints were recorded with and invalidates
+	 * all checkpoints after the first modified timeslot.
+	 */
+	public void update() {
+		double[] currentPlan = car.getCurrentPlan();
+		for (int k=firstTimeslot;k<lastValidCheckpoint;k++) {
+			if (plan[k] != currentPlan[k]) {
+				lastValidCheckpoint = k;
+				break;
+			}
+		}
+		// Timeslots from lastValidCheckpoint onwards will be copied when simulating
+	}
+
+	private int getCheckpointSeconds(int k) {
+		return Math.max(startTimeSeconds, TimeUtil.getSecondsFromTimeslot(k));
+	}
+
+	private void ensureCheckpoint(int k) {
+		if (k <= lastValidCheckpoint) {
+			return;
+		}
+		double[] currentPlan = car.getCurrentPlan();
+		sim.restoreState(getCheckpointSeconds(lastValidCheckpoint), checkpointSoC[lastValidCheckpoint], checkpointChargedAh[lastValidCheckpoint]);
+		while (lastValidCheckpoint < k) {
+			plan[lastValidCheckpoint] = currentPlan[lastValidCheckpoint];
+			sim.simulate(getCheckpointSeconds(lastValidCheckpoint), getCheckpointSeconds(lastValidCheckpoint+1), car, maxCurrentAllowedStatic);
+			lastValidCheckpoint++;
+			checkpointSoC[lastValidCheckpoint] = sim.getSoC();
+			checkpointChargedAh[lastValidCheckpoint] = sim.getChargedAh();
+		}
+	}
+
+	/**
+	 * Moves the simulation to the given point in time, starting from the nearest checkpoint
+	 */
+	private void simulateUntil(int timeSeconds) {
+		int k = TimeUtil.getTimeslotFromSeconds(timeSeconds);
+		ensureCheckpoint(k);
+		sim.restoreState(getCheckpointSeconds(k), checkpointSoC[k], checkpointChargedAh[k]);
+		sim.simulate(getCheckpointSeconds(k), timeSeconds, car, maxCurrentAllowedStatic);
+	}
+
+	/**
+	 * Charged Ah from intervalSecondsStart until intervalSecondsEnd (exclusive) with the car's current plan.
+	 * update() must be called first if the plan may have changed.
+	 */
+	public double getPlannedCapacity(int intervalSecondsStart, int intervalSecondsEnd) {
+		simulateUntil(intervalSecondsStart);
+		double chargedAhUntilInterval = sim.getChargedAh();
+
+		if (TimeUtil.getTimeslotFromSeconds(intervalSecondsEnd) == TimeUtil.getTimeslotFromSeconds(intervalSecondsStart)) {
+			// Continue within the same timeslot
+			sim.simulate(intervalSecondsStart, intervalSecondsEnd, car, maxCurrentAllowedStatic);
+		}
+		else {
+			simulateUntil(intervalSecondsEnd);
+		}
+		double chargedAhEndOfInterval = sim.getChargedAh();
+
+		return chargedAhEndOfInterval - chargedAhUntilInterval;
+	}
+
+}
@@ -2,41 +2,74 @@ package com.sap.charging.realTime.util;
 
 import java.util.Arrays;
 
-public class PlannedCapacityKey {
+import com.sap.charging.model.Car;
 
-	public double soc;
-	public int currentTimeSeconds;
-	public int intervalSecondsStart;
-	public int intervalSecondsEnd;
-	public double[] currentPlan;
-	
-	
-	
-	public PlannedCapacityKey(double soc, int currentTimeSeconds, int intervalSecondsStart, int intervalSecondsEnd,
-			double[] currentPlan) {
-		super();
+/**
+ * Key of a nonlinear planned capacity in the PlannedCapacityCache.
+ *
+ * The hash code is computed once from the plan fingerprint (see Car.getCurrentPlanFingerprint()), the plan itself
+ * is only compared if hash codes match. Keys created for lookups reference the car's (mutable) plan, keys stored
+ * in the cache hold an immutable copy (see withPlanSnapshot()), so hash code and equality never change after insertion.
+ */
+public final class PlannedCapacityKey {
+
+	private final Car car;
+	private final double soc;
+	private final double maxCurrentStatic;
+	private final int currentTimeSeconds;
+	private final int intervalSecondsStart;
+	private final int intervalSecondsEnd;
+	private final long planFingerprint;
+	private final double[] plan;
+	private final int hashCode;
+
+	/**
+	 * Key for a lookup with the car's current plan
+	 */
+	public PlannedCapacityKey(Car car, double maxCurrentStatic, int currentTimeSeconds, int intervalSecondsStart, int intervalSecondsEnd) {
+		this(car, car.carBattery.getSoC(), maxCurrentStatic, currentTimeSeconds, intervalSecondsStart, intervalSecondsEnd,
+				car.getCurrentPlanFingerprint(), car.getCurrentPlan());
+	}
+
+	private PlannedCapacityKey(Car car, double soc, double maxCurrentStatic, int currentTimeSeconds, int intervalSecondsStart, int intervalSecondsEnd,
+			long planFingerprint, double[] plan) {
+		this.car = car;
 		this.soc = soc;
+		this.maxCurrentStatic = maxCurrentStatic;
 		this.currentTimeSeconds = currentTimeSeconds;
 		this.intervalSecondsStart = intervalSecondsStart;
 		this.intervalSecondsEnd = intervalSecondsEnd;
-		this.currentPlan = currentPlan;
-	}
-	
+		this.planFingerprint = planFingerprint;
+		this.plan = plan;
 
-	@Override
-	public int hashCode() {
 		final int prime = 31;
-		int result = 1;
-		result = prime * result + Arrays.hashCode(currentPlan);
+		int result = System.identityHashCode(car);
+		result = prime * result + Long.hashCode(planFingerprint);
 		result = prime * result + currentTimeSeconds;
 		result = prime * result + intervalSecondsEnd;
 		result = prime * result + intervalSecondsStart;
-		long temp;
-		temp = Double.doubleToLongBits(soc);
-		result = prime * result + (int) (temp ^ (temp >>> 32));
-		return result;
+		result = prime * result + Double.hashCode(soc);
+		result = prime * result + Double.hashCode(maxCurrentStatic);
+		this.hashCode = result;
 	}
-	
+
+	/**
+	 * Returns an equal key holding a copy of the plan (to be stored in the cache)
+	 */
+	public PlannedCapacityKey withPlanSnapshot() {
+		return new PlannedCapacityKey(car, soc, maxCurrentStatic, currentTimeSeconds, intervalSecondsStart, intervalSecondsEnd,
+				planFingerprint, plan != null ? plan.clone() : null);
+	}
+
+	public Car getCar() {
+		return car;
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
@@ -46,7 +79,7 @@ public class PlannedCapacityKey {
 		if (getClass() != obj.getClass())
 			return false;
 		PlannedCapacityKey other = (PlannedCapacityKey) obj;
-		if (!Arrays.equals(currentPlan, other.currentPlan))
+		if (car != other.car)
 			return false;
 		if (currentTimeSeconds != other.currentTimeSeconds)
 			return false;
@@ -56,14 +89,12 @@ public class PlannedCapacityKey {
 			return false;
 		if (Double.doubleToLongBits(soc) != Double.doubleToLongBits(other.soc))
 			return false;
+		if (Double.doubleToLongBits(maxCurrentStatic) != Double.doubleToLongBits(other.maxCurrentStatic))
+			return false;
+		// The fingerprint is not trusted: Plans may have been modified without updating it
+		if (!Arrays.equals(plan, other.plan))
+			return false;
 		return true;
 	}
-	
-	
-	
-	
-	
-	
-	
-	
+
 }
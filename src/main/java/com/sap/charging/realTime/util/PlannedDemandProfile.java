@@ -0,0 +1,121 @@
+package com.sap.charging.realTime.util;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import com.sap.charging.model.Car;
+
+/**
+ * Aggregate planned current (sum over all cars of car.sumUsedPhases * car.getCurrentPlan()[k]) per timeslot, used for sorting timeslots by peak demand.
+ *
+ * Changed plans are recognized by Car.getCurrentPlanModificationCount() (setCurrentPlan() and setCurrentPlanValue()), only these cars are
+ * compared against the snapshot taken during the last update. Timeslots where any plan changed are summed up again on the next access,
+ * in the order of the car list, so the result is exactly the same as summing up all plans.
+ */
+public class PlannedDemandProfile {
+
+	private final IdentityHashMap<Car, CarDemand> carDemands = new IdentityHashMap<>();
+	private List<Car> cars;
+	private int updateNumber = 0;
+
+	private double[] demand = new double[0];
+	private boolean[] isDirty = new boolean[0];
+
+	private static class CarDemand {
+		private double[] planReference;
+		private int planModificationCount;
+		private double sumUsedPhases;
+		private double[] plan = new double[0];
+		private int lastUpdateNumber;
+	}
+
+	/**
+	 * Synchronizes the profile with the plans of the given cars (usually state.cars)
+	 * @param cars
+	 */
+	public void update(List<Car> cars) {
+		this.cars = cars;
+		updateNumber++;
+		for (Car car : cars) {
+			CarDemand carDemand = carDemands.get(car);
+			if (carDemand == null) {
+				carDemand = new CarDemand();
+				carDemands.put(car, carDemand);
+			}
+			else if (carDemand.lastUpdateNumber == updateNumber) {
+				continue; // Same car twice in the list
+			}
+			carDemand.lastUpdateNumber = updateNumber;
+
+			if (carDemand.planReference != car.getCurrentPlan() ||
+				carDemand.planModificationCount != car.getCurrentPlanModificationCount() ||
+				carDemand.sumUsedPhases != car.sumUsedPhases) {
+				applyPlan(carDemand, car.getCurrentPlan(), car.sumUsedPhases);
+				carDemand.planReference = car.getCurrentPlan();
+				carDemand.planModificationCount = car.getCurrentPlanModificationCount();
+			}
+		}
+
+		// Removed cars
+		Iterator<CarDemand> iterator = carDemands.values().iterator();
+		while (iterator.hasNext()) {
+			CarDemand carDemand = iterator.next();
+			if (carDemand.lastUpdateNumber != updateNumber) {
+				applyPlan(carDemand, null, 0);
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Marks all timeslots in which the plan (multiplied with sumUsedPhases) differs from the snapshot
+	 */
+	private void applyPlan(CarDemand carDemand, double[] newPlan, double sumUsedPhases) {
+		int length = Math.max(carDemand.plan.length, (newPlan != null) ? newPlan.length : 0);
+		ensureCapacity(length);
+		if (carDemand.plan.length < length) {
+			carDemand.plan = Arrays.copyOf(carDemand.plan, length);
+		}
+		for (int k=0;k<length;k++) {
+			double newValue = (newPlan != null && k < newPlan.length) ? sumUsedPhases * newPlan[k] : 0;
+			if (carDemand.plan[k] != newValue) {
+				carDemand.plan[k] = newValue;
+				isDirty[k] = true;
+			}
+		}
+		carDemand.sumUsedPhases = sumUsedPhases;
+	}
+
+	private void ensureCapacity(int length) {
+		if (demand.length < length) {
+			int oldLength = demand.length;
+			demand = Arrays.copyOf(demand, length);
+			isDirty = Arrays.copyOf(isDirty, length);
+			Arrays.fill(isDirty, oldLength, length, true);
+		}
+	}
+
+	/**
+	 * Planned current summed over all cars at timeslot k (as of the last update)
+	 * @param k
+	 * @return
+	 */
+	public double getDemand(int k) {
+		if (k >= demand.length || isDirty[k]) {
+			double sumPlanned = 0;
+			for (Car car : cars) {
+				if (car.getCurrentPlan() != null)
+					sumPlanned += car.sumUsedPhases * car.getCurrentPlan()[k];
+			}
+			if (k >= demand.length) {
+				return sumPlanned;
+			}
+			demand[k] = sumPlanned;
+			isDirty[k] = false;
+		}
+		return demand[k];
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.sap.charging.realTime.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.sap.charging.util.SortableElement;
+
+/**
+ * Reusable buffer of timeslots and their values, filled by TimeslotSorter.sortTimeslots(...) without boxing or allocation per call.
+ * Not thread safe, each strategy or scheduler keeps its own buffers.
+ */
+public class SortedTimeslots {
+
+	private int[] timeslots;
+	private double[] values;
+	private int size = 0;
+
+	public SortedTimeslots() {
+		this(96);
+	}
+
+	public SortedTimeslots(int capacity) {
+		this.timeslots = new int[capacity];
+		this.values = new double[capacity];
+	}
+
+	public static SortedTimeslots fromList(List<SortableElement<Integer>> sortedTimeslots) {
+		SortedTimeslots result = new SortedTimeslots(sortedTimeslots.size());
+		for (SortableElement<Integer> element : sortedTimeslots) {
+			result.add(element.index, element.value);
+		}
+		return result;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param i Position in the sorted order
+	 * @return Timeslot k
+	 */
+	public int get(int i) {
+		return timeslots[i];
+	}
+
+	public double getValue(int i) {
+		return values[i];
+	}
+
+	void clear(int capacity) {
+		if (timeslots.length < capacity) {
+			timeslots = new int[capacity];
+			values = new double[capacity];
+		}
+		size = 0;
+	}
+
+	void add(int k, double value) {
+		if (size == timeslots.length) {
+			timeslots = Arrays.copyOf(timeslots, Math.max(1, 2*size));
+			values = Arrays.copyOf(values, timeslots.length);
+		}
+		timeslots[size] = k;
+		values[size] = value;
+		size++;
+	}
+
+	/**
+	 * Stable sort by ascending value (same order as Collections.sort of SortableElements), insertion sort since there are at most a few hundred timeslots
+	 */
+	void sort() {
+		for (int i=1;i<size;i++) {
+			int k = timeslots[i];
+			double value = values[i];
+			int j = i-1;
+			while (j >= 0 && values[j] > value) {
+				timeslots[j+1] = timeslots[j];
+				values[j+1] = values[j];
+				j--;
+			}
+			timeslots[j+1] = k;
+			values[j+1] = value;
+		}
+	}
+
+}
@@ -1,10 +1,8 @@
 package com.sap.charging.realTime.util;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
-import com.sap.charging.model.Car;
 import com.sap.charging.realTime.State;
 import com.sap.charging.util.SortableElement;
 
@@ -18,15 +16,38 @@ public class TimeslotSorter {
 	public static List<SortableElement<Integer>> getSortedTimeslots(State state, int minK, int maxK, 
 			TimeslotSortingCriteria sortingCriteria, boolean[] blockedTimeslots) {
 		
-		List<SortableElement<Integer>> sortedTimeslots = new ArrayList<>();
+		SortedTimeslots sorted = sortTimeslots(state, minK, maxK, sortingCriteria, blockedTimeslots, new SortedTimeslots(Math.max(0, maxK-minK)));
+		List<SortableElement<Integer>> sortedTimeslots = new ArrayList<>(sorted.size());
+		for (int i=0;i<sorted.size();i++) {
+			sortedTimeslots.add(new SortableElement<Integer>(sorted.get(i), sorted.getValue(i)));
+		}
+		return sortedTimeslots;
+	}
+
+	/**
+	 * Same order as getSortedTimeslots(...) but written into a reusable buffer (no boxing, no allocation if the buffer is large enough)
+	 * @param state
+	 * @param minK
+	 * @param maxK
+	 * @param sortingCriteria
+	 * @param blockedTimeslots May be null
+	 * @param result Is cleared and filled with the sorted timeslots
+	 * @return result
+	 */
+	public static SortedTimeslots sortTimeslots(State state, int minK, int maxK,
+			TimeslotSortingCriteria sortingCriteria, boolean[] blockedTimeslots, SortedTimeslots result) {
+
+		result.clear(maxK-minK);
+		// The aggregate profile is synchronized once per call, not once per timeslot
+		PlannedDemandProfile plannedDemandProfile = (sortingCriteria == TimeslotSortingCriteria.PEAK_DEMAND) ? state.getPlannedDemandProfile() : null;
 		for (int k=minK;k<maxK;k++) {
 			if (blockedTimeslots == null || blockedTimeslots[k] == false) {
-				double value = getTimeslotValue(state, k, sortingCriteria);
-				sortedTimeslots.add(new SortableElement<Integer>(k, value));
+				double value = (plannedDemandProfile != null) ? plannedDemandProfile.getDemand(k) : getTimeslotValue(state, k, sortingCriteria);
+				result.add(k, value);
 			}
 		}
-		Collections.sort(sortedTimeslots);
-		return sortedTimeslots;
+		result.sort();
+		return result;
 	}
 	
 	public static double getTimeslotValue(State state, int k, TimeslotSortingCriteria sortingCriteria) {
@@ -36,12 +57,7 @@ public class TimeslotSorter {
 		case PRICE:
 			return state.energyPriceHistory.getPrice(k);
 		case PEAK_DEMAND:
-			double sumPlanned = 0;
-			for (Car car : state.cars) {
-				if (car.getCurrentPlan() != null) 
-					sumPlanned += car.sumUsedPhases * car.getCurrentPlan()[k];
-			}
-			return sumPlanned;
+			return state.getPlannedDemandProfile().getDemand(k);
 		default:
 			throw new RuntimeException("NOT IMPLEMENTED");
 		}
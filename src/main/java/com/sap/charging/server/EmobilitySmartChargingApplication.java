@@ -2,8 +2,10 @@ package com.sap.charging.server;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling // Eviction of idle site sessions
 public class EmobilitySmartChargingApplication {
 
 	public static void main(String[] args) {
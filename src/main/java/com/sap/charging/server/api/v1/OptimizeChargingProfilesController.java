@@ -1,11 +1,13 @@
 package com.sap.charging.server.api.v1;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -13,8 +15,11 @@ import com.sap.charging.realTime.State;
 import com.sap.charging.realTime.StrategyAlgorithmic;
 import com.sap.charging.realTime.model.forecasting.departure.CarDepartureForecast;
 import com.sap.charging.server.api.v1.store.OptimizerSettings;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.server.metrics.OptimizerMetrics;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.sim.event.Event;
+import com.sap.charging.util.Log4j2LogSink;
+import com.sap.charging.util.LogSink;
 import com.sap.charging.util.Loggable;
 
 import io.swagger.annotations.Api;
@@ -25,12 +30,52 @@ import io.swagger.annotations.ApiParam;
 @Api(value = "emobility-smart-charging REST API")
 public class OptimizeChargingProfilesController implements Loggable {
 
+    /**
+     * Optional request header with the ID of the site, used to tag metrics
+     */
+    public static final String SITE_ID_HEADER = "X-Site-ID";
+
+    /**
+     * Destination of log messages of all requests (each request has its own verbosity). 
+     * Default: log4j2 logger com.sap.charging.optimizer, messages above its log level are not built
+     */
+    private LogSink logSink = new Log4j2LogSink();
+
+    private OptimizerMetrics metrics = new OptimizerMetrics();
+
     @Override
     public int getVerbosity() {
-        return Simulation.verbosity;
+        return SimulationContext.getCurrentVerbosity();
+    }
+
+    public LogSink getRequestLogSink() {
+        return logSink;
+    }
+
+    public void setRequestLogSink(LogSink logSink) {
+        this.logSink = logSink;
+    }
+
+    public OptimizerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Injected by Spring if available (not e.g. in @WebMvcTest), otherwise metrics are recorded in the global registry
+     */
+    @Autowired(required = false)
+    public void setMetrics(OptimizerMetrics metrics) {
+        this.metrics = metrics;
     }
 
     public StrategyAlgorithmic buildStrategy(OptimizerSettings settings) {
+        return buildStrategyFromSettings(settings);
+    }
+
+    /**
+     * Also used by the session based API (v2)
+     */
+    public static StrategyAlgorithmic buildStrategyFromSettings(OptimizerSettings settings) {
         StrategyAlgorithmic strategy = new StrategyAlgorithmic(CarDepartureForecast.getDefaultCarDepartureForecast());
         strategy.objectiveFairShare.setWeight(settings.getWeightObjectiveFairShare());
         strategy.objectiveEnergyCosts.setWeight(settings.getWeightObjectiveEnergyCosts());
@@ -45,23 +90,38 @@ public class OptimizeChargingProfilesController implements Loggable {
     @ApiOperation(value = "Optimize Charging Profiles")
     @PostMapping(path = "/api/v1/OptimizeChargingProfiles", produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
-    public ResponseEntity<Object> optimizeChargingProfiles(@ApiParam @RequestBody OptimizeChargingProfilesRequest request) {
+    public ResponseEntity<Object> optimizeChargingProfiles(@ApiParam @RequestBody OptimizeChargingProfilesRequest request,
+            @ApiParam(value = "Optional site ID used to tag metrics") @RequestHeader(value = SITE_ID_HEADER, required = false) String siteID) {
+
+        // Each request has its own verbosity, log sink and counters, concurrent requests do not interfere
+        SimulationContext context = new SimulationContext(request.verbosity);
+        context.setLogSink(logSink);
+        context.setReactionListener(metrics.getReactionListener(siteID));
+        return context.call(() -> optimizeChargingProfiles(request, context, siteID));
+    }
+
+    public ResponseEntity<Object> optimizeChargingProfiles(OptimizeChargingProfilesRequest request) {
+        return optimizeChargingProfiles(request, null);
+    }
 
-        Simulation.verbosity = request.verbosity;
+    private ResponseEntity<Object> optimizeChargingProfiles(OptimizeChargingProfilesRequest request, SimulationContext context, String siteID) {
 
-        log(1, "Received /api/v1/OptimizeChargingProfiles with body: " + request.toString());
-        log(1, "Using optimizer settings: " + request.optimizerSettings.toString());
+        log(1, () -> "Received /api/v1/OptimizeChargingProfiles with body: " + request.toString());
+        log(1, () -> "Using optimizer settings: " + request.optimizerSettings.toString());
 
         // Request values
         Object response = null;
         HttpStatus httpStatus = HttpStatus.ACCEPTED;
+        String eventType = OptimizerMetrics.NO_EVENT;
         try {
             State state = request.state.toState();
             Event event = request.event.toEvent(state);
+            eventType = OptimizerMetrics.getEventTypeTag(event);
 
             // React to events
             StrategyAlgorithmic strategy = buildStrategy(request.optimizerSettings);
-            log(1, "Optimizer's sorting criteria (objective for cars above min SoC): " + strategy.getSortingCriteriaByObjective());
+            strategy.setContext(context);
+            log(1, () -> "Optimizer's sorting criteria (objective for cars above min SoC): " + strategy.getSortingCriteriaByObjective());
 
             strategy.react(state, event);
 
@@ -74,6 +134,9 @@ public class OptimizeChargingProfilesController implements Loggable {
             httpStatus = HttpStatus.INTERNAL_SERVER_ERROR;
             e.printStackTrace();
         }
+        log(1, () -> context.toString());
+        metrics.recordRequest(siteID, eventType, context);
+        OptimizerMetrics.tagCurrentRequest(siteID, eventType);
 
         return new ResponseEntity<>(response, httpStatus);
     }
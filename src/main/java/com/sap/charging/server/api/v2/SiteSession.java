@@ -0,0 +1,334 @@
+package com.sap.charging.server.api.v2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sap.charging.model.Car;
+import com.sap.charging.model.ChargingStation;
+import com.sap.charging.realTime.State;
+import com.sap.charging.realTime.StrategyAlgorithmic;
+import com.sap.charging.realTime.model.CarAssignment;
+import com.sap.charging.realTime.model.CarAssignmentStore;
+import com.sap.charging.realTime.model.PowerAssignment;
+import com.sap.charging.server.api.v1.exception.MissingParameterException;
+import com.sap.charging.server.api.v1.exception.UnknownCarException;
+import com.sap.charging.server.api.v1.exception.UnknownChargingStationException;
+import com.sap.charging.server.api.v1.exception.UnknownEventTypeException;
+import com.sap.charging.server.api.v1.store.EventStore;
+import com.sap.charging.server.api.v2.exception.SessionVersionConflictException;
+import com.sap.charging.sim.event.Event;
+import com.sap.charging.sim.event.EventType;
+
+/**
+ * State of a site (fuse tree, charging stations, cars, assignments) and its strategy kept in server memory between requests.
+ *
+ * Each successfully applied event increments the version. Clients pass the version their view of the site is based on,
+ * events based on an outdated version are rejected (optimistic concurrency).
+ */
+public class SiteSession {
+
+	private final String sessionID;
+	private final String siteID;
+	private final State state;
+	private final StrategyAlgorithmic strategy;
+
+	private long version = 0;
+	private volatile long lastAccessMillis;
+	
+	/**
+	 * Set if applying an event failed after the state was modified. Invalid sessions are discarded.
+	 */
+	private volatile boolean invalid = false;
+
+	public SiteSession(String sessionID, State state, StrategyAlgorithmic strategy, long nowMillis) {
+		this(sessionID, null, state, strategy, nowMillis);
+	}
+
+	/**
+	 * @param sessionID
+	 * @param siteID Site ID passed by the client (may be null), used to tag metrics
+	 * @param state
+	 * @param strategy
+	 * @param nowMillis
+	 */
+	public SiteSession(String sessionID, String siteID, State state, StrategyAlgorithmic strategy, long nowMillis) {
+		this.sessionID = sessionID;
+		this.siteID = siteID;
+		this.state = state;
+		this.strategy = strategy;
+		this.lastAccessMillis = nowMillis;
+		refreshPowerAssignments();
+	}
+
+	public String getSessionID() {
+		return sessionID;
+	}
+
+	public String getSiteID() {
+		return siteID;
+	}
+
+	public synchronized long getVersion() {
+		return version;
+	}
+
+	public long getLastAccessMillis() {
+		return lastAccessMillis;
+	}
+
+	public void touch(long nowMillis) {
+		this.lastAccessMillis = nowMillis;
+	}
+
+	public boolean isInvalid() {
+		return invalid;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public StrategyAlgorithmic getStrategy() {
+		return strategy;
+	}
+
+	/**
+	 * Copy of the current cars (under the session lock)
+	 */
+	public synchronized List<Car> getCars() {
+		return new ArrayList<>(state.getCars());
+	}
+
+	/**
+	 * Version and all cars (under the session lock)
+	 */
+	public synchronized SiteSessionResponse toResponse() {
+		return new SiteSessionResponse(sessionID, version, getCars());
+	}
+
+	/**
+	 * Applies changed cars and an event to the state and returns the cars whose plans changed
+	 * (including new or updated cars). Requests with a wrong version or unknown cars or charging stations are rejected before the state is modified, 
+	 * if applying fails after the state was modified the session becomes invalid.
+	 * @param expectedVersion Version the request is based on
+	 * @param currentTimeSeconds Must not be before the session's current time
+	 * @param changedCars New or updated cars (may be null)
+	 * @param carAssignments Assignments of new or updated cars to charging stations (may be null)
+	 * @param eventStore
+	 * @return
+	 */
+	public synchronized List<Car> applyEvent(long expectedVersion, int currentTimeSeconds, List<Car> changedCars,
+			List<CarAssignmentStore> carAssignments, EventStore eventStore) {
+		if (expectedVersion != version) {
+			throw new SessionVersionConflictException(sessionID, expectedVersion, version);
+		}
+		if (currentTimeSeconds < state.currentTimeSeconds) {
+			throw new IllegalArgumentException("currentTimeSeconds=" + currentTimeSeconds + " is before the session's current time t=" + state.currentTimeSeconds);
+		}
+		checkCarAssignments(carAssignments, changedCars);
+		checkEvent(eventStore, changedCars);
+
+		try {
+			List<Car> result = applyEvent(currentTimeSeconds, changedCars, carAssignments, eventStore);
+			version++;
+			return result;
+		}
+		catch (RuntimeException e) {
+			invalid = true;
+			throw e;
+		}
+	}
+
+	private List<Car> applyEvent(int currentTimeSeconds, List<Car> changedCars, List<CarAssignmentStore> carAssignments, EventStore eventStore) {
+		state.setTimeSeconds(currentTimeSeconds);
+		List<Car> updatedCars = new ArrayList<>();
+		if (changedCars != null) {
+			for (Car car : changedCars) {
+				updatedCars.add(putCar(car));
+			}
+		}
+		if (carAssignments != null) {
+			for (CarAssignmentStore carAssignmentStore : carAssignments) {
+				assignCar(state.getCar(carAssignmentStore.carID), state.getChargingStation(carAssignmentStore.chargingStationID));
+			}
+		}
+		refreshPowerAssignments();
+
+		Event event = eventStore.toEvent(state);
+		Map<Car, double[]> previousPlans = new IdentityHashMap<>();
+		for (Car car : state.getCars()) {
+			previousPlans.put(car, car.getCurrentPlan() != null ? car.getCurrentPlan().clone() : null);
+		}
+
+		strategy.react(state, event);
+
+		List<Car> result = new ArrayList<>(updatedCars);
+		for (Car car : state.getCars()) {
+			if (updatedCars.contains(car) == false && Arrays.equals(previousPlans.get(car), car.getCurrentPlan()) == false) {
+				result.add(car);
+			}
+		}
+		if (eventStore.eventType == EventType.CarDeparture) {
+			// Departed cars are not needed anymore
+			state.getCars().remove(state.getCar(eventStore.carID));
+		}
+		return result;
+	}
+
+	/**
+	 * Validates assignments before anything is changed. Cars must be known or part of changedCars, charging stations must exist.
+	 */
+	private void checkCarAssignments(List<CarAssignmentStore> carAssignments, List<Car> changedCars) {
+		if (carAssignments == null) {
+			return;
+		}
+		for (CarAssignmentStore carAssignmentStore : carAssignments) {
+			if (isCarKnown(carAssignmentStore.carID, changedCars) == false) {
+				throw new UnknownCarException(carAssignmentStore.carID);
+			}
+			if (state.getChargingStation(carAssignmentStore.chargingStationID) == null) {
+				throw new UnknownChargingStationException(carAssignmentStore.chargingStationID);
+			}
+		}
+	}
+
+	/**
+	 * Validates the parameters of the event before anything is changed (same checks as EventStore.toEvent(state) after changedCars were applied), 
+	 * so that client errors don't invalidate the session.
+	 */
+	private void checkEvent(EventStore eventStore, List<Car> changedCars) {
+		if (eventStore == null) {
+			throw new MissingParameterException("event");
+		}
+		switch (eventStore.eventType) {
+		case CarArrival:
+		case CarDeparture:
+		case CarFinished:
+			if (eventStore.carID == null) {
+				throw new MissingParameterException("event.carID");
+			}
+			if (isCarKnown(eventStore.carID, changedCars) == false) {
+				throw new UnknownCarException(eventStore.carID);
+			}
+			if (eventStore.eventType == EventType.CarFinished) {
+				if (eventStore.chargingStationID == null) {
+					throw new MissingParameterException("event.chargingStationID");
+				}
+				if (state.getChargingStation(eventStore.chargingStationID) == null) {
+					throw new UnknownChargingStationException(eventStore.chargingStationID);
+				}
+			}
+			break;
+		case EnergyPriceChange:
+			if (eventStore.energyPriceHistory == null) {
+				throw new IllegalArgumentException("EnergyPriceHistory must be passed when using this event type.");
+			}
+			break;
+		case Reoptimize:
+			break;
+		default:
+			throw new UnknownEventTypeException("eventType=" + eventStore.eventType + " not implemented!");
+		}
+	}
+
+	/**
+	 * @return True if the car is part of the state or of changedCars
+	 */
+	private boolean isCarKnown(int carID, List<Car> changedCars) {
+		if (state.getCar(carID) != null) {
+			return true;
+		}
+		if (changedCars != null) {
+			for (Car car : changedCars) {
+				if (car.getId() == carID) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Adds a new car or replaces the car with the same ID. Assignments of a replaced car are kept,
+	 * if no plan is passed the previous plan is kept.
+	 * @return The car as held by the state
+	 */
+	private Car putCar(Car car) {
+		Car previousCar = state.getCar(car.getId());
+		if (car.getCurrentPlan() == null) {
+			car.setCurrentPlan(previousCar != null && previousCar.getCurrentPlan() != null ? 
+					previousCar.getCurrentPlan().clone() : new double[state.energyPriceHistory.getNTimeslots()]);
+		}
+
+		if (previousCar == null) {
+			state.getCars().add(car);
+			return car;
+		}
+
+		ChargingStation chargingStation = null;
+		int expectedDepartureTimeSeconds = -1;
+		if (state.isCarCurrentlyAssigned(previousCar)) {
+			CarAssignment carAssignment = state.getCurrentCarAssignment(previousCar);
+			chargingStation = carAssignment.chargingStation;
+			expectedDepartureTimeSeconds = carAssignment.getExpectedDepartureTimeSeconds();
+			state.removePowerAssignment(previousCar);
+			state.removeCarAssignment(previousCar);
+		}
+		else if (state.isCarCurrentlyUnassigned(previousCar)) {
+			state.removeUnassignedCar(previousCar);
+			state.addUnassignedCar(car);
+		}
+		strategy.getScheduler().removeCar(previousCar);
+		state.getCars().set(state.getCars().indexOf(previousCar), car);
+
+		if (chargingStation != null) {
+			CarAssignment carAssignment = state.addCarAssignment(car, chargingStation);
+			carAssignment.setExpectedDepartureTimeSeconds(car.getTimestampDeparture() > 0 ? car.getTimestampDeparture() : expectedDepartureTimeSeconds);
+		}
+		return car;
+	}
+
+	private void assignCar(Car car, ChargingStation chargingStation) {
+		if (state.isCarCurrentlyAssigned(car)) {
+			if (state.getCurrentCarAssignment(car).chargingStation == chargingStation) {
+				return;
+			}
+			state.removePowerAssignment(car);
+			state.removeCarAssignment(car);
+		}
+		if (state.isCarCurrentlyUnassigned(car)) {
+			state.removeUnassignedCar(car);
+		}
+		CarAssignment carAssignment = state.addCarAssignment(car, chargingStation);
+		if (car.getTimestampDeparture() > 0) {
+			carAssignment.setExpectedDepartureTimeSeconds(car.getTimestampDeparture());
+		}
+	}
+
+	/**
+	 * Power assignments are derived from the plans at the current timeslot (as in StateStore.toState())
+	 */
+	private void refreshPowerAssignments() {
+		for (CarAssignment carAssignment : state.getCurrentCarAssignments()) {
+			Car car = carAssignment.car;
+			if (car.getCurrentPlan() == null) {
+				continue;
+			}
+			double currentPlanValue = car.getCurrentPlan()[state.currentTimeslot];
+			PowerAssignment powerAssignment = state.getCurrentPowerAssignment(car);
+			if (powerAssignment != null) {
+				powerAssignment.setPhase1(car.canLoadPhase1 * currentPlanValue);
+				powerAssignment.setPhase2(car.canLoadPhase2 * currentPlanValue);
+				powerAssignment.setPhase3(car.canLoadPhase3 * currentPlanValue);
+			}
+			else {
+				state.addPowerAssignment(car, carAssignment.chargingStation, car.canLoadPhase1 * currentPlanValue,
+						car.canLoadPhase2 * currentPlanValue, car.canLoadPhase3 * currentPlanValue);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,156 @@
+package com.sap.charging.server.api.v2;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.sap.charging.model.Car;
+import com.sap.charging.realTime.State;
+import com.sap.charging.realTime.StrategyAlgorithmic;
+import com.sap.charging.server.api.v1.ErrorResponse;
+import com.sap.charging.server.api.v1.OptimizeChargingProfilesController;
+import com.sap.charging.server.api.v1.exception.MissingParameterException;
+import com.sap.charging.server.api.v1.exception.ParameterCombinationException;
+import com.sap.charging.server.api.v1.exception.UnknownCarException;
+import com.sap.charging.server.api.v1.exception.UnknownChargingStationException;
+import com.sap.charging.server.api.v1.exception.UnknownEventTypeException;
+import com.sap.charging.server.api.v2.exception.SessionVersionConflictException;
+import com.sap.charging.server.api.v2.exception.UnknownSessionException;
+import com.sap.charging.server.metrics.OptimizerMetrics;
+import com.sap.charging.sim.SimulationContext;
+import com.sap.charging.util.Log4j2LogSink;
+import com.sap.charging.util.LogSink;
+import com.sap.charging.util.Loggable;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+
+/**
+ * Session based API: A site is registered once and kept in server memory. Events only contain changed cars,
+ * responses only contain cars whose plans changed.
+ */
+@RestController
+@Api(value = "emobility-smart-charging REST API (site sessions)")
+public class SiteSessionController implements Loggable {
+
+	@Override
+	public int getVerbosity() {
+		return SimulationContext.getCurrentVerbosity();
+	}
+
+	private final SiteSessionRegistry registry;
+	private final OptimizerMetrics metrics;
+	private final LogSink logSink = new Log4j2LogSink();
+
+	@Autowired
+	public SiteSessionController(SiteSessionRegistry registry, OptimizerMetrics metrics) {
+		this.registry = registry;
+		this.metrics = metrics;
+	}
+
+	@CrossOrigin(origins = "*")
+	@ApiOperation(value = "Register a site and create a session")
+	@PostMapping(path = "/api/v2/sessions", produces = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseBody
+	public ResponseEntity<Object> createSession(@ApiParam @RequestBody SiteSessionCreateRequest request) {
+		return handle(request.verbosity, request.siteID, OptimizerMetrics.NO_EVENT, () -> {
+			State state = request.state.toState();
+			StrategyAlgorithmic strategy = OptimizeChargingProfilesController.buildStrategyFromSettings(request.optimizerSettings);
+			SiteSession session = registry.createSession(state, strategy, request.siteID);
+			log(1, "Created session id=" + session.getSessionID() + " with " + state.nChargingStations + " charging stations");
+			return new ResponseEntity<>(session.toResponse(), HttpStatus.CREATED);
+		});
+	}
+
+	@CrossOrigin(origins = "*")
+	@ApiOperation(value = "Apply an event (with changed cars) to a session and return the changed charging profiles")
+	@PostMapping(path = "/api/v2/sessions/{sessionID}/events", produces = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseBody
+	public ResponseEntity<Object> applyEvent(@PathVariable String sessionID, @ApiParam @RequestBody SiteSessionEventRequest request) {
+		String eventType = (request.event != null && request.event.eventType != null) ? request.event.eventType.toString() : OptimizerMetrics.NO_EVENT;
+		return handle(request.verbosity, registry.getSiteID(sessionID), eventType, () -> {
+			SiteSession session = registry.getSession(sessionID);
+			try {
+				List<Car> changedCars = session.applyEvent(request.expectedVersion, request.currentTimeSeconds,
+						request.cars, request.carAssignments, request.event);
+				// Applying succeeds only for the expected version, later events may already have incremented session.getVersion()
+				return new ResponseEntity<>(new SiteSessionResponse(sessionID, request.expectedVersion + 1, changedCars), HttpStatus.OK);
+			}
+			finally {
+				registry.discardIfInvalid(session);
+			}
+		});
+	}
+
+	@CrossOrigin(origins = "*")
+	@ApiOperation(value = "Get the current version and all cars of a session")
+	@GetMapping(path = "/api/v2/sessions/{sessionID}", produces = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseBody
+	public ResponseEntity<Object> getSession(@PathVariable String sessionID) {
+		return handle(0, registry.getSiteID(sessionID), OptimizerMetrics.NO_EVENT, () -> {
+			return new ResponseEntity<>(registry.getSession(sessionID).toResponse(), HttpStatus.OK);
+		});
+	}
+
+	@CrossOrigin(origins = "*")
+	@ApiOperation(value = "Remove a session")
+	@DeleteMapping(path = "/api/v2/sessions/{sessionID}")
+	public ResponseEntity<Object> deleteSession(@PathVariable String sessionID) {
+		// Not tagged with the site, its meters are removed with its last session
+		return handle(0, null, OptimizerMetrics.NO_EVENT, () -> {
+			registry.removeSession(sessionID);
+			return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+		});
+	}
+
+	/**
+	 * Executes the request with its own SimulationContext (verbosity, messages are logged with log4j2), records its metrics (tagged by 
+	 * the site ID passed when the session was created, never the session ID, and event type) and maps exceptions to status codes
+	 */
+	private ResponseEntity<Object> handle(int verbosity, String siteID, String eventType, Supplier<ResponseEntity<Object>> request) {
+		SimulationContext context = new SimulationContext(verbosity);
+		context.setLogSink(logSink);
+		context.setReactionListener(metrics.getReactionListener(siteID));
+		OptimizerMetrics.tagCurrentRequest(siteID, eventType);
+		return context.call(() -> {
+			try {
+				return request.get();
+			}
+			catch (Exception e) {
+				log(1, e.getClass().getName() + ": " + e.getMessage());
+				return new ResponseEntity<>(new ErrorResponse(e), getHttpStatus(e));
+			}
+			finally {
+				metrics.recordRequest(siteID, eventType, context);
+			}
+		});
+	}
+
+	static HttpStatus getHttpStatus(Exception e) {
+		if (e instanceof UnknownSessionException) {
+			return HttpStatus.NOT_FOUND;
+		}
+		if (e instanceof SessionVersionConflictException) {
+			return HttpStatus.CONFLICT;
+		}
+		if (e instanceof MissingParameterException || e instanceof ParameterCombinationException || e instanceof UnknownCarException ||
+				e instanceof UnknownChargingStationException || e instanceof UnknownEventTypeException || e instanceof IllegalArgumentException) {
+			return HttpStatus.BAD_REQUEST;
+		}
+		return HttpStatus.INTERNAL_SERVER_ERROR;
+	}
+
+}
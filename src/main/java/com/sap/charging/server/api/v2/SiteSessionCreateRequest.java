@@ -0,0 +1,39 @@
+package com.sap.charging.server.api.v2;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.sap.charging.server.api.v1.store.OptimizerSettings;
+import com.sap.charging.server.api.v1.store.StateStore;
+
+public class SiteSessionCreateRequest {
+
+	/**
+	 * Initial state of the site: fuse tree (or charging stations and maximumSiteLimitKW), energy prices and cars present (may be empty)
+	 */
+	public final StateStore state;
+	public final OptimizerSettings optimizerSettings;
+	public final Integer verbosity;
+
+	/**
+	 * Optional ID of the site used to tag metrics (sessions of the same site share their metrics)
+	 */
+	public final String siteID;
+
+	public SiteSessionCreateRequest(StateStore state, OptimizerSettings optimizerSettings, Integer verbosity) {
+		this(state, optimizerSettings, verbosity, null);
+	}
+
+	@JsonCreator
+	public SiteSessionCreateRequest(
+			@JsonProperty(value="state", required=true) StateStore state,
+			@JsonProperty(value="optimizerSettings") OptimizerSettings optimizerSettings,
+			@JsonProperty(value="verbosity") Integer verbosity,
+			@JsonProperty(value="siteID") String siteID
+			) {
+		this.state = state;
+		this.siteID = siteID;
+		this.optimizerSettings = (optimizerSettings != null) ? optimizerSettings : OptimizerSettings.getDefaultOptimizerSettings();
+		this.verbosity = (verbosity != null) ? verbosity : 0;
+	}
+
+}
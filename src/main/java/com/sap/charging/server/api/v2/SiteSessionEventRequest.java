@@ -0,0 +1,48 @@
+package com.sap.charging.server.api.v2;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.sap.charging.model.Car;
+import com.sap.charging.realTime.model.CarAssignmentStore;
+import com.sap.charging.server.api.v1.store.EventStore;
+
+public class SiteSessionEventRequest {
+
+	/**
+	 * Version of the session the client's view is based on (returned by the previous response)
+	 */
+	public final long expectedVersion;
+	public final int currentTimeSeconds;
+
+	/**
+	 * New cars or cars whose data changed (e.g. SoC, departure). Cars without plan keep their previous plan.
+	 */
+	public final List<Car> cars;
+
+	/**
+	 * Assignments of new or changed cars to charging stations
+	 */
+	public final List<CarAssignmentStore> carAssignments;
+	public final EventStore event;
+	public final Integer verbosity;
+
+	@JsonCreator
+	public SiteSessionEventRequest(
+			@JsonProperty(value="expectedVersion", required=true) long expectedVersion,
+			@JsonProperty(value="currentTimeSeconds", required=true) int currentTimeSeconds,
+			@JsonProperty(value="cars") List<Car> cars,
+			@JsonProperty(value="carAssignments") List<CarAssignmentStore> carAssignments,
+			@JsonProperty(value="event", required=true) EventStore event,
+			@JsonProperty(value="verbosity") Integer verbosity
+			) {
+		this.expectedVersion = expectedVersion;
+		this.currentTimeSeconds = currentTimeSeconds;
+		this.cars = cars;
+		this.carAssignments = carAssignments;
+		this.event = event;
+		this.verbosity = (verbosity != null) ? verbosity : 0;
+	}
+
+}
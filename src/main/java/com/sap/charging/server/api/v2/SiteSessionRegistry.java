@@ -0,0 +1,164 @@
+package com.sap.charging.server.api.v2;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.sap.charging.realTime.State;
+import com.sap.charging.realTime.StrategyAlgorithmic;
+import com.sap.charging.server.api.v2.exception.UnknownSessionException;
+import com.sap.charging.server.metrics.OptimizerMetrics;
+
+/**
+ * Holds all site sessions in memory. Sessions not accessed for idleTimeoutSeconds are evicted periodically (every 
+ * sessions.evictionIntervalMillis) and are not returned anymore once they are idle, invalid sessions (see SiteSession.isInvalid()) 
+ * are discarded. Once the last session of a site is removed, its meters are removed from OptimizerMetrics.
+ */
+@Component
+public class SiteSessionRegistry {
+
+	public static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 3600;
+	public static final long DEFAULT_EVICTION_INTERVAL_MILLIS = 60000;
+
+	private final Map<String, SiteSession> sessions = new ConcurrentHashMap<>();
+	private final long idleTimeoutMillis;
+	private final LongSupplier clock;
+	private OptimizerMetrics metrics;
+
+	@Autowired
+	public SiteSessionRegistry(@Value("${sessions.idleTimeoutSeconds:" + DEFAULT_IDLE_TIMEOUT_SECONDS + "}") int idleTimeoutSeconds) {
+		this(idleTimeoutSeconds, System::currentTimeMillis);
+	}
+
+	/**
+	 * @param idleTimeoutSeconds
+	 * @param clock Current time in milliseconds
+	 */
+	public SiteSessionRegistry(int idleTimeoutSeconds, LongSupplier clock) {
+		if (idleTimeoutSeconds <= 0) {
+			throw new IllegalArgumentException("idleTimeoutSeconds=" + idleTimeoutSeconds + " must be greater than 0");
+		}
+		this.idleTimeoutMillis = idleTimeoutSeconds * 1000L;
+		this.clock = clock;
+	}
+
+	/**
+	 * Injected by Spring if available
+	 */
+	@Autowired(required = false)
+	public void setMetrics(OptimizerMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	public SiteSession createSession(State state, StrategyAlgorithmic strategy) {
+		return createSession(state, strategy, null);
+	}
+
+	/**
+	 * @param state
+	 * @param strategy
+	 * @param siteID May be null
+	 * @return
+	 */
+	public SiteSession createSession(State state, StrategyAlgorithmic strategy, String siteID) {
+		String sessionID = UUID.randomUUID().toString();
+		SiteSession session = new SiteSession(sessionID, siteID, state, strategy, clock.getAsLong());
+		sessions.put(sessionID, session);
+		return session;
+	}
+
+	/**
+	 * Returns the session and marks it as accessed
+	 * @param sessionID
+	 * @return
+	 * @throws UnknownSessionException If the session does not exist (anymore) or is idle
+	 */
+	public SiteSession getSession(String sessionID) {
+		SiteSession session = sessions.get(sessionID);
+		long now = clock.getAsLong();
+		if (session != null && isEvictable(session, now) && sessions.remove(sessionID, session)) {
+			onRemoved(session);
+			session = null;
+		}
+		if (session == null) {
+			throw new UnknownSessionException(sessionID);
+		}
+		session.touch(now);
+		return session;
+	}
+
+	/**
+	 * @param sessionID
+	 * @return Site ID of the session, null if the session does not exist or has no site ID
+	 */
+	public String getSiteID(String sessionID) {
+		SiteSession session = sessions.get(sessionID);
+		return (session != null) ? session.getSiteID() : null;
+	}
+
+	public void removeSession(String sessionID) {
+		SiteSession session = sessions.remove(sessionID);
+		if (session == null) {
+			throw new UnknownSessionException(sessionID);
+		}
+		onRemoved(session);
+	}
+
+	/**
+	 * Removes the session if it became invalid
+	 */
+	public void discardIfInvalid(SiteSession session) {
+		if (session.isInvalid() && sessions.remove(session.getSessionID(), session)) {
+			onRemoved(session);
+		}
+	}
+
+	private void onRemoved(SiteSession session) {
+		String siteID = session.getSiteID();
+		if (metrics == null || siteID == null) {
+			return;
+		}
+		for (SiteSession otherSession : sessions.values()) {
+			if (siteID.equals(otherSession.getSiteID())) {
+				return;
+			}
+		}
+		metrics.removeSite(siteID);
+	}
+
+	private boolean isEvictable(SiteSession session, long now) {
+		return now - session.getLastAccessMillis() > idleTimeoutMillis || session.isInvalid();
+	}
+
+	/**
+	 * Called periodically by Spring (see EmobilitySmartChargingApplication)
+	 * @return Number of evicted sessions
+	 */
+	@Scheduled(fixedDelayString = "${sessions.evictionIntervalMillis:" + DEFAULT_EVICTION_INTERVAL_MILLIS + "}")
+	public int evictIdleSessions() {
+		long now = clock.getAsLong();
+		int evicted = 0;
+		Iterator<SiteSession> iterator = sessions.values().iterator();
+		while (iterator.hasNext()) {
+			SiteSession session = iterator.next();
+			if (isEvictable(session, now)) {
+				iterator.remove();
+				onRemoved(session);
+				evicted++;
+			}
+		}
+		return evicted;
+	}
+
+	public int getNumberSessions() {
+		return sessions.size();
+	}
+
+}
@@ -0,0 +1,28 @@
+package com.sap.charging.server.api.v2;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.sap.charging.model.Car;
+
+public class SiteSessionResponse {
+
+	public final String sessionID;
+	public final long version;
+
+	/**
+	 * Cars whose plans changed (all cars when fetching a session)
+	 */
+	public final List<Car> cars;
+
+	@JsonCreator
+	public SiteSessionResponse(@JsonProperty("sessionID") String sessionID,
+			@JsonProperty("version") long version,
+			@JsonProperty("cars") List<Car> cars) {
+		this.sessionID = sessionID;
+		this.version = version;
+		this.cars = cars;
+	}
+
+}
@@ -0,0 +1,14 @@
+package com.sap.charging.server.api.v2.exception;
+
+public class SessionVersionConflictException extends RuntimeException {
+
+	private static final long serialVersionUID = 5823350418127093391L;
+
+	public final long currentVersion;
+
+	public SessionVersionConflictException(String sessionID, long expectedVersion, long currentVersion) {
+		super("Session id=" + sessionID + " is at version=" + currentVersion + ", request was based on version=" + expectedVersion + "!");
+		this.currentVersion = currentVersion;
+	}
+
+}
@@ -0,0 +1,11 @@
+package com.sap.charging.server.api.v2.exception;
+
+public class UnknownSessionException extends RuntimeException {
+
+	private static final long serialVersionUID = -3094263381574916264L;
+
+	public UnknownSessionException(String sessionID) {
+		super("Session id=" + sessionID + " not found (unknown, evicted after being idle or discarded after a failed event)!");
+	}
+
+}
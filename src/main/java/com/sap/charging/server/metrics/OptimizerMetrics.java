@@ -0,0 +1,229 @@
+package com.sap.charging.server.metrics;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.sap.charging.sim.SimulationContext;
+import com.sap.charging.sim.event.Event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Micrometer metrics of the optimizer, tagged by site and event type (scrapeable from /actuator/prometheus):
+ * - optimizer.strategy.reaction: Latency of Strategy.react(...) (with percentile histogram, e.g. for alerts on p99)
+ * - optimizer.violations.found, optimizer.violations.resolved, optimizer.reschedules, optimizer.fill.iterations,
+ *   optimizer.battery.simulation.steps: Per request
+ * - optimizer.planned.capacity.cache.lookups: Counter with tag result=hit|miss
+ * - optimizer.request.size, optimizer.response.size: Payload sizes in bytes (recorded by PayloadSizeFilter)
+ *
+ * Site tags are bounded: Site IDs that are not valid (see SITE_ID_PATTERN) are tagged as "invalid", site IDs beyond
+ * the first maxSites as "other". Meters of a site are removed with removeSite(...).
+ */
+@Component
+public class OptimizerMetrics {
+
+	public static final String TAG_SITE = "site";
+	public static final String TAG_EVENT_TYPE = "eventType";
+
+	/**
+	 * Tag values if a request has no site ID or no event
+	 */
+	public static final String UNKNOWN_SITE = "unknown";
+	public static final String NO_EVENT = "none";
+	public static final String INVALID_SITE = "invalid";
+	public static final String OTHER_SITE = "other";
+
+	public static final int DEFAULT_MAX_SITES = 100;
+	public static final Pattern SITE_ID_PATTERN = Pattern.compile("[A-Za-z0-9_.:-]{1,64}");
+
+	static final String ATTRIBUTE_SITE = OptimizerMetrics.class.getName() + ".site";
+	static final String ATTRIBUTE_EVENT_TYPE = OptimizerMetrics.class.getName() + ".eventType";
+
+	private final MeterRegistry registry;
+	private final int maxSites;
+	private final Set<String> sites = ConcurrentHashMap.newKeySet(); // Site tags in use, additions and removals guarded by itself
+
+	/**
+	 * Metrics recorded in the global registry (e.g. if the controllers are used without Spring)
+	 */
+	public OptimizerMetrics() {
+		this(Metrics.globalRegistry);
+	}
+
+	public OptimizerMetrics(MeterRegistry registry) {
+		this(registry, DEFAULT_MAX_SITES);
+	}
+
+	/**
+	 * @param registry
+	 * @param maxSites Maximum number of distinct site tags
+	 */
+	@Autowired
+	public OptimizerMetrics(MeterRegistry registry, @Value("${metrics.maxSites:" + DEFAULT_MAX_SITES + "}") int maxSites) {
+		if (maxSites < 0) {
+			throw new IllegalArgumentException("maxSites=" + maxSites + " must not be negative");
+		}
+		this.registry = registry;
+		this.maxSites = maxSites;
+	}
+
+	public MeterRegistry getRegistry() {
+		return registry;
+	}
+
+	/**
+	 * @param site
+	 * @return Listener to be set on the request's SimulationContext which records the latency of each strategy reaction
+	 */
+	public SimulationContext.ReactionListener getReactionListener(String site) {
+		String siteTag = getSiteTag(site);
+		return (event, durationNanos) -> Timer.builder("optimizer.strategy.reaction")
+				.description("Duration of Strategy.react")
+				.tags(TAG_SITE, siteTag, TAG_EVENT_TYPE, getEventTypeTag(event))
+				.publishPercentileHistogram()
+				.register(registry)
+				.record(durationNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Records the optimizer counters of a finished request. Does nothing if no strategy reacted during the request. 
+	 * @param site
+	 * @param eventType
+	 * @param context SimulationContext of the request
+	 */
+	public void recordRequest(String site, String eventType, SimulationContext context) {
+		if (context.getStrategyReactions() == 0) {
+			return;
+		}
+		recordSummary("optimizer.violations.found", "Fuse tree violations found per request", site, eventType, context.getViolationsFound());
+		recordSummary("optimizer.violations.resolved", "Fuse tree violations resolved per request", site, eventType, context.getViolationsResolved());
+		recordSummary("optimizer.reschedules", "Cars rescheduled to resolve violations per request", site, eventType, context.getReschedules());
+		recordSummary("optimizer.fill.iterations", "Timeslots visited while filling charging plans per request", site, eventType, context.getFillIterations());
+		recordSummary("optimizer.battery.simulation.steps", "Battery simulation steps per request", site, eventType, context.getBatterySimulationSteps());
+		recordCacheLookups(site, eventType, "hit", context.getPlannedCapacityCacheHits());
+		recordCacheLookups(site, eventType, "miss", context.getPlannedCapacityCacheMisses());
+	}
+
+	/**
+	 * @param site
+	 * @param eventType
+	 * @param requestBytes Ignored if negative
+	 * @param responseBytes Ignored if negative
+	 */
+	public void recordPayloadSizes(String site, String eventType, long requestBytes, long responseBytes) {
+		if (requestBytes >= 0) {
+			getPayloadSizeSummary("optimizer.request.size", "Request payload size", site, eventType).record(requestBytes);
+		}
+		if (responseBytes >= 0) {
+			getPayloadSizeSummary("optimizer.response.size", "Response payload size", site, eventType).record(responseBytes);
+		}
+	}
+
+	private void recordSummary(String name, String description, String site, String eventType, long amount) {
+		DistributionSummary.builder(name)
+			.description(description)
+			.tags(TAG_SITE, getSiteTag(site), TAG_EVENT_TYPE, eventType)
+			.register(registry)
+			.record(amount);
+	}
+
+	private void recordCacheLookups(String site, String eventType, String result, long amount) {
+		if (amount > 0) {
+			Counter.builder("optimizer.planned.capacity.cache.lookups")
+				.description("Lookups of nonlinear planned capacities in the cache")
+				.tags(TAG_SITE, getSiteTag(site), TAG_EVENT_TYPE, eventType, "result", result)
+				.register(registry)
+				.increment(amount);
+		}
+	}
+
+	private DistributionSummary getPayloadSizeSummary(String name, String description, String site, String eventType) {
+		return DistributionSummary.builder(name)
+				.description(description)
+				.baseUnit("bytes")
+				.tags(TAG_SITE, getSiteTag(site), TAG_EVENT_TYPE, eventType)
+				.register(registry);
+	}
+
+	/**
+	 * @param site Site ID as passed by the client (may be null)
+	 * @return site if it is valid and one of the first maxSites sites, otherwise one of UNKNOWN_SITE, INVALID_SITE or OTHER_SITE
+	 */
+	public String getSiteTag(String site) {
+		if (site == null || site.isEmpty() || site.equals(UNKNOWN_SITE)) {
+			return UNKNOWN_SITE;
+		}
+		if (site.equals(INVALID_SITE) || SITE_ID_PATTERN.matcher(site).matches() == false) {
+			return INVALID_SITE;
+		}
+		if (site.equals(OTHER_SITE) || sites.contains(site)) {
+			return site;
+		}
+		synchronized (sites) {
+			if (sites.size() >= maxSites) {
+				return OTHER_SITE;
+			}
+			sites.add(site);
+		}
+		return site;
+	}
+
+	/**
+	 * Removes all meters tagged with the site and frees its slot (e.g. once the last session of the site was removed).
+	 * Does nothing if the site has no own tag.
+	 * @param site
+	 */
+	public void removeSite(String site) {
+		synchronized (sites) {
+			if (site == null || sites.remove(site) == false) {
+				return;
+			}
+		}
+		for (Meter meter : registry.getMeters()) {
+			if (meter.getId().getName().startsWith("optimizer.") && site.equals(meter.getId().getTag(TAG_SITE))) {
+				registry.remove(meter);
+			}
+		}
+	}
+
+	/**
+	 * @param event
+	 * @return EventType name of the event, e.g. "CarArrival" for EventCarArrival
+	 */
+	public static String getEventTypeTag(Event event) {
+		if (event == null) {
+			return NO_EVENT;
+		}
+		String name = event.getClass().getSimpleName();
+		return name.startsWith("Event") ? name.substring("Event".length()) : name;
+	}
+
+	/**
+	 * Tags the payload sizes of the current HTTP request (see PayloadSizeFilter). Does nothing outside of a request.
+	 * @param site Mapped to the site tag when the sizes are recorded
+	 * @param eventType
+	 */
+	public static void tagCurrentRequest(String site, String eventType) {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes != null) {
+			if (site != null) {
+				attributes.setAttribute(ATTRIBUTE_SITE, site, RequestAttributes.SCOPE_REQUEST);
+			}
+			attributes.setAttribute(ATTRIBUTE_EVENT_TYPE, eventType, RequestAttributes.SCOPE_REQUEST);
+		}
+	}
+
+}
@@ -0,0 +1,187 @@
+package com.sap.charging.server.metrics;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Records request and response payload sizes of the optimizer API (/api/...) in OptimizerMetrics.
+ * Bytes are counted while the body is streamed so large payloads are not buffered.
+ * Site and event type tags are set by the controllers with OptimizerMetrics.tagCurrentRequest(...).
+ */
+@Component
+public class PayloadSizeFilter extends OncePerRequestFilter {
+
+	private OptimizerMetrics metrics = new OptimizerMetrics();
+
+	/**
+	 * Injected by Spring if available (not e.g. in @WebMvcTest), otherwise metrics are recorded in the global registry
+	 */
+	@Autowired(required = false)
+	public void setMetrics(OptimizerMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return request.getRequestURI().startsWith(request.getContextPath() + "/api/") == false;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		CountingRequestWrapper countingRequest = new CountingRequestWrapper(request);
+		CountingResponseWrapper countingResponse = new CountingResponseWrapper(response);
+		try {
+			filterChain.doFilter(countingRequest, countingResponse);
+		}
+		finally {
+			Object site = request.getAttribute(OptimizerMetrics.ATTRIBUTE_SITE);
+			Object eventType = request.getAttribute(OptimizerMetrics.ATTRIBUTE_EVENT_TYPE);
+			metrics.recordPayloadSizes((site != null) ? site.toString() : null,
+					(eventType != null) ? eventType.toString() : OptimizerMetrics.NO_EVENT,
+					countingRequest.getBytes(), countingResponse.getBytes());
+		}
+	}
+
+	private static class CountingRequestWrapper extends HttpServletRequestWrapper {
+
+		private CountingInputStream inputStream;
+
+		public CountingRequestWrapper(HttpServletRequest request) {
+			super(request);
+		}
+
+		@Override
+		public ServletInputStream getInputStream() throws IOException {
+			if (inputStream == null) {
+				inputStream = new CountingInputStream(super.getInputStream());
+			}
+			return inputStream;
+		}
+
+		public long getBytes() {
+			return (inputStream != null) ? inputStream.bytes : 0;
+		}
+	}
+
+	private static class CountingResponseWrapper extends HttpServletResponseWrapper {
+
+		private CountingOutputStream outputStream;
+
+		public CountingResponseWrapper(HttpServletResponse response) {
+			super(response);
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			if (outputStream == null) {
+				outputStream = new CountingOutputStream(super.getOutputStream());
+			}
+			return outputStream;
+		}
+
+		public long getBytes() {
+			return (outputStream != null) ? outputStream.bytes : 0;
+		}
+	}
+
+	private static class CountingInputStream extends ServletInputStream {
+
+		private final ServletInputStream delegate;
+		private long bytes = 0;
+
+		public CountingInputStream(ServletInputStream delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int result = delegate.read();
+			if (result >= 0) {
+				bytes++;
+			}
+			return result;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int result = delegate.read(b, off, len);
+			if (result > 0) {
+				bytes += result;
+			}
+			return result;
+		}
+
+		@Override
+		public boolean isFinished() {
+			return delegate.isFinished();
+		}
+
+		@Override
+		public boolean isReady() {
+			return delegate.isReady();
+		}
+
+		@Override
+		public void setReadListener(ReadListener readListener) {
+			delegate.setReadListener(readListener);
+		}
+	}
+
+	private static class CountingOutputStream extends ServletOutputStream {
+
+		private final ServletOutputStream delegate;
+		private long bytes = 0;
+
+		public CountingOutputStream(ServletOutputStream delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			delegate.write(b);
+			bytes++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			delegate.write(b, off, len);
+			bytes += len;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			delegate.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			delegate.close();
+		}
+
+		@Override
+		public boolean isReady() {
+			return delegate.isReady();
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			delegate.setWriteListener(writeListener);
+		}
+	}
+
+}
@@ -6,6 +6,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.sap.charging.dataGeneration.DataGenerator;
@@ -15,6 +16,8 @@ import com.sap.charging.model.EnergyUtil;
 import com.sap.charging.model.Fuse;
 import com.sap.charging.model.FuseTreeNode;
 import com.sap.charging.model.EnergyUtil.Phase;
+import com.sap.charging.model.battery.BatterySim;
+import com.sap.charging.model.battery.BatterySimParameters;
 import com.sap.charging.opt.CONSTANTS;
 import com.sap.charging.opt.util.MethodTimer;
 import com.sap.charging.opt.util.MethodTimerState;
@@ -23,7 +26,7 @@ import com.sap.charging.realTime.Strategy;
 import com.sap.charging.realTime.StrategyAlgorithmic;
 import com.sap.charging.realTime.model.CarAssignment;
 import com.sap.charging.realTime.model.PowerAssignment;
-import com.sap.charging.sim.eval.Validation;
+import com.sap.charging.sim.eval.IncrementalValidation;
 import com.sap.charging.sim.eval.exception.SimulationInvalidStateException;
 import com.sap.charging.sim.eval.exception.ValidationException;
 import com.sap.charging.sim.event.Event;
@@ -34,6 +37,7 @@ import com.sap.charging.sim.event.EventEnergyPriceChange;
 import com.sap.charging.sim.util.SimulationListener;
 import com.sap.charging.sim.util.SimulationListenerCSV;
 import com.sap.charging.sim.util.SimulationListenerJSON;
+import com.sap.charging.sim.util.SimulationListenerStream;
 import com.sap.charging.util.Callback;
 import com.sap.charging.util.Loggable;
 import com.sap.charging.util.TimeUtil;
@@ -54,6 +58,7 @@ public class Simulation implements Loggable {
 	private int intervalReoptimizationEvents = 900;
 	
 	private final State state;
+	private final IncrementalValidation validation;
 	private final HashMap<Integer, ArrayList<Event>> timedEvents;
 	private final List<Event> allEvents;
 	
@@ -61,6 +66,10 @@ public class Simulation implements Loggable {
 	private final MethodTimerState timeResponse;
 	private boolean enableCSVStorage;
 	private boolean enableJSONStorage;
+	private boolean enableTimeSkipping = false;
+	private String streamStorageFilePath;
+	private int streamStorageResolutionSeconds;
+	private SimulationListenerStream streamListener;
 	
 	/**
 	 * These listeners get called once per second with the 
@@ -68,23 +77,31 @@ public class Simulation implements Loggable {
 	 */
 	private ArrayList<SimulationListener> stateListeners;
 	
-	/**
-	 * 2: Print everything
-	 * 1: Print unique things (e.g. constructor, start simulation)
-	 * 0: Print nothing
-	 */
-	public static int verbosity = 2;
 	public int getVerbosity() {
-		return verbosity;
+		return context.getVerbosity();
 	}
 	
+	/**
+	 * Bound to the thread during init() and simulate()
+	 */
+	private final SimulationContext context;
 	
 	
 	/**
-	 * 
+	 * Uses the SimulationContext bound to the current thread (or the global context)
 	 * @param dataGenerator Possibly randomized data for simulation (before chaos)
 	 */
 	public Simulation(DataGenerator dataGenerator, Strategy strategy) {
+		this(dataGenerator, strategy, SimulationContext.current());
+	}
+	
+	/**
+	 * 
+	 * @param dataGenerator Possibly randomized data for simulation (before chaos)
+	 * @param context Per run state, simulations running in parallel need separate contexts
+	 */
+	public Simulation(DataGenerator dataGenerator, Strategy strategy, SimulationContext context) {
+		this.context = context;
 		this.dataSim = dataGenerator;
 		this.simTimeslots = dataSim.getEnergyPriceHistory().getNTimeslots();
 		this.simStartSeconds = DataGenerator.START_BASE_TIMESLOT * 15 * 60; 
@@ -99,6 +116,7 @@ public class Simulation implements Loggable {
 		
 		this.state = new State(simStartSeconds, dataSim.getChargingStations(), 
 				dataSim.getFuseTree(), dataSim.getCars(), dataSim.getEnergyPriceHistory());
+		this.validation = new IncrementalValidation(state, 900);
 		this.allEvents = new ArrayList<>();
 		this.timedEvents = new HashMap<>(dataSim.getEnergyPriceHistory().getNTimeslots() + 
 				this.getDataSim().getCars().size()*3);
@@ -120,9 +138,25 @@ public class Simulation implements Loggable {
 		this.intervalReoptimizationEvents = intervalReoptimizationEvents;
 	}
 	
+	/**
+	 * The state is validated incrementally every simulated second, every n-th validation is complete. Default is 900. 
+	 * 1: Always validate completely (debugging), 0: Only validate completely after violations and changes of the fuse tree topology. 
+	 * @return
+	 */
+	public int getFullValidationInterval() {
+		return validation.getFullValidationInterval();
+	}
+	public void setFullValidationInterval(int fullValidationInterval) {
+		validation.setFullValidationInterval(fullValidationInterval);
+	}
+	
 	
 	
 	public void init() {
+		context.run(this::initInContext);
+	}
+	
+	private void initInContext() {
 		log(1, "Initializing sim events...");
 		
 		// Construct list of SimulationEvent for strategy to react to
@@ -166,6 +200,12 @@ public class Simulation implements Loggable {
 			this.addStateListener(listener);
 			this.getSimulationResult().setSimulationListenerJSON(listener);
 		}
+		
+		if (streamStorageFilePath != null) {
+			log(1, "Stream storage enabled. Adding stream listener writing to " + streamStorageFilePath + ".");
+			streamListener = new SimulationListenerStream(streamStorageFilePath, streamStorageResolutionSeconds);
+			this.addStateListener(streamListener);
+		}
 
 	}
 	
@@ -177,7 +217,7 @@ public class Simulation implements Loggable {
 	 */
 	public void addCar(Car car, boolean addArrivalEvent, boolean addDepartureEvent) {
 		if (this.dataSim.getCars().contains(car) == false) {
-			log(2, "Adding new car id=" + car.getId());
+			log(2, "Adding new car id={}", car.getId());
 			this.dataSim.getCars().add(car);
 		}
 		
@@ -234,13 +274,13 @@ public class Simulation implements Loggable {
 	
 	public void addEvent(Event event) {
 		if (event instanceof EventCarFinished) {
-			log(2, "Adding carFinished event for n=" 
+			log(2, () -> "Adding carFinished event for n=" 
 					+ ((EventCarFinished) event).car.getId() 
 					+ ", i=" + ((EventCarFinished) event).chargingStation.getId()
 					+ " at t=" + event.getSecondsOfDay() + " (k=" + state.currentTimeslot + ")");
 		}
 		else {
-			log(2, "Adding " + event.getClass().getSimpleName() + ""
+			log(2, () -> "Adding " + event.getClass().getSimpleName() + ""
 					+ " at t=" + event.getSecondsOfDay() + " (k=" + TimeUtil.getTimeslotFromSeconds(event.getSecondsOfDay()) + ")");
 		}
 		this.allEvents.add(event);
@@ -269,6 +309,21 @@ public class Simulation implements Loggable {
 	 * Contains the simulation loop and simulates a complete day.
 	 */
 	public synchronized void simulate() {
+		try {
+			context.run(this::simulateInContext);
+			if (streamListener != null) {
+				// Seconds skipped at the end have no callback
+				streamListener.fillUntil(simStartSeconds+simNumSeconds);
+			}
+		}
+		finally {
+			if (streamListener != null) {
+				streamListener.close();
+			}
+		}
+	}
+	
+	private void simulateInContext() {
 		log(1, "Simulating with "
 				+ "t_0=" + simStartSeconds 
 				+ ", t_max=" + (simStartSeconds+simNumSeconds));
@@ -276,17 +331,34 @@ public class Simulation implements Loggable {
 		// One iteration per new car, per car leaving,
 		// and every 15 mins (new energy prices)
 		// ==> one iteration per (potential) "change" 
-		for (int t=state.currentTimeSeconds;
-				t<simStartSeconds+simNumSeconds; //  && paused == false
-				t++) {
-			
-			// Per iteration: Call strategy with current state
-			simulateStep(t);
+		if (isTimeSkippingEnabled()) {
+			int t = state.currentTimeSeconds;
+			while (t < simStartSeconds+simNumSeconds) {
+				simulateStep(t);
+				
+				// Charge all cars until the next event or timeslot boundary at once
+				int nSkippedSeconds = getNumberSkippableSeconds(t+1, simStartSeconds+simNumSeconds);
+				if (nSkippedSeconds > 0) {
+					try (MethodTimer timer = new MethodTimer(this.getSimulationResult().timeProblemConstruction)) {
+						skipSeconds(nSkippedSeconds);
+					}
+				}
+				t += 1 + nSkippedSeconds;
+			}
+		}
+		else {
+			for (int t=state.currentTimeSeconds;
+					t<simStartSeconds+simNumSeconds; //  && paused == false
+					t++) {
+				
+				// Per iteration: Call strategy with current state
+				simulateStep(t);
+			}
 		}
 		log(1, "Strategy took " + timeResponse.getTime() + "s.");
 		
 		if (strategy instanceof StrategyAlgorithmic && ((StrategyAlgorithmic) strategy).isNonlinearChargingRecognized()) {
-			log(1, "Nonlinear charging planned capacity cache hits: " + ((StrategyAlgorithmic) strategy).getScheduler().plannedCapacityHashMapHits);
+			log(1, "Nonlinear charging " + ((StrategyAlgorithmic) strategy).getScheduler().getPlannedCapacityCache());
 		}
 	}
 	
@@ -310,6 +382,11 @@ public class Simulation implements Loggable {
 	 * Calls strategy.react
 	 */
 	private void simulateStep(int t) {
+		// Allows cancelling a running simulation, e.g. after a timeout (see MeasurementRunner)
+		if (Thread.currentThread().isInterrupted()) {
+			throw new CancellationException("Simulation interrupted at t=" + t);
+		}
+		
 		ArrayList<Event> events = getLocalTimedEvents(t);
 		
 		//System.out.println("Simulation::simulateStep Simulating step t=" + t);
@@ -345,7 +422,7 @@ public class Simulation implements Loggable {
 		// Check if state is still valid
 		
 		try (MethodTimer timer = new MethodTimer(this.getSimulationResult().timeProblemConstruction)) {
-			Validation.validateState(state);
+			validation.validateState();
 		}
 		catch (ValidationException e) {
 			log(2, "Current power assignments at k=" + state.currentTimeslot + ", t=" + state.currentTimeSeconds);
@@ -373,11 +450,194 @@ public class Simulation implements Loggable {
 	 */
 	public void simulateNextStep() {
 		if (this.isFinished() == false) {
-			simulateStep(state.currentTimeSeconds);
+			context.run(() -> simulateStep(state.currentTimeSeconds));
 			state.incrementTimeSeconds();
 		}
 	}
 	
+	/**
+	 * Number of seconds from startSeconds on that can be skipped, i.e. seconds without events, not at a timeslot boundary and
+	 * without any car becoming fully charged.
+	 * @param startSeconds
+	 * @param endSeconds Exclusive
+	 * @return
+	 */
+	private int getNumberSkippableSeconds(int startSeconds, int endSeconds) {
+		int nextStepSeconds = Math.min(endSeconds, TimeUtil.getSecondsFromTimeslot(TimeUtil.getTimeslotFromSeconds(startSeconds-1)+1));
+		for (int t=startSeconds;t<nextStepSeconds;t++) {
+			if (getLocalTimedEvents(t) != null) {
+				nextStepSeconds = t;
+				break;
+			}
+		}
+		
+		int result = Math.max(0, nextStepSeconds - startSeconds);
+		for (PowerAssignment powerAssignment : state.getCurrentPowerAssignments()) {
+			if (result == 0) {
+				break;
+			}
+			result = getNumberSkippableSeconds(powerAssignment, result);
+		}
+		return result;
+	}
+	
+	private int getNumberSkippableSeconds(PowerAssignment powerAssignment, int maxSeconds) {
+		Car car = powerAssignment.car;
+		if (car.isFullyCharged()) {
+			return maxSeconds;
+		}
+		if (car.carBattery.getNonlinearCharging() == false) {
+			double chargedAhPerSecond = CONSTANTS.CHARGING_EFFICIENCY * EnergyUtil.getAmpereHours(1, 
+					powerAssignment.getPhase1() + powerAssignment.getPhase2() + powerAssignment.getPhase3());
+			if (chargedAhPerSecond <= 0) {
+				return maxSeconds;
+			}
+			// The second in which the car becomes full is simulated normally (keep one second margin for rounding)
+			return (int) Math.max(0, Math.min(maxSeconds, Math.ceil(car.getMissingCapacity() / chargedAhPerSecond) - 2));
+		}
+		
+		double maxCurrentAllowed = getNonlinearMaxCurrentAllowed(powerAssignment);
+		if (maxCurrentAllowed < 0) {
+			return 0;
+		}
+		if (streamListener != null) {
+			// Skipped seconds keep the current of the last simulated second in the stream
+			maxSeconds = getNumberSecondsWithConstantCurrent(powerAssignment, maxSeconds, maxCurrentAllowed);
+			if (maxSeconds == 0) {
+				return 0;
+			}
+		}
+		if (isCloseToFull(car, maxSeconds, maxCurrentAllowed) == false) {
+			return maxSeconds;
+		}
+		
+		// Car may become full: Find the second with one second steps
+		BatterySim sim = createBatterySimForSkipping(car, false);
+		for (int i=0;i<maxSeconds;i++) {
+			sim.simulateNextStep(maxCurrentAllowed);
+			if (sim.getChargedAh() >= car.getMissingCapacity()) {
+				return Math.max(0, i-1);
+			}
+		}
+		return maxSeconds;
+	}
+	
+	/**
+	 * Number of seconds (at most maxSeconds) in which the current of the nonlinear car stays the same as in its power assignment, 
+	 * i.e. seconds before the car's current starts to taper (CV phase of CCCV). 
+	 */
+	private int getNumberSecondsWithConstantCurrent(PowerAssignment powerAssignment, int maxSeconds, double maxCurrentAllowed) {
+		Car car = powerAssignment.car;
+		BatterySim batterySim = car.carBattery.batterySim;
+		double current = powerAssignment.getPhase1() + powerAssignment.getPhase2() + powerAssignment.getPhase3();
+		
+		// The current is monotonous in the SoC, so it is enough to check the end if it does not change (relative tolerance for 
+		// rounding of the phases, currents of almost full cars are tiny)
+		BatterySim sim = createBatterySimForSkipping(car, true);
+		sim.simulateNextSteps(maxSeconds, maxCurrentAllowed);
+		if (Math.abs(batterySim.getCurrentBasedOnSoC(sim.getSoC(), maxCurrentAllowed) - current) <= 1e-9 * current) {
+			return maxSeconds;
+		}
+		
+		sim = createBatterySimForSkipping(car, false);
+		for (int i=0;i<maxSeconds;i++) {
+			if (Math.abs(batterySim.getCurrentBasedOnSoC(sim.getSoC(), maxCurrentAllowed) - current) > 1e-9 * current) {
+				return i;
+			}
+			sim.simulateNextStep(maxCurrentAllowed);
+		}
+		return maxSeconds;
+	}
+	
+	/**
+	 * Returns true if the nonlinear car is charged (almost) fully within the next nSeconds. 
+	 * The adaptive step battery simulation is not precise enough to decide in this case.  
+	 */
+	private boolean isCloseToFull(Car car, int nSeconds, double maxCurrentAllowed) {
+		BatterySim sim = createBatterySimForSkipping(car, true);
+		sim.simulateNextSteps(nSeconds, maxCurrentAllowed);
+		return sim.getChargedAh() >= car.getMissingCapacity() - 1e-6;
+	}
+	
+	/**
+	 * Maximum battery current while skipping seconds (same as in updateStatePowerAssignmentsFromPlan). 
+	 * Returns -1 if skipping is not supported for the power assignment of a nonlinear car, i.e. it is not updated from the car's plan
+	 * or not all of the car's phases are connected. 
+	 */
+	private double getNonlinearMaxCurrentAllowed(PowerAssignment powerAssignment) {
+		Car car = powerAssignment.car;
+		ChargingStation chargingStation = powerAssignment.chargingStation;
+		CarAssignment carAssignment = state.getCurrentCarAssignment(chargingStation);
+		if (carAssignment == null || carAssignment.car != car) {
+			return -1;
+		}
+		for (Phase phase : Phase.values()) {
+			if (car.canLoadPhase(phase) > 0 && chargingStation.isPhaseAtStationConnectedInFuseTree(phase) == false) {
+				return -1;
+			}
+		}
+		return getPlannedCurrent(car, chargingStation, state.currentTimeslot) * car.sumUsedPhases;
+	}
+	
+	private BatterySim createBatterySimForSkipping(Car car, boolean useAdaptiveStep) {
+		BatterySimParameters params = car.carBattery.batterySimParams.copy();
+		params.initialSoC = car.carBattery.getSoC();
+		params.useAdaptiveStep = useAdaptiveStep;
+		return new BatterySim(params, false, true);
+	}
+	
+	/**
+	 * Charges all cars for nSeconds seconds, equivalent to calling updateState() for each second if 
+	 * nSeconds is at most getNumberSkippableSeconds(). The current of nonlinear cars is integrated with the adaptive 
+	 * step battery simulation (one second steps if they are close to full or if stream storage is enabled). 
+	 * @param nSeconds
+	 */
+	private void skipSeconds(int nSeconds) {
+		int k = state.currentTimeslot;
+		for (PowerAssignment powerAssignment : state.getCurrentPowerAssignments()) {
+			Car car = powerAssignment.car;
+			if (car.isFullyCharged()) {
+				continue;
+			}
+			
+			double[] ampereHours = new double[3];
+			if (car.carBattery.getNonlinearCharging() == false) {
+				car.addChargedCapacity(nSeconds, powerAssignment.getPhase1() + powerAssignment.getPhase2() + powerAssignment.getPhase3());
+				for (int j=1;j<=3;j++) {
+					ampereHours[j-1] = EnergyUtil.getAmpereHours(nSeconds, powerAssignment.getPhaseByInt(j));
+				}
+			}
+			else {
+				double chargedAh;
+				if (streamListener != null) {
+					// Same one second steps as in updateState() so that the stream is the same as without skipping
+					double lastChargedCapacity = car.getChargedCapacity();
+					double current = powerAssignment.getPhase1() + powerAssignment.getPhase2() + powerAssignment.getPhase3();
+					for (int i=0;i<nSeconds;i++) {
+						car.addChargedCapacity(1, current);
+					}
+					chargedAh = car.getChargedCapacity() - lastChargedCapacity;
+				}
+				else {
+					double maxCurrentAllowed = getNonlinearMaxCurrentAllowed(powerAssignment);
+					BatterySim sim = createBatterySimForSkipping(car, isCloseToFull(car, nSeconds, maxCurrentAllowed) == false);
+					sim.simulateNextSteps(nSeconds, maxCurrentAllowed);
+					chargedAh = sim.getChargedAh();
+					car.setChargedCapacity(car.getChargedCapacity() + chargedAh);
+				}
+				for (int j=1;j<=3;j++) {
+					ampereHours[j-1] = chargedAh / CONSTANTS.CHARGING_EFFICIENCY * car.canLoadPhase(j) / car.sumUsedPhases;
+				}
+			}
+			
+			for (int j=1;j<=3;j++) {
+				simulationResult.addVariableP(powerAssignment.chargingStation.getId(), j, k, ampereHours[j-1]);
+				simulationResult.addToCarInputCurrents(car, k, ampereHours[j-1]);
+				simulationResult.addToChargingStationOutputCurrents(powerAssignment.chargingStation, k, ampereHours[j-1]);
+			}
+		}
+	}
+	
 	public void updateState(int t) {
 		// Update power assignments based on currentPlan of cars
 		// every second
@@ -404,10 +664,7 @@ public class Simulation implements Loggable {
 				// How much current will the car use at k? If nonlinear charging is active, 
 				// car may decide based on exponential function (based on CV phase in CCCV)
 				
-				// First check if a plan exists. If no plan exists, use infrastructure/car maximums 
-				double plannedCurrent = (car.getCurrentPlan() != null) ? 
-						Math.max(0, car.getCurrentPlan()[k]) : // plans may be initialized at all slots with -1. This is obviously not the current to be assigned
-						Math.min(car.sumUsedPhases * chargingStation.fusePhase1, car.sumUsedPhases * car.maxCurrentPerPhase);
+				double plannedCurrent = getPlannedCurrent(car, chargingStation, k);
 						
 				// Next use this as input for (potential) nonlinear charging, the constant current in CCCV
 				double maxBatteryCurrent = (car.carBattery.getNonlinearCharging()) ?
@@ -441,6 +698,13 @@ public class Simulation implements Loggable {
 		}
 	}
 	
+	private double getPlannedCurrent(Car car, ChargingStation chargingStation, int k) {
+		// First check if a plan exists. If no plan exists, use infrastructure/car maximums 
+		return (car.getCurrentPlan() != null) ? 
+				Math.max(0, car.getCurrentPlan()[k]) : // plans may be initialized at all slots with -1. This is obviously not the current to be assigned
+				Math.min(car.sumUsedPhases * chargingStation.fusePhase1, car.sumUsedPhases * car.maxCurrentPerPhase);
+	}
+	
 	/**
 	 * Update model: car.chargedCapacity
 	 * @param t
@@ -516,6 +780,10 @@ public class Simulation implements Loggable {
 		return timedEvents;
 	}
 
+	public SimulationContext getContext() {
+		return context;
+	}
+	
 	public State getState() {
 		return state;
 	}
@@ -534,6 +802,40 @@ public class Simulation implements Loggable {
 		this.enableJSONStorage = enableJSONStorage;
 	}
 
+	public String getStreamStorageFilePath() {
+		return streamStorageFilePath;
+	}
+
+	/**
+	 * If set before init(), the aggregated current and current plan limit are written to filePath during simulate() 
+	 * (see SimulationListenerStream). Unlike CSV storage, memory does not grow with the number of simulated seconds. 
+	 * With time skipping, seconds in which the current of a nonlinear car tapers are not skipped so that the stream 
+	 * is the same as with one second steps. 
+	 * @param filePath null disables stream storage
+	 * @param resolutionSeconds E.g. 60 for min/mean/max per minute, 1 for one row per second
+	 */
+	public void setStreamStorage(String filePath, int resolutionSeconds) {
+		this.streamStorageFilePath = filePath;
+		this.streamStorageResolutionSeconds = resolutionSeconds;
+	}
+
+	public boolean isTimeSkippingEnabled() {
+		return enableTimeSkipping;
+	}
+
+	/**
+	 * If enabled, simulate() only simulates seconds with events and the first second of each timeslot. 
+	 * Charging in the seconds in between is integrated at once (exactly for linear cars, with the adaptive step battery 
+	 * simulation for nonlinear cars). State listeners and validation are only called for simulated seconds. 
+	 * 
+	 * Charged Ah differ from one second steps by rounding errors only for linear cars and by less than 1e-3Ah per car and hour for 
+	 * nonlinear cars (adaptiveStepTolerance). 
+	 * @param enableTimeSkipping
+	 */
+	public void setEnableTimeSkipping(boolean enableTimeSkipping) {
+		this.enableTimeSkipping = enableTimeSkipping;
+	}
+
 	public boolean isCSVStorageEnabled() {
 		return enableCSVStorage;
 	}
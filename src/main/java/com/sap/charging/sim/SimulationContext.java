@@ -0,0 +1,329 @@
+package com.sap.charging.sim;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+import com.sap.charging.sim.event.Event;
+import com.sap.charging.util.LogSink;
+
+/**
+ * Mutable state of a single simulation run or server request (verbosities, log sink, counters of strategy reactions, battery simulations, 
+ * fuse tree validations, violations, reschedules and planned capacity cache lookups) which used to be kept in global statics.
+ *
+ * A context is bound to the current thread with run(...) or call(...), code called in between (strategies, state, validation, battery simulations)
+ * uses SimulationContext.current(). A context must only be used by one thread at a time.
+ * If no context is bound the global context is used: New contexts start with its verbosities and its counters are atomic since it is shared 
+ * by all threads.
+ */
+public class SimulationContext {
+
+	private static final SimulationContext global = new SimulationContext(true, 2, 2, 1);
+	private static final ThreadLocal<SimulationContext> bound = new ThreadLocal<>();
+
+	private final boolean isGlobal;
+	private volatile int verbosity;
+	private volatile int lpVerbosity;
+	private volatile int rVerbosity;
+	private LogSink logSink = LogSink.STDOUT;
+	private ReactionListener reactionListener;
+
+	// Indices of the counters
+	private static final int STRATEGY_REACTIONS = 0;
+	private static final int BATTERY_SIMULATIONS = 1;
+	private static final int BATTERY_SIMULATION_STEPS = 2;
+	private static final int FUSE_VALIDATIONS = 3;
+	private static final int FUSE_VALIDATIONS_AT_TIMESLOT = 4;
+	private static final int VIOLATIONS_FOUND = 5;
+	private static final int VIOLATIONS_RESOLVED = 6;
+	private static final int RESCHEDULES = 7;
+	private static final int FILL_ITERATIONS = 8;
+	private static final int PLANNED_CAPACITY_CACHE_HITS = 9;
+	private static final int PLANNED_CAPACITY_CACHE_MISSES = 10;
+	private static final int N_COUNTERS = 11;
+
+	/**
+	 * Counters of a context used by one thread at a time, null for the global context
+	 */
+	private final long[] counters;
+	/**
+	 * Counters of the global context, null otherwise
+	 */
+	private final AtomicLongArray globalCounters;
+
+	/**
+	 * New context with the current verbosities of the global context
+	 */
+	public SimulationContext() {
+		this(global.getVerbosity());
+	}
+
+	/**
+	 * New context with the given verbosity, the LP and R verbosities are taken from the global context
+	 */
+	public SimulationContext(int verbosity) {
+		this(false, verbosity, global.getLPVerbosity(), global.getRVerbosity());
+	}
+
+	private SimulationContext(boolean isGlobal, int verbosity, int lpVerbosity, int rVerbosity) {
+		this.isGlobal = isGlobal;
+		this.verbosity = verbosity;
+		this.lpVerbosity = lpVerbosity;
+		this.rVerbosity = rVerbosity;
+		this.counters = isGlobal ? null : new long[N_COUNTERS];
+		this.globalCounters = isGlobal ? new AtomicLongArray(N_COUNTERS) : null;
+	}
+
+	private void add(int counter, long n) {
+		if (counters != null) {
+			counters[counter] += n;
+		}
+		else {
+			globalCounters.addAndGet(counter, n);
+		}
+	}
+
+	private long get(int counter) {
+		return (counters != null) ? counters[counter] : globalCounters.get(counter);
+	}
+
+	/**
+	 * Context bound to the current thread or the global context if none is bound
+	 * @return
+	 */
+	public static SimulationContext current() {
+		SimulationContext context = bound.get();
+		return (context != null) ? context : global;
+	}
+
+	public static SimulationContext getGlobal() {
+		return global;
+	}
+
+	/**
+	 * Convenience method for Loggable implementations: Verbosity of the current context
+	 * @return
+	 */
+	public static int getCurrentVerbosity() {
+		return current().getVerbosity();
+	}
+
+	/**
+	 * Binds this context to the current thread while executing runnable. The previously bound context is restored afterwards.
+	 * @param runnable
+	 */
+	public void run(Runnable runnable) {
+		SimulationContext previous = bound.get();
+		bound.set(this);
+		try {
+			runnable.run();
+		}
+		finally {
+			restore(previous);
+		}
+	}
+
+	/**
+	 * Binds this context to the current thread while executing supplier. The previously bound context is restored afterwards.
+	 * @param supplier
+	 * @return Result of supplier
+	 */
+	public <T> T call(Supplier<T> supplier) {
+		SimulationContext previous = bound.get();
+		bound.set(this);
+		try {
+			return supplier.get();
+		}
+		finally {
+			restore(previous);
+		}
+	}
+
+	private static void restore(SimulationContext previous) {
+		if (previous != null) {
+			bound.set(previous);
+		}
+		else {
+			bound.remove();
+		}
+	}
+
+	public boolean isGlobal() {
+		return isGlobal;
+	}
+
+	/**
+	 * 2: Print everything
+	 * 1: Print unique things (e.g. constructor, start simulation)
+	 * 0: Print nothing
+	 */
+	public int getVerbosity() {
+		return verbosity;
+	}
+	public void setVerbosity(int verbosity) {
+		this.verbosity = verbosity;
+	}
+
+	/**
+	 * Verbosity of InstanceLP and the LP solvers (default 2)
+	 */
+	public int getLPVerbosity() {
+		return lpVerbosity;
+	}
+	public void setLPVerbosity(int lpVerbosity) {
+		this.lpVerbosity = lpVerbosity;
+	}
+
+	/**
+	 * Verbosity of RConnector (default 1)
+	 */
+	public int getRVerbosity() {
+		return rVerbosity;
+	}
+	public void setRVerbosity(int rVerbosity) {
+		this.rVerbosity = rVerbosity;
+	}
+
+	/**
+	 * Destination of messages logged by Loggable implementations (default: System.out)
+	 */
+	public LogSink getLogSink() {
+		return logSink;
+	}
+	public void setLogSink(LogSink logSink) {
+		this.logSink = logSink;
+	}
+
+	/**
+	 * Notified of the duration of each strategy reaction (e.g. to record latency metrics), may be null
+	 */
+	public ReactionListener getReactionListener() {
+		return reactionListener;
+	}
+	public void setReactionListener(ReactionListener reactionListener) {
+		this.reactionListener = reactionListener;
+	}
+
+	public void incrementStrategyReactions() {
+		add(STRATEGY_REACTIONS, 1);
+	}
+	/**
+	 * Called by Strategy.react(...) after reacting to an event
+	 * @param event
+	 * @param durationNanos
+	 */
+	public void onStrategyReaction(Event event, long durationNanos) {
+		if (reactionListener != null) {
+			reactionListener.onReaction(event, durationNanos);
+		}
+	}
+	public void incrementBatterySimulations() {
+		add(BATTERY_SIMULATIONS, 1);
+	}
+	public void incrementBatterySimulationSteps() {
+		add(BATTERY_SIMULATION_STEPS, 1);
+	}
+	public void incrementFuseValidations(boolean atTimeslot) {
+		add(atTimeslot ? FUSE_VALIDATIONS_AT_TIMESLOT : FUSE_VALIDATIONS, 1);
+	}
+	public void addViolationsFound(int nViolations) {
+		add(VIOLATIONS_FOUND, nViolations);
+	}
+	public void incrementViolationsResolved() {
+		add(VIOLATIONS_RESOLVED, 1);
+	}
+	public void incrementReschedules() {
+		add(RESCHEDULES, 1);
+	}
+	public void addFillIterations(int nIterations) {
+		add(FILL_ITERATIONS, nIterations);
+	}
+	public void incrementPlannedCapacityCacheLookups(boolean hit) {
+		add(hit ? PLANNED_CAPACITY_CACHE_HITS : PLANNED_CAPACITY_CACHE_MISSES, 1);
+	}
+
+	/**
+	 * Number of events a strategy reacted to
+	 */
+	public long getStrategyReactions() {
+		return get(STRATEGY_REACTIONS);
+	}
+	/**
+	 * Number of BatterySim instances created
+	 */
+	public long getBatterySimulations() {
+		return get(BATTERY_SIMULATIONS);
+	}
+	/**
+	 * Number of evaluated battery currents (one per simulated step or table lookup)
+	 */
+	public long getBatterySimulationSteps() {
+		return get(BATTERY_SIMULATION_STEPS);
+	}
+	/**
+	 * Number of fuse tree validations of the current power assignments
+	 */
+	public long getFuseValidations() {
+		return get(FUSE_VALIDATIONS);
+	}
+	/**
+	 * Number of fuse tree validations of planned currents at a timeslot
+	 */
+	public long getFuseValidationsAtTimeslot() {
+		return get(FUSE_VALIDATIONS_AT_TIMESLOT);
+	}
+	/**
+	 * Number of timeslots with a fuse tree violation found while planning (a timeslot violated again after rescheduling counts again)
+	 */
+	public long getViolationsFound() {
+		return get(VIOLATIONS_FOUND);
+	}
+	/**
+	 * Number of violations resolved by rescheduling cars
+	 */
+	public long getViolationsResolved() {
+		return get(VIOLATIONS_RESOLVED);
+	}
+	/**
+	 * Number of cars rescheduled to resolve violations
+	 */
+	public long getReschedules() {
+		return get(RESCHEDULES);
+	}
+	/**
+	 * Number of timeslots visited while filling charging plans
+	 */
+	public long getFillIterations() {
+		return get(FILL_ITERATIONS);
+	}
+	public long getPlannedCapacityCacheHits() {
+		return get(PLANNED_CAPACITY_CACHE_HITS);
+	}
+	public long getPlannedCapacityCacheMisses() {
+		return get(PLANNED_CAPACITY_CACHE_MISSES);
+	}
+
+	public void resetCounters() {
+		for (int counter=0;counter<N_COUNTERS;counter++) {
+			if (counters != null) {
+				counters[counter] = 0;
+			}
+			else {
+				globalCounters.set(counter, 0);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SimulationContext: verbosity=" + getVerbosity() + ", strategyReactions=" + getStrategyReactions() + ", batterySimulations=" + getBatterySimulations() +
+				", batterySimulationSteps=" + getBatterySimulationSteps() + ", fuseValidations=" + getFuseValidations() +
+				", fuseValidationsAtTimeslot=" + getFuseValidationsAtTimeslot() + ", violationsFound=" + getViolationsFound() + 
+				", violationsResolved=" + getViolationsResolved() + ", reschedules=" + getReschedules() + ", fillIterations=" + getFillIterations() + 
+				", plannedCapacityCacheHits=" + getPlannedCapacityCacheHits() + ", plannedCapacityCacheMisses=" + getPlannedCapacityCacheMisses();
+	}
+
+	public interface ReactionListener {
+		void onReaction(Event event, long durationNanos);
+	}
+
+}
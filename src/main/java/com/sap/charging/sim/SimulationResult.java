@@ -24,7 +24,7 @@ public class SimulationResult extends Instance implements Loggable {
 
 	@Override
 	public int getVerbosity() {
-		return Simulation.verbosity;
+		return SimulationContext.getCurrentVerbosity();
 	}
 	
 	private final State state;
@@ -0,0 +1,145 @@
+package com.sap.charging.sim.batch;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Combined report of all runs of a SimulationBatchRunner. Aggregates only consider successful runs.
+ */
+public class SimulationBatchReport {
+
+	private final List<SimulationBatchResult> results;
+	private final int parallelism;
+	private final double wallTime;
+
+	SimulationBatchReport(List<SimulationBatchResult> results, int parallelism, double wallTime) {
+		this.results = Collections.unmodifiableList(results);
+		this.parallelism = parallelism;
+		this.wallTime = wallTime;
+	}
+
+	/**
+	 * Results in the order of the seeds
+	 */
+	public List<SimulationBatchResult> getResults() {
+		return results;
+	}
+
+	public SimulationBatchResult getResult(int seed) {
+		for (SimulationBatchResult result : results) {
+			if (result.seed == seed) {
+				return result;
+			}
+		}
+		return null;
+	}
+
+	public int getNumberRuns() {
+		return results.size();
+	}
+
+	public int getNumberFailedRuns() {
+		int result = 0;
+		for (SimulationBatchResult run : results) {
+			if (run.isSuccessful() == false) {
+				result++;
+			}
+		}
+		return result;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Wall time of the complete batch (s)
+	 */
+	public double getWallTime() {
+		return wallTime;
+	}
+
+	/**
+	 * Sum of the wall times of all runs (s), i.e. the approximate time of running sequentially
+	 */
+	public double getSumTimeTotal() {
+		return getSum(r -> r.timeTotal, false);
+	}
+
+	public double getSumCharged() {
+		return getSum(r -> r.sumCharged, true);
+	}
+
+	public double getMeanSumCharged() {
+		return getMean(r -> r.sumCharged);
+	}
+
+	public double getMinSumCharged() {
+		return getExtreme(r -> r.sumCharged, true);
+	}
+
+	public double getMaxSumCharged() {
+		return getExtreme(r -> r.sumCharged, false);
+	}
+
+	public double getMeanSumMissingCapacity() {
+		return getMean(r -> r.sumMissingCapacity);
+	}
+
+	/**
+	 * Share of fully charged cars over all successful runs
+	 */
+	public double getShareCarsFullyCharged() {
+		double nCars = getSum(r -> r.nCars, true);
+		return (nCars > 0) ? getSum(r -> r.nCarsFullyCharged, true) / nCars : 0;
+	}
+
+	public double getMeanTimeStrategy() {
+		return getMean(r -> r.timeStrategy);
+	}
+
+	public long getSumBatterySimulationSteps() {
+		return (long) getSum(r -> r.batterySimulationSteps, true);
+	}
+
+	private double getSum(ToDoubleFunction<SimulationBatchResult> value, boolean onlySuccessful) {
+		double sum = 0;
+		for (SimulationBatchResult result : results) {
+			if (onlySuccessful == false || result.isSuccessful()) {
+				sum += value.applyAsDouble(result);
+			}
+		}
+		return sum;
+	}
+
+	private double getMean(ToDoubleFunction<SimulationBatchResult> value) {
+		int nSuccessful = getNumberRuns() - getNumberFailedRuns();
+		return (nSuccessful > 0) ? getSum(value, true) / nSuccessful : 0;
+	}
+
+	private double getExtreme(ToDoubleFunction<SimulationBatchResult> value, boolean min) {
+		double result = min ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+		for (SimulationBatchResult run : results) {
+			if (run.isSuccessful()) {
+				result = min ? Math.min(result, value.applyAsDouble(run)) : Math.max(result, value.applyAsDouble(run));
+			}
+		}
+		return Double.isInfinite(result) ? 0 : result;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("SimulationBatchReport: runs=" + getNumberRuns() + ", failed=" + getNumberFailedRuns() +
+				", parallelism=" + parallelism + ", wallTime=" + wallTime + "s, sumTimeTotal=" + getSumTimeTotal() + "s\n");
+		builder.append("sumCharged: mean=" + getMeanSumCharged() + ", min=" + getMinSumCharged() + ", max=" + getMaxSumCharged() +
+				", meanSumMissingCapacity=" + getMeanSumMissingCapacity() + ", shareCarsFullyCharged=" + getShareCarsFullyCharged() +
+				", meanTimeStrategy=" + getMeanTimeStrategy() + "s\n");
+		for (SimulationBatchResult result : results) {
+			builder.append(result.toString() + "\n");
+		}
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,94 @@
+package com.sap.charging.sim.batch;
+
+import com.sap.charging.model.Car;
+import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
+
+/**
+ * Result of a single run of a SimulationBatchRunner. All values except times are deterministic per seed.
+ */
+public class SimulationBatchResult {
+
+	public final int seed;
+
+	/**
+	 * Null if the run succeeded
+	 */
+	public final RuntimeException exception;
+
+	public final int nCars;
+	public final int nCarsFullyCharged;
+	/**
+	 * Sum of charged Ah (as seen by the infrastructure, see SimulationResult.getSumCharged())
+	 */
+	public final double sumCharged;
+	/**
+	 * Sum of Ah charged by the cars
+	 */
+	public final double sumChargedCapacity;
+	public final double sumMissingCapacity;
+
+	public final long batterySimulations;
+	public final long batterySimulationSteps;
+	public final long fuseValidations;
+
+	/**
+	 * Time spent in the strategy (s)
+	 */
+	public final double timeStrategy;
+	/**
+	 * Wall time of the complete run (s)
+	 */
+	public final double timeTotal;
+
+	private SimulationBatchResult(int seed, RuntimeException exception, int nCars, int nCarsFullyCharged, double sumCharged,
+			double sumChargedCapacity, double sumMissingCapacity, SimulationContext context, double timeStrategy, double timeTotal) {
+		this.seed = seed;
+		this.exception = exception;
+		this.nCars = nCars;
+		this.nCarsFullyCharged = nCarsFullyCharged;
+		this.sumCharged = sumCharged;
+		this.sumChargedCapacity = sumChargedCapacity;
+		this.sumMissingCapacity = sumMissingCapacity;
+		this.batterySimulations = context.getBatterySimulations();
+		this.batterySimulationSteps = context.getBatterySimulationSteps();
+		this.fuseValidations = context.getFuseValidations() + context.getFuseValidationsAtTimeslot();
+		this.timeStrategy = timeStrategy;
+		this.timeTotal = timeTotal;
+	}
+
+	static SimulationBatchResult fromSimulation(int seed, Simulation simulation, SimulationContext context, double timeTotal) {
+		int nCarsFullyCharged = 0;
+		double sumChargedCapacity = 0;
+		double sumMissingCapacity = 0;
+		for (Car car : simulation.getDataSim().getCars()) {
+			if (car.isFullyCharged()) {
+				nCarsFullyCharged++;
+			}
+			sumChargedCapacity += car.getChargedCapacity();
+			sumMissingCapacity += car.getMissingCapacity();
+		}
+		return new SimulationBatchResult(seed, null, simulation.getDataSim().getCars().size(), nCarsFullyCharged,
+				simulation.getSimulationResult().getSumCharged(), sumChargedCapacity, sumMissingCapacity, context,
+				simulation.getSimulationResult().timeSolution.getTime(), timeTotal);
+	}
+
+	static SimulationBatchResult fromException(int seed, RuntimeException exception, SimulationContext context, double timeTotal) {
+		return new SimulationBatchResult(seed, exception, 0, 0, 0, 0, 0, context, 0, timeTotal);
+	}
+
+	public boolean isSuccessful() {
+		return exception == null;
+	}
+
+	@Override
+	public String toString() {
+		if (isSuccessful() == false) {
+			return "seed=" + seed + ": failed with " + exception;
+		}
+		return "seed=" + seed + ": nCars=" + nCars + ", nCarsFullyCharged=" + nCarsFullyCharged + ", sumCharged=" + sumCharged +
+				", sumChargedCapacity=" + sumChargedCapacity + ", sumMissingCapacity=" + sumMissingCapacity +
+				", batterySimulationSteps=" + batterySimulationSteps + ", timeStrategy=" + timeStrategy + "s, timeTotal=" + timeTotal + "s";
+	}
+
+}
@@ -0,0 +1,119 @@
+package com.sap.charging.sim.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
+
+/**
+ * Runs many simulations (one per seed) in parallel on a ForkJoinPool.
+ *
+ * Each run gets its own SimulationContext which is bound to the worker thread while the simulation is created, initialized and simulated.
+ * The factory must create all mutable objects (data, strategy) per call and derive randomness from the seed only, then results
+ * are identical to sequential runs and independent of the parallelism. Results are reported in the order of the seeds.
+ */
+public class SimulationBatchRunner {
+
+	private final int parallelism;
+	private int verbosity = 0;
+
+	/**
+	 * Uses one thread per available processor
+	 */
+	public SimulationBatchRunner() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	public SimulationBatchRunner(int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("parallelism=" + parallelism + " must be greater than 0");
+		}
+		this.parallelism = parallelism;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Verbosity of each run's SimulationContext (default 0)
+	 */
+	public int getVerbosity() {
+		return verbosity;
+	}
+	public void setVerbosity(int verbosity) {
+		this.verbosity = verbosity;
+	}
+
+	/**
+	 * Creates, initializes and simulates one simulation per seed. Exceptions of single runs are recorded in their result.
+	 * @param seeds
+	 * @param simulationFactory Called with the run's context bound to the thread, i.e. new Simulation(data, strategy) uses it
+	 * @return
+	 */
+	public SimulationBatchReport run(List<Integer> seeds, IntFunction<Simulation> simulationFactory) {
+		List<Callable<SimulationBatchResult>> tasks = new ArrayList<>(seeds.size());
+		for (int seed : seeds) {
+			tasks.add(() -> runSingle(seed, simulationFactory));
+		}
+
+		long startTime = System.nanoTime();
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		List<SimulationBatchResult> results = new ArrayList<>(seeds.size());
+		try {
+			for (Future<SimulationBatchResult> future : pool.invokeAll(tasks)) {
+				results.add(future.get());
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for simulations", e);
+		}
+		catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+		finally {
+			pool.shutdownNow();
+		}
+		double wallTime = (System.nanoTime() - startTime) / (1000.0*1000.0*1000.0);
+		return new SimulationBatchReport(results, parallelism, wallTime);
+	}
+
+	/**
+	 * Convenience method for the seeds firstSeed, ..., firstSeed+nSeeds-1
+	 */
+	public SimulationBatchReport run(int firstSeed, int nSeeds, IntFunction<Simulation> simulationFactory) {
+		List<Integer> seeds = new ArrayList<>(nSeeds);
+		for (int seed=firstSeed;seed<firstSeed+nSeeds;seed++) {
+			seeds.add(seed);
+		}
+		return run(seeds, simulationFactory);
+	}
+
+	private SimulationBatchResult runSingle(int seed, IntFunction<Simulation> simulationFactory) {
+		SimulationContext context = new SimulationContext(verbosity);
+		long startTime = System.nanoTime();
+		return context.call(() -> {
+			try {
+				Simulation simulation = simulationFactory.apply(seed);
+				simulation.init();
+				simulation.simulate();
+				return SimulationBatchResult.fromSimulation(seed, simulation, context, getSeconds(startTime));
+			}
+			catch (RuntimeException e) {
+				return SimulationBatchResult.fromException(seed, e, context, getSeconds(startTime));
+			}
+		});
+	}
+
+	private static double getSeconds(long startTime) {
+		return (System.nanoTime() - startTime) / (1000.0*1000.0*1000.0);
+	}
+
+}
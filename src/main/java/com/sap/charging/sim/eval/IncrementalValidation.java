@@ -0,0 +1,303 @@
+package com.sap.charging.sim.eval;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+import com.sap.charging.model.Car;
+import com.sap.charging.model.ChargingStation;
+import com.sap.charging.model.CompiledFuseTree;
+import com.sap.charging.model.EnergyUtil.Phase;
+import com.sap.charging.model.FuseTreeNode;
+import com.sap.charging.realTime.State;
+import com.sap.charging.realTime.model.CarAssignment;
+import com.sap.charging.realTime.model.PowerAssignment;
+import com.sap.charging.sim.SimulationContext;
+import com.sap.charging.sim.eval.exception.CarAssignmentException;
+import com.sap.charging.sim.eval.exception.FuseTreeException;
+import com.sap.charging.sim.eval.exception.ValidationException;
+
+/**
+ * Same checks as Validation.validateState(state) for a state that is validated repeatedly (e.g. every simulated second),
+ * but only what changed since the previous call is revalidated:
+ *
+ * Fuse tree: The summed consumption of each fuse is kept and updated with the difference of new, changed and removed power assignments.
+ * Only charging stations with changed power assignments and fuses above them are checked. If a fuse is (close to) broken
+ * the fuse tree is validated completely so the exception is the same as the one of Validation.validateFuseTree(state).
+ *
+ * Car assignments: Only checked if car assignments were added or removed, in O(n) (bitset of assigned charging stations, map of assigned car IDs) instead of O(n^2).
+ *
+ * Power assignments: The checks per power assignment (R3, R6-R9) are O(1) and are done for all power assignments.
+ *
+ * Every fullValidationInterval calls (and after a violation or a change of the fuse tree topology) the state is validated completely
+ * with Validation.validateState(state) and the sums are rebuilt. Changed fuse sizes are only recognized by a complete validation.
+ * If a violation is found, the state is validated completely before throwing, so the checks are done in the same order as in 
+ * Validation.validateState(state) (fuse tree, car assignments, power assignments) and the exception is the same.
+ */
+public class IncrementalValidation {
+
+	private static final Phase[] PHASES = Phase.values();
+
+	/**
+	 * Fuses whose summed consumption is this close to the limit are validated completely (rounding errors of the running sums)
+	 */
+	private static final double FULL_CHECK_MARGIN = 1e-7;
+
+	private final State state;
+
+	private int fullValidationInterval;
+	private int nValidationsSinceFull = 0;
+
+	/**
+	 * Null if the next validation is a complete validation
+	 */
+	private CompiledFuseTree fuseTree;
+
+	// Per charging station (index in compiled fuse tree): Power assignment and its currents (3 entries per charging station) included in fuseConsumption
+	private PowerAssignment[] appliedPowerAssignments;
+	private double[] appliedPhases;
+	private double[] appliedConsumptionAtGridPhase;
+
+	// Per node (3 entries per node)
+	private double[] fuseConsumption;
+	private boolean[] isDirty;
+
+	private int[] activeStations;
+	private int[] nextActiveStations;
+	private int nActiveStations;
+	private int[] changedStations;
+	private int nChangedStations;
+	private boolean hasChanges;
+	private int[] seenAtValidation;
+	private int validationNumber;
+
+	private int carAssignmentsModificationCount;
+	private final BitSet assignedChargingStations = new BitSet();
+	private final HashMap<Integer, Car> assignedCarsByID = new HashMap<>();
+
+	private final double[] consumptionAtGridPhase = new double[3];
+
+	/**
+	 * @param state
+	 * @param fullValidationInterval Every fullValidationInterval-th call validates the state completely. 1: Always validate completely (debugging), 0: Never (except after violations and topology changes).
+	 */
+	public IncrementalValidation(State state, int fullValidationInterval) {
+		this.state = state;
+		setFullValidationInterval(fullValidationInterval);
+	}
+
+	public int getFullValidationInterval() {
+		return fullValidationInterval;
+	}
+	public void setFullValidationInterval(int fullValidationInterval) {
+		if (fullValidationInterval < 0) {
+			throw new IllegalArgumentException("fullValidationInterval must not be negative: " + fullValidationInterval);
+		}
+		this.fullValidationInterval = fullValidationInterval;
+	}
+
+	/**
+	 * The next call of validateState() validates the state completely (e.g. after changing fuse sizes)
+	 */
+	public void reset() {
+		this.fuseTree = null;
+	}
+
+	/**
+	 * Throws the same exceptions as Validation.validateState(state)
+	 * @throws ValidationException
+	 */
+	public void validateState() throws ValidationException {
+		if (fuseTree == null || fuseTree != state.fuseTree.getCompiledFuseTree() ||
+				(fullValidationInterval > 0 && nValidationsSinceFull+1 >= fullValidationInterval)) {
+			validateStateCompletely();
+			return;
+		}
+
+		nValidationsSinceFull++;
+		try {
+			SimulationContext.current().incrementFuseValidations(false);
+			updateFuseConsumption();
+			validateChanges();
+			validateCarAssignments();
+			Validation.validateCarPowerAssignments(state.getCurrentPowerAssignments());
+		}
+		catch (ValidationException e) {
+			reset();
+			// E.g. a changed fuse size breaks the fuse tree but only the power assignments are checked incrementally
+			Validation.validateState(state);
+			throw e;
+		}
+		catch (RuntimeException e) {
+			reset();
+			throw e;
+		}
+	}
+
+	private void validateStateCompletely() throws ValidationException {
+		reset();
+		Validation.validateState(state);
+
+		// State is valid: Rebuild sums
+		initialize();
+		updateFuseConsumption();
+		clearChanges();
+		carAssignmentsModificationCount = state.getCarAssignmentsModificationCount();
+		nValidationsSinceFull = 0;
+	}
+
+	private void initialize() {
+		CompiledFuseTree fuseTree = state.fuseTree.getCompiledFuseTree();
+		int nNodes = fuseTree.getNumberNodes();
+		int nChargingStations = fuseTree.getNumberChargingStations();
+
+		appliedPowerAssignments = new PowerAssignment[nChargingStations];
+		appliedPhases = new double[nChargingStations*3];
+		appliedConsumptionAtGridPhase = new double[nChargingStations*3];
+		fuseConsumption = new double[nNodes*3];
+		isDirty = new boolean[nNodes];
+		activeStations = new int[nChargingStations];
+		nextActiveStations = new int[nChargingStations];
+		nActiveStations = 0;
+		changedStations = new int[nChargingStations];
+		seenAtValidation = new int[nChargingStations];
+		validationNumber = 0;
+
+		this.fuseTree = fuseTree;
+	}
+
+	/**
+	 * Applies new, changed and removed power assignments to the summed consumption of the fuses
+	 */
+	private void updateFuseConsumption() {
+		validationNumber++;
+		nChangedStations = 0;
+		hasChanges = false;
+
+		int nNextActiveStations = 0;
+		for (PowerAssignment powerAssignment : state.getCurrentPowerAssignments()) {
+			int nodeIndex = fuseTree.getNodeIndex(powerAssignment.chargingStation);
+			// Charging stations outside of the fuse tree are not checked by Validation either
+			int s = (nodeIndex >= 0) ? fuseTree.getChargingStationIndex(nodeIndex) : -1;
+			if (s < 0 || seenAtValidation[s] == validationNumber ||
+				state.getCurrentPowerAssignment(powerAssignment.chargingStation) != powerAssignment) {
+				continue;
+			}
+			seenAtValidation[s] = validationNumber;
+			nextActiveStations[nNextActiveStations++] = s;
+
+			if (appliedPowerAssignments[s] != powerAssignment ||
+				appliedPhases[s*3] != powerAssignment.getPhase1() ||
+				appliedPhases[s*3+1] != powerAssignment.getPhase2() ||
+				appliedPhases[s*3+2] != powerAssignment.getPhase3()) {
+				apply(s, powerAssignment);
+			}
+		}
+
+		// Removed power assignments
+		for (int i=0;i<nActiveStations;i++) {
+			int s = activeStations[i];
+			if (seenAtValidation[s] != validationNumber) {
+				apply(s, null);
+			}
+		}
+
+		int[] swap = activeStations;
+		activeStations = nextActiveStations;
+		nextActiveStations = swap;
+		nActiveStations = nNextActiveStations;
+	}
+
+	private void apply(int s, PowerAssignment powerAssignment) {
+		int nodeIndex = fuseTree.getChargingStationNodeIndex(s);
+		for (int p=0;p<3;p++) {
+			double consumption = (powerAssignment != null && fuseTree.isPhaseAtGridConnected(nodeIndex, p)) ?
+					powerAssignment.getCarCurrentByPhaseAtStation(PHASES[fuseTree.getStationPhase(s, p)], -1) : 0;
+			consumptionAtGridPhase[p] = consumption - appliedConsumptionAtGridPhase[s*3+p];
+			appliedConsumptionAtGridPhase[s*3+p] = consumption;
+			appliedPhases[s*3+p] = (powerAssignment != null) ? powerAssignment.getPhaseByInt(p+1) : 0;
+		}
+		for (int parentIndex = fuseTree.getParentIndex(nodeIndex); parentIndex >= 0; parentIndex = fuseTree.getParentIndex(parentIndex)) {
+			isDirty[parentIndex] = true;
+			fuseConsumption[parentIndex*3] += consumptionAtGridPhase[0];
+			fuseConsumption[parentIndex*3+1] += consumptionAtGridPhase[1];
+			fuseConsumption[parentIndex*3+2] += consumptionAtGridPhase[2];
+		}
+
+		appliedPowerAssignments[s] = powerAssignment;
+		if (powerAssignment != null) {
+			changedStations[nChangedStations++] = s;
+		}
+		hasChanges = true;
+	}
+
+	/**
+	 * Checks changed charging stations (in the order of the fuse tree) and fuses above them (by descending ID) like Validation.checkSummedChildConsumptionAtTimeslot
+	 * @throws FuseTreeException
+	 */
+	private void validateChanges() throws FuseTreeException {
+		if (hasChanges == false) {
+			return;
+		}
+
+		Arrays.sort(changedStations, 0, nChangedStations);
+		for (int i=0;i<nChangedStations;i++) {
+			int s = changedStations[i];
+			ChargingStation chargingStation = fuseTree.getChargingStation(s);
+			double[] consumptionAtStationPhase = new double[3];
+			for (int p=0;p<3;p++) {
+				consumptionAtStationPhase[p] = fuseTree.isPhaseAtStationConnected(s, p) ? appliedPhases[s*3+p] : 0;
+			}
+			if (Validation.isFuseUsageValid(chargingStation, consumptionAtStationPhase) == false) {
+				throw new FuseTreeException(chargingStation, consumptionAtStationPhase, -1);
+			}
+		}
+
+		boolean isCloseToLimit = false;
+		for (int fuseIndex : fuseTree.getFuseIndicesByIdDescending()) {
+			if (isDirty[fuseIndex] == false) {
+				continue;
+			}
+			isDirty[fuseIndex] = false;
+			FuseTreeNode fuse = fuseTree.getNode(fuseIndex);
+			isCloseToLimit |= fuseConsumption[fuseIndex*3] > fuse.getFusePhase(Phase.PHASE_1) + 1e-6 - FULL_CHECK_MARGIN ||
+				fuseConsumption[fuseIndex*3+1] > fuse.getFusePhase(Phase.PHASE_2) + 1e-6 - FULL_CHECK_MARGIN ||
+				fuseConsumption[fuseIndex*3+2] > fuse.getFusePhase(Phase.PHASE_3) + 1e-6 - FULL_CHECK_MARGIN;
+		}
+		if (isCloseToLimit) {
+			Validation.validateFuseTree(state);
+		}
+	}
+
+	private void clearChanges() {
+		Arrays.fill(isDirty, false);
+		nChangedStations = 0;
+		hasChanges = false;
+	}
+
+	/**
+	 * R4, R5 (see Validation.validateCarAssignments) if car assignments changed since the previous call
+	 * @throws CarAssignmentException
+	 */
+	private void validateCarAssignments() throws CarAssignmentException {
+		int modificationCount = state.getCarAssignmentsModificationCount();
+		if (modificationCount == carAssignmentsModificationCount) {
+			return;
+		}
+
+		assignedChargingStations.clear();
+		assignedCarsByID.clear();
+		for (CarAssignment carAssignment : state.getCurrentCarAssignments()) {
+			int nodeIndex = fuseTree.getNodeIndex(carAssignment.chargingStation);
+			boolean isCarIDAssigned = assignedCarsByID.put(carAssignment.car.getId(), carAssignment.car) != null;
+			if (isCarIDAssigned || nodeIndex < 0 || assignedChargingStations.get(nodeIndex)) {
+				// Possible duplicate (or charging station outside of the fuse tree): Compare pairwise for the same result as Validation
+				Validation.validateCarAssignments(state.getCurrentCarAssignments());
+				break;
+			}
+			assignedChargingStations.set(nodeIndex);
+		}
+		carAssignmentsModificationCount = modificationCount;
+	}
+
+}
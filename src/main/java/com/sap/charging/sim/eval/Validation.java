@@ -1,5 +1,6 @@
 package com.sap.charging.sim.eval;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -7,6 +8,7 @@ import java.util.TreeMap;
 
 import com.sap.charging.model.Car;
 import com.sap.charging.model.ChargingStation;
+import com.sap.charging.model.CompiledFuseTree;
 import com.sap.charging.model.EnergyUtil.Phase;
 import com.sap.charging.model.Fuse;
 import com.sap.charging.model.FuseTreeNode;
@@ -14,7 +16,7 @@ import com.sap.charging.realTime.State;
 import com.sap.charging.realTime.model.Assignment;
 import com.sap.charging.realTime.model.CarAssignment;
 import com.sap.charging.realTime.model.PowerAssignment;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.sim.eval.exception.CarAssignmentException;
 import com.sap.charging.sim.eval.exception.FuseTreeException;
 import com.sap.charging.sim.eval.exception.PowerAssignmentException;
@@ -22,13 +24,15 @@ import com.sap.charging.sim.eval.exception.ValidationException;
 
 public class Validation {
 
+	private static final Phase[] PHASES = Phase.values();
+
 	/**
 	 * 2: Print everything
 	 * 1: Print unique things (e.g. constructor, start simulation)
 	 * 0: Print nothing
 	 */
 	public static int getVerbosity() {
-		return Simulation.verbosity;
+		return SimulationContext.getCurrentVerbosity();
 	}
 	/**
 	 * Message will only be logged if minVerbosity >= verbosity
@@ -234,9 +238,6 @@ public class Validation {
 		return assignment;
 	}
 	
-	public static int checkSummedChildConsumption = 0;
-	public static int checkSummedChildConsumptionAtTimeslot = 0;
-	
 	/**
 	 * Initializes a new (empty) fuse consumption map
 	 * @return
@@ -249,24 +250,67 @@ public class Validation {
 	    });
 	}
 	
+	/**
+	 * Checks all charging stations and fuses of the state's fuse tree (independent of rootItem) using the compiled fuse tree.
+	 * Charging stations are checked in the order of the fuse tree, fuses by descending ID.
+	 * @param rootItem
+	 * @param state
+	 * @param timeslotToCheck If below 0 the power assignments are used, otherwise the car's plans
+	 * @throws FuseTreeException
+	 */
 	public static void checkSummedChildConsumptionAtTimeslot(FuseTreeNode rootItem, State state, 
 			int timeslotToCheck) throws FuseTreeException {
 		
-		Map<FuseTreeNode, double[]> fuseConsumptionMap = initializeFuseConsumptionMap();
+		SimulationContext.current().incrementFuseValidations(timeslotToCheck >= 0);
+		CompiledFuseTree fuseTree = state.fuseTree.getCompiledFuseTree();
 		
-		for (ChargingStation chargingStation : state.fuseTree.getListOfChargingStations()) {
-			
-			double[] consumptionAtGridPhase = getCurrentPerGridPhase(chargingStation, state, timeslotToCheck);
-			double[] consumptionAtStationPhase = getCurrentPerStationPhase(chargingStation, state, timeslotToCheck); 
+		// Summed consumption per grid phase for each fuse (flat array, 3 entries per node)
+		double[] fuseConsumption = new double[fuseTree.getNumberNodes()*3];
+		boolean[] hasConsumption = new boolean[fuseTree.getNumberNodes()];
+		double[] consumptionAtGridPhase = new double[3];
+		
+		for (int s=0;s<fuseTree.getNumberChargingStations();s++) {
+			ChargingStation chargingStation = fuseTree.getChargingStation(s);
+			Assignment assignment = getAssignment(chargingStation, state, timeslotToCheck);
+			if (assignment == null) {
+				continue;
+			}
 			
 			// Check the charging station
-			if (consumptionAtStationPhase != null && isFuseUsageValid(chargingStation, consumptionAtStationPhase) == false) {
+			double[] consumptionAtStationPhase = new double[3];
+			for (int p=0;p<3;p++) {
+				consumptionAtStationPhase[p] = fuseTree.isPhaseAtStationConnected(s, p) ? 
+						assignment.getCarCurrentByPhaseAtStation(PHASES[p], timeslotToCheck) : 0;
+			}
+			if (isFuseUsageValid(chargingStation, consumptionAtStationPhase) == false) {
 				throw new FuseTreeException(chargingStation, consumptionAtStationPhase, timeslotToCheck); 
 			}
-			updateFuseParentsConsumption(chargingStation, fuseConsumptionMap, consumptionAtGridPhase);
+			
+			// Add consumption to all parents (in the same order as updateFuseParentsConsumption)
+			int nodeIndex = fuseTree.getChargingStationNodeIndex(s);
+			for (int p=0;p<3;p++) {
+				consumptionAtGridPhase[p] = fuseTree.isPhaseAtGridConnected(nodeIndex, p) ? 
+						assignment.getCarCurrentByPhaseAtStation(PHASES[fuseTree.getStationPhase(s, p)], timeslotToCheck) : 0;
+			}
+			for (int parentIndex = fuseTree.getParentIndex(nodeIndex); parentIndex >= 0; parentIndex = fuseTree.getParentIndex(parentIndex)) {
+				hasConsumption[parentIndex] = true;
+				fuseConsumption[parentIndex*3] += consumptionAtGridPhase[0];
+				fuseConsumption[parentIndex*3+1] += consumptionAtGridPhase[1];
+				fuseConsumption[parentIndex*3+2] += consumptionAtGridPhase[2];
+			}
+		}
+		
+		for (int fuseIndex : fuseTree.getFuseIndicesByIdDescending()) {
+			if (hasConsumption[fuseIndex] == false) {
+				continue;
+			}
+			FuseTreeNode fuse = fuseTree.getNode(fuseIndex);
+			if (fuseConsumption[fuseIndex*3] > fuse.getFusePhase(Phase.PHASE_1) + 1e-6 || 
+				fuseConsumption[fuseIndex*3+1] > fuse.getFusePhase(Phase.PHASE_2) + 1e-6 || 
+				fuseConsumption[fuseIndex*3+2] > fuse.getFusePhase(Phase.PHASE_3) + 1e-6) {
+				throw new FuseTreeException(fuse, Arrays.copyOfRange(fuseConsumption, fuseIndex*3, fuseIndex*3+3), timeslotToCheck);
+			}
 		}
-		//log(3, "Consumption at k=" + timeslotToCheck + ": " + Arrays.toString(fuseConsumptionMap.get(rootItem)));
-		validateFuseUsage(fuseConsumptionMap, timeslotToCheck);
 	}
 	
 	/**
@@ -378,10 +422,15 @@ public class Validation {
 	}
 
 	public static void validateState(State state, int tempVerbosity) throws ValidationException {
-		int previousVerbosity = Simulation.verbosity;
-		Simulation.verbosity = tempVerbosity;
-		validateState(state);
-		Simulation.verbosity = previousVerbosity;
+		SimulationContext context = SimulationContext.current();
+		int previousVerbosity = context.getVerbosity();
+		context.setVerbosity(tempVerbosity);
+		try {
+			validateState(state);
+		}
+		finally {
+			context.setVerbosity(previousVerbosity);
+		}
 	}
 	
 	
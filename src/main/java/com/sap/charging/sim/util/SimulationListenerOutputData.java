@@ -2,7 +2,9 @@ package com.sap.charging.sim.util;
 
 import java.util.ArrayList;
 
+import com.sap.charging.model.Car;
 import com.sap.charging.realTime.State;
+import com.sap.charging.realTime.model.PowerAssignment;
 
 public class SimulationListenerOutputData implements SimulationListener
 {
@@ -36,21 +38,41 @@ public class SimulationListenerOutputData implements SimulationListener
      */
     public void callbackAfterUpdate(State state)
     {
-        double aggregatedCurrent = state.getCurrentPowerAssignments().stream()
-                .mapToDouble(p -> p.getPhase1()+p.getPhase2()+p.getPhase3())
-                .sum();
+        double aggregatedCurrent = getAggregatedCurrent(state);
         //double aggregatedPower = EnergyUtil.calculatePFromI(aggregatedCurrent, 1);
-        double aggregatedCurrentPlanLimit = state.getCurrentPowerAssignments().stream()
-                .map(powerAssignment -> powerAssignment.car)
-                .mapToDouble(car -> car.getCurrentPlan() != null ?
-                        car.getCurrentPlan()[state.currentTimeslot] * car.sumUsedPhases :
-                        car.maxCurrent)
-                .sum();
+        double aggregatedCurrentPlanLimit = getAggregatedCurrentPlanLimit(state);
 
         Row row = new Row(state.currentTimeSeconds, aggregatedCurrent, aggregatedCurrentPlanLimit);
         this.rows.add(row);
     }
 
+    /**
+     * Sum of the currents of all phases of all power assignments (in A)
+     */
+    public static double getAggregatedCurrent(State state)
+    {
+        double result = 0;
+        for (PowerAssignment powerAssignment : state.getCurrentPowerAssignments()) {
+            result += powerAssignment.getPhase1() + powerAssignment.getPhase2() + powerAssignment.getPhase3();
+        }
+        return result;
+    }
+
+    /**
+     * Sum of the planned currents in the current timeslot (or the max current if there is no plan) of all cars with a power assignment (in A)
+     */
+    public static double getAggregatedCurrentPlanLimit(State state)
+    {
+        double result = 0;
+        for (PowerAssignment powerAssignment : state.getCurrentPowerAssignments()) {
+            Car car = powerAssignment.car;
+            result += car.getCurrentPlan() != null ?
+                    car.getCurrentPlan()[state.currentTimeslot] * car.sumUsedPhases :
+                    car.maxCurrent;
+        }
+        return result;
+    }
+
     @Override
     // Ignore
     public void callbackBeforeUpdate(State state) {}
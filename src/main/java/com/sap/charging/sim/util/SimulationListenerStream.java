@@ -0,0 +1,262 @@
+package com.sap.charging.sim.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import com.sap.charging.realTime.State;
+
+/**
+ * Writes the aggregated current and current plan limit (see SimulationListenerOutputData) to a CSV file while the
+ * simulation runs instead of keeping one row per second in memory.
+ *
+ * With resolutionSeconds=1 the file has the same format as SimulationListenerCSV.getCSVString(). With larger resolutions
+ * there is one row per window with min, mean and max of each value (step is the first second of the window). Rows are
+ * kept in fixed size column arrays and written through a FileChannel whenever they are full, so memory does not depend
+ * on the simulated horizon. close() has to be called at the end to write the remaining rows.
+ *
+ * Seconds without callback (e.g. with time skipping, see Simulation.setEnableTimeSkipping()) keep the values of the
+ * previous callback, so windows are aggregated over all seconds (see also fillUntil()). Simulation only skips seconds
+ * in which the currents do not change if stream storage is enabled (not while the current of a nonlinear car tapers).
+ */
+public class SimulationListenerStream implements SimulationListener, AutoCloseable {
+
+	public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+	private final int resolutionSeconds;
+	private final FileChannel channel;
+
+	// Finished rows, columnwise
+	private final int[] steps;
+	private final double[] currentMin;
+	private final double[] currentMean;
+	private final double[] currentMax;
+	private final double[] currentPlanLimitMin;
+	private final double[] currentPlanLimitMean;
+	private final double[] currentPlanLimitMax;
+	private int nBufferedRows = 0;
+	private long nWrittenRows = 0;
+	private final StringBuilder text = new StringBuilder();
+
+	// Current window
+	private int windowStart = -1;
+	private int windowSeconds;
+	private double windowCurrentMin;
+	private double windowCurrentSum;
+	private double windowCurrentMax;
+	private double windowCurrentPlanLimitMin;
+	private double windowCurrentPlanLimitSum;
+	private double windowCurrentPlanLimitMax;
+
+	// Last callback
+	private int lastStep = -1;
+	private double lastCurrent;
+	private double lastCurrentPlanLimit;
+
+	private boolean closed = false;
+
+	public SimulationListenerStream(String filePath, int resolutionSeconds) {
+		this(Paths.get(filePath), resolutionSeconds, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param path File is overwritten if it exists
+	 * @param resolutionSeconds Length of the aggregation windows, 1 writes one row per second
+	 * @param bufferSize Number of rows kept in memory before they are written
+	 */
+	public SimulationListenerStream(Path path, int resolutionSeconds, int bufferSize) {
+		if (resolutionSeconds < 1) {
+			throw new IllegalArgumentException("resolutionSeconds must be at least 1: " + resolutionSeconds);
+		}
+		if (bufferSize < 1) {
+			throw new IllegalArgumentException("bufferSize must be at least 1: " + bufferSize);
+		}
+		this.resolutionSeconds = resolutionSeconds;
+		this.steps = new int[bufferSize];
+		this.currentMin = new double[bufferSize];
+		this.currentMean = new double[bufferSize];
+		this.currentMax = new double[bufferSize];
+		this.currentPlanLimitMin = new double[bufferSize];
+		this.currentPlanLimitMean = new double[bufferSize];
+		this.currentPlanLimitMax = new double[bufferSize];
+		try {
+			this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		}
+		catch (IOException e) {
+			throw new RuntimeException("Unable to open " + path, e);
+		}
+
+		if (resolutionSeconds == 1) {
+			text.append("step;current;currentPlanLimit\n");
+		}
+		else {
+			text.append("step;currentMin;currentMean;currentMax;currentPlanLimitMin;currentPlanLimitMean;currentPlanLimitMax\n");
+		}
+		write();
+	}
+
+	public int getResolutionSeconds() {
+		return resolutionSeconds;
+	}
+
+	public int getBufferSize() {
+		return steps.length;
+	}
+
+	/**
+	 * @return Number of rows written to the file so far (without header)
+	 */
+	public long getNumberOfWrittenRows() {
+		return nWrittenRows;
+	}
+
+	@Override
+	public void callbackAfterUpdate(State state) {
+		add(state.currentTimeSeconds,
+				SimulationListenerOutputData.getAggregatedCurrent(state),
+				SimulationListenerOutputData.getAggregatedCurrentPlanLimit(state));
+	}
+
+	@Override
+	// Ignore
+	public void callbackBeforeUpdate(State state) {}
+
+	/**
+	 * Adds the values of one second. Seconds since the previous call are filled with the previous values.
+	 * @param step Has to be larger than in the previous call
+	 * @param current
+	 * @param currentPlanLimit
+	 */
+	public void add(int step, double current, double currentPlanLimit) {
+		if (closed == true) {
+			throw new IllegalStateException("SimulationListenerStream is already closed.");
+		}
+		if (step <= lastStep) {
+			throw new IllegalArgumentException("step=" + step + " must be larger than the previous step=" + lastStep);
+		}
+		if (lastStep >= 0) {
+			addSeconds(lastStep + 1, step - lastStep - 1, lastCurrent, lastCurrentPlanLimit);
+		}
+		addSeconds(step, 1, current, currentPlanLimit);
+		lastStep = step;
+		lastCurrent = current;
+		lastCurrentPlanLimit = currentPlanLimit;
+	}
+
+	/**
+	 * Fills the seconds after the last call of add() up to endStep (exclusive) with the last values, e.g. at the end
+	 * of a simulation with time skipping.
+	 * @param endStep
+	 */
+	public void fillUntil(int endStep) {
+		if (lastStep >= 0 && endStep > lastStep + 1) {
+			addSeconds(lastStep + 1, endStep - lastStep - 1, lastCurrent, lastCurrentPlanLimit);
+			lastStep = endStep - 1;
+		}
+	}
+
+	private void addSeconds(int step, int nSeconds, double current, double currentPlanLimit) {
+		while (nSeconds > 0) {
+			int start = step - step % resolutionSeconds;
+			if (start != windowStart) {
+				finishWindow();
+				windowStart = start;
+				windowSeconds = 0;
+				windowCurrentMin = Double.POSITIVE_INFINITY;
+				windowCurrentSum = 0;
+				windowCurrentMax = Double.NEGATIVE_INFINITY;
+				windowCurrentPlanLimitMin = Double.POSITIVE_INFINITY;
+				windowCurrentPlanLimitSum = 0;
+				windowCurrentPlanLimitMax = Double.NEGATIVE_INFINITY;
+			}
+			int n = Math.min(nSeconds, windowStart + resolutionSeconds - step);
+			windowSeconds += n;
+			windowCurrentMin = Math.min(windowCurrentMin, current);
+			windowCurrentSum += n * current;
+			windowCurrentMax = Math.max(windowCurrentMax, current);
+			windowCurrentPlanLimitMin = Math.min(windowCurrentPlanLimitMin, currentPlanLimit);
+			windowCurrentPlanLimitSum += n * currentPlanLimit;
+			windowCurrentPlanLimitMax = Math.max(windowCurrentPlanLimitMax, currentPlanLimit);
+			step += n;
+			nSeconds -= n;
+		}
+	}
+
+	private void finishWindow() {
+		if (windowSeconds == 0) {
+			return;
+		}
+		int i = nBufferedRows;
+		steps[i] = windowStart;
+		currentMin[i] = windowCurrentMin;
+		currentMean[i] = windowCurrentSum / windowSeconds;
+		currentMax[i] = windowCurrentMax;
+		currentPlanLimitMin[i] = windowCurrentPlanLimitMin;
+		currentPlanLimitMean[i] = windowCurrentPlanLimitSum / windowSeconds;
+		currentPlanLimitMax[i] = windowCurrentPlanLimitMax;
+		windowSeconds = 0;
+		nBufferedRows++;
+		if (nBufferedRows == steps.length) {
+			flush();
+		}
+	}
+
+	/**
+	 * Writes all finished windows (not the current one).
+	 */
+	public void flush() {
+		for (int i=0;i<nBufferedRows;i++) {
+			text.append(steps[i]);
+			if (resolutionSeconds == 1) {
+				text.append(';').append(currentMean[i]).append(';').append(currentPlanLimitMean[i]);
+			}
+			else {
+				text.append(';').append(currentMin[i]).append(';').append(currentMean[i]).append(';').append(currentMax[i])
+					.append(';').append(currentPlanLimitMin[i]).append(';').append(currentPlanLimitMean[i]).append(';').append(currentPlanLimitMax[i]);
+			}
+			text.append('\n');
+		}
+		nWrittenRows += nBufferedRows;
+		nBufferedRows = 0;
+		write();
+	}
+
+	private void write() {
+		ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.US_ASCII));
+		text.setLength(0);
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+		catch (IOException e) {
+			throw new RuntimeException("Unable to write simulation rows", e);
+		}
+	}
+
+	/**
+	 * Writes the last (possibly incomplete) window and closes the file.
+	 */
+	@Override
+	public void close() {
+		if (closed == true)
+			return;
+		closed = true;
+		try {
+			finishWindow();
+			flush();
+		}
+		finally {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				throw new RuntimeException("Unable to close simulation rows file", e);
+			}
+		}
+	}
+
+}
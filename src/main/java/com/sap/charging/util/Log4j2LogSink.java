@@ -0,0 +1,81 @@
+package com.sap.charging.util;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Writes messages of Loggable implementations to a log4j2 logger instead of System.out.
+ * Verbosity levels are mapped to log levels (see getLevel(...)), messages of disabled levels are not built at all (see LogSink.isEnabled(...)).
+ * Messages written without a new line are buffered (per thread) until the line is completed.
+ */
+public class Log4j2LogSink implements LogSink {
+
+	public static final String DEFAULT_LOGGER_NAME = "com.sap.charging.optimizer";
+
+	private final Logger logger;
+	private final ThreadLocal<StringBuilder> partialLine = ThreadLocal.withInitial(StringBuilder::new);
+
+	public Log4j2LogSink() {
+		this(LogManager.getLogger(DEFAULT_LOGGER_NAME));
+	}
+
+	public Log4j2LogSink(Logger logger) {
+		this.logger = logger;
+	}
+
+	public Logger getLogger() {
+		return logger;
+	}
+
+	/**
+	 * 0: WARN (messages that are always printed, e.g. errors)
+	 * 1: INFO
+	 * 2: DEBUG
+	 * 3 and more: TRACE
+	 * @param minVerbosity
+	 * @return
+	 */
+	public static Level getLevel(int minVerbosity) {
+		if (minVerbosity <= 0) {
+			return Level.WARN;
+		}
+		if (minVerbosity == 1) {
+			return Level.INFO;
+		}
+		if (minVerbosity == 2) {
+			return Level.DEBUG;
+		}
+		return Level.TRACE;
+	}
+
+	@Override
+	public boolean isEnabled(int minVerbosity) {
+		return logger.isEnabled(getLevel(minVerbosity));
+	}
+
+	@Override
+	public void write(String message, boolean insertNewLine) {
+		write(1, message, insertNewLine);
+	}
+
+	@Override
+	public void write(int minVerbosity, String message, boolean insertNewLine) {
+		StringBuilder line = partialLine.get();
+		if (insertNewLine == false) {
+			line.append(message);
+			return;
+		}
+		if (line.length() > 0) {
+			message = line.append(message).toString();
+			line.setLength(0);
+		}
+		logger.log(getLevel(minVerbosity), message);
+	}
+
+	@Override
+	public void write(int minVerbosity, String message, Throwable throwable) {
+		logger.log(getLevel(minVerbosity), message, throwable);
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.sap.charging.util;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Destination of messages printed by Loggable implementations (see SimulationContext.getLogSink())
+ */
+@FunctionalInterface
+public interface LogSink {
+
+	public static final LogSink STDOUT = (message, insertNewLine) -> {
+		if (insertNewLine) {
+			System.out.println(message);
+		}
+		else {
+			System.out.print(message);
+		}
+	};
+
+	public static final LogSink NONE = new LogSink() {
+		@Override
+		public void write(String message, boolean insertNewLine) {
+		}
+		@Override
+		public boolean isEnabled(int minVerbosity) {
+			return false;
+		}
+	};
+
+	void write(String message, boolean insertNewLine);
+
+	/**
+	 * Whether messages of this verbosity level are written at all. Checked by Loggable before a message is built.
+	 * Default: true (the verbosity of the Loggable decides)
+	 * @param minVerbosity
+	 */
+	default boolean isEnabled(int minVerbosity) {
+		return true;
+	}
+
+	/**
+	 * Writes a message of the verbosity level minVerbosity. Default: write(message, insertNewLine)
+	 * @param minVerbosity
+	 * @param message
+	 * @param insertNewLine
+	 */
+	default void write(int minVerbosity, String message, boolean insertNewLine) {
+		write(message, insertNewLine);
+	}
+
+	/**
+	 * Writes a message of the verbosity level minVerbosity together with a throwable (complete line).
+	 * Default: write(minVerbosity, message, true) with the stack trace appended to the message
+	 * @param minVerbosity
+	 * @param message
+	 * @param throwable
+	 */
+	default void write(int minVerbosity, String message, Throwable throwable) {
+		StringWriter stackTrace = new StringWriter();
+		throwable.printStackTrace(new PrintWriter(stackTrace));
+		write(minVerbosity, message + System.lineSeparator() + stackTrace.toString().trim(), true);
+	}
+
+}
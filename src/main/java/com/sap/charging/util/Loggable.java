@@ -1,18 +1,45 @@
 package com.sap.charging.util;
 
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.message.ParameterizedMessage;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.sap.charging.sim.SimulationContext;
 
+/**
+ * Logging with verbosity levels. Messages are only built if isLogEnabled(minVerbosity) is true:
+ * In hot paths use the supplier-based log(minVerbosity, () -> ...) or the parameterized log(minVerbosity, "k={}, plan={}", k, plan)
+ * overloads (or check isLogEnabled(...)) instead of concatenating strings.
+ */
 public interface Loggable {
 
 	@JsonIgnore
 	int getVerbosity();
 	
+	/**
+	 * Default: Log sink of the SimulationContext bound to the current thread
+	 */
+	@JsonIgnore
+	default LogSink getLogSink() {
+		return SimulationContext.current().getLogSink();
+	}
+	
+	/**
+	 * True if getVerbosity() >= minVerbosity and the log sink writes messages of this level (e.g. log level of a log4j2 logger)
+	 * @param minVerbosity
+	 * @return
+	 */
+	default boolean isLogEnabled(int minVerbosity) {
+		return getVerbosity() >= minVerbosity && getLogSink().isEnabled(minVerbosity);
+	}
+	
 	default void println(String message) {
-		System.out.println(message);
+		getLogSink().write(message, true);
 	}
 	
 	default void print(String message) {
-		System.out.print(message);
+		getLogSink().write(message, false);
 	}
 	
 	default void printMessage(String message, boolean insertNewLine) {
@@ -25,11 +52,18 @@ public interface Loggable {
 	}
 	
 	default void printWithClassName(String message, boolean insertNewLine) {
-		StackTraceElement[] stackTraceElements = Thread.currentThread().getStackTrace();
-		String className = stackTraceElements[3].getClassName();
+		printMessage(getCallerName() + " " + message, insertNewLine);
+	}
 		
-		className = className.substring(className.lastIndexOf(".")+1);
-		printMessage(className + "::" + stackTraceElements[3].getMethodName() + " " + message, insertNewLine);
+	/**
+	 * Writes the message with the level minVerbosity to the log sink (without checking isLogEnabled(minVerbosity))
+	 * @param minVerbosity
+	 * @param message
+	 * @param showClassName Prefix the message with the calling class and method
+	 * @param insertNewLine
+	 */
+	default void writeLog(int minVerbosity, String message, boolean showClassName, boolean insertNewLine) {
+		getLogSink().write(minVerbosity, showClassName ? getCallerName() + " " + message : message, insertNewLine);
 	}
 	
 	/**
@@ -38,35 +72,110 @@ public interface Loggable {
 	 * @param message
 	 */
 	default void log(int minVerbosity, String message) {
-		if (getVerbosity() >= minVerbosity) {
-			printWithClassName(message, true);
+		if (isLogEnabled(minVerbosity)) {
+			writeLog(minVerbosity, message, true, true);
+		}
+	}
+	
+	/**
+	 * Like log(minVerbosity, message) but the message is only built if isLogEnabled(minVerbosity)
+	 * @param minVerbosity
+	 * @param message
+	 */
+	default void log(int minVerbosity, Supplier<String> message) {
+		if (isLogEnabled(minVerbosity)) {
+			writeLog(minVerbosity, message.get(), true, true);
 		}
 	}
 	
 	default void log(int minVerbosity, String message, boolean showClassName) {
-		if (getVerbosity() >= minVerbosity) {
-			if (showClassName==false) {
-				printMessage(message, true);
-			}
-			else if (showClassName==true) {
-				printWithClassName(message, true);
-			}
+		if (isLogEnabled(minVerbosity)) {
+			writeLog(minVerbosity, message, showClassName, true);
 		}
 	}
 	
 	default void log(int minVerbosity, String message, boolean showClassName, boolean insertNewLine) {
-		if (getVerbosity() >= minVerbosity) {
-			if (showClassName==false) {
-				printMessage(message, insertNewLine);
-			}
-			else if (showClassName==true) {
-				printWithClassName(message, insertNewLine);
-			}
+		if (isLogEnabled(minVerbosity)) {
+			writeLog(minVerbosity, message, showClassName, insertNewLine);
 		}
 	}
 	
 	default void log(int minVerbosity, Object message) {
-		log(minVerbosity, message.toString());
+		if (isLogEnabled(minVerbosity)) {
+			writeLog(minVerbosity, message.toString(), true, true);
+		}
+	}
+	
+	/**
+	 * Parameterized message: Each {} in pattern is replaced by the next argument (arrays are formatted like Arrays.toString(...)).
+	 * The message is only formatted if isLogEnabled(minVerbosity).
+	 * Note: A single boolean argument selects log(minVerbosity, message, showClassName) instead.
+	 * @param minVerbosity
+	 * @param pattern
+	 * @param arg
+	 */
+	default void log(int minVerbosity, String pattern, Object arg) {
+		if (isLogEnabled(minVerbosity)) {
+			writeLog(minVerbosity, ParameterizedMessage.format(pattern, new Object[] {arg}), true, true);
+		}
+	}
+	
+	default void log(int minVerbosity, String pattern, Object arg1, Object arg2) {
+		if (isLogEnabled(minVerbosity)) {
+			writeLog(minVerbosity, ParameterizedMessage.format(pattern, new Object[] {arg1, arg2}), true, true);
+		}
+	}
+	
+	default void log(int minVerbosity, String pattern, Object arg1, Object arg2, Object arg3) {
+		if (isLogEnabled(minVerbosity)) {
+			writeLog(minVerbosity, ParameterizedMessage.format(pattern, new Object[] {arg1, arg2, arg3}), true, true);
+		}
+	}
+	
+	default void log(int minVerbosity, String pattern, Object arg1, Object arg2, Object arg3, Object arg4) {
+		if (isLogEnabled(minVerbosity)) {
+			writeLog(minVerbosity, ParameterizedMessage.format(pattern, new Object[] {arg1, arg2, arg3, arg4}), true, true);
+		}
+	}
+	
+	/**
+	 * Parameterized message with any number of arguments (the arguments array is allocated by the caller, prefer the overloads with up to 4 arguments in hot paths)
+	 * @param minVerbosity
+	 * @param pattern
+	 * @param args
+	 */
+	default void log(int minVerbosity, String pattern, Object... args) {
+		if (isLogEnabled(minVerbosity)) {
+			writeLog(minVerbosity, ParameterizedMessage.format(pattern, args), true, true);
+		}
+	}
+	
+	/**
+	 * Parameterized message (see log(minVerbosity, pattern, args)) followed by the throwable, e.g. its stack trace (see LogSink.write(minVerbosity, message, throwable))
+	 * @param minVerbosity
+	 * @param throwable
+	 * @param pattern
+	 * @param args
+	 */
+	default void log(int minVerbosity, Throwable throwable, String pattern, Object... args) {
+		if (isLogEnabled(minVerbosity)) {
+			getLogSink().write(minVerbosity, getCallerName() + " " + ParameterizedMessage.format(pattern, args), throwable);
+		}
+	}
+	
+	/**
+	 * @return "ClassName::methodName" of the first caller outside of Loggable
+	 */
+	static String getCallerName() {
+		StackTraceElement[] stackTraceElements = Thread.currentThread().getStackTrace();
+		for (StackTraceElement element : stackTraceElements) {
+			String className = element.getClassName();
+			if (className.equals(Thread.class.getName()) || className.equals(Loggable.class.getName())) {
+				continue;
+			}
+			return className.substring(className.lastIndexOf(".")+1) + "::" + element.getMethodName();
+		}
+		return "";
 	}
 	
 }
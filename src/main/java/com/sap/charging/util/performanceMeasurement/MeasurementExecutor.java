@@ -1,5 +1,7 @@
 package com.sap.charging.util.performanceMeasurement;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.function.Consumer;
 
 import com.sap.charging.util.Loggable;
@@ -8,7 +10,7 @@ import com.sap.charging.util.sqlite.SQLiteDB;
 public abstract class MeasurementExecutor<PerformanceMeasurementType extends PerformanceMeasurement<PerformanceMeasurementType>> 	
 	implements Consumer<PerformanceMeasurementType>, Loggable {
 
-	protected final SQLiteDB db;
+	protected final SQLiteDB db; // Shared by all threads, e.g. a SQLiteWriteBehindDB so that inserts don't wait for the disk
 	
 	protected final boolean forceMeasurement;
 	
@@ -26,4 +28,33 @@ public abstract class MeasurementExecutor<PerformanceMeasurementType extends Per
 		return 2;
 	}
 	
+	public boolean isForceMeasurement() {
+		return forceMeasurement;
+	}
+	
+	/**
+	 * Rows that accept(measurement) inserts into the DB, by default the measurement itself. 
+	 * Executors that insert clones (e.g. with a different method) override this.  
+	 * @param measurement
+	 * @return
+	 */
+	protected List<PerformanceMeasurementType> getRows(PerformanceMeasurementType measurement) {
+		return Collections.singletonList(measurement);
+	}
+	
+	/**
+	 * Used to skip measurements before they are scheduled (see MeasurementRunner)
+	 * @param measurement
+	 * @return True if all rows of the measurement exist and forceMeasurement is false
+	 */
+	public boolean isMeasured(PerformanceMeasurementType measurement) {
+		if (forceMeasurement == true) 
+			return false;
+		for (PerformanceMeasurementType row : getRows(measurement)) {
+			if (db.rowExists(row) == false) 
+				return false;
+		}
+		return true;
+	}
+	
 }
@@ -0,0 +1,192 @@
+package com.sap.charging.util.performanceMeasurement;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sap.charging.util.Loggable;
+
+/**
+ * Runs the measurements of a grid (see ParameterGrid) on a fixed number of threads.
+ *
+ * Measurements that are already in the DB are skipped before they are scheduled (see MeasurementExecutor.isMeasured()),
+ * so an interrupted run continues where it stopped when it is started again. Results are written by the executor as soon
+ * as each measurement is done (use a SQLiteWriteBehindDB so that threads don't wait for the disk).
+ *
+ * With a timeout, the thread of a measurement is interrupted once it runs longer. Simulations stop at the next step, other
+ * code (e.g. external solvers) only if it reacts to interrupts.
+ */
+public class MeasurementRunner<PerformanceMeasurementType extends PerformanceMeasurement<PerformanceMeasurementType>> implements Loggable {
+
+	public static class Summary {
+		public final int total;
+		private final AtomicInteger skipped = new AtomicInteger();
+		private final AtomicInteger succeeded = new AtomicInteger();
+		private final AtomicInteger failed = new AtomicInteger();
+		private final AtomicInteger timedOut = new AtomicInteger();
+
+		private Summary(int total) {
+			this.total = total;
+		}
+		public int getSkipped() {
+			return skipped.get();
+		}
+		public int getSucceeded() {
+			return succeeded.get();
+		}
+		public int getFailed() {
+			return failed.get();
+		}
+		public int getTimedOut() {
+			return timedOut.get();
+		}
+		public int getDone() {
+			return getSkipped() + getSucceeded() + getFailed() + getTimedOut();
+		}
+		@Override
+		public String toString() {
+			return getDone() + "/" + total + " (skipped=" + getSkipped() + ", succeeded=" + getSucceeded()
+				+ ", failed=" + getFailed() + ", timedOut=" + getTimedOut() + ")";
+		}
+	}
+
+	private final MeasurementExecutor<PerformanceMeasurementType> executor;
+	private final int nThreads;
+	private int timeoutSeconds = 0;
+	private int verbosity = 1;
+
+	public MeasurementRunner(MeasurementExecutor<PerformanceMeasurementType> executor, int nThreads) {
+		if (nThreads < 1) {
+			throw new IllegalArgumentException("nThreads must be at least 1: " + nThreads);
+		}
+		this.executor = executor;
+		this.nThreads = nThreads;
+	}
+
+	/**
+	 * @param timeoutSeconds Maximum time per measurement, 0 for no limit (default)
+	 */
+	public void setTimeoutSeconds(int timeoutSeconds) {
+		this.timeoutSeconds = timeoutSeconds;
+	}
+	public int getTimeoutSeconds() {
+		return timeoutSeconds;
+	}
+
+	/**
+	 * Verbosity of the progress and error messages of this runner (default 1)
+	 */
+	@Override
+	public int getVerbosity() {
+		return verbosity;
+	}
+	public void setVerbosity(int verbosity) {
+		this.verbosity = verbosity;
+	}
+
+	/**
+	 * Blocks until all measurements are done
+	 * @param measurements
+	 * @return
+	 */
+	public Summary run(List<PerformanceMeasurementType> measurements) {
+		Summary summary = new Summary(measurements.size());
+		log(1, "Running {} measurements with nThreads={}, timeoutSeconds={} (forceMeasurement={})...",
+				measurements.size(), nThreads, timeoutSeconds, executor.isForceMeasurement());
+
+		AtomicInteger threadIndex = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(nThreads, runnable -> new Thread(runnable, "measurement-" + threadIndex.incrementAndGet()));
+		ScheduledExecutorService timeouts = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "measurement-timeouts");
+			thread.setDaemon(true);
+			return thread;
+		});
+		// Measurements are only handed to the pool when a thread is (almost) free, so skipping continues while running
+		Semaphore slots = new Semaphore(2 * nThreads);
+		try {
+			for (PerformanceMeasurementType measurement : measurements) {
+				if (executor.isMeasured(measurement)) {
+					summary.skipped.incrementAndGet();
+					log(2, "Skipping {} (already measured)", measurement);
+					continue;
+				}
+				slots.acquire();
+				pool.execute(() -> {
+					try {
+						runMeasurement(measurement, timeouts, summary);
+					}
+					finally {
+						slots.release();
+					}
+				});
+			}
+			pool.shutdown();
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+		}
+		catch (InterruptedException e) {
+			pool.shutdownNow();
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while running measurements: " + summary, e);
+		}
+		finally {
+			timeouts.shutdownNow();
+		}
+		log(1, "Finished measurements: {}", summary);
+		return summary;
+	}
+
+	private void runMeasurement(PerformanceMeasurementType measurement, ScheduledExecutorService timeouts, Summary summary) {
+		Thread thread = Thread.currentThread();
+		AtomicBoolean timedOut = new AtomicBoolean(false);
+		AtomicBoolean finished = new AtomicBoolean(false); // Guards the interrupt, so it can't hit the next measurement of the thread
+		ScheduledFuture<?> timeout = null;
+		if (timeoutSeconds > 0) {
+			timeout = timeouts.schedule(() -> {
+				synchronized (finished) {
+					if (finished.get() == false) {
+						timedOut.set(true);
+						thread.interrupt();
+					}
+				}
+			}, timeoutSeconds, TimeUnit.SECONDS);
+		}
+		long start = System.currentTimeMillis();
+		RuntimeException error = null;
+		try {
+			executor.accept(measurement);
+		}
+		catch (RuntimeException e) {
+			error = e;
+		}
+		finally {
+			if (timeout != null) {
+				timeout.cancel(false);
+			}
+			synchronized (finished) {
+				finished.set(true);
+			}
+			Thread.interrupted();
+		}
+		
+		// Executors may catch the exception of the interrupted measurement themselves
+		if (timedOut.get()) {
+			summary.timedOut.incrementAndGet();
+			log(0, "Measurement timed out after {}s: {}", timeoutSeconds, measurement);
+		}
+		else if (error != null) {
+			summary.failed.incrementAndGet();
+			log(0, error, "Error during measurement {}", measurement);
+		}
+		else {
+			summary.succeeded.incrementAndGet();
+		}
+		log(1, "Done {} in {}s, progress: {}", measurement, (System.currentTimeMillis() - start) / 1000.0, summary);
+	}
+
+}
@@ -0,0 +1,109 @@
+package com.sap.charging.util.performanceMeasurement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Cartesian product of parameter values, replaces nested for loops over parameter arrays, e.g.
+ * new ParameterGrid().add("seed", seeds).add("nCars", nCarsParams).expand(cell -> new PerformanceMeasurement...(cell.getInt("nCars"), cell.getInt("seed")))
+ * The first parameter added is the outermost loop.
+ */
+public class ParameterGrid {
+
+	public static class Cell {
+		private final Map<String, Object> values;
+		private Cell(Map<String, Object> values) {
+			this.values = values;
+		}
+		public Object get(String name) {
+			if (values.containsKey(name) == false) {
+				throw new IllegalArgumentException("Unknown parameter: " + name);
+			}
+			return values.get(name);
+		}
+		public int getInt(String name) {
+			return ((Number) get(name)).intValue();
+		}
+		public double getDouble(String name) {
+			return ((Number) get(name)).doubleValue();
+		}
+		public boolean getBoolean(String name) {
+			return (Boolean) get(name);
+		}
+		public String getString(String name) {
+			return (String) get(name);
+		}
+		@Override
+		public String toString() {
+			return values.toString();
+		}
+	}
+
+	private final List<String> names = new ArrayList<>();
+	private final List<Object[]> values = new ArrayList<>();
+
+	public ParameterGrid add(String name, Object... values) {
+		if (names.contains(name)) {
+			throw new IllegalArgumentException("Parameter was already added: " + name);
+		}
+		names.add(name);
+		this.values.add(values.clone());
+		return this;
+	}
+	public ParameterGrid add(String name, int[] values) {
+		return add(name, Arrays.stream(values).boxed().toArray());
+	}
+	public ParameterGrid add(String name, double[] values) {
+		return add(name, Arrays.stream(values).boxed().toArray());
+	}
+	public ParameterGrid add(String name, boolean[] values) {
+		return add(name, IntStream.range(0, values.length).mapToObj(i -> values[i]).toArray());
+	}
+
+	/**
+	 * @return Number of cells (product of the number of values per parameter)
+	 */
+	public int size() {
+		int result = 1;
+		for (Object[] parameterValues : values) {
+			result = Math.multiplyExact(result, parameterValues.length);
+		}
+		return result;
+	}
+
+	public List<Cell> getCells() {
+		List<Cell> result = new ArrayList<>(size());
+		int[] indices = new int[names.size()];
+		for (int cell=0;cell<size();cell++) {
+			Map<String, Object> cellValues = new HashMap<>();
+			for (int p=0;p<names.size();p++) {
+				cellValues.put(names.get(p), values.get(p)[indices[p]]);
+			}
+			result.add(new Cell(cellValues));
+
+			// Increment the last parameter first (innermost loop)
+			for (int p=names.size()-1;p>=0;p--) {
+				indices[p]++;
+				if (indices[p] < values.get(p).length)
+					break;
+				indices[p] = 0;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param factory Builds the measurement of a cell
+	 * @return One measurement per cell
+	 */
+	public <T> List<T> expand(Function<Cell, T> factory) {
+		return getCells().stream().map(factory).collect(Collectors.toList());
+	}
+
+}
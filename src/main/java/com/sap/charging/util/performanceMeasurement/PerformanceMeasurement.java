@@ -6,8 +6,6 @@ import com.sap.charging.util.sqlite.SQLiteTableRow;
 
 public abstract class PerformanceMeasurement<SubType extends PerformanceMeasurement<SubType>> extends SQLiteTableRow  {
 
-	@SQLiteAttributeIgnore
-	public static int measurementNumber;
 	@SQLiteAttributeIgnore
 	public static int nMeasurements;
 	
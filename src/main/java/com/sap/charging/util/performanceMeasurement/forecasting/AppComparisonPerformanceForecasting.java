@@ -6,15 +6,15 @@ import java.util.List;
 import java.util.stream.IntStream;
 
 import com.sap.charging.opt.CONSTANTS;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.configuration.Options;
-import com.sap.charging.util.sqlite.SQLiteDB;
+import com.sap.charging.util.sqlite.SQLiteWriteBehindDB;
 
 public class AppComparisonPerformanceForecasting {
 
 	
 	public static void main(String[] args) {
-		Simulation.verbosity = 0;
+		SimulationContext.getGlobal().setVerbosity(0);
 		
 		int nThreads = 30;
 		System.out.println("AppComparisonPerformanceForecasting::main Init with nThreads=" + nThreads + "...");
@@ -55,9 +55,10 @@ public class AppComparisonPerformanceForecasting {
 		
 		// Stream jobs in parallel
 		System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "" + nThreads);
-		SQLiteDB db = new SQLiteDB("jdbc:sqlite:gen/performanceMeasurements.db");
-		//measurementJobs.stream().forEach(new MeasurementExecutor(db));
-		//measurementJobs.stream().forEach(new MeasurementExecutorINDIN2018(db));
-		measurementJobs.parallelStream().forEach(new MeasurementExecutorForecasting(db, false));	
+		try (SQLiteWriteBehindDB db = new SQLiteWriteBehindDB("jdbc:sqlite:gen/performanceMeasurements.db")) { // Closing writes the remaining queued measurements
+			//measurementJobs.stream().forEach(new MeasurementExecutor(db));
+			//measurementJobs.stream().forEach(new MeasurementExecutorINDIN2018(db));
+			measurementJobs.parallelStream().forEach(new MeasurementExecutorForecasting(db, false));	
+		}
 	}
 }
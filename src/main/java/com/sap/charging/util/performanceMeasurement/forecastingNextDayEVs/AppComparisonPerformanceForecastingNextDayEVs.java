@@ -7,15 +7,15 @@ import java.util.stream.IntStream;
 import com.sap.charging.opt.CONSTANTS;
 import com.sap.charging.realTime.model.forecasting.soc.CarSoCForecastLinearModel;
 import com.sap.charging.realTime.model.forecasting.soc.CarSoCForecastXGBoost;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.configuration.Options;
-import com.sap.charging.util.sqlite.SQLiteDB;
+import com.sap.charging.util.sqlite.SQLiteWriteBehindDB;
 
 public class AppComparisonPerformanceForecastingNextDayEVs {
 
 	public static void main(String[] args) {
 		
-		Simulation.verbosity = 0;
+		SimulationContext.getGlobal().setVerbosity(0);
 		
 		int nThreads = 30;
 		System.out.println("AppComparisonPerformanceForecastingNextDayEVs::main Init with nThreads=" + nThreads + "...");
@@ -56,18 +56,19 @@ public class AppComparisonPerformanceForecastingNextDayEVs {
 		
 		// Stream jobs in parallel
 		System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "" + nThreads);
-		SQLiteDB db = new SQLiteDB("jdbc:sqlite:gen/performanceMeasurements.db");
-		//measurementJobs.stream().forEach(new MeasurementExecutor(db));
-		//measurementJobs.stream().forEach(new MeasurementExecutorINDIN2018(db));
+		try (SQLiteWriteBehindDB db = new SQLiteWriteBehindDB("jdbc:sqlite:gen/performanceMeasurements.db")) { // Closing writes the remaining queued measurements
+			//measurementJobs.stream().forEach(new MeasurementExecutor(db));
+			//measurementJobs.stream().forEach(new MeasurementExecutorINDIN2018(db));
 		
-		CarSoCForecastLinearModel carSoCForecastLinearModel = new CarSoCForecastLinearModel("gen/models/socForecastLinearModel.csv");
-		CarSoCForecastLinearModel carSoCForecastLinearModelAbs = new CarSoCForecastLinearModel("gen/models/socForecastLinearModelAbs.csv");
+			CarSoCForecastLinearModel carSoCForecastLinearModel = new CarSoCForecastLinearModel("gen/models/socForecastLinearModel.csv");
+			CarSoCForecastLinearModel carSoCForecastLinearModelAbs = new CarSoCForecastLinearModel("gen/models/socForecastLinearModelAbs.csv");
 		
-		CarSoCForecastXGBoost carSoCForecastXGBoost = new CarSoCForecastXGBoost("gen/models/socForecastXGBoost.bin");
-		CarSoCForecastXGBoost carSoCForecastXGBoostAbs = new CarSoCForecastXGBoost("gen/models/socForecastXGBoostAbs.bin");
+			CarSoCForecastXGBoost carSoCForecastXGBoost = new CarSoCForecastXGBoost("gen/models/socForecastXGBoost.bin");
+			CarSoCForecastXGBoost carSoCForecastXGBoostAbs = new CarSoCForecastXGBoost("gen/models/socForecastXGBoostAbs.bin");
 		
-		measurementJobs.stream().forEach(new MeasurementExecutorForecastingNextDayEVs(db, false, 
-				carSoCForecastLinearModel, carSoCForecastLinearModelAbs, carSoCForecastXGBoost, carSoCForecastXGBoostAbs));	
+			measurementJobs.stream().forEach(new MeasurementExecutorForecastingNextDayEVs(db, false, 
+					carSoCForecastLinearModel, carSoCForecastLinearModelAbs, carSoCForecastXGBoost, carSoCForecastXGBoostAbs));	
+		}
 		
 	}
 
@@ -3,13 +3,13 @@ package com.sap.charging.util.performanceMeasurement.paperINDIN2018;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.configuration.Options;
 
 public class AppComparisonPerformanceINDIN2018 {
 
 	public static void main(String[] args) {
-		Simulation.verbosity = 1;
+		SimulationContext.getGlobal().setVerbosity(1);
 		
 		int nThreads = 30;
 		System.out.println("AppComparisonPerformanceINDIN2018::main Init with nThreads=" + nThreads + "...");
@@ -1,5 +1,8 @@
 package com.sap.charging.util.performanceMeasurement.paperJournal2018;
 
+import java.util.Collections;
+import java.util.List;
+
 import org.json.simple.JSONObject;
 
 import com.sap.charging.dataGeneration.DataGenerator;
@@ -32,10 +35,19 @@ public class MeasurementExecutorPaperJournal2018  extends MeasurementExecutor<Pe
 		super(db, forceMeasurement);
 	}
 	
+	@Override
+	protected List<PerformanceMeasurementPaperJournal2018> getRows(PerformanceMeasurementPaperJournal2018 measurementTemp) {
+		return Collections.singletonList(getMeasurement(measurementTemp));
+	}
+	
+	private PerformanceMeasurementPaperJournal2018 getMeasurement(PerformanceMeasurementPaperJournal2018 measurementTemp) {
+		return measurementTemp.cloneWithMethod(measurementTemp.methodDayahead + "+" + measurementTemp.methodRealtime);
+	}
+	
 	@Override
 	public void accept(PerformanceMeasurementPaperJournal2018 measurementTemp) {
 		
-		final PerformanceMeasurementPaperJournal2018 measurement = measurementTemp.cloneWithMethod(measurementTemp.methodDayahead + "+" + measurementTemp.methodRealtime);
+		final PerformanceMeasurementPaperJournal2018 measurement = getMeasurement(measurementTemp);
 		
 		if (forceMeasurement == true && db.rowExists(measurement) == true) {
 			db.deleteRow(measurement);
@@ -9,11 +9,10 @@ import com.sap.charging.dataGeneration.DataGenerator;
 import com.sap.charging.opt.CONSTANTS;
 import com.sap.charging.opt.heuristics.InstanceHeuristicRelSoCLP;
 import com.sap.charging.opt.lp.Equation;
-import com.sap.charging.opt.lp.InstanceLP;
 import com.sap.charging.realTime.StrategyFromDayahead;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.configuration.Options;
-import com.sap.charging.util.sqlite.SQLiteDB;
+import com.sap.charging.util.sqlite.SQLiteWriteBehindDB;
 
 public class AppComparisonPerformancePaperJournal2018SensitivityAnalysis {
 
@@ -24,8 +23,8 @@ public class AppComparisonPerformancePaperJournal2018SensitivityAnalysis {
 	
 	
 	public static void main(String[] args) {
-		InstanceLP.verbosity = 2;
-		Simulation.verbosity = 0;
+		SimulationContext.getGlobal().setLPVerbosity(2);
+		SimulationContext.getGlobal().setVerbosity(0);
 		
 		int nThreads = 10;
 		System.out.println("AppComparisonPerformancePaperJournal2018SensitivityAnalysis::main Init with nThreads=" + nThreads + "...");
@@ -101,10 +100,11 @@ public class AppComparisonPerformancePaperJournal2018SensitivityAnalysis {
 		
 		// Stream jobs in parallel
 		System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "" + nThreads);
-		SQLiteDB db = new SQLiteDB("jdbc:sqlite:gen/performanceMeasurements.db");
-		//measurementJobs.parallelStream().forEach(new MeasurementExecutorRandom2018_06(db, false));	
+		try (SQLiteWriteBehindDB db = new SQLiteWriteBehindDB("jdbc:sqlite:gen/performanceMeasurements.db")) { // Closing writes the remaining queued measurements
+			//measurementJobs.parallelStream().forEach(new MeasurementExecutorRandom2018_06(db, false));	
 	
-		measurementJobs.stream().forEach(new MeasurementExecutorPaperJournal2018SensitivityAnalysis(db, false, allRestrictions));	
+			measurementJobs.stream().forEach(new MeasurementExecutorPaperJournal2018SensitivityAnalysis(db, false, allRestrictions));	
+		}
 	}
 	
 	private static double[][] longSolvingTimes = {
@@ -7,6 +7,7 @@ import com.sap.charging.dataGeneration.DataGenerator;
 import com.sap.charging.dataGeneration.DataGeneratorRandom;
 import com.sap.charging.dataGeneration.DataRandomizer;
 import com.sap.charging.opt.heuristics.InstanceHeuristicRelSoCLP;
+import com.sap.charging.opt.lp.util.SolverSCIP;
 import com.sap.charging.opt.solution.model.DayaheadSchedule;
 import com.sap.charging.realTime.Strategy;
 import com.sap.charging.realTime.StrategyAlgorithmic;
@@ -56,7 +57,9 @@ public class MeasurementExecutorPaperJournal2018Time  extends MeasurementExecuto
 			if (measurement.methodDayahead.equals(InstanceHeuristicRelSoCLP.getMethodStatic())) {
 				//InstanceHeuristicAbsSoCLP instance = new InstanceHeuristicAbsSoCLP(dataDayahead);
 				InstanceHeuristicRelSoCLP instance = new InstanceHeuristicRelSoCLP(dataDayahead);
-				instance.solver.useScip600 = true;
+				SolverSCIP solver = new SolverSCIP();
+				solver.useScip600 = true;
+				instance.setSolver(solver);
 				instance.constructProblem();
 				
 				
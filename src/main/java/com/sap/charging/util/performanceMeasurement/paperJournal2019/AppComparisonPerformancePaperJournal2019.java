@@ -7,10 +7,9 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
 import com.sap.charging.opt.CONSTANTS;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.configuration.Options;
-import com.sap.charging.util.r.RConnector;
-import com.sap.charging.util.sqlite.SQLiteDB;
+import com.sap.charging.util.sqlite.SQLiteWriteBehindDB;
 
 public class AppComparisonPerformancePaperJournal2019 {
 
@@ -19,8 +18,8 @@ public class AppComparisonPerformancePaperJournal2019 {
 	public static int totalNumberOfSimulations = -1;
 	
 	public static void main(String[] args) {
-		Simulation.verbosity = 0;
-		RConnector.verbosity = 0;
+		SimulationContext.getGlobal().setVerbosity(0);
+		SimulationContext.getGlobal().setRVerbosity(0);
 		
 		int nThreads = 30;
 		System.out.println("AppComparisonPerformancePaperJournal2019::main Init with nThreads=" + nThreads + "...");
@@ -69,8 +68,9 @@ public class AppComparisonPerformancePaperJournal2019 {
 		
 		// Stream jobs in parallel
 		System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "" + nThreads);
-		SQLiteDB db = new SQLiteDB("jdbc:sqlite:gen/performanceMeasurements.db");
-		measurementJobs.parallelStream().forEach(new MeasurementExecutorPaperJournal2019(db, false));	
+		try (SQLiteWriteBehindDB db = new SQLiteWriteBehindDB("jdbc:sqlite:gen/performanceMeasurements.db")) { // Closing writes the remaining queued measurements
+			measurementJobs.parallelStream().forEach(new MeasurementExecutorPaperJournal2019(db, false));	
+		}
 	
 		System.out.println("Ran total=" + total);
 		//measurementJobs.stream().forEach(new MeasurementExecutorPaperJournal2019(db, false));	
@@ -1,6 +1,5 @@
 package com.sap.charging.util.performanceMeasurement.paperJournal2020NonlinearCharging;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -8,9 +7,11 @@ import java.util.stream.IntStream;
 
 import com.sap.charging.opt.CONSTANTS;
 import com.sap.charging.realTime.StrategyAlgorithmic;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.configuration.Options;
-import com.sap.charging.util.sqlite.SQLiteDB;
+import com.sap.charging.util.performanceMeasurement.MeasurementRunner;
+import com.sap.charging.util.performanceMeasurement.ParameterGrid;
+import com.sap.charging.util.sqlite.SQLiteWriteBehindDB;
 
 public class AppComparisonPerformancePaperJournal2020NonlinearCharging {
 
@@ -19,7 +20,7 @@ public class AppComparisonPerformancePaperJournal2020NonlinearCharging {
 	public static int totalNumberOfSimulations = -1;
 
 	public static void main(String[] args) {
-		Simulation.verbosity = 1;
+		SimulationContext.getGlobal().setVerbosity(1);
 
 		int nThreads = 5;
 		System.out.println("AppComparisonPerformancePaperJournal2020NonlinearCharging::main Init with nThreads=" + nThreads + "...");
@@ -31,14 +32,10 @@ public class AppComparisonPerformancePaperJournal2020NonlinearCharging {
 		CONSTANTS.FUSE_LEVEL_1_SIZE = fuseSize;
 		CONSTANTS.FUSE_LEVEL_2_SIZE = fuseSize;
 
-		List<PerformanceMeasurementPaperJournal2020NonlinearCharging> measurementJobs = new ArrayList<>();
-
 		int[] nCarsParams = Arrays.stream(IntStream.range(21, 41).toArray()).map(x -> x*10).toArray(); // NORMAL OPERATION
 		//int[] nCarsParams = Arrays.stream(IntStream.range(15, 16).toArray()).map(x -> x*10).toArray(); // SENSITIVITY ANALYIS
 		//int[] nCarsParams = Arrays.stream(IntStream.range(1, 2).toArray()).toArray(); // TESTING
 		
-		int[] nChargingStationsParams = new int[] { -1 }; // Constant
-
 		boolean[] rescheduleCarsWith0AParams = new boolean[] {
 				false
 		};
@@ -60,37 +57,30 @@ public class AppComparisonPerformancePaperJournal2020NonlinearCharging {
 		int[] seeds = IntStream.range(1, 2).toArray(); // Variable
 		
 
-		int total = nCarsParams.length * nChargingStationsParams.length * seeds.length * methods.length * startSoCParams.length * rescheduleCarsWith0AParams.length;
+		ParameterGrid grid = new ParameterGrid()
+				.add("seed", seeds)
+				.add("startSoC", startSoCParams)
+				.add("nCars", nCarsParams)
+				.add("rescheduleCarsWith0A", rescheduleCarsWith0AParams)
+				.add("method", (Object[]) methods);
+		List<PerformanceMeasurementPaperJournal2020NonlinearCharging> measurementJobs = grid.expand(cell -> 
+				new PerformanceMeasurementPaperJournal2020NonlinearCharging(cell.getString("method"), cell.getInt("nCars"), cell.getInt("nCars"), 
+						cell.getBoolean("rescheduleCarsWith0A"), cell.getDouble("startSoC"), fuseSize, cell.getInt("seed")));
+
+		int total = measurementJobs.size();
 		totalNumberOfSimulations = total;
 		System.out.println("Running total=" + total);
 
-		for (int seed : seeds) {
-			
-			for (double startSoC : startSoCParams) {
-				for (int nCars : nCarsParams) {
-					for (boolean rescheduleCarsWith0A : rescheduleCarsWith0AParams) {
-						for (String method : methods) {
-							PerformanceMeasurementPaperJournal2020NonlinearCharging job = new PerformanceMeasurementPaperJournal2020NonlinearCharging(
-									method, nCars, nCars, rescheduleCarsWith0A, startSoC, fuseSize, seed);
-							measurementJobs.add(job);
-						}
-					}
-
-				}
-			}
-
+		// Measurements that are already in the DB are skipped, so the run can be resumed by starting it again
+		MeasurementRunner.Summary summary;
+		try (SQLiteWriteBehindDB db = new SQLiteWriteBehindDB("jdbc:sqlite:gen/performanceMeasurements.db")) { // Closing writes the remaining queued measurements
+			MeasurementRunner<PerformanceMeasurementPaperJournal2020NonlinearCharging> runner = new MeasurementRunner<>(
+					new MeasurementExecutorPaperJournal2020NonlinearCharging(db, false), nThreads);
+			runner.setTimeoutSeconds(2*3600);
+			summary = runner.run(measurementJobs);
 		}
 
-		// Collections.shuffle(measurementJobs); // Shuffle so that jobs are not done
-		// round robin but randomly
-
-		// Stream jobs in parallel
-		System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "" + nThreads);
-		SQLiteDB db = new SQLiteDB("jdbc:sqlite:gen/performanceMeasurements.db");
-		measurementJobs.parallelStream().forEach(new MeasurementExecutorPaperJournal2020NonlinearCharging(db, false));
-		//measurementJobs.stream().forEach(new MeasurementExecutorPaperJournal2020NonlinearCharging(db, false));
-
-		System.out.println("Ran total=" + total);
+		System.out.println("Ran " + summary);
 	}
 
 	public static synchronized String getSimulationIndexString() {
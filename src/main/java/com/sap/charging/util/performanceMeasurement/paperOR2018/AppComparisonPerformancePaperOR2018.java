@@ -5,17 +5,16 @@ import java.util.List;
 import java.util.stream.IntStream;
 
 import com.sap.charging.opt.CONSTANTS;
-import com.sap.charging.opt.lp.InstanceLP;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.configuration.Options;
-import com.sap.charging.util.sqlite.SQLiteDB;
+import com.sap.charging.util.sqlite.SQLiteWriteBehindDB;
 
 public class AppComparisonPerformancePaperOR2018 {
 
 	public static void main(String[] args) {
 
-		InstanceLP.verbosity = 2;
-		Simulation.verbosity = 1;
+		SimulationContext.getGlobal().setLPVerbosity(2);
+		SimulationContext.getGlobal().setVerbosity(1);
 		
 		int nThreads = 20;
 		System.out.println("AppComparisonPerformancePaperOR2018::main Init with nThreads=" + nThreads + "...");
@@ -55,10 +54,11 @@ public class AppComparisonPerformancePaperOR2018 {
 		
 		// Stream jobs in parallel
 		System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "" + nThreads);
-		SQLiteDB db = new SQLiteDB("jdbc:sqlite:gen/performanceMeasurements.db");
-		//measurementJobs.parallelStream().forEach(new MeasurementExecutorRandom2018_06(db, false));	
+		try (SQLiteWriteBehindDB db = new SQLiteWriteBehindDB("jdbc:sqlite:gen/performanceMeasurements.db")) { // Closing writes the remaining queued measurements
+			//measurementJobs.parallelStream().forEach(new MeasurementExecutorRandom2018_06(db, false));	
 	
-		measurementJobs.stream().forEach(new MeasurementExecutorPaperOR2018(db, false));	
+			measurementJobs.stream().forEach(new MeasurementExecutorPaperOR2018(db, false));	
+		}
 		
 	}
 
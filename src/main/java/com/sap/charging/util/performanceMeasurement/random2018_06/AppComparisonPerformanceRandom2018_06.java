@@ -6,10 +6,9 @@ import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
-import com.sap.charging.opt.lp.InstanceLP;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.configuration.Options;
-import com.sap.charging.util.sqlite.SQLiteDB;
+import com.sap.charging.util.sqlite.SQLiteWriteBehindDB;
 
 public class AppComparisonPerformanceRandom2018_06 {
 
@@ -20,8 +19,8 @@ public class AppComparisonPerformanceRandom2018_06 {
 	
 	public static void main(String[] args) {
 		
-		InstanceLP.verbosity = 2;
-		Simulation.verbosity = 0;
+		SimulationContext.getGlobal().setLPVerbosity(2);
+		SimulationContext.getGlobal().setVerbosity(0);
 		
 		int nThreads = 20;
 		System.out.println("AppComparisonPerformanceForecasting::main Init with nThreads=" + nThreads + "...");
@@ -62,9 +61,10 @@ public class AppComparisonPerformanceRandom2018_06 {
 		
 		// Stream jobs in parallel
 		System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "" + nThreads);
-		SQLiteDB db = new SQLiteDB("jdbc:sqlite:gen/performanceMeasurements.db");
-		//measurementJobs.parallelStream().forEach(new MeasurementExecutorRandom2018_06(db, false));	
-		measurementJobs.stream().forEach(new MeasurementExecutorRandom2018_06(db, false));	
+		try (SQLiteWriteBehindDB db = new SQLiteWriteBehindDB("jdbc:sqlite:gen/performanceMeasurements.db")) { // Closing writes the remaining queued measurements
+			//measurementJobs.parallelStream().forEach(new MeasurementExecutorRandom2018_06(db, false));	
+			measurementJobs.stream().forEach(new MeasurementExecutorRandom2018_06(db, false));	
+		}
 	}
 
 }
@@ -5,12 +5,11 @@ import org.rosuda.REngine.REXPMismatchException;
 import org.rosuda.REngine.Rserve.RConnection;
 import org.rosuda.REngine.Rserve.RserveException;
 
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.Loggable;
 
 public class RConnector implements Loggable {
 	
-	public static int verbosity = 1;
-	
 	private RConnection rConnection;
 	
 	private RConnection getRConnection() {
@@ -76,7 +75,7 @@ public class RConnector implements Loggable {
 
 	@Override
 	public int getVerbosity() {
-		return verbosity;
+		return SimulationContext.current().getRVerbosity();
 	}
 	
 }
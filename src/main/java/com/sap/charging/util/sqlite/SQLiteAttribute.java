@@ -1,5 +1,9 @@
 package com.sap.charging.util.sqlite;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
 public class SQLiteAttribute {
 	
 	private final Object value;
@@ -31,6 +35,21 @@ public class SQLiteAttribute {
 		return value;
 	}
 	
+	/**
+	 * Sets the value as parameter of a prepared statement (instead of getValueString(), so no quoting or escaping is needed)
+	 * @param statement
+	 * @param parameterIndex 1-indexed
+	 * @throws SQLException
+	 */
+	public void bind(PreparedStatement statement, int parameterIndex) throws SQLException {
+		if (value == null) 
+			statement.setNull(parameterIndex, Types.NULL);
+		else if (dataType.equals("BOOLEAN")) 
+			statement.setInt(parameterIndex, (boolean) value ? 1 : 0);
+		else 
+			statement.setObject(parameterIndex, value);
+	}
+	
 	@Override
 	public String toString() {
 		return "Name=" + name + ", value=" + value + ", dataType=" + dataType + ", isKey=" + isKey + ", isNotNull=" + isNotNull;
@@ -2,23 +2,46 @@ package com.sap.charging.util.sqlite;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
-public class SQLiteDB {
+public class SQLiteDB implements AutoCloseable {
 
 	private String dbUrl;
+	private final boolean walMode;
 	private final Connection connection;
 	
+	// Prepared statements are reused (by SQL string), only the parameters change between rows
+	private final Map<String, PreparedStatement> preparedStatements = new HashMap<>();
+	private final Set<String> existingTables = new HashSet<>();
 	
 	public SQLiteDB() {
 		this(null);
 	}
 	
 	public SQLiteDB(String dbUrl) {
+		this(dbUrl, false);
+	}
+	
+	/**
+	 * @param dbUrl
+	 * @param walMode Switches the database to write-ahead logging with synchronous=NORMAL: Readers and the writer don't block each other 
+	 * and commits don't wait for the disk (the database stays consistent, only the last commits may be lost on power failure). 
+	 * The journal mode is stored in the database file. 
+	 */
+	public SQLiteDB(String dbUrl, boolean walMode) {
 		this.dbUrl = dbUrl;
+		this.walMode = walMode;
 		this.connection = getDBConnection();
 	}
 	
@@ -28,6 +51,13 @@ public class SQLiteDB {
 		
 		try  {
 			Connection connection = DriverManager.getConnection(getDBUrl());
+			if (walMode == true) {
+				try (Statement stmt = connection.createStatement()) {
+					stmt.execute("PRAGMA journal_mode=WAL");
+					stmt.execute("PRAGMA synchronous=NORMAL");
+					stmt.execute("PRAGMA busy_timeout=30000");
+				}
+			}
             return connection;
         } catch (SQLException e) {
             System.out.println(e.getMessage());
@@ -35,6 +65,28 @@ public class SQLiteDB {
 		return null;
 	}
 	
+	private PreparedStatement prepareStatement(String sql) throws SQLException {
+		PreparedStatement statement = preparedStatements.get(sql);
+		if (statement == null) {
+			statement = getDBConnection().prepareStatement(sql);
+			preparedStatements.put(sql, statement);
+		}
+		return statement;
+	}
+	
+	private static void bind(PreparedStatement statement, List<SQLiteAttribute> parameters) throws SQLException {
+		statement.clearParameters();
+		for (int i=0;i<parameters.size();i++) {
+			parameters.get(i).bind(statement, i+1);
+		}
+	}
+	
+	private void printStatement(String sql, List<SQLiteAttribute> parameters) {
+		System.out.println("Executed statement:");
+		System.out.println(sql);
+		System.out.println("Parameters: " + parameters.stream().map(SQLiteAttribute::getValueString).collect(Collectors.joining(", ")));
+	}
+	
 	protected String getDBUrl() {
 		return dbUrl;
 	}
@@ -63,12 +115,20 @@ public class SQLiteDB {
 	}
 	
 	protected synchronized boolean tableExists(String tableName) {
+		if (existingTables.contains(tableName)) 
+			return true;
+		
 		String sql = "SELECT name FROM sqlite_master "
 				+ "WHERE type='table'" 
-				+ "  AND name='" + tableName + "'";
+				+ "  AND name=?";
 		try {
-			while (executeQuery(sql).next()) {
-				return true;
+			PreparedStatement statement = prepareStatement(sql);
+			statement.setString(1, tableName);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				if (resultSet.next()) {
+					existingTables.add(tableName);
+					return true;
+				}
 			}
 		} catch (SQLException e) {
 			e.printStackTrace();
@@ -84,32 +144,97 @@ public class SQLiteDB {
 	public synchronized void createTable(SQLiteTableRow tableRow) {
 		String sql = tableRow.getCreateTableStatement();
 		executeStatement(sql);
+		existingTables.add(tableRow.getTableName());
 	}
 	
 	public synchronized void insert(SQLiteTableRow tableRow, boolean forceTableCreate) {
 		if (forceTableCreate == true && tableExists(tableRow) == false)
 			createTable(tableRow);
 
-		String sql = tableRow.getInsertStatement();
-		executeStatement(sql);
+		List<SQLiteAttribute> parameters = tableRow.getInsertParameters();
+		String sql = tableRow.getParameterizedInsertStatement();
+		try {
+			PreparedStatement statement = prepareStatement(sql);
+			bind(statement, parameters);
+			statement.executeUpdate();
+		} catch (SQLException e) {
+			printStatement(sql, parameters);
+			e.printStackTrace();
+		}
 	}
 	public synchronized void insert(SQLiteTableRow tableRow) {
 		insert(tableRow, true);
 	}
 	
+	/**
+	 * Inserts all rows in one transaction (one batch per table). If any row fails, no row is inserted. 
+	 * @param tableRows
+	 * @param forceTableCreate
+	 */
+	public synchronized void insert(List<? extends SQLiteTableRow> tableRows, boolean forceTableCreate) {
+		List<List<SQLiteAttribute>> parameters = tableRows.stream().map(SQLiteTableRow::getInsertParameters).collect(Collectors.toList());
+		insert(tableRows, parameters, forceTableCreate);
+	}
+	public synchronized void insert(List<? extends SQLiteTableRow> tableRows) {
+		insert(tableRows, true);
+	}
+	
+	/**
+	 * @param tableRows
+	 * @param parameters Insert parameters per row (see SQLiteTableRow.getInsertParameters()), e.g. read when the row was queued
+	 * @param forceTableCreate
+	 */
+	synchronized void insert(List<? extends SQLiteTableRow> tableRows, List<List<SQLiteAttribute>> parameters, boolean forceTableCreate) {
+		if (tableRows.isEmpty()) 
+			return;
+		
+		Connection connection = getDBConnection();
+		try {
+			connection.setAutoCommit(false);
+			try {
+				Set<PreparedStatement> statements = new LinkedHashSet<>();
+				for (int i=0;i<tableRows.size();i++) {
+					SQLiteTableRow tableRow = tableRows.get(i);
+					if (forceTableCreate == true && tableExists(tableRow) == false)
+						createTable(tableRow);
+					
+					PreparedStatement statement = prepareStatement(tableRow.getParameterizedInsertStatement());
+					bind(statement, parameters.get(i));
+					statement.addBatch();
+					statements.add(statement);
+				}
+				for (PreparedStatement statement : statements) {
+					statement.executeBatch();
+				}
+				connection.commit();
+			}
+			catch (SQLException e) {
+				connection.rollback();
+				existingTables.clear(); // Tables created in this transaction were rolled back as well
+				throw e;
+			}
+			finally {
+				connection.setAutoCommit(true);
+			}
+		} catch (SQLException e) {
+			throw new RuntimeException("Error inserting " + tableRows.size() + " rows (rolled back), first row: " + tableRows.get(0), e);
+		}
+	}
 	
 	public synchronized boolean rowExists(SQLiteTableRow tableRow, boolean forceTableCreate) {
 		if (forceTableCreate == true && tableExists(tableRow) == false)
 			createTable(tableRow);
 		
-		String sql = tableRow.getSelectRowsStatement();
-		ResultSet resultSet = executeQuery(sql);
+		List<SQLiteAttribute> parameters = tableRow.getKeyParameters();
+		String sql = tableRow.getParameterizedSelectRowsStatement();
 		try {
-			while (resultSet.next()) 
-				return true;
+			PreparedStatement statement = prepareStatement(sql);
+			bind(statement, parameters);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				return resultSet.next();
+			}
 		} catch (SQLException e) {
-			System.out.println("Executed statement:");
-			System.out.println(sql);
+			printStatement(sql, parameters);
 			e.printStackTrace();
 		}
 		return false;
@@ -125,21 +250,24 @@ public class SQLiteDB {
 	 * @return
 	 */
 	public synchronized void retrieveRow(SQLiteTableRow tableRow) {
-		String sql = tableRow.getSelectRowsStatement();
-		ResultSet resultSet = executeQuery(sql);
+		List<SQLiteAttribute> parameters = tableRow.getKeyParameters();
+		String sql = tableRow.getParameterizedSelectRowsStatement();
 		try {
+			PreparedStatement statement = prepareStatement(sql);
+			bind(statement, parameters);
 			boolean rowUpdated = false;
-			while (resultSet.next()) {
-				SQLiteTableRow.fromResultSet(resultSet, tableRow);
-				rowUpdated = true;
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					SQLiteTableRow.fromResultSet(resultSet, tableRow);
+					rowUpdated = true;
+				}
 			}
 			if (rowUpdated == false) {
 				throw new RuntimeException("Row was NOT updated, not present in the database: " + tableRow.toString());
 			}
 			
 		} catch (SQLException | IllegalArgumentException | IllegalAccessException | NoSuchFieldException | SecurityException e) {
-			System.out.println("Executed statement:");
-			System.out.println(sql);
+			printStatement(sql, parameters);
 			e.printStackTrace();
 		}
 	}
@@ -166,8 +294,34 @@ public class SQLiteDB {
 	 * @param tableRow
 	 */
 	public synchronized void deleteRow(SQLiteTableRow tableRow) {
-		String sql = tableRow.getDeleteStatement();
-		executeStatement(sql);
+		List<SQLiteAttribute> parameters = tableRow.getKeyParameters();
+		String sql = tableRow.getParameterizedDeleteStatement();
+		try {
+			PreparedStatement statement = prepareStatement(sql);
+			bind(statement, parameters);
+			statement.executeUpdate();
+		} catch (SQLException e) {
+			printStatement(sql, parameters);
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Closes all prepared statements and the connection
+	 */
+	@Override
+	public synchronized void close() {
+		try {
+			for (PreparedStatement statement : preparedStatements.values()) {
+				statement.close();
+			}
+			preparedStatements.clear();
+			if (connection != null) {
+				connection.close();
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
 	}
 	
 }
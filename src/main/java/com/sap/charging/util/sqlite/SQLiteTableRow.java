@@ -8,6 +8,7 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 public abstract class SQLiteTableRow {
@@ -86,7 +87,7 @@ public abstract class SQLiteTableRow {
 	public String getCreateTableStatement() {
 		ArrayList<SQLiteAttribute> attributes = this.getAttributes();
 		
-		String result = "CREATE TABLE " + getTableName() + "(\n";
+		String result = "CREATE TABLE IF NOT EXISTS " + getTableName() + "(\n";
 		
 		// Column definitions
 		for (int i=0;i<attributes.size();i++) {
@@ -152,6 +153,77 @@ public abstract class SQLiteTableRow {
 	}
 	
 	
+	/**
+	 * Values of all attributes (read from the fields at the time of the call) in the order of the parameters of getParameterizedInsertStatement()
+	 * @return
+	 */
+	public List<SQLiteAttribute> getInsertParameters() {
+		resetAttributesList();
+		return new ArrayList<>(this.getAttributes());
+	}
+	
+	/**
+	 * Same as getInsertStatement() with one parameter (?) per attribute instead of the values, see getInsertParameters()
+	 * @return
+	 */
+	public String getParameterizedInsertStatement() {
+		ArrayList<SQLiteAttribute> attributes = this.getAttributes();
+		String columns = attributes.stream().map(a -> a.name).collect(Collectors.joining(", "));
+		String parameters = attributes.stream().map(a -> "?").collect(Collectors.joining(", "));
+		return "INSERT INTO " + getTableName() + " (" + columns + ")\nVALUES (" + parameters + ");";
+	}
+	
+	/**
+	 * All non-null attributes that are in the primary key, in the order of the parameters of 
+	 * getParameterizedSelectRowsStatement() and getParameterizedDeleteStatement()
+	 * @return
+	 */
+	public List<SQLiteAttribute> getKeyParameters() {
+		return getAttributes().stream().filter(a -> a.isKey && a.getValue() != null).collect(Collectors.toList());
+	}
+	
+	private String getParameterizedKeyCondition() {
+		return getKeyParameters().stream().map(a -> "\t" + a.name + "=?").collect(Collectors.joining(" AND\n"));
+	}
+	
+	/**
+	 * Same as getSelectRowsStatement() with parameters (?) instead of the values, see getKeyParameters()
+	 * @return
+	 */
+	public String getParameterizedSelectRowsStatement() {
+		String condition = getParameterizedKeyCondition();
+		return "SELECT * FROM " + getTableName() + (condition.isEmpty() ? "" : " WHERE \n" + condition);
+	}
+	
+	/**
+	 * Same as getDeleteStatement() with parameters (?) instead of the values, see getKeyParameters()
+	 * @return
+	 */
+	public String getParameterizedDeleteStatement() {
+		String condition = getParameterizedKeyCondition();
+		if (condition.isEmpty()) {
+			throw new IllegalStateException("No key attributes set, refusing to delete all rows of " + getTableName());
+		}
+		return "DELETE FROM " + getTableName() + " WHERE \n" + condition;
+	}
+	
+	/**
+	 * Used to find rows that are not yet in the database (e.g. queued by SQLiteWriteBehindDB)
+	 * @param tableName
+	 * @param attributes 
+	 * @return True if the table is the same and all non-null key attributes of this row are equal to the attributes
+	 */
+	boolean keyMatches(String tableName, List<SQLiteAttribute> attributes) {
+		if (getTableName().equals(tableName) == false) 
+			return false;
+		for (SQLiteAttribute keyAttribute : getKeyParameters()) {
+			boolean found = attributes.stream().anyMatch(a -> a.name.equals(keyAttribute.name) && Objects.equals(a.getValue(), keyAttribute.getValue()));
+			if (found == false) 
+				return false;
+		}
+		return true;
+	}
+	
 	/**
 	 * All non-null attributs are searched for that are in the primary key
 	 * @return
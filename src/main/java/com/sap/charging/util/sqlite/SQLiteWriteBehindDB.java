@@ -0,0 +1,243 @@
+package com.sap.charging.util.sqlite;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import com.sap.charging.sim.SimulationContext;
+import com.sap.charging.util.Loggable;
+
+/**
+ * SQLiteDB in WAL mode where inserts are queued and written by a background thread (in batches, one transaction per batch),
+ * so that e.g. MeasurementExecutor threads don't wait for the disk.
+ *
+ * Queued rows are taken into account by rowExists(). Other reads and deletes wait until the queue is written (see flush()).
+ * close() has to be called at the end to write the remaining rows.
+ * Write errors are logged (see Loggable) and reported by flush() and close(). If the writer thread stops because of an Error,
+ * the rows that were not written are discarded so that flush() and close() don't wait for them.
+ */
+public class SQLiteWriteBehindDB extends SQLiteDB implements Loggable {
+
+	public static final int DEFAULT_BATCH_SIZE = 100;
+
+	private static class QueuedInsert {
+		private final SQLiteTableRow tableRow;
+		private final List<SQLiteAttribute> parameters;
+		private final boolean forceTableCreate;
+		private QueuedInsert(SQLiteTableRow tableRow, boolean forceTableCreate) {
+			this.tableRow = tableRow;
+			this.parameters = tableRow.getInsertParameters(); // Values at the time of the insert
+			this.forceTableCreate = forceTableCreate;
+		}
+	}
+
+	private final int batchSize;
+	private final SQLiteDB writer; // Own connection so that reads of this DB don't wait for writes
+	private final BlockingQueue<QueuedInsert> queue = new LinkedBlockingQueue<>();
+	private final List<QueuedInsert> pending = new ArrayList<>(); // Queued or being written, guarded by itself
+	private final Thread writerThread;
+
+	private volatile boolean closed = false;
+	private volatile Throwable writeException;
+	private boolean writerStopped = false; // Guarded by pending
+
+	@Override
+	public int getVerbosity() {
+		return SimulationContext.getCurrentVerbosity();
+	}
+
+	public SQLiteWriteBehindDB(String dbUrl) {
+		this(dbUrl, DEFAULT_BATCH_SIZE);
+	}
+
+	public SQLiteWriteBehindDB(String dbUrl, int batchSize) {
+		super(dbUrl, true);
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize must be at least 1: " + batchSize);
+		}
+		this.batchSize = batchSize;
+		this.writer = new SQLiteDB(dbUrl, true);
+		this.writerThread = new Thread(this::writeQueue, "SQLiteWriteBehindDB-writer");
+		this.writerThread.setDaemon(true);
+		this.writerThread.start();
+	}
+
+	private void writeQueue() {
+		try {
+			List<QueuedInsert> batch = new ArrayList<>();
+			while (true) {
+				try {
+					batch.add(queue.take());
+				} catch (InterruptedException e) {
+					return; // Only interrupted by close() once the queue is empty
+				}
+				queue.drainTo(batch, batchSize - 1);
+				write(batch);
+				batch.clear();
+			}
+		}
+		finally {
+			// Nothing is written anymore: Release threads waiting in flush()
+			synchronized (pending) {
+				writerStopped = true;
+				if (pending.isEmpty() == false) {
+					log(0, "Writer stopped, discarding {} queued rows", pending.size());
+					if (writeException == null) {
+						writeException = new IllegalStateException("Writer stopped with " + pending.size() + " queued rows");
+					}
+				}
+				queue.clear();
+				pending.clear();
+				pending.notifyAll();
+			}
+		}
+	}
+
+	private void write(List<QueuedInsert> batch) {
+		try {
+			// Rows of one batch with different forceTableCreate settings are rare, write them separately
+			List<QueuedInsert> withTableCreate = new ArrayList<>();
+			List<QueuedInsert> withoutTableCreate = new ArrayList<>();
+			for (QueuedInsert insert : batch) {
+				(insert.forceTableCreate ? withTableCreate : withoutTableCreate).add(insert);
+			}
+			writeBatch(withTableCreate, true);
+			writeBatch(withoutTableCreate, false);
+		}
+		catch (Throwable e) {
+			writeException = e;
+			List<SQLiteTableRow> tableRows = new ArrayList<>(batch.size());
+			batch.forEach(insert -> tableRows.add(insert.tableRow));
+			log(0, e, "Error writing {} rows: {}", batch.size(), tableRows);
+			if (e instanceof Error) {
+				throw (Error) e; // Stops the writer thread
+			}
+		}
+		finally {
+			synchronized (pending) {
+				pending.removeAll(batch);
+				pending.notifyAll();
+			}
+		}
+	}
+
+	private void writeBatch(List<QueuedInsert> batch, boolean forceTableCreate) {
+		List<SQLiteTableRow> tableRows = new ArrayList<>(batch.size());
+		List<List<SQLiteAttribute>> parameters = new ArrayList<>(batch.size());
+		for (QueuedInsert insert : batch) {
+			tableRows.add(insert.tableRow);
+			parameters.add(insert.parameters);
+		}
+		writer.insert(tableRows, parameters, forceTableCreate);
+	}
+
+	/**
+	 * Queues the row and returns immediately.
+	 */
+	@Override
+	public void insert(SQLiteTableRow tableRow, boolean forceTableCreate) {
+		if (closed == true) {
+			throw new IllegalStateException("SQLiteWriteBehindDB is already closed.");
+		}
+		QueuedInsert insert = new QueuedInsert(tableRow, forceTableCreate);
+		synchronized (pending) {
+			if (writerStopped == true) {
+				throw new IllegalStateException("SQLiteWriteBehindDB writer stopped after an error.", writeException);
+			}
+			pending.add(insert);
+		}
+		queue.add(insert);
+	}
+
+	@Override
+	public void insert(List<? extends SQLiteTableRow> tableRows, boolean forceTableCreate) {
+		for (SQLiteTableRow tableRow : tableRows) {
+			insert(tableRow, forceTableCreate);
+		}
+	}
+
+	public int getNumberOfPendingRows() {
+		synchronized (pending) {
+			return pending.size();
+		}
+	}
+
+	/**
+	 * Also true if the row is queued but not yet written
+	 */
+	@Override
+	public boolean rowExists(SQLiteTableRow tableRow, boolean forceTableCreate) {
+		synchronized (pending) {
+			for (QueuedInsert insert : pending) {
+				if (tableRow.keyMatches(insert.tableRow.getTableName(), insert.parameters)) {
+					return true;
+				}
+			}
+		}
+		return super.rowExists(tableRow, forceTableCreate);
+	}
+
+	@Override
+	public void retrieveRow(SQLiteTableRow tableRow) {
+		flush();
+		super.retrieveRow(tableRow);
+	}
+
+	@Override
+	public ArrayList<? extends SQLiteTableRow> getAllRows(String tableName, Class<? extends SQLiteTableRow> clazz) {
+		flush();
+		return super.getAllRows(tableName, clazz);
+	}
+
+	@Override
+	public void deleteRow(SQLiteTableRow tableRow) {
+		flush(); // Queued inserts of the row have to be written before
+		super.deleteRow(tableRow);
+	}
+
+	/**
+	 * Waits until all queued rows are written.
+	 * @throws IllegalStateException If writing any row failed
+	 */
+	public void flush() {
+		synchronized (pending) {
+			while (pending.isEmpty() == false) {
+				try {
+					pending.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while waiting for " + pending.size() + " rows to be written", e);
+				}
+			}
+		}
+		if (writeException != null) {
+			throw new IllegalStateException("Writing queued rows failed", writeException);
+		}
+	}
+
+	/**
+	 * Writes all queued rows, stops the writer thread and closes both connections.
+	 * @throws IllegalStateException If writing any row failed
+	 */
+	@Override
+	public void close() {
+		if (closed == true)
+			return;
+		closed = true;
+		try {
+			flush();
+		}
+		finally {
+			writerThread.interrupt();
+			try {
+				writerThread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			writer.close();
+			super.close();
+		}
+	}
+
+}
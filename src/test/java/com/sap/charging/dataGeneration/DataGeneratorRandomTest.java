@@ -12,13 +12,13 @@ import com.sap.charging.dataGeneration.carDistributions.CarArrivalDepartureDistr
 import com.sap.charging.dataGeneration.common.DefaultDataGenerator;
 import com.sap.charging.model.Car;
 import com.sap.charging.model.CarFactory.CarModel;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 
 public class DataGeneratorRandomTest {
 	
 	@BeforeEach
 	public void setup() {
-		Simulation.verbosity = 0; 
+		SimulationContext.getGlobal().setVerbosity(0); 
 	}
 	
 	@Test
@@ -7,7 +7,7 @@ import org.junit.jupiter.api.Test;
 
 import com.sap.charging.dataGeneration.common.DefaultDataGenerator;
 import com.sap.charging.model.Car;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 
 
 public class DataRandomizerTest {
@@ -16,7 +16,7 @@ public class DataRandomizerTest {
 	
 	@BeforeEach
 	public void setup() {
-		Simulation.verbosity = 0; 
+		SimulationContext.getGlobal().setVerbosity(0); 
 		dataOriginal = DefaultDataGenerator.getDefaultDataGenerator(); 
 	}
 	
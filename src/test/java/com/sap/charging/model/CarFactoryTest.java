@@ -9,14 +9,14 @@ import org.junit.jupiter.api.Test;
 
 import com.sap.charging.model.CarFactory.CarModel;
 import com.sap.charging.model.CarFactory.CarType;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 
 public class CarFactoryTest {
 	
 	
 	@BeforeEach
 	public void setup() {
-		Simulation.verbosity = 0; 
+		SimulationContext.getGlobal().setVerbosity(0); 
 	}
 	
 	@Test
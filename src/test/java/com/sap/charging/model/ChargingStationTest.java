@@ -187,5 +187,26 @@ public class ChargingStationTest extends SimulationUnitTest {
     	assertFalse(chargingStation.isPhaseAtStationConnectedInFuseTree(Phase.PHASE_3));
     }
     
+    @Test
+    public void test_IsPhaseConnectedInFuseTree_CachedUntilAncestorChanged() {
+    	ChargingStation chargingStation =  new ChargingStation(0, 32d, 32d, 32d, true, true, true, null, null);
+    	Fuse fuse = new Fuse(1, 32, 32, 32, true, true, true, new ArrayList<>()); 
+    	fuse.addChild(chargingStation);
+    	assertTrue(chargingStation.isPhaseAtGridConnectedInFuseTree(Phase.PHASE_3));
+    	assertTrue(chargingStation.isPhaseAtStationConnectedInFuseTree(Phase.PHASE_3));
+    	
+    	// Attaching the station's parent below a fuse without phase 3 invalidates the cached connectivity
+    	Fuse root = new Fuse(0, 0, 0, 0, true, true, false, new ArrayList<>()); 
+    	root.addChild(fuse);
+    	assertTrue(chargingStation.isPhaseAtGridConnectedInFuseTree(Phase.PHASE_1));
+    	assertFalse(chargingStation.isPhaseAtGridConnectedInFuseTree(Phase.PHASE_3));
+    	assertFalse(chargingStation.isPhaseAtStationConnectedInFuseTree(Phase.PHASE_3));
+    	
+    	// Changes of the station itself
+    	chargingStation.setPhaseMatching(Phase.PHASE_3, Phase.PHASE_1, Phase.PHASE_2);
+    	assertFalse(chargingStation.isPhaseAtStationConnectedInFuseTree(Phase.PHASE_1));
+    	assertTrue(chargingStation.isPhaseAtStationConnectedInFuseTree(Phase.PHASE_3));
+    }
+    
 
 }
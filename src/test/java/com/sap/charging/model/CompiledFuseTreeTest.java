@@ -0,0 +1,146 @@
+package com.sap.charging.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sap.charging.dataGeneration.DataGenerator;
+import com.sap.charging.dataGeneration.DataGeneratorRandom;
+import com.sap.charging.model.EnergyUtil.Phase;
+import com.sap.charging.sim.SimulationContext;
+
+public class CompiledFuseTreeTest {
+
+	private FuseTree fuseTree;
+
+	@BeforeEach
+	public void setup() {
+		SimulationContext.getGlobal().setVerbosity(0);
+		DataGenerator data = new DataGeneratorRandom(0, true);
+		data.generateEnergyPriceHistory(96)
+			.generateCars(30)
+			.generateChargingStations(30)
+			.generateFuseTree(30, true);
+		fuseTree = data.getFuseTree();
+	}
+
+	@Test
+	public void testNodesAndChargingStationsInTraversalOrder() {
+		CompiledFuseTree compiled = fuseTree.getCompiledFuseTree();
+		List<FuseTreeNode> nodes = new ArrayList<>();
+		fuseTree.traverseTree(node -> nodes.add(node));
+
+		assertEquals(nodes.size(), compiled.getNumberNodes());
+		for (int i=0;i<nodes.size();i++) {
+			assertSame(nodes.get(i), compiled.getNode(i));
+			assertEquals(i, compiled.getNodeIndex(nodes.get(i)));
+			FuseTreeNode parent = nodes.get(i).getParent();
+			assertEquals(parent == null ? -1 : compiled.getNodeIndex(parent), compiled.getParentIndex(i));
+		}
+		assertEquals(fuseTree.getListOfChargingStations(), compiled.getChargingStations());
+		for (int s=0;s<compiled.getNumberChargingStations();s++) {
+			assertEquals(s, compiled.getChargingStationIndex(compiled.getChargingStationNodeIndex(s)));
+		}
+	}
+
+	@Test
+	public void testSubtreeRanges() {
+		CompiledFuseTree compiled = fuseTree.getCompiledFuseTree();
+		for (int i=0;i<compiled.getNumberNodes();i++) {
+			FuseTreeNode node = compiled.getNode(i);
+			List<ChargingStation> expected = (node instanceof Fuse) ? ((Fuse) node).getChargingStationChildren() : new ArrayList<>();
+			if (node instanceof ChargingStation) {
+				expected.add((ChargingStation) node);
+			}
+			assertEquals(expected, compiled.getChargingStationsInSubtree(i));
+
+			for (int j=0;j<compiled.getNumberNodes();j++) {
+				boolean isDescendant = false;
+				for (FuseTreeNode current = compiled.getNode(j); current != null; current = current.getParent()) {
+					isDescendant |= current == node;
+				}
+				assertEquals(isDescendant, compiled.isInSubtree(i, j));
+			}
+		}
+	}
+
+	@Test
+	public void testPhaseTablesEqualToChargingStation() {
+		ChargingStation disconnected = fuseTree.getListOfChargingStations().get(0);
+		disconnected.fusePhase3 = 0;
+		disconnected.setPhase3Connected(false);
+
+		CompiledFuseTree compiled = fuseTree.getCompiledFuseTree();
+		for (int s=0;s<compiled.getNumberChargingStations();s++) {
+			ChargingStation chargingStation = compiled.getChargingStation(s);
+			int nodeIndex = compiled.getChargingStationNodeIndex(s);
+			for (Phase phase : Phase.values()) {
+				int p = phase.asInt()-1;
+				assertEquals(chargingStation.isPhaseAtGridConnectedInFuseTree(phase), compiled.isPhaseAtGridConnected(nodeIndex, p));
+				assertEquals(chargingStation.isPhaseAtStationConnectedInFuseTree(phase), compiled.isPhaseAtStationConnected(s, p));
+				assertEquals(chargingStation.getPhaseGridToChargingStation(phase).asInt()-1, compiled.getStationPhase(s, p));
+				assertEquals(chargingStation.getPhaseConsumed(phase).asInt()-1, compiled.getGridPhase(s, p));
+			}
+		}
+		assertFalse(compiled.isPhaseAtStationConnected(0, 2));
+	}
+
+	@Test
+	public void testRebuildOnTopologyChange() {
+		CompiledFuseTree compiled = fuseTree.getCompiledFuseTree();
+		assertSame(compiled, fuseTree.getCompiledFuseTree());
+
+		// Fuse sizes are not compiled
+		fuseTree.getRootFuse().setFuseSize(10);
+		assertSame(compiled, fuseTree.getCompiledFuseTree());
+
+		ChargingStation chargingStation = ChargingStationFactory.builder().fusePhases(32, 32, 32).build();
+		chargingStation.setID(1000);
+		chargingStation.setPhaseMatching(Phase.PHASE_1, Phase.PHASE_2, Phase.PHASE_3);
+		fuseTree.getRootFuse().addChild(chargingStation);
+		assertFalse(compiled.isUpToDate());
+
+		CompiledFuseTree rebuilt = fuseTree.getCompiledFuseTree();
+		assertNotSame(compiled, rebuilt);
+		assertEquals(compiled.getNumberNodes()+1, rebuilt.getNumberNodes());
+		assertTrue(rebuilt.getChargingStations().contains(chargingStation));
+		assertEquals(0, rebuilt.getParentIndex(rebuilt.getNodeIndex(chargingStation)));
+	}
+
+	@Test
+	public void testVersionPerTree() {
+		DataGenerator otherData = new DataGeneratorRandom(1, true);
+		otherData.generateEnergyPriceHistory(96)
+			.generateCars(10)
+			.generateChargingStations(10)
+			.generateFuseTree(10, true);
+		FuseTree otherFuseTree = otherData.getFuseTree();
+
+		CompiledFuseTree compiled = fuseTree.getCompiledFuseTree();
+		CompiledFuseTree otherCompiled = otherFuseTree.getCompiledFuseTree();
+
+		// Changes of another tree (and of detached nodes) don't invalidate this tree
+		otherFuseTree.refreshFuseTreeNodeParents();
+		new Fuse(1000, 100).addChild(ChargingStationFactory.builder().fusePhases(32, 32, 32).build());
+		assertTrue(compiled.isUpToDate());
+		assertSame(compiled, fuseTree.getCompiledFuseTree());
+		assertFalse(otherCompiled.isUpToDate());
+
+		// Moving a subtree to the other tree invalidates both
+		otherCompiled = otherFuseTree.getCompiledFuseTree();
+		Fuse subtree = (Fuse) fuseTree.getRootFuse().getChildren().remove(0);
+		otherFuseTree.getRootFuse().addChild(subtree);
+		assertFalse(compiled.isUpToDate());
+		assertFalse(otherCompiled.isUpToDate());
+		assertTrue(otherFuseTree.getCompiledFuseTree().getNodeIndex(subtree) > 0);
+	}
+
+}
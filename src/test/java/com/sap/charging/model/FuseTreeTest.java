@@ -18,7 +18,7 @@ import com.sap.charging.dataGeneration.common.DefaultDataGenerator;
 import com.sap.charging.model.ChargingStationFactory.Standard;
 import com.sap.charging.model.EnergyUtil.Phase;
 import com.sap.charging.opt.CONSTANTS;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.Callback;
 
 public class FuseTreeTest {
@@ -36,7 +36,7 @@ public class FuseTreeTest {
 	
 	@BeforeEach
 	public void setup() {
-		Simulation.verbosity = 0; 
+		SimulationContext.getGlobal().setVerbosity(0); 
 		data = DefaultDataGenerator.getDefaultDataGenerator();
 		fuseTree = data.getFuseTree();
 	}
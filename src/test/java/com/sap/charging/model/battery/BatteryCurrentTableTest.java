@@ -0,0 +1,109 @@
+package com.sap.charging.model.battery;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class BatteryCurrentTableTest {
+	
+	private void assertWithinTolerance(BatterySimParameters params) {
+		BatterySimParameters paramsTable = params.copy();
+		paramsTable.useCurrentLookupTable = true;
+		
+		BatterySim simExact = new BatterySim(params, false, true);
+		BatterySim simTable = new BatterySim(paramsTable, false, true);
+		
+		Random random = new Random(0);
+		for (int i=0;i<100000;i++) {
+			double soc = random.nextDouble();
+			double maxCurrentAllowed = (i % 2 == 0) ? Double.MAX_VALUE : random.nextDouble()*params.constantCurrent;
+			assertEquals(simExact.getCurrentBasedOnSoC(soc, maxCurrentAllowed), simTable.getCurrentBasedOnSoC(soc, maxCurrentAllowed), params.currentLookupTableTolerance);
+		}
+		// Grid end points and table boundaries
+		for (double soc : new double[] {0, 1, 0.05, 0.5, 0.95}) {
+			assertEquals(simExact.getCurrentBasedOnSoC(soc, Double.MAX_VALUE), simTable.getCurrentBasedOnSoC(soc, Double.MAX_VALUE), params.currentLookupTableTolerance);
+		}
+	}
+	
+	@Test
+	public void testTolerance_CCCV() {
+		BatterySimParameters params = BatterySimParameters.buildDefaultParams();
+		params.chargeAlgorithm = ChargeAlgorithm.CCCV;
+		assertWithinTolerance(params);
+		
+		params.currentLookupTableTolerance = 1e-6;
+		assertWithinTolerance(params);
+	}
+	
+	@Test
+	public void testTolerance_CPCV() {
+		BatterySimParameters params = BatterySimParameters.buildDefaultParams();
+		params.chargeAlgorithm = ChargeAlgorithm.CPCV;
+		assertWithinTolerance(params);
+		
+		params.currentLookupTableTolerance = 1e-6;
+		assertWithinTolerance(params);
+	}
+	
+	@Test
+	public void testToleranceNotReached() {
+		BatterySimParameters params = BatterySimParameters.buildDefaultParams();
+		params.currentLookupTableTolerance = 1e-12;
+		try {
+			BatteryCurrentTable.build(params, 2048);
+			fail("Tolerance can't be reached with 2048 intervals");
+		}
+		catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("currentLookupTableTolerance=1.0E-12"));
+		}
+		
+		params.currentLookupTableTolerance = 1e-2;
+		assertTrue(BatteryCurrentTable.build(params, 2048).getResolution() <= 2048);
+	}
+	
+	@Test
+	public void testResolutionIncreasesWithLowerTolerance() {
+		BatterySimParameters params = BatterySimParameters.buildDefaultParams();
+		params.currentLookupTableTolerance = 1e-2;
+		BatteryCurrentTable coarse = BatteryCurrentTable.getTable(params);
+		params.currentLookupTableTolerance = 1e-6;
+		BatteryCurrentTable fine = BatteryCurrentTable.getTable(params);
+		assertTrue(fine.getResolution() > coarse.getResolution());
+	}
+	
+	@Test
+	public void testTableIsShared() {
+		BatterySimParameters params1 = BatterySimParameters.buildDefaultParams();
+		BatterySimParameters params2 = BatterySimParameters.buildDefaultParams(); // Different BatteryData instance with the same data
+		assertSame(BatteryCurrentTable.getTable(params1), BatteryCurrentTable.getTable(params2));
+		
+		params2.constantCurrent = 32;
+		assertNotSame(BatteryCurrentTable.getTable(params1), BatteryCurrentTable.getTable(params2));
+	}
+	
+	@Test
+	public void testSimulation() {
+		BatterySimParameters params = BatterySimParameters.buildDefaultParams();
+		params.initialSoC = 0.2;
+		BatterySimParameters paramsTable = params.copy();
+		paramsTable.useCurrentLookupTable = true;
+		
+		BatterySim simExact = new BatterySim(params, false, true);
+		BatterySim simTable = new BatterySim(paramsTable, false, true);
+		for (int t=0;t<6*3600;t++) {
+			simExact.simulateNextStep(params.constantCurrent);
+			simTable.simulateNextStep(params.constantCurrent);
+		}
+		assertTrue(simExact.getSoC() > 0.99);
+		// Current error of at most 1e-3A over 6h results in at most 6e-3Ah
+		assertEquals(simExact.getChargedAh(), simTable.getChargedAh(), 6e-3);
+		assertEquals(simExact.getSoC(), simTable.getSoC(), 6e-3/params.capacity);
+	}
+	
+}
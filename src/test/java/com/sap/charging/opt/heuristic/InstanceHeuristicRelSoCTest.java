@@ -12,13 +12,13 @@ import com.sap.charging.dataGeneration.DataGeneratorRandom;
 import com.sap.charging.model.Car;
 import com.sap.charging.opt.heuristics.InstanceHeuristicRelSoCLP;
 import com.sap.charging.opt.heuristics.util.CarAssignmentPriority;
-import com.sap.charging.opt.lp.InstanceLP;
+import com.sap.charging.sim.SimulationContext;
 
 public class InstanceHeuristicRelSoCTest {
 	
 	@BeforeEach
 	public void setup() {
-		InstanceLP.verbosity = 0; 
+		SimulationContext.getGlobal().setLPVerbosity(0); 
 	}
 	
 	
@@ -18,13 +18,14 @@ import com.sap.charging.dataGeneration.DataGenerator;
 import com.sap.charging.dataGeneration.DataGeneratorReal;
 import com.sap.charging.dataGeneration.common.DefaultDataGenerator;
 import com.sap.charging.opt.lp.util.SolverSCIP;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.JSONKeys;
 
 public class InstanceLPMinPriceTest {
 
 	@BeforeEach
 	public void setup() {
-		InstanceLP.verbosity = 0; 
+		SimulationContext.getGlobal().setLPVerbosity(0); 
 	}
 	
 	//@Test
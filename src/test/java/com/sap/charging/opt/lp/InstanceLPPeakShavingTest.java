@@ -7,13 +7,14 @@ import org.junit.jupiter.api.Test;
 import com.sap.charging.dataGeneration.DataGenerator;
 import com.sap.charging.dataGeneration.common.DefaultDataGenerator;
 import com.sap.charging.opt.heuristics.InstanceHeuristicAbsSoCLP;
+import com.sap.charging.sim.SimulationContext;
 
 public class InstanceLPPeakShavingTest {
 	
 	
 	@BeforeEach
 	public void setup() {
-		InstanceLP.verbosity = 0; 
+		SimulationContext.getGlobal().setLPVerbosity(0); 
 	}
 	@Disabled
 	@Test
@@ -0,0 +1,344 @@
+package com.sap.charging.opt.lp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sap.charging.dataGeneration.DataGenerator;
+import com.sap.charging.dataGeneration.common.DefaultDataGenerator;
+import com.sap.charging.opt.lp.Equation.ConstraintType;
+import com.sap.charging.sim.SimulationContext;
+
+public class LPModelTest {
+
+	private List<Path> paths;
+
+	@BeforeEach
+	public void setup() {
+		SimulationContext.getGlobal().setLPVerbosity(0);
+		paths = new ArrayList<>();
+	}
+
+	@AfterEach
+	public void cleanup() throws IOException {
+		for (Path path : paths) {
+			Files.deleteIfExists(path);
+		}
+	}
+
+	private Path getTempPath(String suffix) throws IOException {
+		Path path = Files.createTempFile("lpmodel", suffix);
+		paths.add(path);
+		return path;
+	}
+
+	private String read(Path path) throws IOException {
+		return new String(Files.readAllBytes(path), StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * min 2*x_n0 + 3*x_n1
+	 * R1: x_n0 + 0.5*x_n1 >= 1
+	 * R2: x_n0 - x_n1 <= 0
+	 */
+	private LPModel getSmallModel() {
+		LPModel model = new LPModel();
+		int nameX = model.getNames().intern("X", "n");
+		int nameR = model.getNames().intern("R", "r");
+		int x0 = model.addColumn(nameX, true, 0);
+		int x1 = model.addColumn(nameX, false, 1);
+		model.setObjectiveCoefficient(x0, 2);
+		model.setObjectiveCoefficient(x1, 3);
+
+		model.beginRow(nameR, ConstraintType.GEQ, 1);
+		model.addTerm(x0, 1);
+		model.addTerm(x1, 0.5);
+		model.endRow(1);
+
+		model.beginRow(nameR, ConstraintType.LEQ, 2);
+		model.addTerm(x0, 1);
+		model.addTerm(x1, -1);
+		model.endRow(0);
+		return model;
+	}
+
+	@Test
+	public void testNames() {
+		LPNames names = new LPNames();
+		int nameP = names.intern("P", "i", "j", "k");
+		assertEquals(nameP, names.intern("P", "i", "j", "k"));
+		assertTrue(nameP != names.intern("P", "i", "j"));
+		assertEquals("P_i1_j2_k3", names.getNameWithIndices(nameP, new int[] {0, 1, 2, 3}, 1));
+		assertEquals("OBJ", names.getNameWithIndices(names.intern("OBJ"), new int[0], 0));
+	}
+
+	@Test
+	public void testRowsMergeTermsAndDropZeros() {
+		LPModel model = new LPModel();
+		int nameX = model.getNames().intern("X", "i", "n");
+		int nameR = model.getNames().intern("R8", "i", "n");
+		for (int n=0;n<3;n++) {
+			model.addColumn(nameX, true, 0, n);
+		}
+
+		model.beginRow(nameR, ConstraintType.LEQ, 0, 1);
+		model.addTerm(1, 16);
+		model.addTerm(0, 0);
+		model.addTerm(1, -32);
+		model.addTerm(2, 1);
+		model.addTerm(2, -1);
+		assertEquals(2, model.getCurrentRowLength());
+		int row = model.endRow(5);
+
+		assertEquals(0, row);
+		assertEquals(1, model.getNumberOfRows());
+		assertEquals("R8_i0_n1", model.getRowNameWithIndices(row));
+		assertEquals(ConstraintType.LEQ, model.getRowType(row));
+		assertEquals(5, model.getRightHandSide(row), 1e-8);
+		assertEquals(1, model.getRowEnd(row) - model.getRowStart(row));
+		assertEquals(1, model.getTermColumn(model.getRowStart(row)));
+		assertEquals(-16, model.getTermCoefficient(model.getRowStart(row)), 1e-8);
+		assertEquals("X_i0_n1", model.getColumnNameWithIndices(1));
+
+		// Terms of the next row are not merged with the previous one
+		model.beginRow(nameR, ConstraintType.LEQ, 0, 2);
+		model.addTerm(1, 1);
+		model.endRow(1);
+		assertEquals(1, model.getTermCoefficient(model.getRowStart(1)), 1e-8);
+	}
+
+	@Test
+	public void testRowsWithoutTerms() {
+		LPModel model = new LPModel();
+		int nameX = model.getNames().intern("X", "n");
+		int nameR = model.getNames().intern("R", "n");
+		int column = model.addColumn(nameX, true, 0);
+
+		// Always satisfied: Discarded
+		model.beginRow(nameR, ConstraintType.LEQ, 0);
+		model.addTerm(column, 0);
+		assertEquals(-1, model.endRow(1));
+
+		// Never satisfied: Kept with a coefficient of 0
+		model.beginRow(nameR, ConstraintType.GEQ, 1);
+		model.addTerm(column, 0);
+		int row = model.endRow(1);
+		assertEquals(0, row);
+		assertEquals(1, model.getRowEnd(row) - model.getRowStart(row));
+		assertEquals(0, model.getTermCoefficient(model.getRowStart(row)), 0);
+
+		model.beginRow(nameR, ConstraintType.GEQ, 2);
+		model.addTerm(column, 1);
+		model.discardRow();
+		assertEquals(1, model.getNumberOfRows());
+
+		try {
+			model.beginRow(nameR, ConstraintType.LEQ, 1, 2);
+			fail("Wrong number of indices should throw an exception");
+		}
+		catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testWriteLP() throws IOException {
+		Path path = getTempPath(".lp");
+		LPModelWriter.writeLP(getSmallModel(), path);
+		assertEquals("MINIMIZE\r\n"
+				+ "  + 2.0 X_n0 + 3.0 X_n1 \r\n"
+				+ "SUBJECT TO\r\n"
+				+ "  R_r1: + X_n0 + 0.5 X_n1  >= 1.0\r\n"
+				+ "  R_r2: + X_n0 - X_n1  <= 0.0\r\n"
+				+ "BINARY\r\n"
+				+ "  X_n0 \r\n"
+				+ "END\r\n", read(path));
+	}
+
+	@Test
+	public void testStreamLP() throws IOException {
+		LPModel model = new LPModel();
+		int nameX = model.getNames().intern("X", "n");
+		int nameR = model.getNames().intern("R", "r");
+		model.addColumn(nameX, true, 0);
+		model.addColumn(nameX, false, 1);
+		model.setObjectiveCoefficient(0, 2);
+		model.setObjectiveCoefficient(1, 3);
+
+		Path path = getTempPath(".lp");
+		try (LPModelWriter writer = LPModelWriter.streamLP(model, path)) {
+			assertTrue(model.isStreaming());
+			model.beginRow(nameR, ConstraintType.GEQ, 1);
+			model.addTerm(0, 1);
+			model.addTerm(1, 0.5);
+			model.endRow(1);
+			model.beginRow(nameR, ConstraintType.LEQ, 2);
+			model.addTerm(0, 1);
+			model.addTerm(1, -1);
+			model.endRow(0);
+
+			// Rows are not kept in memory
+			assertEquals(0, model.getNumberOfRows());
+			assertEquals(2, model.getNumberOfRowsAdded());
+		}
+		assertFalse(model.isStreaming());
+
+		Path pathComplete = getTempPath(".lp");
+		LPModelWriter.writeLP(getSmallModel(), pathComplete);
+		assertEquals(read(pathComplete), read(path));
+	}
+
+	@Test
+	public void testWriteMPS() throws IOException {
+		Path path = getTempPath(".mps");
+		LPModelWriter.writeMPS(getSmallModel(), path);
+		assertEquals("NAME\r\n"
+				+ "ROWS\r\n"
+				+ " N OBJ\r\n"
+				+ " G R_r1\r\n"
+				+ " L R_r2\r\n"
+				+ "COLUMNS\r\n"
+				+ " X_n0 OBJ 2.0\r\n"
+				+ " X_n0 R_r1 1.0\r\n"
+				+ " X_n0 R_r2 1.0\r\n"
+				+ " X_n1 OBJ 3.0\r\n"
+				+ " X_n1 R_r1 0.5\r\n"
+				+ " X_n1 R_r2 -1.0\r\n"
+				+ "RHS\r\n"
+				+ " RHS R_r1 1.0\r\n"
+				+ "BOUNDS\r\n"
+				+ " BV BND X_n0\r\n"
+				+ "ENDATA\r\n", read(path));
+	}
+
+	/**
+	 * Reads the rows of an .lp file as maps of variable name to coefficient (the right hand
+	 * side is stored with the comparison operator as key). Repeated variables are summed up
+	 * and zero coefficients are dropped, binaries are stored in the row "BINARY".
+	 */
+	private Map<String, Map<String, Double>> readLPRows(Path path) throws IOException {
+		Map<String, Map<String, Double>> rows = new HashMap<>();
+		String section = null;
+		for (String line : read(path).split("\r\n")) {
+			if (line.isEmpty()) {
+				continue;
+			}
+			if (line.startsWith(" ") == false) {
+				section = line;
+				continue;
+			}
+			String[] tokens = line.trim().split(" +");
+			Map<String, Double> row = new HashMap<>();
+			if (section.equals("BINARY")) {
+				for (String token : tokens) {
+					row.put(token, 1.0);
+				}
+				rows.put(section, row);
+				continue;
+			}
+
+			String rowName = "OBJ";
+			int i = 0;
+			if (tokens[0].endsWith(":")) {
+				rowName = tokens[0].substring(0, tokens[0].length() - 1);
+				i++;
+			}
+			while (i < tokens.length) {
+				String sign = tokens[i++];
+				if (sign.equals("+") == false && sign.equals("-") == false) {
+					row.put(sign, Double.parseDouble(tokens[i++]));
+					continue;
+				}
+				double coefficient = 1;
+				if (Character.isLetter(tokens[i].charAt(0)) == false) {
+					coefficient = Double.parseDouble(tokens[i++]);
+				}
+				row.merge(tokens[i++], sign.equals("-") ? -coefficient : coefficient, Double::sum);
+			}
+			row.values().removeIf(coefficient -> coefficient == 0);
+			assertTrue("Duplicate row " + rowName, rows.put(rowName, row) == null);
+		}
+		return rows;
+	}
+
+	/**
+	 * src/test/resources/lp/toyInstance.lp was written by InstanceLP.constructProblem() before
+	 * the model was constructed via LPModel. The order of terms in that file is arbitrary, so
+	 * rows are compared by their coefficients.
+	 */
+	@Test
+	public void testInstanceLPGoldenFile() throws IOException {
+		InstanceLP instanceLP = new InstanceLP(DefaultDataGenerator.getToyDataGenerator());
+		instanceLP.constructVariables();
+		instanceLP.constructProblem();
+		Path pathStreamed = Paths.get(instanceLP.pathInstanceLPFile);
+		paths.add(pathStreamed);
+
+		Map<String, Map<String, Double>> expectedRows = readLPRows(Paths.get("src/test/resources/lp/toyInstance.lp"));
+		Map<String, Map<String, Double>> rows = readLPRows(pathStreamed);
+		assertEquals(expectedRows.keySet(), rows.keySet());
+		for (String rowName : expectedRows.keySet()) {
+			Map<String, Double> expectedRow = expectedRows.get(rowName);
+			Map<String, Double> row = rows.get(rowName);
+			assertEquals(rowName, expectedRow.keySet(), row.keySet());
+			for (String key : expectedRow.keySet()) {
+				double expected = expectedRow.get(key);
+				assertEquals(rowName + " " + key, expected, row.get(key), 1e-9 * Math.max(1, Math.abs(expected)));
+			}
+		}
+	}
+
+	@Test
+	public void testInstanceLPModel() throws IOException {
+		DataGenerator data = DefaultDataGenerator.getToyDataGenerator();
+		InstanceLP instanceLP = new InstanceLP(data);
+		instanceLP.constructVariables();
+
+		LPModel model = instanceLP.constructModel();
+		for (Variable variableP : instanceLP.getVariablesP().values()) {
+			assertEquals(variableP.getNameWithIndices(), model.getColumnNameWithIndices(instanceLP.getColumn(variableP)));
+		}
+		Variable variableX = instanceLP.getVariableX(1, 0);
+		assertEquals(variableX.getNameWithIndices(), model.getColumnNameWithIndices(instanceLP.getColumn(variableX)));
+		assertEquals("UPrime_k10_n1", model.getColumnNameWithIndices(instanceLP.getColumnUPrime(1)));
+		assertEquals("D_k3_sign0_jFrom2_jTo3", model.getColumnNameWithIndices(instanceLP.getColumnD(3, 0, 2, 3)));
+
+		// Restrictions as Equations
+		ArrayList<Equation> allRestrictions = instanceLP.constructAllRestrictions();
+		assertEquals(model.getNumberOfRows(), allRestrictions.size());
+		for (int row=0;row<model.getNumberOfRows();row++) {
+			Equation restriction = allRestrictions.get(row);
+			assertEquals(model.getRowNameWithIndices(row), restriction.getNameWithIndices());
+			assertEquals(model.getRowEnd(row) - model.getRowStart(row), restriction.getVariables().size());
+		}
+
+		// Streamed .lp file is equal to the one written from the complete model and the one written from Equations
+		Path pathModel = getTempPath(".lp");
+		LPModelWriter.writeLP(model, pathModel);
+
+		instanceLP.constructProblem();
+		Path pathStreamed = Paths.get(instanceLP.pathInstanceLPFile);
+		paths.add(pathStreamed);
+		assertEquals(read(pathModel), read(pathStreamed));
+
+		instanceLP.constructProblem(allRestrictions);
+		Path pathEquations = Paths.get(instanceLP.pathInstanceLPFile);
+		paths.add(pathEquations);
+		assertEquals(read(pathModel), read(pathEquations));
+	}
+
+}
@@ -10,6 +10,8 @@ import org.json.simple.parser.ParseException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.sap.charging.sim.SimulationContext;
+
 public class VariableTest {
 
 	public static Variable getDefaultVariableX() {
@@ -23,7 +25,7 @@ public class VariableTest {
 	
 	@BeforeEach
 	public void setup() {
-		InstanceLP.verbosity = 0; 
+		SimulationContext.getGlobal().setLPVerbosity(0); 
 	}
 	
 	@Test
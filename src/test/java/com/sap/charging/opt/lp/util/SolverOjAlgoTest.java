@@ -0,0 +1,153 @@
+package com.sap.charging.opt.lp.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sap.charging.dataGeneration.common.DefaultDataGenerator;
+import com.sap.charging.opt.heuristics.InstanceHeuristicAbsSoCLP;
+import com.sap.charging.opt.lp.Equation.ConstraintType;
+import com.sap.charging.opt.lp.InstanceLP;
+import com.sap.charging.opt.lp.LPModel;
+import com.sap.charging.sim.SimulationContext;
+import com.sap.charging.util.JSONKeys;
+
+public class SolverOjAlgoTest {
+
+	@BeforeEach
+	public void setup() {
+		SimulationContext.getGlobal().setLPVerbosity(0);
+	}
+
+	/**
+	 * min 2*x_n0 + 3*x_n1 (x_n0 binary)
+	 * R1: x_n0 + 0.5*x_n1 >= 1
+	 * R2: x_n0 - x_n1 <= 0
+	 */
+	private LPModel getSmallModel() {
+		LPModel model = new LPModel();
+		int nameX = model.getNames().intern("X", "n");
+		int nameR = model.getNames().intern("R", "r");
+		int x0 = model.addColumn(nameX, true, 0);
+		int x1 = model.addColumn(nameX, false, 1);
+		model.setObjectiveCoefficient(x0, 2);
+		model.setObjectiveCoefficient(x1, 3);
+
+		model.beginRow(nameR, ConstraintType.GEQ, 1);
+		model.addTerm(x0, 1);
+		model.addTerm(x1, 0.5);
+		model.endRow(1);
+
+		model.beginRow(nameR, ConstraintType.LEQ, 2);
+		model.addTerm(x0, 1);
+		model.addTerm(x1, -1);
+		model.endRow(0);
+		return model;
+	}
+
+	private Map<String, Double> getVariableValues(JSONObject solution) {
+		Map<String, Double> result = new HashMap<>();
+		for (Object object : (JSONArray) solution.get(JSONKeys.JSON_KEY_VARIABLES)) {
+			JSONObject variable = (JSONObject) object;
+			result.put((String) variable.get(JSONKeys.JSON_KEY_VARIABLE_NAME), (Double) variable.get(JSONKeys.JSON_KEY_VARIABLE_VALUE));
+		}
+		return result;
+	}
+
+	@Test
+	public void testSolveModel() {
+		SolverOjAlgo solver = new SolverOjAlgo();
+		assertTrue(solver.isInMemory());
+
+		JSONObject solution = solver.solveModel(getSmallModel());
+		assertEquals("optimal solution found", solution.get(JSONKeys.JSON_KEY_SOLUTION_STATUS));
+		assertEquals(5, (double) solution.get(JSONKeys.JSON_KEY_OBJECTIVE_VALUE), 1e-6);
+		Map<String, Double> values = getVariableValues(solution);
+		assertEquals(1, values.get("X_n0"), 1e-6);
+		assertEquals(1, values.get("X_n1"), 1e-6);
+	}
+
+	@Test
+	public void testSolveModelRelaxed() {
+		SolverOjAlgo solver = new SolverOjAlgo();
+		solver.setRelaxIntegers(true);
+
+		JSONObject solution = solver.solveModel(getSmallModel());
+		assertEquals(10.0/3, (double) solution.get(JSONKeys.JSON_KEY_OBJECTIVE_VALUE), 1e-6);
+		Map<String, Double> values = getVariableValues(solution);
+		assertEquals(2.0/3, values.get("X_n0"), 1e-6);
+		assertEquals(2.0/3, values.get("X_n1"), 1e-6);
+	}
+
+	@Test
+	public void testSolveModelInfeasible() {
+		LPModel model = getSmallModel();
+		model.beginRow(model.getNames().intern("R", "r"), ConstraintType.LEQ, 3);
+		model.addTerm(0, 1);
+		model.addTerm(1, 1);
+		model.endRow(0.5);
+
+		try {
+			new SolverOjAlgo().solveModel(model);
+			fail("Infeasible model should throw an exception");
+		}
+		catch (RuntimeException e) {
+			assertEquals("Problem is infeasible!", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testInstanceHeuristicLP() {
+		InstanceHeuristicAbsSoCLP instance = new InstanceHeuristicAbsSoCLP(DefaultDataGenerator.getToyDataGenerator());
+		SolverOjAlgo solver = new SolverOjAlgo();
+		solver.setRelaxIntegers(true);
+		solver.setTimeLimit(60);
+		instance.setSolver(solver);
+		instance.constructProblem();
+
+		// No files are written
+		assertNull(instance.getInstanceLP().pathInstanceLPFile);
+
+		JSONObject solution = (JSONObject) instance.getSolvedProblemInstanceJSON().get(JSONKeys.JSON_KEY_SOLUTION);
+		assertEquals("optimal solution found", solution.get(JSONKeys.JSON_KEY_SOLUTION_STATUS));
+		Map<String, Double> values = getVariableValues(solution);
+
+		// Car assignments made by the heuristic are kept
+		for (int n=0;n<instance.getCars().size();n++) {
+			for (int i=0;i<instance.getChargingStations().size();i++) {
+				double expected = instance.getInstanceLP().getVariableX(i, n).getValue();
+				assertEquals(expected, values.getOrDefault("X_i" + i + "_n" + n, 0.0), 1e-6);
+			}
+		}
+		assertTrue(values.keySet().stream().anyMatch(name -> name.startsWith("P_")));
+	}
+
+	@Test
+	public void testSolverSetAfterConstructProblem() throws IOException {
+		InstanceLP instanceLP = new InstanceLP(DefaultDataGenerator.getToyDataGenerator());
+		instanceLP.constructVariables();
+		instanceLP.setSolver(new SolverSCIP());
+		instanceLP.constructProblem();
+		Files.deleteIfExists(Paths.get(instanceLP.pathInstanceLPFile));
+		instanceLP.setSolver(new SolverOjAlgo());
+		try {
+			instanceLP.solveProblem();
+			fail("In-memory solvers need to be set before constructing the problem");
+		}
+		catch (IllegalStateException e) {
+		}
+	}
+
+}
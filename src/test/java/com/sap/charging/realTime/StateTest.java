@@ -1,6 +1,8 @@
 package com.sap.charging.realTime;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import org.json.simple.JSONObject;
 import org.junit.jupiter.api.Test;
@@ -8,8 +10,11 @@ import org.junit.jupiter.api.Test;
 
 import com.sap.charging.dataGeneration.DataGeneratorFromFile;
 import com.sap.charging.dataGeneration.DataGeneratorRandom;
+import com.sap.charging.model.Car;
+import com.sap.charging.model.ChargingStation;
 import com.sap.charging.opt.InstanceEmpty;
 import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.JSONKeys;
 
 public class StateTest {
@@ -19,7 +24,7 @@ public class StateTest {
 	@Test
 	public void testStateToJSON() {
 		
-		Simulation.verbosity = 0; 
+		SimulationContext.getGlobal().setVerbosity(0); 
 		
 		DataGeneratorRandom data = new DataGeneratorRandom(0, false);
 		data.generateEnergyPriceHistory(96)
@@ -63,4 +68,51 @@ public class StateTest {
 		
 	}
 	
+	@Test
+	public void testLookupsConsistentAfterAddRemove() {
+		
+		SimulationContext.getGlobal().setVerbosity(0); 
+		
+		DataGeneratorRandom data = new DataGeneratorRandom(0, false);
+		data.generateEnergyPriceHistory(96)
+			.generateChargingStations(10)
+			.generateCars(10)
+			.generateFuseTree(10, true);
+		Car firstCar = data.getCars().stream().min((car1, car2) -> car1.timestampArrival.compareTo(car2.timestampArrival)).get();
+		for (Car car : data.getCars()) {
+			car.timestampArrival = firstCar.timestampArrival;
+		}
+		
+		State state = new State(0, data);
+		state.setTimeSeconds(firstCar.timestampArrival.toSecondOfDay());
+		Car car = data.getCars().get(3);
+		ChargingStation chargingStation = data.getChargingStations().get(5);
+		
+		state.addCarAssignment(car, chargingStation);
+		state.addPowerAssignment(car, chargingStation, 16, 16, 16);
+		assertSame(car, state.getCar(car.getId()));
+		assertSame(car, state.getCurrentCarAssignment(car.getId()).car);
+		assertSame(chargingStation, state.getOccupiedChargingStation(chargingStation.getId()));
+		assertNull(state.getFreeChargingStation(chargingStation.getId()));
+		assertSame(state.getCurrentPowerAssignment(car), state.getCurrentPowerAssignment(chargingStation));
+		assertEquals(1, state.getCurrentPowerAssignments().size());
+		
+		state.removePowerAssignment(car);
+		assertNull(state.getCurrentPowerAssignment(car));
+		assertNull(state.getCurrentPowerAssignment(chargingStation));
+		assertEquals(0, state.getCurrentPowerAssignments().size());
+		
+		state.removeCarAssignment(car);
+		assertNull(state.getCurrentCarAssignment(car.getId()));
+		assertNull(state.getOccupiedChargingStation(chargingStation.getId()));
+		assertSame(chargingStation, state.getFreeChargingStation(chargingStation.getId()));
+		
+		// Cars removed from the list from outside
+		state.getCars().remove(car);
+		assertNull(state.getCar(car.getId()));
+		state.getCars().add(0, car);
+		assertSame(car, state.getCar(car.getId()));
+		assertSame(data.getCars().get(4), state.getCar(data.getCars().get(4).getId()));
+	}
+	
 }
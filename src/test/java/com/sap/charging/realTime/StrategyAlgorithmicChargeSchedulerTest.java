@@ -4,6 +4,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Random;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -16,6 +18,7 @@ import com.sap.charging.realTime.model.forecasting.departure.CarDepartureOracle;
 import com.sap.charging.realTime.util.TimeslotSorter;
 import com.sap.charging.realTime.util.TimeslotSortingCriteria;
 import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.random.ConstantDistribution;
 
 public class StrategyAlgorithmicChargeSchedulerTest {
@@ -34,7 +37,7 @@ public class StrategyAlgorithmicChargeSchedulerTest {
 	
 	@BeforeEach
 	public void setup() {
-		Simulation.verbosity = 0;
+		SimulationContext.getGlobal().setVerbosity(0);
 		
 		strategyLinear = new StrategyAlgorithmic();
 		schedulerLinear = strategyLinear.getScheduler();
@@ -404,7 +407,7 @@ public class StrategyAlgorithmicChargeSchedulerTest {
 	public void testFillChargingNonlinear_EmptyCar_ExhaustiveDesiredCapacity() {
 	
 		// Test exactness of nonlinear filling charge plans
-		Simulation.verbosity = 0;
+		SimulationContext.getGlobal().setVerbosity(0);
 		int startTimeSeconds = 0;
 		
 		double desiredCapacityInterval = 1; 
@@ -428,7 +431,7 @@ public class StrategyAlgorithmicChargeSchedulerTest {
 	@Test
 	public void testFillChargingNonlinear_HighInitialSoC_ExhaustiveDesiredCapacity() {
 		// Test exactness of nonlinear filling charge plans
-		Simulation.verbosity = 0;
+		SimulationContext.getGlobal().setVerbosity(0);
 		int startTimeSeconds = 0;
 		
 		// Charge until soc=0.9
@@ -571,6 +574,35 @@ public class StrategyAlgorithmicChargeSchedulerTest {
 		
 	}
 	
+	@Test
+	public void testNonlinearCheckpoints() {
+		StrategyAlgorithmicChargeScheduler schedulerNoCheckpoints = new StrategyAlgorithmic().getScheduler();
+		schedulerNoCheckpoints.setNonlinearChargingRecognized(true);
+		schedulerNoCheckpoints.setEnablePlannedCapacityCheckpoints(false);
+		assertTrue(schedulerNonlinear.isEnablePlannedCapacityCheckpoints());
+		
+		Random random = new Random(0);
+		double[] plan = new double[96];
+		for (int k=0;k<plan.length;k++) {
+			plan[k] = random.nextDouble() < 0.5 ? random.nextInt(33) : -1;
+		}
+		car.setCurrentPlan(plan);
+		
+		for (int currentTimeSeconds : new int[] {0, 450, 900, 40000}) {
+			for (int i=0;i<50;i++) {
+				if (i % 5 == 0) {
+					// Modify plan between queries to invalidate checkpoints
+					plan[random.nextInt(plan.length)] = random.nextInt(33);
+				}
+				int start = currentTimeSeconds + random.nextInt(86400-currentTimeSeconds);
+				int end = start + random.nextInt(86400-start+1);
+				assertEquals(schedulerNoCheckpoints.getPlannedCapacityNonlinear(chargingStation, car, currentTimeSeconds, start, end),
+						schedulerNonlinear.getPlannedCapacityNonlinear(chargingStation, car, currentTimeSeconds, start, end), 0);
+			}
+			assertEquals(schedulerNoCheckpoints.getPlannedCapacity(chargingStation, car, currentTimeSeconds),
+					schedulerNonlinear.getPlannedCapacity(chargingStation, car, currentTimeSeconds), 0);
+		}
+	}
 	
 }
 
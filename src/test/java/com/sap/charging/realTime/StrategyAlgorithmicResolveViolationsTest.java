@@ -0,0 +1,254 @@
+package com.sap.charging.realTime;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sap.charging.dataGeneration.DataGenerator;
+import com.sap.charging.dataGeneration.DataGeneratorRandom;
+import com.sap.charging.model.Car;
+import com.sap.charging.model.Fuse;
+import com.sap.charging.model.FuseTreeNode;
+import com.sap.charging.realTime.model.CarAssignment;
+import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
+import com.sap.charging.sim.eval.Validation;
+import com.sap.charging.sim.eval.exception.FuseTreeException;
+import com.sap.charging.sim.eval.exception.SimulationInvalidStateException;
+import com.sap.charging.sim.util.SimulationListener;
+import com.sap.charging.util.SortableElement;
+import com.sap.charging.util.Util;
+
+/**
+ * Compares resolveViolations (rechecks only timeslots with changed plans) to the previous implementation 
+ * (rechecks all timeslots after each handled violation). Both must produce exactly the same plans. 
+ */
+public class StrategyAlgorithmicResolveViolationsTest {
+
+	/**
+	 * Previous implementation of resolveViolations and handleViolation
+	 */
+	static class StrategyAlgorithmicFullRecheck extends StrategyAlgorithmic {
+		
+		int nHandledViolations = 0; 
+		
+		@Override
+		public void resolveViolations(State state, Map<Integer, FuseTreeException> violatingTimeslots) {
+			boolean[] blockedTimeslots = new boolean[state.energyPriceHistory.getNTimeslots()];
+			while (violatingTimeslots.keySet().isEmpty() == false) {
+				int violatingK = (int) violatingTimeslots.keySet().toArray()[0];
+				blockedTimeslots[violatingK] = true;
+				handleViolation(state, violatingK, blockedTimeslots, violatingTimeslots);
+			}
+		}
+		
+		@Override
+		public void handleViolation(State state, int violatingK, boolean[] blockedTimeslots, Map<Integer, FuseTreeException> violatingTimeslots) {
+			nHandledViolations++; 
+			// Get all car assignments relevant to this violation
+			FuseTreeException fuseTreeException = violatingTimeslots.get(violatingK);
+			if (fuseTreeException == null) {
+				throw new RuntimeException("No fuseTreeException found for violatingK=" + violatingK + ". Map of violatingTimeslots includes " + violatingTimeslots.size() + " items"); 
+			}
+		
+			FuseTreeNode violatedFuse = fuseTreeException.getFuse();
+			List<CarAssignment> carAssignments = state.getCarAssignmentsByFuse(violatedFuse);
+			List<SortableElement<CarAssignment>> sortedViolatingCars = getSortedCarsByPriority(carAssignments, state.currentTimeSeconds, violatingK);
+		
+			boolean thisFuseViolationFixed = false; // Has the violation for THIS fuse been fixed?
+			while (thisFuseViolationFixed == false) {
+			
+				log(2, "Handling violation at timeslot k=" + violatingK + " with exception=" + fuseTreeException.getMessage());
+			
+				// Make changes to charging plan for car with lowest priority
+				if (sortedViolatingCars.size() == 0) {
+					throw new RuntimeException("Rescheduled all n=" + state.cars.size() + " cars at k=" + violatingK + " but violation is not fixed!");
+				}
+				int indexViolatingCar = 0;
+				// Loop through the list of cars until a car is found, which can reduce the power of the fuse with the highest delta
+				for (int indexCurrentCar=0; indexCurrentCar<sortedViolatingCars.size();indexCurrentCar++) {
+					CarAssignment carAssignmentLowestPriority = sortedViolatingCars.get(indexCurrentCar).index;
+					// Check consumption on correct phase --> Check whether EV with lowest priority causes exception
+					// Differentiate between charging station exceptions and fuse exceptions:
+					// On fuses use currentPerGridPhase
+					// On chargingStation use currentPerStationPhase (so that it matches the correct fuseSize)
+					double[] consumption = fuseTreeException.getFuse() instanceof Fuse ? 
+							carAssignmentLowestPriority.getCurrentPerGridPhase(violatingK) :
+							carAssignmentLowestPriority.getCurrentPerStationPhase(violatingK); 
+						
+					double plannedCurrent = consumption[fuseTreeException.getPhaseWithHighestDelta().asInt()-1];
+				
+					log(2, "Car n=" + carAssignmentLowestPriority.car.getId() + " has lowest priority (" 
+							+ sortedViolatingCars.get(0).value 
+							+ ") in violatingK=" + violatingK + ", plannedCurrent=" + Util.formatDouble(plannedCurrent) + "A");
+				
+					if (plannedCurrent > 0) {
+					
+						rescheduleCar(state, carAssignmentLowestPriority, blockedTimeslots, violatingK, fuseTreeException);
+					
+						// Check if this violation was fixed: FuseTreeException e must be updated
+						try {
+							Validation.validateFuseAtTimeslot(violatedFuse, state, violatingK);
+							thisFuseViolationFixed = true;
+						}
+						catch (FuseTreeException updatedException) {
+							log(2, "New fuseTreeException: " + updatedException.getMessage());
+							if (updatedException.getFuse() != violatedFuse) {
+								log(3, "New fuseTreeException describes a different fuse (index=" + updatedException.getFuse().getId() + ") " +
+									"compared to the resolved fuseTreeException (index=" + violatedFuse.getId() + ")");
+								thisFuseViolationFixed = true; 
+							}
+							else {
+								fuseTreeException = updatedException;
+							}
+						}
+						// Relevant Car was rescheduled. Break the loop and check if the violation was fixed
+						indexViolatingCar = indexCurrentCar;
+						break;
+					}
+				}
+				sortedViolatingCars.remove(indexViolatingCar); // Remove the car which was rescheduled	
+			}
+			// Remove violation from map
+			violatingTimeslots.remove(violatingK);
+		
+			log(2, "Checking for new violations after rescheduling violatingK=" + violatingK + "...");		
+			// Check for any new violations and add them
+			for (int kCheck=state.currentTimeslot;kCheck<state.energyPriceHistory.getNTimeslots();kCheck++) {
+				if (//violatingTimeslots.get(kCheck) != null ||   // check a timeslot even if there is no violation already saved for it, since data of the violation may have changed
+					(violatingK != kCheck && blockedTimeslots[kCheck] == true)) { 
+					// If the timeslot is blocked, don't check it. However, the current violatingK could have created a new exception so it must be rechecked
+					continue;
+				}
+				
+				try {
+					Validation.validateFuseTreeAtTimeslot(state, kCheck);
+				} catch (FuseTreeException eNewError) {
+					violatingTimeslots.put(eNewError.timeslot, eNewError);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Records the plans of all assigned cars at the start of each timeslot
+	 */
+	static class PlanRecorder implements SimulationListener {
+		final List<double[]> plans = new ArrayList<>(); 
+		@Override
+		public void callbackAfterUpdate(State state) {
+			if (state.currentTimeSeconds % 900 == 0) {
+				for (CarAssignment carAssignment : state.getCurrentCarAssignments()) {
+					plans.add(carAssignment.car.getCurrentPlan().clone()); 
+				}
+			}
+		}
+		@Override
+		public void callbackBeforeUpdate(State state) {
+		}
+	}
+	
+	@BeforeEach
+	public void setup() {
+		SimulationContext.getGlobal().setVerbosity(0); 
+	}
+	
+	private DataGenerator buildData(int seed, int nCars, boolean nonlinearCharging, double rootFuseSize) {
+		DataGeneratorRandom data = new DataGeneratorRandom(seed, false); 
+		if (nonlinearCharging) {
+			data.setIdealCars(true);
+			data.setIdealChargingStations(true);
+			data.setNonlinearCharging(true);
+		}
+		data.generateEnergyPriceHistory(96)
+			.generateCars(nCars)
+			.generateChargingStations(nCars)
+			.generateFuseTree(nCars, true);
+		// Tight fuses to cause many violations
+		Fuse rootFuse = data.getFuseTree().getRootFuse(); 
+		rootFuse.setFuseSize(rootFuseSize);
+		for (FuseTreeNode child : rootFuse.getChildren()) {
+			((Fuse) child).setFuseSize(rootFuseSize/2);
+		}
+		return data; 
+	}
+	
+	private void assertEqualSimulations(int seed, int nCars, boolean nonlinearCharging, double rootFuseSize) {
+		DataGenerator data1 = buildData(seed, nCars, nonlinearCharging, rootFuseSize);
+		StrategyAlgorithmicFullRecheck strategy1 = new StrategyAlgorithmicFullRecheck(); 
+		strategy1.setRecognizeNonlinearCharging(nonlinearCharging);
+		Simulation sim1 = new Simulation(data1, strategy1); 
+		PlanRecorder recorder1 = new PlanRecorder(); 
+		sim1.addStateListener(recorder1);
+		sim1.init();
+		
+		DataGenerator data2 = buildData(seed, nCars, nonlinearCharging, rootFuseSize);
+		StrategyAlgorithmic strategy2 = new StrategyAlgorithmic(); 
+		strategy2.setRecognizeNonlinearCharging(nonlinearCharging);
+		Simulation sim2 = new Simulation(data2, strategy2); 
+		PlanRecorder recorder2 = new PlanRecorder(); 
+		sim2.addStateListener(recorder2);
+		sim2.init();
+		
+		// Simulate in lockstep. Both simulations must produce the same plans and (if any) run into an invalid state at the same time
+		while (sim1.isFinished() == false) {
+			boolean valid1 = simulateNextStep(sim1); 
+			boolean valid2 = simulateNextStep(sim2); 
+			assertEquals(valid1, valid2); 
+			if (valid1 == false) {
+				break; 
+			}
+		}
+		
+		assertTrue(strategy1.nHandledViolations > 0); 
+		assertEquals(recorder1.plans.size(), recorder2.plans.size()); 
+		for (int i=0;i<recorder1.plans.size();i++) {
+			assertArrayEquals(recorder1.plans.get(i), recorder2.plans.get(i), 0);
+		}
+		for (int n=0;n<nCars;n++) {
+			Car car1 = data1.getCar(n); 
+			Car car2 = data2.getCar(n); 
+			assertArrayEquals(car1.getCurrentPlan(), car2.getCurrentPlan(), 0);
+			assertEquals(car1.getChargedCapacity(), car2.getChargedCapacity(), 0);
+		}
+		assertEquals(sim1.getSimulationResult().getSumCharged(), sim2.getSimulationResult().getSumCharged(), 0);
+	}
+	
+	private boolean simulateNextStep(Simulation sim) {
+		try {
+			sim.simulateNextStep();
+			return true; 
+		}
+		catch (SimulationInvalidStateException e) {
+			return false; 
+		}
+	}
+	
+	@Test
+	public void testEqualToFullRecheck_Seed0() {
+		assertEqualSimulations(0, 30, false, 128);
+	}
+	
+	@Test
+	public void testEqualToFullRecheck_Seed1() {
+		assertEqualSimulations(1, 40, false, 128);
+	}
+	
+	@Test
+	public void testEqualToFullRecheck_Seed2() {
+		assertEqualSimulations(2, 20, false, 96);
+	}
+	
+	@Test
+	public void testEqualToFullRecheck_Nonlinear() {
+		assertEqualSimulations(3, 20, true, 96);
+	}
+	
+}
@@ -30,6 +30,7 @@ import com.sap.charging.realTime.model.forecasting.departure.CarDepartureForecas
 import com.sap.charging.realTime.util.TimeslotSorter;
 import com.sap.charging.realTime.util.TimeslotSortingCriteria;
 import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.sim.common.SimulationUnitTest;
 import com.sap.charging.sim.eval.exception.FuseTreeException;
 import com.sap.charging.util.SortableElement;
@@ -64,7 +65,7 @@ public class StrategyAlgorithmicTest extends SimulationUnitTest {
         strategy.objectiveFairShare.setWeight(1);
         scheduler = strategy.getScheduler(); 
         
-        Simulation.verbosity = 0; 
+        SimulationContext.getGlobal().setVerbosity(0); 
         sim = new Simulation(dataSim, strategy); 
         sim.init(); 
         state = sim.getState(); 
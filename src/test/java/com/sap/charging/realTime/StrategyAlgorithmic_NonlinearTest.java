@@ -21,6 +21,7 @@ import com.sap.charging.realTime.model.CarAssignment;
 import com.sap.charging.realTime.util.TimeslotSorter;
 import com.sap.charging.realTime.util.TimeslotSortingCriteria;
 import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.sim.eval.exception.FuseTreeException;
 import com.sap.charging.sim.util.SimulationListenerCSV;
 import com.sap.charging.util.TimeUtil;
@@ -47,7 +48,7 @@ public class StrategyAlgorithmic_NonlinearTest {
 	@BeforeEach
 	public void setup() {
 		
-		Simulation.verbosity = 0;
+		SimulationContext.getGlobal().setVerbosity(0);
 		
 		data = new DataGeneratorRandom(5, false);
 		data.setCarModels(new CarModel[] {CarModel.RENAULT_ZOE_ZE40});
@@ -532,8 +533,9 @@ public class StrategyAlgorithmic_NonlinearTest {
 		
 		/*System.out.println("Charged capacity: " + car.getChargedCapacity() + "/" + car.getMaxCapacity() + " (soc=" + car.carBattery.getSoC() + ")");
 		
-		System.out.println("nSimulations=" + BatterySim.nSimulations +  ", nSimulationSteps=" + BatterySim.nSimulationSteps + 
-				", average steps: " + Math.ceil(1.0*BatterySim.nSimulationSteps/BatterySim.nSimulations) + 
+		SimulationContext context = simulationNonlinear.getContext();
+		System.out.println("nSimulations=" + context.getBatterySimulations() +  ", nSimulationSteps=" + context.getBatterySimulationSteps() + 
+				", average steps: " + Math.ceil(1.0*context.getBatterySimulationSteps()/context.getBatterySimulations()) + 
 				", nCacheEntries: " + strategyNonlinear.getScheduler().getPlannedCapacityHashMap().size() + 
 				", nCacheHits: " + strategyNonlinear.getScheduler().plannedCapacityHashMapHits);*/
 		
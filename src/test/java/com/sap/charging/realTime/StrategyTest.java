@@ -2,8 +2,10 @@ package com.sap.charging.realTime;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,6 +14,7 @@ import com.sap.charging.model.Car;
 import com.sap.charging.model.ChargingStation;
 import com.sap.charging.model.EnergyPriceHistory;
 import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.sim.common.SimulationUnitTest;
 import com.sap.charging.sim.event.EventCarArrival;
 import com.sap.charging.sim.event.EventCarDeparture;
@@ -25,7 +28,7 @@ public class StrategyTest extends SimulationUnitTest {
 	
 	@BeforeEach
 	public void setup() {
-		Simulation.verbosity = 0; 
+		SimulationContext.getGlobal().setVerbosity(0); 
 		this.sim = new Simulation(dataSim, new StrategyAlgorithmic()); 
 		this.sim.init(); 
 		state = this.sim.getState(); 
@@ -128,4 +131,28 @@ public class StrategyTest extends SimulationUnitTest {
 		assertTrue(reactedReoptimize.get());
 
 	}
+
+	@Test
+	public void testReactionListenerOnFailure() {
+		AtomicInteger nReactions = new AtomicInteger(0);
+		SimulationContext context = new SimulationContext(0);
+		context.setReactionListener((event, durationNanos) -> nReactions.incrementAndGet());
+
+		Strategy strategy = new StrategyGreedy() {
+			@Override
+			public void reactReoptimize(State state) {
+				throw new IllegalStateException("Reoptimizing failed");
+			}
+		};
+		strategy.setContext(context);
+
+		try {
+			strategy.react(state, new EventReoptimize(dataSim.getCar(0).timestampArrival));
+			fail("Reaction should have failed");
+		}
+		catch (IllegalStateException e) {
+		}
+		// Failed reactions are passed to the listener as well
+		assertEquals(1, nReactions.get());
+	}
 }
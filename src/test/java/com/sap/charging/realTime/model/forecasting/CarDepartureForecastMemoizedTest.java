@@ -0,0 +1,146 @@
+package com.sap.charging.realTime.model.forecasting;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.sap.charging.model.Car;
+import com.sap.charging.model.CarFactory;
+import com.sap.charging.model.CarFactory.CarModel;
+import com.sap.charging.model.CarProcessData;
+import com.sap.charging.realTime.State;
+import com.sap.charging.realTime.model.forecasting.departure.CarDepartureForecast;
+import com.sap.charging.realTime.model.forecasting.departure.CarDepartureForecastMemoized;
+
+public class CarDepartureForecastMemoizedTest {
+
+	/**
+	 * Predicts the arrival time plus 8 hours and counts the predicted cars. Predictions of the car with failingCarID fail (-1).
+	 */
+	private static class CountingForecast extends CarDepartureForecast {
+		private final boolean memoizable;
+		private int failingCarID = -1;
+		private int nCalls = 0;
+		private int nCarsPredicted = 0;
+		private CountingForecast(boolean memoizable) {
+			this.memoizable = memoizable;
+		}
+		@Override
+		public int getExpectedDepartureTimeslot(State state, Car car) {
+			return 0;
+		}
+		@Override
+		public int getExpectedDepartureTimeSeconds(State state, Car car) {
+			nCalls++;
+			nCarsPredicted++;
+			return predict(car);
+		}
+		@Override
+		public int[] getExpectedDepartureTimesSeconds(State state, List<Car> cars) {
+			nCalls++;
+			nCarsPredicted += cars.size();
+			return cars.stream().mapToInt(this::predict).toArray();
+		}
+		private int predict(Car car) {
+			return (car.getId() == failingCarID) ? -1 : car.getCarProcessData().timestampArrival + 8*3600;
+		}
+		@Override
+		public boolean isMemoizable() {
+			return memoizable;
+		}
+	}
+
+	private List<Car> buildCars(int nCars) {
+		List<Car> cars = new ArrayList<>();
+		for (int n=0;n<nCars;n++) {
+			Car car = CarFactory.builder().set(CarModel.NISSAN_LEAF_2016).id(n).build();
+			car.setCarProcessData(new CarProcessData("A", "BEV", 1, 7*3600 + n*600, 17*3600));
+			cars.add(car);
+		}
+		return cars;
+	}
+
+	@Test
+	public void testBatchAndMemoization() {
+		List<Car> cars = buildCars(3);
+		CountingForecast forecast = new CountingForecast(true);
+		CarDepartureForecastMemoized memoized = new CarDepartureForecastMemoized(forecast);
+
+		int[] expected = new int[] {15*3600, 15*3600 + 600, 15*3600 + 1200};
+		assertArrayEquals(expected, memoized.getExpectedDepartureTimesSeconds(null, cars));
+		assertEquals(1, forecast.nCalls);
+		assertEquals(3, forecast.nCarsPredicted);
+
+		// Repeated calls (e.g. reoptimizations) don't call the forecast
+		assertArrayEquals(expected, memoized.getExpectedDepartureTimesSeconds(null, cars));
+		assertEquals(expected[1], memoized.getExpectedDepartureTimeSeconds(null, cars.get(1)));
+		assertEquals(1, forecast.nCalls);
+
+		// Only cars without a valid prediction are predicted
+		cars.get(2).setCarProcessData(new CarProcessData("A", "BEV", 1, 9*3600, 17*3600));
+		List<Car> carsExtended = new ArrayList<>(cars);
+		carsExtended.addAll(buildCars(4).subList(3, 4));
+		assertArrayEquals(new int[] {expected[0], expected[1], 17*3600, 15*3600 + 1800},
+				memoized.getExpectedDepartureTimesSeconds(null, carsExtended));
+		assertEquals(2, forecast.nCalls);
+		assertEquals(5, forecast.nCarsPredicted);
+
+		memoized.invalidate(cars.get(0));
+		assertEquals(expected[0], memoized.getExpectedDepartureTimeSeconds(null, cars.get(0)));
+		assertEquals(3, forecast.nCalls);
+		assertEquals(4, memoized.size());
+	}
+
+	@Test
+	public void testFailedPredictionsNotMemoized() {
+		List<Car> cars = buildCars(3);
+		CountingForecast forecast = new CountingForecast(true);
+		forecast.failingCarID = 1;
+		CarDepartureForecastMemoized memoized = new CarDepartureForecastMemoized(forecast);
+
+		assertArrayEquals(new int[] {15*3600, -1, 15*3600 + 1200}, memoized.getExpectedDepartureTimesSeconds(null, cars));
+		assertEquals(2, memoized.size());
+		assertEquals(-1, memoized.getExpectedDepartureTimeSeconds(null, cars.get(1)));
+		assertEquals(2, forecast.nCalls);
+		assertEquals(2, memoized.size());
+
+		// Once the prediction succeeds it is memoized
+		forecast.failingCarID = -1;
+		assertArrayEquals(new int[] {15*3600, 15*3600 + 600, 15*3600 + 1200}, memoized.getExpectedDepartureTimesSeconds(null, cars));
+		assertEquals(3, forecast.nCalls);
+		assertEquals(5, forecast.nCarsPredicted);
+		memoized.getExpectedDepartureTimesSeconds(null, cars);
+		assertEquals(3, forecast.nCalls);
+		assertEquals(3, memoized.size());
+	}
+
+	@Test
+	public void testNotMemoizable() {
+		List<Car> cars = buildCars(2);
+		CountingForecast forecast = new CountingForecast(false);
+		CarDepartureForecastMemoized memoized = new CarDepartureForecastMemoized(forecast);
+
+		memoized.getExpectedDepartureTimesSeconds(null, cars);
+		memoized.getExpectedDepartureTimesSeconds(null, cars);
+		memoized.getExpectedDepartureTimeSeconds(null, cars.get(0));
+		assertEquals(3, forecast.nCalls);
+		assertEquals(5, forecast.nCarsPredicted);
+		assertEquals(0, memoized.size());
+	}
+
+	@Test
+	public void testDefaultBatch() {
+		List<Car> cars = buildCars(3);
+		CarDepartureForecast forecast = CarDepartureForecast.getDefaultCarDepartureForecast();
+		int[] result = forecast.getExpectedDepartureTimesSeconds(null, cars);
+		int[] expected = new int[3];
+		Arrays.fill(expected, 17*3600 + 3*60);
+		assertArrayEquals(expected, result);
+	}
+
+}
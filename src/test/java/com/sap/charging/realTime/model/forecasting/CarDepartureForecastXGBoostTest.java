@@ -1,12 +1,24 @@
 package com.sap.charging.realTime.model.forecasting;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
 import com.sap.charging.dataGeneration.DataGeneratorRandomProcesses;
 import com.sap.charging.model.Car;
+import com.sap.charging.model.CarFactory;
+import com.sap.charging.model.CarFactory.CarModel;
+import com.sap.charging.model.CarProcessData;
+import com.sap.charging.realTime.model.forecasting.TreeEnsemble.Objective;
 import com.sap.charging.realTime.model.forecasting.departure.CarDepartureForecastXGBoost_CarDistribution;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.realTime.model.forecasting.departure.CarProcessDataEncoder;
+import com.sap.charging.sim.SimulationContext;
 
 public class CarDepartureForecastXGBoostTest {
 
@@ -20,7 +32,7 @@ public class CarDepartureForecastXGBoostTest {
 	@Disabled
 	@Test
 	public void testForecast() {
-		Simulation.verbosity = 1;
+		SimulationContext.getGlobal().setVerbosity(1);
 		
 		int nCars = 1000;
 		DataGeneratorRandomProcesses data = new DataGeneratorRandomProcesses(2, nCars);
@@ -42,4 +54,37 @@ public class CarDepartureForecastXGBoostTest {
 		
 	}
 	
+	@Test
+	public void testForecastInJVM() {
+		String[] featureNames = new String[] {"carPark_A", "carPark_B", "wday_1", "timestampArrival"};
+		TreeEnsemble model = TreeEnsemble.parseXGBoostDump(Arrays.asList(
+				"booster[0]",
+				"0:[timestampArrival<30600] yes=1,no=2,missing=1",
+				"	1:leaf=55000",
+				"	2:[carPark_A<0.5] yes=3,no=4,missing=4",
+				"		3:leaf=60000",
+				"		4:leaf=65000",
+				"booster[1]",
+				"0:[wday_1<0.5] yes=1,no=2,missing=2",
+				"	1:leaf=100.75",
+				"	2:leaf=-100.25"), featureNames, 0.5f, Objective.REG_LINEAR);
+		CarDepartureForecastXGBoost_CarDistribution forecast = new CarDepartureForecastXGBoost_CarDistribution(model, new CarProcessDataEncoder(featureNames));
+		
+		List<Car> cars = new ArrayList<>();
+		for (CarProcessData data : new CarProcessData[] {
+				new CarProcessData("A", "BEV", 1, 30000, 60000),
+				new CarProcessData("A", "BEV", 2, 40000, 60000),
+				new CarProcessData("B", "PHEV", 1, 40000, 60000)}) {
+			Car car = CarFactory.builder().set(CarModel.NISSAN_LEAF_2016).build();
+			car.setCarProcessData(data);
+			cars.add(car);
+		}
+		
+		int[] expected = new int[] {54900, 65101, 59900};
+		for (int n=0;n<cars.size();n++) {
+			assertEquals(expected[n], forecast.getExpectedDepartureTimeSeconds(null, cars.get(n)));
+		}
+		assertArrayEquals(expected, forecast.getExpectedDepartureTimesSeconds(null, cars));
+	}
+	
 }
@@ -6,7 +6,7 @@ import org.junit.jupiter.api.Test;
 import com.sap.charging.dataGeneration.DataGeneratorRandomProcesses;
 import com.sap.charging.model.Car;
 import com.sap.charging.realTime.model.forecasting.departure.CarDepartureForecastXGBoost_CarSample;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 
 public class CarDepartureForecastXGBoost_CarSampleTest {
 
@@ -14,7 +14,7 @@ public class CarDepartureForecastXGBoost_CarSampleTest {
 	@Disabled
 	@Test
 	public static void main(String[] args) {
-		Simulation.verbosity = 1;
+		SimulationContext.getGlobal().setVerbosity(1);
 		
 		int nCars = 10;
 		
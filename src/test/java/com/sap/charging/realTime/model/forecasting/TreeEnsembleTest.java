@@ -0,0 +1,150 @@
+package com.sap.charging.realTime.model.forecasting;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.sap.charging.model.CarProcessData;
+import com.sap.charging.realTime.model.forecasting.TreeEnsemble.Objective;
+import com.sap.charging.realTime.model.forecasting.departure.CarProcessDataEncoder;
+
+public class TreeEnsembleTest {
+
+	private static final String[] featureNames = new String[] {"carPark_A", "carPark_B", "wday_1", "timestampArrival"};
+
+	/**
+	 * Dumped with stats for the second tree, node IDs of the first tree are not in order
+	 */
+	private static final List<String> dump = Arrays.asList(
+			"booster[0]",
+			"0:[timestampArrival<30600] yes=1,no=2,missing=1",
+			"	2:[carPark_A<0.5] yes=3,no=4,missing=4",
+			"		4:leaf=300",
+			"		3:leaf=-200.25",
+			"	1:leaf=1000.5",
+			"booster[1]",
+			"0:[f1<0.5] yes=1,no=2,missing=2,gain=10.5,cover=20",
+			"	1:leaf=0.125,cover=10",
+			"	2:leaf=-0.375,cover=10");
+
+	@Test
+	public void testPredict() {
+		TreeEnsemble model = TreeEnsemble.parseXGBoostDump(dump, featureNames, 0.5f, Objective.REG_LINEAR);
+		assertEquals(2, model.getNumberOfTrees());
+		assertEquals(4, model.getNumberOfFeatures());
+
+		assertEquals(0.5 + 1000.5 + 0.125, model.predict(new double[] {1, 0, 1, 30000}), 0);
+		assertEquals(0.5 + 300 - 0.375, model.predict(new double[] {1, 1, 0, 40000}), 0);
+		assertEquals(0.5 - 200.25 + 0.125, model.predict(new double[] {0, 0, 0, 40000}), 0);
+
+		// Missing values
+		assertEquals(0.5 + 1000.5 + 0.125, model.predict(new double[] {1, 0, 1, Double.NaN}), 0);
+		assertEquals(0.5 + 300 - 0.375, model.predict(new double[] {Double.NaN, Double.NaN, 0, 40000}), 0);
+
+		try {
+			model.predict(new double[] {1, 0, 1});
+			fail("Wrong number of features should throw an exception");
+		}
+		catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testPredictFloat() {
+		List<String> dumpFloat = Arrays.asList(
+				"booster[0]",
+				"0:[f0<0.1] yes=1,no=2,missing=1",
+				"	1:leaf=16777216",
+				"	2:leaf=1",
+				"booster[1]",
+				"0:leaf=1");
+		TreeEnsemble model = TreeEnsemble.parseXGBoostDump(dumpFloat, new String[] {"x"}, 0.5f, Objective.REG_LINEAR);
+
+		// Features are compared as floats like in xgboost: 0.1000000001 < 0.1 (double comparison would be true)
+		assertEquals(2.5, model.predict(new double[] {0.1000000001}), 0);
+		// Leaf values are summed as floats: 0.5 + 16777216 + 1 = 16777216
+		assertEquals(16777216, model.predict(new double[] {0.05}), 0);
+
+		TreeEnsemble modelLogistic = TreeEnsemble.parseXGBoostDump(dumpFloat, new String[] {"x"}, 0, Objective.REG_LOGISTIC);
+		assertEquals(1 / (1 + Math.exp(-2)), modelLogistic.predict(new double[] {1}), 1e-6);
+	}
+
+	@Test
+	public void testPredictBatch() {
+		TreeEnsemble model = TreeEnsemble.parseXGBoostDump(dump, featureNames, 0.5f, Objective.REG_LINEAR);
+		double[][] rows = new double[][] {
+			{1, 0, 1, 30000},
+			{1, 1, 0, 40000},
+			{0, 0, 0, 40000},
+			{Double.NaN, 1, 1, Double.NaN}
+		};
+		double[] features = new double[rows.length * featureNames.length];
+		double[] expected = new double[rows.length];
+		for (int row=0;row<rows.length;row++) {
+			System.arraycopy(rows[row], 0, features, row*featureNames.length, featureNames.length);
+			expected[row] = model.predict(rows[row]);
+		}
+		assertArrayEquals(expected, model.predict(features, rows.length), 0);
+	}
+
+	@Test
+	public void testParseErrors() {
+		for (String line : new String[] {
+				"0:[carPark_C<0.5] yes=1,no=2,missing=1",
+				"0:[f4<0.5] yes=1,no=2,missing=1",
+				"0:[carPark_A<0.5] yes=1,no=3,missing=1",
+				"0:[carPark_A] yes=1,no=2",
+				"0:unknown"}) {
+			try {
+				TreeEnsemble.parseXGBoostDump(Arrays.asList("booster[0]", line, "1:leaf=1", "2:leaf=2"), featureNames, 0.5f, Objective.REG_LINEAR);
+				fail("Invalid line should throw an exception: " + line);
+			}
+			catch (IllegalArgumentException e) {
+			}
+		}
+	}
+
+	@Test
+	public void testFromXGBoostDump() throws IOException {
+		Path path = Files.createTempFile("xgboost", ".txt");
+		try {
+			Files.write(path, dump);
+			TreeEnsemble model = TreeEnsemble.fromXGBoostDump(path.toString(), featureNames);
+			assertEquals(TreeEnsemble.DEFAULT_BASE_SCORE, model.getBaseScore(), 0);
+			assertEquals(0.5 + 1000.5 + 0.125, model.predict(new double[] {1, 0, 1, 30000}), 0);
+
+			Files.write(path, Arrays.asList(featureNames));
+			assertArrayEquals(featureNames, TreeEnsemble.readFeatureNames(path.toString()));
+		}
+		finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testCarProcessDataEncoder() {
+		CarProcessDataEncoder encoder = new CarProcessDataEncoder(featureNames);
+		CarProcessData data = new CarProcessData("B", "BEV", 1, 30000, 60000);
+		assertArrayEquals(new double[] {0, 1, 1, 30000}, encoder.encode(data), 0);
+
+		double[] rows = new double[8];
+		encoder.encode(new CarProcessData("A", "BEV", 2, 40000, 60000), rows, 4);
+		assertArrayEquals(new double[] {0, 0, 0, 0, 1, 0, 0, 40000}, rows, 0);
+
+		try {
+			new CarProcessDataEncoder(new String[] {"carPark_A", "floor_1"});
+			fail("Features that can't be built from CarProcessData should throw an exception");
+		}
+		catch (IllegalArgumentException e) {
+		}
+	}
+
+}
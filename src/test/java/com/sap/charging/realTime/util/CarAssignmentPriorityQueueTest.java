@@ -0,0 +1,172 @@
+package com.sap.charging.realTime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sap.charging.dataGeneration.DataGenerator;
+import com.sap.charging.dataGeneration.DataGeneratorRandom;
+import com.sap.charging.realTime.StrategyAlgorithmic;
+import com.sap.charging.realTime.model.CarAssignment;
+import com.sap.charging.sim.SimulationContext;
+import com.sap.charging.util.SortableElement;
+
+public class CarAssignmentPriorityQueueTest {
+
+	DataGenerator data;
+	List<CarAssignment> carAssignments;
+
+	@BeforeEach
+	public void setup() {
+		SimulationContext.getGlobal().setVerbosity(0);
+
+		data = new DataGeneratorRandom(0, false);
+		data.generateEnergyPriceHistory(96)
+			.generateCars(50)
+			.generateChargingStations(50);
+
+		carAssignments = new ArrayList<>();
+		for (int i=0;i<50;i++) {
+			carAssignments.add(new CarAssignment(data.getCar(i), data.getChargingStation(i)));
+		}
+	}
+
+	@Test
+	public void testSameOrderAsSortedCarsByPriority() {
+		StrategyAlgorithmic strategy = new StrategyAlgorithmic();
+		int currentTimeSeconds = 10*3600;
+		List<SortableElement<CarAssignment>> sortedCars = strategy.getSortedCarsByPriority(carAssignments, currentTimeSeconds, 40);
+		CarAssignmentPriorityQueue queue = strategy.getCarsByPriority(carAssignments, currentTimeSeconds, 40);
+
+		assertEquals(sortedCars.size(), queue.size());
+		for (SortableElement<CarAssignment> element : sortedCars) {
+			assertEquals(element.value, queue.peekPriority(), 0);
+			assertSame(element.index, queue.poll());
+		}
+		assertTrue(queue.isEmpty());
+		assertNull(queue.poll());
+	}
+
+	@Test
+	public void testTiesInInsertionOrder() {
+		CarAssignmentPriorityQueue queue = new CarAssignmentPriorityQueue(2);
+		for (int i=0;i<carAssignments.size();i++) {
+			queue.add(carAssignments.get(i), i % 3);
+		}
+		for (int priority=0;priority<3;priority++) {
+			for (int i=priority;i<carAssignments.size();i+=3) {
+				assertSame(carAssignments.get(i), queue.poll());
+			}
+		}
+	}
+
+	@Test
+	public void testUpdatePriorityAndRemove() {
+		Random random = new Random(0);
+		CarAssignmentPriorityQueue queue = new CarAssignmentPriorityQueue();
+		List<SortableElement<CarAssignment>> expected = new ArrayList<>();
+		for (CarAssignment carAssignment : carAssignments) {
+			double priority = random.nextInt(10);
+			queue.add(carAssignment, priority);
+			expected.add(new SortableElement<>(carAssignment, priority));
+		}
+
+		// Decrease and increase keys, remove some car assignments
+		for (int i=0;i<carAssignments.size();i+=2) {
+			CarAssignment carAssignment = carAssignments.get(i);
+			double priority = (i % 4 == 0) ? queue.getPriority(carAssignment) - 5 : queue.getPriority(carAssignment) + 5;
+			queue.updatePriority(carAssignment, priority);
+			expected.set(i, new SortableElement<>(carAssignment, priority));
+		}
+		for (int i=carAssignments.size()-1;i>=0;i-=7) {
+			assertTrue(queue.remove(carAssignments.get(i)));
+			assertFalse(queue.contains(carAssignments.get(i)));
+			assertFalse(queue.remove(carAssignments.get(i)));
+			expected.remove(i);
+		}
+
+		expected.sort(null); // Stable, ties in the order of carAssignments
+		for (SortableElement<CarAssignment> element : expected) {
+			assertSame(element.index, queue.poll());
+		}
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void testPollFirstMatching() {
+		CarAssignmentPriorityQueue queue = new CarAssignmentPriorityQueue();
+		for (int i=0;i<10;i++) {
+			queue.add(carAssignments.get(i), i / 2);
+		}
+
+		// Lower priorities that don't match stay in the queue (in the same order)
+		assertSame(carAssignments.get(5), queue.pollFirstMatching(carAssignment -> carAssignment == carAssignments.get(5)));
+		assertEquals(9, queue.size());
+
+		// No match: Lowest priority is removed
+		assertSame(carAssignments.get(0), queue.pollFirstMatching(carAssignment -> false));
+		for (int i : new int[] {1, 2, 3, 4, 6, 7, 8, 9}) {
+			assertSame(carAssignments.get(i), queue.poll());
+		}
+		assertNull(queue.pollFirstMatching(carAssignment -> true));
+	}
+
+	@Test
+	public void testRandomOperationsEqualToSortedList() {
+		Random random = new Random(0);
+		CarAssignmentPriorityQueue queue = new CarAssignmentPriorityQueue();
+		List<SortableElement<CarAssignment>> expected = new ArrayList<>(); // In the order of adding
+
+		for (int operation=0;operation<2000;operation++) {
+			int type = random.nextInt(4);
+			CarAssignment carAssignment = carAssignments.get(random.nextInt(carAssignments.size()));
+			int index = indexOf(expected, carAssignment);
+			double priority = random.nextInt(5);
+			if (type == 0 && index < 0) {
+				queue.add(carAssignment, priority);
+				expected.add(new SortableElement<>(carAssignment, priority));
+			}
+			else if (type == 1 && index >= 0) {
+				queue.updatePriority(carAssignment, priority);
+				expected.set(index, new SortableElement<>(carAssignment, priority));
+			}
+			else if (type == 2) {
+				assertEquals(index >= 0, queue.remove(carAssignment));
+				if (index >= 0) expected.remove(index);
+			}
+			else if (expected.isEmpty() == false) {
+				int modulo = 1 + random.nextInt(5);
+				List<SortableElement<CarAssignment>> sorted = new ArrayList<>(expected);
+				sorted.sort(null);
+				SortableElement<CarAssignment> match = sorted.get(0);
+				for (SortableElement<CarAssignment> element : sorted) {
+					if (element.index.car.getId() % modulo == 0) {
+						match = element;
+						break;
+					}
+				}
+				assertEquals(match.value, queue.getPriority(match.index), 0);
+				assertSame(match.index, queue.pollFirstMatching(c -> c.car.getId() % modulo == 0));
+				expected.remove(match);
+			}
+			assertEquals(expected.size(), queue.size());
+		}
+	}
+
+	private static int indexOf(List<SortableElement<CarAssignment>> elements, CarAssignment carAssignment) {
+		for (int i=0;i<elements.size();i++) {
+			if (elements.get(i).index == carAssignment) return i;
+		}
+		return -1;
+	}
+
+}
@@ -0,0 +1,185 @@
+package com.sap.charging.realTime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sap.charging.dataGeneration.DataGenerator;
+import com.sap.charging.dataGeneration.DataGeneratorRandom;
+import com.sap.charging.model.Car;
+import com.sap.charging.model.ChargingStation;
+import com.sap.charging.model.Fuse;
+import com.sap.charging.model.FuseTreeNode;
+import com.sap.charging.realTime.State;
+import com.sap.charging.realTime.StrategyAlgorithmic;
+import com.sap.charging.realTime.model.CarAssignment;
+import com.sap.charging.sim.SimulationContext;
+import com.sap.charging.sim.eval.Validation;
+import com.sap.charging.sim.eval.exception.FuseTreeException;
+
+public class FuseTreeLoadIndexTest {
+
+	DataGenerator data;
+	State state;
+	int nTimeslots = 96;
+
+	@BeforeEach
+	public void setup() {
+		SimulationContext.getGlobal().setVerbosity(0);
+
+		data = new DataGeneratorRandom(0, false);
+		data.generateEnergyPriceHistory(nTimeslots)
+			.generateCars(20)
+			.generateChargingStations(20)
+			.generateFuseTree(10, true);
+
+		state = new State(0, data);
+		for (int i=0;i<10;i++) {
+			Car car = data.getCar(i);
+			car.setCurrentPlan(new double[nTimeslots]);
+			state.setTimeSeconds(car.timestampArrival.toSecondOfDay());
+			state.addCarAssignment(car, data.getChargingStation(i));
+		}
+		state.setTimeSeconds(0);
+	}
+
+	private void assertLoadsEqualToValidation(FuseTreeLoadIndex index) {
+		for (int k=0;k<nTimeslots;k++) {
+			Map<FuseTreeNode, double[]> fuseConsumptionMap = Validation.initializeFuseConsumptionMap();
+			for (ChargingStation chargingStation : state.fuseTree.getListOfChargingStations()) {
+				double[] consumptionAtStationPhase = Validation.getCurrentPerStationPhase(chargingStation, state, k);
+				double[] indexLoad = index.getLoad(chargingStation, k);
+				for (int p=0;p<3;p++) {
+					assertEquals(consumptionAtStationPhase != null ? consumptionAtStationPhase[p] : 0, indexLoad[p], 1e-8);
+				}
+				Validation.updateFuseParentsConsumption(chargingStation, fuseConsumptionMap, Validation.getCurrentPerGridPhase(chargingStation, state, k));
+			}
+			for (FuseTreeNode fuse : fuseConsumptionMap.keySet()) {
+				double[] indexLoad = index.getLoad(fuse, k);
+				assertNotNull(indexLoad);
+				for (int p=0;p<3;p++) {
+					assertEquals(fuseConsumptionMap.get(fuse)[p], indexLoad[p], 1e-8);
+				}
+			}
+		}
+	}
+
+	private boolean isValidAtTimeslot(int k) {
+		try {
+			Validation.validateFuseTreeAtTimeslot(state, k);
+			return true;
+		}
+		catch (FuseTreeException e) {
+			return false;
+		}
+	}
+
+	@Test
+	public void testLoadsMatchValidationAfterPlanChanges() {
+		Random random = new Random(0);
+		for (int iteration=0;iteration<20;iteration++) {
+			for (CarAssignment carAssignment : state.getCurrentCarAssignments()) {
+				for (int k=0;k<nTimeslots;k++) {
+					if (random.nextDouble() < 0.1) {
+						carAssignment.car.setCurrentPlanValue(k, random.nextInt(33));
+					}
+				}
+			}
+			assertLoadsEqualToValidation(state.getFuseTreeLoadIndex());
+		}
+	}
+
+	@Test
+	public void testChangedTimeslots() {
+		FuseTreeLoadIndex index = state.getFuseTreeLoadIndex();
+		CarAssignment carAssignment = state.getCurrentCarAssignments().get(0);
+		carAssignment.car.setCurrentPlanValue(5, 16);
+		carAssignment.car.setCurrentPlanValue(7, 32);
+
+		boolean[] changedTimeslots = new boolean[nTimeslots];
+		assertTrue(index.updateCarAssignment(carAssignment, changedTimeslots));
+		for (int k=0;k<nTimeslots;k++) {
+			assertEquals(k == 5 || k == 7, changedTimeslots[k]);
+		}
+		assertFalse(index.updateCarAssignment(carAssignment, new boolean[nTimeslots]));
+	}
+
+	@Test
+	public void testReplacedPlan() {
+		FuseTreeLoadIndex index = state.getFuseTreeLoadIndex();
+		CarAssignment carAssignment = state.getCurrentCarAssignments().get(0);
+		assertFalse(index.updateCarAssignment(carAssignment, null));
+
+		double[] plan = new double[nTimeslots];
+		plan[3] = 16;
+		carAssignment.car.setCurrentPlan(plan);
+		assertTrue(index.updateCarAssignment(carAssignment, null));
+		assertFalse(index.updateCarAssignment(carAssignment, null));
+		assertLoadsEqualToValidation(state.getFuseTreeLoadIndex());
+	}
+
+	@Test
+	public void testCarDeparture() {
+		Car car = state.getCurrentCarAssignments().get(0).car;
+		ChargingStation chargingStation = state.getCurrentCarAssignments().get(0).chargingStation;
+		car.setCurrentPlanValue(10, 32);
+		FuseTreeLoadIndex index = state.getFuseTreeLoadIndex();
+		assertEquals(32*car.canLoadPhase1, index.getLoad(chargingStation, 10)[0], 1e-8);
+
+		state.removeCarAssignment(car);
+		assertEquals(0, index.getLoad(chargingStation, 10)[0], 1e-8);
+		assertLoadsEqualToValidation(state.getFuseTreeLoadIndex());
+	}
+
+	@Test
+	public void testPossiblyViolated() {
+		Fuse rootFuse = state.fuseTree.getRootFuse();
+		rootFuse.setFuseSize(100);
+		for (CarAssignment carAssignment : state.getCurrentCarAssignments()) {
+			carAssignment.car.setCurrentPlanValue(20, 32);
+			carAssignment.car.setCurrentPlanValue(21, 1);
+		}
+		FuseTreeLoadIndex index = state.getFuseTreeLoadIndex();
+		for (int k=0;k<nTimeslots;k++) {
+			if (isValidAtTimeslot(k) == false) {
+				assertTrue(index.isPossiblyViolated(k));
+			}
+		}
+		assertTrue(index.isPossiblyViolated(20));
+		assertFalse(index.isPossiblyViolated(21));
+		assertFalse(index.isPossiblyViolated(22));
+	}
+
+	@Test
+	public void testRebuildOnNewFuseTree() {
+		FuseTreeLoadIndex index = state.getFuseTreeLoadIndex();
+		state.fuseTree = state.fuseTree.getSubtree(state.fuseTree.getRootFuse());
+		assertNotSame(index, state.getFuseTreeLoadIndex());
+		assertLoadsEqualToValidation(state.getFuseTreeLoadIndex());
+	}
+
+	@Test
+	public void testInitialFuseViolationsEqualToFullCheck() {
+		state.fuseTree.getRootFuse().setFuseSize(150);
+		Random random = new Random(1);
+		for (CarAssignment carAssignment : state.getCurrentCarAssignments()) {
+			for (int k=0;k<nTimeslots;k++) {
+				carAssignment.car.setCurrentPlanValue(k, random.nextInt(33));
+			}
+		}
+		Map<Integer, FuseTreeException> violations = new StrategyAlgorithmic().getInitialFuseViolations(state, null);
+		for (int k=0;k<nTimeslots;k++) {
+			assertEquals(isValidAtTimeslot(k) == false, violations.containsKey(k));
+		}
+		assertTrue(violations.size() > 0);
+	}
+
+}
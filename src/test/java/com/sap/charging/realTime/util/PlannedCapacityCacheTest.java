@@ -0,0 +1,124 @@
+package com.sap.charging.realTime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sap.charging.dataGeneration.DataGenerator;
+import com.sap.charging.dataGeneration.DataGeneratorRandom;
+import com.sap.charging.model.Car;
+import com.sap.charging.sim.SimulationContext;
+
+public class PlannedCapacityCacheTest {
+
+	DataGenerator data;
+	Car car1;
+	Car car2;
+
+	@BeforeEach
+	public void setup() {
+		SimulationContext.getGlobal().setVerbosity(0);
+
+		data = new DataGeneratorRandom(0, false);
+		data.generateEnergyPriceHistory(96)
+			.generateCars(2)
+			.generateChargingStations(2)
+			.generateFuseTree(10, true);
+		car1 = data.getCar(0);
+		car2 = data.getCar(1);
+		car1.setCurrentPlan(new double[96]);
+		car2.setCurrentPlan(new double[96]);
+	}
+
+	private PlannedCapacityKey getKey(Car car, int intervalSecondsStart) {
+		return new PlannedCapacityKey(car, 96, 0, intervalSecondsStart, intervalSecondsStart + 900);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEviction() {
+		PlannedCapacityCache cache = new PlannedCapacityCache(2);
+		cache.put(getKey(car1, 0), 1);
+		cache.put(getKey(car1, 900), 2);
+		assertEquals(1, cache.get(getKey(car1, 0)), 0); // Now most recently used
+
+		cache.put(getKey(car1, 1800), 3);
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictions());
+		assertNull(cache.get(getKey(car1, 900)));
+		assertEquals(1, cache.get(getKey(car1, 0)), 0);
+		assertEquals(3, cache.get(getKey(car1, 1800)), 0);
+
+		assertEquals(3, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(0.75, cache.getHitRate(), 1e-8);
+	}
+
+	@Test
+	public void testPlanChanges() {
+		PlannedCapacityCache cache = new PlannedCapacityCache();
+		cache.put(getKey(car1, 0), 1);
+
+		// Stored key is not affected by later modifications of the plan
+		car1.setCurrentPlanValue(5, 16);
+		assertNull(cache.get(getKey(car1, 0)));
+		car1.setCurrentPlanValue(5, 0);
+		assertEquals(1, cache.get(getKey(car1, 0)), 0);
+
+		// Modifications bypassing the fingerprint never lead to wrong hits
+		car1.getCurrentPlan()[5] = 32;
+		assertNull(cache.get(getKey(car1, 0)));
+
+		// Different car with the same plan
+		assertNull(cache.get(getKey(car2, 0)));
+	}
+
+	@Test
+	public void testRemoveCar() {
+		PlannedCapacityCache cache = new PlannedCapacityCache();
+		cache.put(getKey(car1, 0), 1);
+		cache.put(getKey(car1, 900), 2);
+		cache.put(getKey(car2, 0), 3);
+
+		cache.put(getKey(car1, 900), 4); // Replaces the entry
+
+		assertEquals(2, cache.removeCar(car1));
+		assertEquals(1, cache.size());
+		assertNull(cache.get(getKey(car1, 0)));
+		assertEquals(3, cache.get(getKey(car2, 0)), 0);
+		assertEquals(0, cache.removeCar(car1));
+	}
+
+	@Test
+	public void testRemoveCarAfterEviction() {
+		PlannedCapacityCache cache = new PlannedCapacityCache(2);
+		cache.put(getKey(car1, 0), 1);
+		cache.put(getKey(car2, 0), 2);
+		cache.put(getKey(car2, 900), 3); // Evicts the only entry of car1
+
+		assertEquals(0, cache.removeCar(car1));
+		assertEquals(2, cache.removeCar(car2));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testFingerprint() {
+		Random random = new Random(0);
+		for (int i=0;i<1000;i++) {
+			car1.setCurrentPlanValue(random.nextInt(96), random.nextInt(33));
+		}
+		assertEquals(Car.computeCurrentPlanFingerprint(car1.getCurrentPlan()), car1.getCurrentPlanFingerprint());
+
+		long fingerprint = car1.getCurrentPlanFingerprint();
+		double value = car1.getCurrentPlan()[10];
+		car1.setCurrentPlanValue(10, value + 1);
+		assertNotEquals(fingerprint, car1.getCurrentPlanFingerprint());
+		car1.setCurrentPlanValue(10, value);
+		assertEquals(fingerprint, car1.getCurrentPlanFingerprint());
+	}
+
+}
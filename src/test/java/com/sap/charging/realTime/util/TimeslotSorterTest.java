@@ -10,8 +10,11 @@ import org.junit.jupiter.api.Test;
 
 import com.sap.charging.dataGeneration.DataGenerator;
 import com.sap.charging.dataGeneration.DataGeneratorRandom;
+import com.sap.charging.model.Car;
+import com.sap.charging.realTime.State;
 import com.sap.charging.realTime.StrategyAlgorithmic;
 import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.util.SortableElement;
 
 public class TimeslotSorterTest {
@@ -22,7 +25,7 @@ public class TimeslotSorterTest {
 
 	@BeforeEach
 	public void setup() {
-		Simulation.verbosity = 0;
+		SimulationContext.getGlobal().setVerbosity(0);
 		
 		data = new DataGeneratorRandom(0, false);
 		data.generateEnergyPriceHistory(96)
@@ -58,6 +61,47 @@ public class TimeslotSorterTest {
 	
 	
 	
+	@Test
+	public void sortTimeslotsEqualToList() {
+		data.getCar(0).setCurrentPlan(new double[96]);
+		data.getCar(0).setCurrentPlanValue(12, 16);
+		data.getCar(1).setCurrentPlan(new double[96]);
+		data.getCar(1).setCurrentPlanValue(14, 8);
+		boolean[] blockedTimeslots = new boolean[96];
+		blockedTimeslots[13] = true;
+		
+		SortedTimeslots buffer = new SortedTimeslots(4);
+		for (TimeslotSortingCriteria sortingCriteria : TimeslotSortingCriteria.values()) {
+			List<SortableElement<Integer>> expected = TimeslotSorter.getSortedTimeslots(sim.getState(), 5, 30, sortingCriteria, blockedTimeslots);
+			SortedTimeslots result = TimeslotSorter.sortTimeslots(sim.getState(), 5, 30, sortingCriteria, blockedTimeslots, buffer);
+			assertEquals(expected.size(), result.size());
+			for (int i=0;i<expected.size();i++) {
+				assertEquals((int) expected.get(i).index, result.get(i));
+				assertEquals(expected.get(i).value, result.getValue(i), 0);
+			}
+		}
+	}
+	
+	@Test
+	public void peakDemandProfileFollowsPlanChanges() {
+		State state = sim.getState();
+		Car car = data.getCar(0);
+		car.setCurrentPlan(new double[96]);
+		assertEquals(0, state.getPlannedDemandProfile().getDemand(20), 0);
+		
+		car.setCurrentPlanValue(20, 10);
+		assertEquals(car.sumUsedPhases*10, state.getPlannedDemandProfile().getDemand(20), 0);
+		
+		car.setCurrentPlan(null);
+		assertEquals(0, state.getPlannedDemandProfile().getDemand(20), 0);
+		
+		car.setCurrentPlan(new double[96]);
+		car.setCurrentPlanValue(20, 10);
+		state.getPlannedDemandProfile();
+		state.getCars().remove(car);
+		assertEquals(0, state.getPlannedDemandProfile().getDemand(20), 0);
+	}
+	
 	@Test
 	public void sortByPrice()  {
 		List<SortableElement<Integer>> result = TimeslotSorter.getSortedTimeslots(sim.getState(), 10, 20, TimeslotSortingCriteria.PRICE);
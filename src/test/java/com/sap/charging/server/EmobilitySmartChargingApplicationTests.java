@@ -20,6 +20,7 @@ import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit4.SpringRunner;
 
@@ -35,7 +36,10 @@ import com.sap.charging.server.api.v1.OptimizeChargingProfilesResponse;
 import com.sap.charging.server.api.v1.store.ChargingStationStore;
 import com.sap.charging.server.api.v1.store.EventStore;
 import com.sap.charging.server.api.v1.store.StateStore;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.server.api.v2.SiteSessionCreateRequest;
+import com.sap.charging.server.api.v2.SiteSessionEventRequest;
+import com.sap.charging.server.api.v2.SiteSessionResponse;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.sim.common.SimulationUnitTest;
 import com.sap.charging.sim.event.EventType;
 
@@ -57,7 +61,7 @@ class EmobilitySmartChargingApplicationTests extends SimulationUnitTest {
 	
 	@BeforeEach
 	public void setupEach() {
-		Simulation.verbosity = 0; 
+		SimulationContext.getGlobal().setVerbosity(0); 
 		this.initSimulation(this.dataSim);
 		scheduler = ((StrategyAlgorithmic) strategy).getScheduler(); 
 		mapper = new ObjectMapper(); 
@@ -111,6 +115,72 @@ class EmobilitySmartChargingApplicationTests extends SimulationUnitTest {
 		}
 	}
 
+	@Test
+	void testRestEndpoint_siteSession() throws URISyntaxException {
+		List<ChargingStationStore> chargingStations = dataSim.getChargingStations().stream().map(station -> ChargingStationStore.fromChargingStation(station)).collect(Collectors.toList()); 
+		StateStore state = new StateStore(0, null, chargingStations, 100.0, new ArrayList<>(), dataSim.getEnergyPriceHistory(), new ArrayList<>());
+		
+		final String baseUrl = "http://localhost:" + port + "/api/v2/sessions";
+		ResponseEntity<SiteSessionResponse> created = this.restTemplate.postForEntity(new URI(baseUrl), 
+				new HttpEntity<>(new SiteSessionCreateRequest(state, null, 0)), SiteSessionResponse.class); 
+		assertEquals(HttpStatus.CREATED, created.getStatusCode());
+		assertEquals(0, created.getBody().version);
+		String sessionID = created.getBody().sessionID;
+		
+		// Only the arriving car is sent
+		Car car = dataSim.getCar(0);
+		car.setCurrentCapacity(0);
+		car.resetChargedCapacity();
+		car.setCurrentPlan(null);
+		int currentTimeSeconds = car.timestampArrival.toSecondOfDay(); 
+		List<Car> cars = new ArrayList<>();
+		cars.add(car);
+		SiteSessionEventRequest request = new SiteSessionEventRequest(0, currentTimeSeconds, cars, null, 
+				new EventStore(car.getId(), null, null, EventType.CarArrival), 0);
+		
+		URI eventsUri = new URI(baseUrl + "/" + sessionID + "/events");
+		ResponseEntity<SiteSessionResponse> response = this.restTemplate.postForEntity(eventsUri, new HttpEntity<>(request), SiteSessionResponse.class); 
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(1, response.getBody().version);
+		assertEquals(1, response.getBody().cars.size());
+		double sumPlan = 0;
+		for (double value : response.getBody().cars.get(0).getCurrentPlan()) {
+			sumPlan += value;
+		}
+		assertThat(sumPlan).isGreaterThan(0);
+		
+		// Same version again is rejected
+		ResponseEntity<Object> conflict = this.restTemplate.postForEntity(eventsUri, new HttpEntity<>(request), Object.class); 
+		assertEquals(HttpStatus.CONFLICT, conflict.getStatusCode());
+		
+		ResponseEntity<Object> unknown = this.restTemplate.postForEntity(new URI(baseUrl + "/unknown/events"), new HttpEntity<>(request), Object.class); 
+		assertEquals(HttpStatus.NOT_FOUND, unknown.getStatusCode());
+	}
+
+	@Test
+	void testPrometheusEndpoint() throws URISyntaxException {
+		Car car = state.getCar(0); 
+		int currentTimeSeconds = car.timestampArrival.toSecondOfDay(); 
+		List<ChargingStationStore> chargingStations = dataSim.getChargingStations().stream().map(station -> ChargingStationStore.fromChargingStation(station)).collect(Collectors.toList()); 
+		List<CarAssignmentStore> carAssignments = new ArrayList<>(); 
+		carAssignments.add(new CarAssignmentStore(car.getId(), state.getChargingStation(0).getId())); 
+		StateStore state = new StateStore(currentTimeSeconds, null, chargingStations, 100.0, dataSim.getCars(), dataSim.getEnergyPriceHistory(), carAssignments);
+		OptimizeChargingProfilesRequest request = new OptimizeChargingProfilesRequest(state, new EventStore(-1, -1, null, EventType.Reoptimize), null, 0); 
+		
+		HttpHeaders headers = new HttpHeaders();
+		headers.add(OptimizeChargingProfilesController.SITE_ID_HEADER, "testSite");
+		ResponseEntity<Object> response = this.restTemplate.postForEntity(new URI("http://localhost:" + port + "/api/v1/OptimizeChargingProfiles"), 
+				new HttpEntity<>(request, headers), Object.class); 
+		assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+		
+		ResponseEntity<String> metrics = this.restTemplate.getForEntity(new URI("http://localhost:" + port + "/actuator/prometheus"), String.class); 
+		assertEquals(HttpStatus.OK, metrics.getStatusCode());
+		assertThat(metrics.getBody()).contains("optimizer_strategy_reaction_seconds_bucket{eventType=\"Reoptimize\",site=\"testSite\"");
+		assertThat(metrics.getBody()).contains("optimizer_request_size_bytes_count{eventType=\"Reoptimize\",site=\"testSite\",} 1.0");
+		assertThat(metrics.getBody()).contains("optimizer_response_size_bytes_count{eventType=\"Reoptimize\",site=\"testSite\",} 1.0");
+		assertThat(metrics.getBody()).contains("optimizer_fill_iterations_count{eventType=\"Reoptimize\",site=\"testSite\",} 1.0");
+	}
+
 }
 
 
@@ -14,7 +14,7 @@ import com.sap.charging.model.ChargingStation;
 import com.sap.charging.model.EnergyPriceHistory;
 import com.sap.charging.model.Fuse;
 import com.sap.charging.model.FuseTree;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.sim.common.SimulationUnitTest;
 
 public class SerializationTest extends SimulationUnitTest {
@@ -23,7 +23,7 @@ public class SerializationTest extends SimulationUnitTest {
 
 	@BeforeEach
 	public void setup() {
-		Simulation.verbosity = 0;
+		SimulationContext.getGlobal().setVerbosity(0);
 		this.initSimulation(this.dataSimToy);
 		this.mapper = new ObjectMapper();
 	}
@@ -1,22 +1,50 @@
 package com.sap.charging.server.api.v1;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import com.sap.charging.dataGeneration.DataGenerator;
+import com.sap.charging.dataGeneration.DataGeneratorRandom;
+import com.sap.charging.model.Car;
 import com.sap.charging.realTime.StrategyAlgorithmic;
+import com.sap.charging.realTime.model.CarAssignmentStore;
 import com.sap.charging.realTime.util.TimeslotSortingCriteria;
+import com.sap.charging.server.api.v1.store.ChargingStationStore;
+import com.sap.charging.server.api.v1.store.EventStore;
 import com.sap.charging.server.api.v1.store.OptimizerSettings;
+import com.sap.charging.server.api.v1.store.StateStore;
+import com.sap.charging.server.metrics.OptimizerMetrics;
+import com.sap.charging.sim.SimulationContext;
+import com.sap.charging.sim.event.EventType;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 
 @WebMvcTest(OptimizeChargingProfilesController.class)
@@ -27,6 +55,7 @@ class OptimizeChargingProfilesControllerTest {
 
     @BeforeEach
     void setup() {
+        SimulationContext.getGlobal().setVerbosity(0);
         this.classUnderTest = new OptimizeChargingProfilesController();
     }
 
@@ -49,4 +78,120 @@ class OptimizeChargingProfilesControllerTest {
         assertEquals(expectedSortingCritera, strategy.getSortingCriteriaByObjective());
     }
 
+    private static OptimizeChargingProfilesRequest buildRequest(int verbosity) {
+        DataGenerator data = new DataGeneratorRandom(0, false);
+        data.generateEnergyPriceHistory(96)
+            .generateCars(4)
+            .generateChargingStations(4)
+            .generateFuseTree(4, true);
+        List<ChargingStationStore> chargingStations = data.getChargingStations().stream()
+            .map(station -> ChargingStationStore.fromChargingStation(station)).collect(Collectors.toList());
+        // All cars are assigned at the time the first car arrives
+        Car firstCar = data.getCars().stream().min((car1, car2) -> car1.timestampArrival.compareTo(car2.timestampArrival)).get();
+        int currentTimeSeconds = firstCar.timestampArrival.toSecondOfDay();
+        List<CarAssignmentStore> carAssignments = new ArrayList<>();
+        for (Car car : data.getCars()) {
+            car.timestampArrival = firstCar.timestampArrival;
+            carAssignments.add(new CarAssignmentStore(car.getId(), car.getId()));
+        }
+        StateStore state = new StateStore(currentTimeSeconds, null, chargingStations, 100.0, data.getCars(), data.getEnergyPriceHistory(), carAssignments);
+        return new OptimizeChargingProfilesRequest(state, new EventStore(-1, -1, null, EventType.Reoptimize), null, verbosity);
+    }
+
+    @Test
+    void testRequestVerbosityDoesNotChangeGlobalVerbosity() {
+        List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        classUnderTest.setRequestLogSink((message, insertNewLine) -> messages.add(message));
+
+        ResponseEntity<Object> response = classUnderTest.optimizeChargingProfiles(buildRequest(2));
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(0, SimulationContext.getGlobal().getVerbosity());
+        assertTrue(messages.size() > 0);
+        assertTrue(messages.stream().anyMatch(message -> message.contains("strategyReactions=1")));
+    }
+
+    @Test
+    void testConcurrentRequestsWithDifferentVerbosity() throws Exception {
+        List<String> messagesSilent = Collections.synchronizedList(new ArrayList<>());
+        List<String> messagesVerbose = Collections.synchronizedList(new ArrayList<>());
+        OptimizeChargingProfilesController controllerSilent = new OptimizeChargingProfilesController();
+        controllerSilent.setRequestLogSink((message, insertNewLine) -> messagesSilent.add(message));
+        OptimizeChargingProfilesController controllerVerbose = new OptimizeChargingProfilesController();
+        controllerVerbose.setRequestLogSink((message, insertNewLine) -> messagesVerbose.add(message));
+
+        int nRequests = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(2*nRequests);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<ResponseEntity<Object>>> responses = new ArrayList<>();
+            for (int i=0;i<nRequests;i++) {
+                responses.add(executor.submit(() -> {
+                    start.await();
+                    return controllerSilent.optimizeChargingProfiles(buildRequest(0));
+                }));
+                responses.add(executor.submit(() -> {
+                    start.await();
+                    return controllerVerbose.optimizeChargingProfiles(buildRequest(2));
+                }));
+            }
+            start.countDown();
+            for (Future<ResponseEntity<Object>> response : responses) {
+                assertEquals(HttpStatus.ACCEPTED, response.get().getStatusCode());
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+
+        assertEquals(0, messagesSilent.size());
+        assertTrue(messagesVerbose.size() > 0);
+        assertEquals(0, SimulationContext.getGlobal().getVerbosity());
+    }
+
+    @Test
+    void testMetricsTaggedBySiteAndEventType() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        classUnderTest.setMetrics(new OptimizerMetrics(registry));
+
+        assertEquals(HttpStatus.ACCEPTED, classUnderTest.optimizeChargingProfiles(buildRequest(0), "site1").getStatusCode());
+        assertEquals(HttpStatus.ACCEPTED, classUnderTest.optimizeChargingProfiles(buildRequest(0), "site1").getStatusCode());
+        assertEquals(HttpStatus.ACCEPTED, classUnderTest.optimizeChargingProfiles(buildRequest(0)).getStatusCode());
+
+        Timer timerSite1 = registry.find("optimizer.strategy.reaction").tags("site", "site1", "eventType", "Reoptimize").timer();
+        assertNotNull(timerSite1);
+        assertEquals(2, timerSite1.count());
+        Timer timerUnknownSite = registry.find("optimizer.strategy.reaction").tags("site", OptimizerMetrics.UNKNOWN_SITE).timer();
+        assertEquals(1, timerUnknownSite.count());
+
+        // All cars arrive at the same time and are planned: Timeslots are filled once per car
+        assertEquals(2, registry.find("optimizer.fill.iterations").tags("site", "site1").summary().count());
+        assertTrue(registry.find("optimizer.fill.iterations").tags("site", "site1").summary().totalAmount() > 0);
+        assertEquals(2, registry.find("optimizer.violations.found").tags("site", "site1").summary().count());
+        assertEquals(registry.find("optimizer.violations.found").tags("site", "site1").summary().totalAmount(),
+                registry.find("optimizer.violations.resolved").tags("site", "site1").summary().totalAmount(), 0);
+    }
+
+    @Test
+    void testMetricsSiteTagsBounded() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        classUnderTest.setMetrics(new OptimizerMetrics(registry, 2));
+
+        classUnderTest.optimizeChargingProfiles(buildRequest(0), "site1");
+        classUnderTest.optimizeChargingProfiles(buildRequest(0), "site2");
+        classUnderTest.optimizeChargingProfiles(buildRequest(0), "site3");
+        classUnderTest.optimizeChargingProfiles(buildRequest(0), "site4");
+        classUnderTest.optimizeChargingProfiles(buildRequest(0), "<script>");
+
+        assertEquals(1, registry.find("optimizer.strategy.reaction").tags("site", "site2").timer().count());
+        assertNull(registry.find("optimizer.strategy.reaction").tags("site", "site3").timer());
+        assertEquals(2, registry.find("optimizer.strategy.reaction").tags("site", OptimizerMetrics.OTHER_SITE).timer().count());
+        assertEquals(1, registry.find("optimizer.strategy.reaction").tags("site", OptimizerMetrics.INVALID_SITE).timer().count());
+
+        // Removing a site frees its tag
+        classUnderTest.getMetrics().removeSite("site1");
+        assertNull(registry.find("optimizer.strategy.reaction").tags("site", "site1").timer());
+        classUnderTest.optimizeChargingProfiles(buildRequest(0), "site3");
+        assertEquals(1, registry.find("optimizer.strategy.reaction").tags("site", "site3").timer().count());
+    }
+
 }
@@ -30,7 +30,7 @@ import com.sap.charging.realTime.model.forecasting.departure.CarDepartureOracle;
 import com.sap.charging.server.api.v1.OptimizeChargingProfilesRequest;
 import com.sap.charging.server.api.v1.exception.UnknownCarException;
 import com.sap.charging.server.api.v1.exception.UnknownChargingStationException;
-import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.sim.common.SimulationUnitTest;
 import com.sap.charging.util.FileIO;
 
@@ -144,7 +144,7 @@ public class StateStoreTest extends SimulationUnitTest {
 	public void test_OptimizeState_WithUnassignedCars() throws JsonMappingException, JsonProcessingException {
 		State state = getStateFromJsonFile("src/test/resources/testCasesJSON/StateStoreTest_FuseTooSmall_4_Cars.json");
 		
-    	Simulation.verbosity = 0; 
+    	SimulationContext.getGlobal().setVerbosity(0); 
 		strategy.reactReoptimize(state);
 		
 		// All cars should be planned to be fully charged 
@@ -167,7 +167,7 @@ public class StateStoreTest extends SimulationUnitTest {
 		// See also StrategyAlgorithmicTest.testRescheduleCar_SinglePhaseCar_StationWithPhaseRotation_SinglePhaseFuse
 		State state = getStateFromJsonFile("src/test/resources/testCasesJSON/StateStoreTest_SinglePhaseCar_StationWithPhaseRotation_SinglePhaseFuse.json");
 		
-		Simulation.verbosity = 0; 
+		SimulationContext.getGlobal().setVerbosity(0); 
 		strategy.reactReoptimize(state);
 		Car car = state.getCar(0); 
 		
@@ -180,7 +180,7 @@ public class StateStoreTest extends SimulationUnitTest {
 	public void test_OptimizeState_Two_SinglePhaseCars_Two_ThreePhasedStations_DifferentPhasesConsuming() throws JsonMappingException, JsonProcessingException {
 		State state = getStateFromJsonFile("src/test/resources/testCasesJSON/StateStoreTest_Two_SinglePhaseCars_Two_ThreePhasedStations_DifferentPhasesConsuming.json");
 		
-		Simulation.verbosity = 0; 
+		SimulationContext.getGlobal().setVerbosity(0); 
 		strategy.reactReoptimize(state);
 		Car car = state.getCar(1); 
 		Car car1 = state.getCar(2); 
@@ -195,7 +195,7 @@ public class StateStoreTest extends SimulationUnitTest {
 	public void test_OptimizeState_ThreePhaseCar_SinglePhaseStation() throws JsonMappingException, JsonProcessingException {
 		State state = getStateFromJsonFile("src/test/resources/testCasesJSON/StateStoreTest_ThreePhaseCar_SinglePhaseStation.json");
 		
-    	Simulation.verbosity = 0; 
+    	SimulationContext.getGlobal().setVerbosity(0); 
 		strategy.reactReoptimize(state);
 		Car car = state.getCar(0); 
 		ChargingStation station = state.getChargingStation(0); 
@@ -216,7 +216,7 @@ public class StateStoreTest extends SimulationUnitTest {
 	public void test_OptimizeState_ThreePhaseCar_SinglePhaseStationWithPhaseRotation() throws JsonMappingException, JsonProcessingException {
 		State state = getStateFromJsonFile("src/test/resources/testCasesJSON/StateStoreTest_ThreePhaseCar_SinglePhaseStationWithPhaseRotation.json");
 		
-    	Simulation.verbosity = 0; 
+    	SimulationContext.getGlobal().setVerbosity(0); 
 		strategy.reactReoptimize(state);
 		Car car = state.getCar(0); 
 		ChargingStation station = state.getChargingStation(0); 
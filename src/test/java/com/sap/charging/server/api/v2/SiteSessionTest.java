@@ -0,0 +1,244 @@
+package com.sap.charging.server.api.v2;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.sap.charging.dataGeneration.DataGenerator;
+import com.sap.charging.dataGeneration.DataGeneratorRandom;
+import com.sap.charging.model.Car;
+import com.sap.charging.realTime.State;
+import com.sap.charging.realTime.StrategyAlgorithmic;
+import com.sap.charging.server.EmobilitySmartChargingApplication;
+import com.sap.charging.server.api.v1.OptimizeChargingProfilesController;
+import com.sap.charging.server.api.v1.exception.UnknownCarException;
+import com.sap.charging.server.api.v1.exception.UnknownChargingStationException;
+import com.sap.charging.server.api.v1.store.EventStore;
+import com.sap.charging.server.api.v1.store.OptimizerSettings;
+import com.sap.charging.server.api.v1.store.StateStore;
+import com.sap.charging.server.api.v2.exception.SessionVersionConflictException;
+import com.sap.charging.server.api.v2.exception.UnknownSessionException;
+import com.sap.charging.server.metrics.OptimizerMetrics;
+import com.sap.charging.sim.SimulationContext;
+import com.sap.charging.sim.event.EventCarArrival;
+import com.sap.charging.sim.event.EventType;
+import com.sap.charging.util.TimeUtil;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SiteSessionTest {
+
+	private long now = 0;
+
+	@BeforeEach
+	public void setup() {
+		SimulationContext.getGlobal().setVerbosity(0);
+	}
+
+	private static DataGenerator buildData() {
+		DataGeneratorRandom data = new DataGeneratorRandom(0, false);
+		data.generateEnergyPriceHistory(96)
+			.generateCars(8)
+			.generateChargingStations(8)
+			.generateFuseTree(8, true);
+		return data;
+	}
+
+	private static List<Car> getCarsByArrival(DataGenerator data) {
+		List<Car> cars = new ArrayList<>(data.getCars());
+		Collections.sort(cars, Comparator.comparingInt(car -> car.timestampArrival.toSecondOfDay()));
+		return cars;
+	}
+
+	private SiteSession createSession(SiteSessionRegistry registry, DataGenerator data) {
+		return createSession(registry, data, null);
+	}
+
+	private SiteSession createSession(SiteSessionRegistry registry, DataGenerator data, String siteID) {
+		StateStore stateStore = new StateStore(0, data.getFuseTree(), null, null, new ArrayList<>(), data.getEnergyPriceHistory(), new ArrayList<>());
+		return registry.createSession(stateStore.toState(),
+				OptimizeChargingProfilesController.buildStrategyFromSettings(OptimizerSettings.getDefaultOptimizerSettings()), siteID);
+	}
+
+	@Test
+	public void testSessionEqualsStrategyOnSingleState() {
+		// Reference: One state and strategy reacting to all arrivals
+		DataGenerator dataReference = buildData();
+		State stateReference = new StateStore(0, dataReference.getFuseTree(), null, null, new ArrayList<>(),
+				dataReference.getEnergyPriceHistory(), new ArrayList<>()).toState();
+		StrategyAlgorithmic strategyReference = OptimizeChargingProfilesController.buildStrategyFromSettings(OptimizerSettings.getDefaultOptimizerSettings());
+
+		DataGenerator data = buildData();
+		SiteSession session = createSession(new SiteSessionRegistry(60, () -> now), data);
+		List<Car> carsReference = getCarsByArrival(dataReference);
+		List<Car> cars = getCarsByArrival(data);
+		for (int i=0;i<cars.size();i++) {
+			Car carReference = carsReference.get(i);
+			carReference.setCurrentPlan(new double[96]);
+			int currentTimeSeconds = carReference.timestampArrival.toSecondOfDay();
+			stateReference.setTimeSeconds(currentTimeSeconds);
+			stateReference.getCars().add(carReference);
+			strategyReference.react(stateReference, new EventCarArrival(TimeUtil.getTimestampFromSeconds(currentTimeSeconds), carReference));
+
+			Car car = cars.get(i);
+			List<Car> changedCars = session.applyEvent(i, currentTimeSeconds, Collections.singletonList(car), null,
+					new EventStore(car.getId(), null, null, EventType.CarArrival));
+			assertEquals(i+1, session.getVersion());
+			assertTrue(changedCars.contains(car));
+			for (Car changedCar : changedCars) {
+				assertArrayEquals(stateReference.getCar(changedCar.getId()).getCurrentPlan(), changedCar.getCurrentPlan(), 1e-8);
+			}
+		}
+		for (Car car : session.getCars()) {
+			assertArrayEquals(stateReference.getCar(car.getId()).getCurrentPlan(), car.getCurrentPlan(), 1e-8);
+		}
+	}
+
+	@Test
+	public void testVersionConflict() {
+		DataGenerator data = buildData();
+		SiteSession session = createSession(new SiteSessionRegistry(60, () -> now), data);
+		List<Car> cars = getCarsByArrival(data);
+		Car car = cars.get(0);
+		int currentTimeSeconds = car.timestampArrival.toSecondOfDay();
+		session.applyEvent(0, currentTimeSeconds, Collections.singletonList(car), null, new EventStore(car.getId(), null, null, EventType.CarArrival));
+
+		try {
+			session.applyEvent(0, currentTimeSeconds, Collections.singletonList(cars.get(1)), null,
+					new EventStore(cars.get(1).getId(), null, null, EventType.CarArrival));
+			fail("Outdated version must be rejected");
+		}
+		catch (SessionVersionConflictException e) {
+			assertEquals(1, e.currentVersion);
+		}
+		assertEquals(1, session.getVersion());
+		assertEquals(1, session.getCars().size());
+		assertTrue(session.isInvalid() == false);
+	}
+
+	@Test
+	public void testDeparture() {
+		DataGenerator data = buildData();
+		SiteSession session = createSession(new SiteSessionRegistry(60, () -> now), data);
+		List<Car> cars = getCarsByArrival(data);
+		for (int i=0;i<3;i++) {
+			Car car = cars.get(i);
+			session.applyEvent(i, car.timestampArrival.toSecondOfDay(), Collections.singletonList(car), null, new EventStore(car.getId(), null, null, EventType.CarArrival));
+		}
+		Car carLeaving = cars.get(0);
+		int departureTimeSeconds = cars.get(2).timestampArrival.toSecondOfDay() + 60;
+		session.applyEvent(3, departureTimeSeconds, null, null, new EventStore(carLeaving.getId(), null, null, EventType.CarDeparture));
+
+		assertEquals(2, session.getCars().size());
+		assertTrue(session.getState().getCar(carLeaving.getId()) == null);
+		assertEquals(2, session.getState().getCurrentCarAssignments().size());
+		assertTrue(session.getState().getCurrentCarAssignments().stream().noneMatch(a -> a.car == carLeaving));
+	}
+
+	@Test
+	public void testInvalidEventKeepsSession() {
+		DataGenerator data = buildData();
+		SiteSession session = createSession(new SiteSessionRegistry(60, () -> now), data);
+		List<Car> cars = getCarsByArrival(data);
+		Car car = cars.get(0);
+		int currentTimeSeconds = car.timestampArrival.toSecondOfDay();
+		session.applyEvent(0, currentTimeSeconds, Collections.singletonList(car), null, new EventStore(car.getId(), null, null, EventType.CarArrival));
+
+		try {
+			session.applyEvent(1, currentTimeSeconds + 60, Collections.singletonList(cars.get(1)), null, new EventStore(-1, null, null, EventType.CarDeparture));
+			fail("Unknown car must be rejected");
+		}
+		catch (UnknownCarException e) {
+		}
+		try {
+			session.applyEvent(1, currentTimeSeconds + 60, null, null, new EventStore(car.getId(), -1, null, EventType.CarFinished));
+			fail("Unknown charging station must be rejected");
+		}
+		catch (UnknownChargingStationException e) {
+		}
+		assertEquals(HttpStatus.BAD_REQUEST, SiteSessionController.getHttpStatus(new UnknownCarException(-1)));
+
+		// Nothing was changed
+		assertTrue(session.isInvalid() == false);
+		assertEquals(1, session.getVersion());
+		assertEquals(1, session.getCars().size());
+		assertEquals(currentTimeSeconds, session.getState().currentTimeSeconds);
+
+		// Cars passed with the event are known
+		Car nextCar = cars.get(1);
+		session.applyEvent(1, nextCar.timestampArrival.toSecondOfDay(), Collections.singletonList(nextCar), null, new EventStore(nextCar.getId(), null, null, EventType.CarArrival));
+		assertEquals(2, session.getVersion());
+	}
+
+	@Test
+	public void testIdleEviction() {
+		SiteSessionRegistry registry = new SiteSessionRegistry(60, () -> now);
+		SiteSession session1 = createSession(registry, buildData());
+		now = 50*1000;
+		SiteSession session2 = createSession(registry, buildData());
+		assertEquals(2, registry.getNumberSessions());
+
+		now = 70*1000;
+		try {
+			registry.getSession(session1.getSessionID());
+			fail("Idle session must not be returned before it is evicted");
+		}
+		catch (UnknownSessionException e) {
+		}
+		assertEquals(1, registry.getNumberSessions());
+		registry.getSession(session2.getSessionID());
+
+		// Access keeps a session alive
+		now = 125*1000;
+		registry.getSession(session2.getSessionID());
+		assertEquals(1, registry.getNumberSessions());
+		now = 200*1000;
+		assertEquals(1, registry.evictIdleSessions());
+		assertEquals(0, registry.getNumberSessions());
+	}
+
+	@Test
+	public void testScheduledEviction() throws NoSuchMethodException {
+		assertNotNull(SiteSessionRegistry.class.getMethod("evictIdleSessions").getAnnotation(Scheduled.class));
+		assertNotNull(EmobilitySmartChargingApplication.class.getAnnotation(EnableScheduling.class));
+	}
+
+	@Test
+	public void testSiteMetricsRemovedWithLastSession() {
+		MeterRegistry meterRegistry = new SimpleMeterRegistry();
+		OptimizerMetrics metrics = new OptimizerMetrics(meterRegistry);
+		SiteSessionRegistry registry = new SiteSessionRegistry(60, () -> now);
+		registry.setMetrics(metrics);
+
+		SiteSession session1 = createSession(registry, buildData(), "site1");
+		SiteSession session2 = createSession(registry, buildData(), "site1");
+		assertEquals("site1", registry.getSiteID(session1.getSessionID()));
+		metrics.recordPayloadSizes(session1.getSiteID(), OptimizerMetrics.NO_EVENT, 10, 20);
+		metrics.recordPayloadSizes(session2.getSiteID(), OptimizerMetrics.NO_EVENT, 10, 20);
+		assertEquals(2, meterRegistry.find("optimizer.request.size").tags("site", "site1").summary().count());
+
+		// Meters are kept while another session of the site exists
+		registry.removeSession(session1.getSessionID());
+		assertNotNull(meterRegistry.find("optimizer.request.size").tags("site", "site1").summary());
+
+		now = 70*1000;
+		assertEquals(1, registry.evictIdleSessions());
+		assertNull(meterRegistry.find("optimizer.request.size").tags("site", "site1").summary());
+	}
+
+}
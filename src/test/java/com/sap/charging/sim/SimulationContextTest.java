@@ -0,0 +1,81 @@
+package com.sap.charging.sim;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.sap.charging.opt.lp.util.SolverSCIP;
+import com.sap.charging.util.r.RConnector;
+
+public class SimulationContextTest {
+
+	@Test
+	public void testGlobalCountersFromSeveralThreads() throws InterruptedException {
+		SimulationContext global = SimulationContext.getGlobal();
+		global.resetCounters();
+
+		int nThreads = 4;
+		int nIncrements = 100000;
+		ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+		for (int i=0;i<nThreads;i++) {
+			executor.execute(() -> {
+				for (int j=0;j<nIncrements;j++) {
+					// No context is bound in the executor's threads
+					SimulationContext.current().incrementBatterySimulationSteps();
+					SimulationContext.current().addFillIterations(2);
+				}
+			});
+		}
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+
+		assertEquals(nThreads * nIncrements, global.getBatterySimulationSteps());
+		assertEquals(2 * nThreads * nIncrements, global.getFillIterations());
+		global.resetCounters();
+		assertEquals(0, global.getBatterySimulationSteps());
+	}
+
+	@Test
+	public void testBoundContext() {
+		SimulationContext context = new SimulationContext(0);
+		context.run(() -> SimulationContext.current().incrementReschedules());
+		assertEquals(1, context.getReschedules());
+		assertEquals(0, new SimulationContext(0).getReschedules());
+	}
+
+	@Test
+	public void testVerbosities() {
+		SimulationContext global = SimulationContext.getGlobal();
+		int verbosity = global.getVerbosity();
+		int lpVerbosity = global.getLPVerbosity();
+		int rVerbosity = global.getRVerbosity();
+		try {
+			global.setVerbosity(1);
+			global.setLPVerbosity(3);
+			global.setRVerbosity(2);
+			SimulationContext context = new SimulationContext(0);
+			assertEquals(0, context.getVerbosity());
+			assertEquals(3, context.getLPVerbosity());
+			assertEquals(2, context.getRVerbosity());
+			assertEquals(1, new SimulationContext().getVerbosity());
+
+			// Loggables use the verbosities of the bound context
+			context.setLPVerbosity(0);
+			context.setRVerbosity(0);
+			assertEquals(0, (int) context.call(() -> new SolverSCIP().getVerbosity()));
+			assertEquals(0, (int) context.call(() -> new RConnector().getVerbosity()));
+			assertEquals(3, new SolverSCIP().getVerbosity());
+			assertEquals(2, new RConnector().getVerbosity());
+		}
+		finally {
+			global.setVerbosity(verbosity);
+			global.setLPVerbosity(lpVerbosity);
+			global.setRVerbosity(rVerbosity);
+		}
+	}
+
+}
@@ -12,7 +12,6 @@ import org.junit.jupiter.api.Test;
 
 import com.sap.charging.model.Car;
 import com.sap.charging.opt.heuristics.InstanceHeuristicAbsSoCLP;
-import com.sap.charging.opt.lp.InstanceLP;
 import com.sap.charging.opt.lp.Variable;
 import com.sap.charging.opt.solution.model.DayaheadSchedule;
 import com.sap.charging.realTime.StrategyAlgorithmic;
@@ -28,8 +27,8 @@ public class SimulationFromDayaheadTest extends SimulationUnitTest {
 	
 	@BeforeEach
 	public void setup() {
-		Simulation.verbosity = 0; 
-		InstanceLP.verbosity = 0; 
+		SimulationContext.getGlobal().setVerbosity(0); 
+		SimulationContext.getGlobal().setLPVerbosity(0); 
 		
 		instance = new InstanceHeuristicAbsSoCLP(dataSimToy);
 		instance.constructProblem();
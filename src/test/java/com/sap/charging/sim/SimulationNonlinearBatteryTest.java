@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.Random;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,6 +17,7 @@ import com.sap.charging.model.battery.BatteryData;
 import com.sap.charging.model.battery.BatteryData_Sample;
 import com.sap.charging.model.battery.BatterySim;
 import com.sap.charging.model.battery.BatterySimParameters;
+import com.sap.charging.model.battery.ChargeAlgorithm;
 import com.sap.charging.util.random.ConstantDistribution;
 
 public class SimulationNonlinearBatteryTest {
@@ -25,9 +27,9 @@ public class SimulationNonlinearBatteryTest {
 	
 	@BeforeEach
 	public void setup() {
-		Simulation.verbosity = 0; 
+		SimulationContext.getGlobal().setVerbosity(0); 
 		
-		Simulation.verbosity = 0;
+		SimulationContext.getGlobal().setVerbosity(0);
 		
 		DataGeneratorRandom data = new DataGeneratorRandom(5, false);
 		data.setCarModels(new CarModel[] {CarModel.RENAULT_ZOE_ZE40});
@@ -236,4 +238,57 @@ public class SimulationNonlinearBatteryTest {
 	
 	
 	
+	private void assertAdaptiveStepCloseToReference(BatterySimParameters params, int startTimeSeconds, int endTimeSeconds, double maxErrorAh) {
+		BatterySimParameters paramsAdaptive = params.copy();
+		paramsAdaptive.useAdaptiveStep = true;
+		
+		SimulationContext contextReference = new SimulationContext(0);
+		BatterySim simReference = contextReference.call(() -> new BatterySim(params, false, true));
+		simReference.simulate(startTimeSeconds, endTimeSeconds, car, maxCurrentAllowedStatic);
+		long nStepsReference = contextReference.getBatterySimulationSteps();
+		
+		SimulationContext contextAdaptive = new SimulationContext(0);
+		BatterySim simAdaptive = contextAdaptive.call(() -> new BatterySim(paramsAdaptive, false, true));
+		// Continue the simulation in several parts (not aligned with timeslots)
+		int middleTimeSeconds = (startTimeSeconds + endTimeSeconds) / 2 + 7;
+		simAdaptive.simulate(startTimeSeconds, middleTimeSeconds, car, maxCurrentAllowedStatic);
+		simAdaptive.simulate(middleTimeSeconds, endTimeSeconds, car, maxCurrentAllowedStatic);
+		long nStepsAdaptive = contextAdaptive.getBatterySimulationSteps();
+		
+		assertEquals(simReference.getChargedAh(), simAdaptive.getChargedAh(), maxErrorAh);
+		assertEquals(simReference.getSoC(), simAdaptive.getSoC(), maxErrorAh / params.capacity);
+		assertEquals(simReference.getNextCurrent(), simAdaptive.getNextCurrent(), 1e-2);
+		assertTrue(nStepsAdaptive*10 < nStepsReference);
+	}
+	
+	@Test
+	public void testNonlinearBatterySim_AdaptiveStep_NoChargePlan() {
+		// Error of the adaptive steps is at most adaptiveStepTolerance (1e-3A) on average, i.e. at most 1.2e-2Ah in 12h
+		BatterySimParameters params = BatterySimParameters.buildDefaultParams();
+		params.initialSoC = 0.1;
+		assertAdaptiveStepCloseToReference(params, 0, 48*900, 1.2e-2);
+		
+		params.chargeAlgorithm = ChargeAlgorithm.CPCV;
+		assertAdaptiveStepCloseToReference(params, 0, 48*900, 1.2e-2);
+	}
+	
+	@Test
+	public void testNonlinearBatterySim_AdaptiveStep_WithChargePlan() {
+		Random random = new Random(0);
+		double[] chargePlan = new double[96];
+		for (int k=0;k<chargePlan.length;k++) {
+			chargePlan[k] = (random.nextDouble() < 0.2) ? 0 : 8 + random.nextInt(25);
+		}
+		chargePlan[10] = -1; // Not set
+		car.setCurrentPlan(chargePlan);
+		
+		BatterySimParameters params = BatterySimParameters.buildDefaultParams();
+		params.initialSoC = 0.3;
+		assertAdaptiveStepCloseToReference(params, 300, 96*900, 2.4e-2);
+		
+		params.chargeAlgorithm = ChargeAlgorithm.CPCV;
+		assertAdaptiveStepCloseToReference(params, 300, 96*900, 2.4e-2);
+	}
+	
+	
 }
@@ -30,7 +30,6 @@ import com.sap.charging.model.ChargingStation;
 import com.sap.charging.model.EnergyUtil.Phase;
 import com.sap.charging.opt.CONSTANTS;
 import com.sap.charging.opt.heuristics.InstanceHeuristicAbsSoCLP;
-import com.sap.charging.opt.lp.InstanceLP;
 import com.sap.charging.opt.solution.model.DayaheadSchedule;
 import com.sap.charging.realTime.StrategyAlgorithmic;
 import com.sap.charging.realTime.StrategyFromDayahead;
@@ -49,8 +48,8 @@ public class SimulationTest extends SimulationUnitTest {
 
 	@BeforeEach
 	public void setup() {
-		Simulation.verbosity = 0; 
-		InstanceLP.verbosity = 0; 
+		SimulationContext.getGlobal().setVerbosity(0); 
+		SimulationContext.getGlobal().setLPVerbosity(0); 
 		
 		this.strategy = new StrategyGreedy();
 		this.sim = new Simulation(dataSim, strategy);
@@ -536,8 +535,8 @@ public class SimulationTest extends SimulationUnitTest {
 			
 		}*/
 		
-		//System.out.println("Validation.checkSummedChildConsumption called:" + Validation.checkSummedChildConsumption);
-		//System.out.println("Validation.checkSummedChildConsumptionAtTimeslot called:" + Validation.checkSummedChildConsumptionAtTimeslot);
+		//System.out.println("Fuse validations:" + sim2.getContext().getFuseValidations());
+		//System.out.println("Fuse validations at timeslot:" + sim2.getContext().getFuseValidationsAtTimeslot());
 		
 		
 		//FileIO.writeFile("vis/data/realTime_solution_algorithmic.json", sim2.getSimulationResult().getSolvedProblemInstanceJSON());
@@ -0,0 +1,113 @@
+package com.sap.charging.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sap.charging.dataGeneration.DataGeneratorRandom;
+import com.sap.charging.model.Car;
+import com.sap.charging.model.CarFactory.CarModel;
+import com.sap.charging.realTime.State;
+import com.sap.charging.realTime.Strategy;
+import com.sap.charging.realTime.StrategyAlgorithmic;
+import com.sap.charging.realTime.StrategyGreedy;
+import com.sap.charging.realTime.model.forecasting.departure.CarDepartureOracle;
+import com.sap.charging.sim.util.SimulationListener;
+
+public class SimulationTimeSkippingTest {
+
+	@BeforeEach
+	public void setup() {
+		SimulationContext.getGlobal().setVerbosity(0);
+	}
+
+	private static class StepCounter implements SimulationListener {
+		int nSteps = 0;
+		@Override
+		public void callbackBeforeUpdate(State state) {
+			nSteps++;
+		}
+		@Override
+		public void callbackAfterUpdate(State state) {
+		}
+	}
+
+	private DataGeneratorRandom buildData(int seed, boolean nonlinear) {
+		DataGeneratorRandom data = new DataGeneratorRandom(seed, false);
+		if (nonlinear) {
+			data.setCarModels(new CarModel[] {CarModel.RENAULT_ZOE_ZE40});
+			data.setIdealCars(true);
+			data.setIdealChargingStations(true);
+			data.setNonlinearCharging(true);
+		}
+		data.generateEnergyPriceHistory(96)
+			.generateCars(20)
+			.generateChargingStations(20)
+			.generateFuseTree(20, true);
+		return data;
+	}
+
+	private Strategy buildStrategy(boolean greedy, boolean nonlinear) {
+		if (greedy) {
+			return new StrategyGreedy();
+		}
+		StrategyAlgorithmic strategy = new StrategyAlgorithmic(new CarDepartureOracle());
+		strategy.setRescheduleCarsWith0A(false);
+		if (nonlinear) {
+			strategy.setRecognizeNonlinearCharging(true);
+		}
+		return strategy;
+	}
+
+	/**
+	 * Simulates the same data with one second steps and with time skipping and compares charged Ah in total, per car and per timeslot
+	 * @param maxErrorAh Maximum error per car
+	 */
+	private void assertSameResult(int seed, boolean greedy, boolean nonlinear, double maxErrorAh) {
+		DataGeneratorRandom data1 = buildData(seed, nonlinear);
+		Simulation sim1 = new Simulation(data1, buildStrategy(greedy, nonlinear));
+		StepCounter counter1 = new StepCounter();
+		sim1.addStateListener(counter1);
+		sim1.init();
+		sim1.simulate();
+
+		DataGeneratorRandom data2 = buildData(seed, nonlinear);
+		Simulation sim2 = new Simulation(data2, buildStrategy(greedy, nonlinear));
+		sim2.setEnableTimeSkipping(true);
+		StepCounter counter2 = new StepCounter();
+		sim2.addStateListener(counter2);
+		sim2.init();
+		sim2.simulate();
+
+		SimulationResult result1 = sim1.getSimulationResult();
+		SimulationResult result2 = sim2.getSimulationResult();
+		assertTrue(result1.getSumCharged() > 0);
+		assertEquals(result1.getSumCharged(), result2.getSumCharged(), data1.getCars().size()*maxErrorAh);
+		for (int n=0;n<data1.getCars().size();n++) {
+			Car car1 = data1.getCar(n);
+			Car car2 = data2.getCar(n);
+			assertEquals(car1.getChargedCapacity(), car2.getChargedCapacity(), maxErrorAh);
+			assertEquals(result1.getSumCharged(car1), result2.getSumCharged(car2), maxErrorAh);
+		}
+		assertTrue(counter2.nSteps*10 < counter1.nSteps);
+	}
+
+	@Test
+	public void testTimeSkipping_Greedy() {
+		assertSameResult(0, true, false, 1e-6);
+	}
+
+	@Test
+	public void testTimeSkipping_Algorithmic() {
+		assertSameResult(1, false, false, 1e-6);
+	}
+
+	@Test
+	public void testTimeSkipping_AlgorithmicNonlinear() {
+		// Error of the adaptive step integration is below 1e-3Ah per hour of charging
+		assertSameResult(4, false, true, 1e-2);
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.sap.charging.sim.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sap.charging.dataGeneration.DataGeneratorRandom;
+import com.sap.charging.model.CarFactory.CarModel;
+import com.sap.charging.realTime.StrategyAlgorithmic;
+import com.sap.charging.realTime.model.forecasting.departure.CarDepartureOracle;
+import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
+
+public class SimulationBatchRunnerTest {
+
+	@BeforeEach
+	public void setup() {
+		SimulationContext.getGlobal().setVerbosity(0);
+	}
+
+	private static Simulation buildSimulation(int seed) {
+		DataGeneratorRandom data = new DataGeneratorRandom(seed, false);
+		data.setCarModels(new CarModel[] {CarModel.RENAULT_ZOE_ZE40});
+		data.setIdealCars(true);
+		data.setIdealChargingStations(true);
+		data.setNonlinearCharging(seed % 2 == 0);
+		data.generateEnergyPriceHistory(96)
+			.generateCars(10)
+			.generateChargingStations(10)
+			.generateFuseTree(10, true);
+		StrategyAlgorithmic strategy = new StrategyAlgorithmic(new CarDepartureOracle());
+		strategy.setRescheduleCarsWith0A(false);
+		strategy.setRecognizeNonlinearCharging(seed % 2 == 0);
+		Simulation simulation = new Simulation(data, strategy);
+		simulation.setEnableTimeSkipping(true);
+		return simulation;
+	}
+
+	@Test
+	public void testParallelResultsEqualSequential() {
+		SimulationBatchReport sequential = new SimulationBatchRunner(1).run(0, 6, SimulationBatchRunnerTest::buildSimulation);
+		SimulationBatchReport parallel = new SimulationBatchRunner(4).run(0, 6, SimulationBatchRunnerTest::buildSimulation);
+
+		assertEquals(6, parallel.getNumberRuns());
+		assertEquals(0, parallel.getNumberFailedRuns());
+		for (int i=0;i<6;i++) {
+			SimulationBatchResult resultSequential = sequential.getResults().get(i);
+			SimulationBatchResult resultParallel = parallel.getResults().get(i);
+			assertEquals(i, resultParallel.seed);
+			assertTrue(resultParallel.sumCharged > 0);
+			assertEquals(resultSequential.sumCharged, resultParallel.sumCharged, 0);
+			assertEquals(resultSequential.sumChargedCapacity, resultParallel.sumChargedCapacity, 0);
+			assertEquals(resultSequential.nCarsFullyCharged, resultParallel.nCarsFullyCharged);
+			assertEquals(resultSequential.batterySimulationSteps, resultParallel.batterySimulationSteps);
+			assertEquals(resultSequential.fuseValidations, resultParallel.fuseValidations);
+		}
+		assertEquals(sequential.getSumCharged(), parallel.getSumCharged(), 0);
+		assertTrue(parallel.getMinSumCharged() <= parallel.getMeanSumCharged());
+		assertTrue(parallel.getMeanSumCharged() <= parallel.getMaxSumCharged());
+
+		// Same as running the simulation without the runner
+		Simulation simulation = buildSimulation(3);
+		simulation.init();
+		simulation.simulate();
+		assertEquals(simulation.getSimulationResult().getSumCharged(), parallel.getResult(3).sumCharged, 0);
+	}
+
+	@Test
+	public void testFailedRunIsReported() {
+		SimulationBatchReport report = new SimulationBatchRunner(2).run(Arrays.asList(0, 1), seed -> {
+			if (seed == 1) {
+				throw new RuntimeException("Failing seed");
+			}
+			return buildSimulation(seed);
+		});
+		assertEquals(1, report.getNumberFailedRuns());
+		assertTrue(report.getResult(0).isSuccessful());
+		assertEquals("Failing seed", report.getResult(1).exception.getMessage());
+		assertEquals(report.getResult(0).sumCharged, report.getMeanSumCharged(), 0);
+	}
+
+	@Test
+	public void testContextIsBoundPerRun() {
+		SimulationContext context = new SimulationContext(0);
+		Simulation simulation = context.call(() -> buildSimulation(0));
+		assertTrue(simulation.getContext() == context);
+		simulation.init();
+		simulation.simulate();
+
+		assertTrue(SimulationContext.current().isGlobal());
+		assertTrue(context.getFuseValidations() > 0);
+		assertTrue(context.getBatterySimulationSteps() > 0);
+	}
+
+}
@@ -0,0 +1,171 @@
+package com.sap.charging.sim.eval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.LocalTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sap.charging.model.Car;
+import com.sap.charging.model.CarFactory;
+import com.sap.charging.model.CarFactory.CarModel;
+import com.sap.charging.model.ChargingStation;
+import com.sap.charging.model.EnergyUtil.Phase;
+import com.sap.charging.model.Fuse;
+import com.sap.charging.model.FuseTree;
+import com.sap.charging.realTime.StrategyAlgorithmic;
+import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
+import com.sap.charging.sim.common.SimulationUnitTest;
+import com.sap.charging.sim.eval.exception.FuseTreeException;
+import com.sap.charging.sim.eval.exception.ValidationException;
+import com.sap.charging.util.TimeUtil;
+
+public class IncrementalValidationTest extends SimulationUnitTest {
+
+	@BeforeEach
+	public void setup() {
+		SimulationContext.getGlobal().setVerbosity(0);
+	}
+
+	private String getFullValidationMessage() {
+		try {
+			Validation.validateState(state);
+			return null;
+		}
+		catch (ValidationException e) {
+			return e.getMessage();
+		}
+	}
+
+	@Test
+	public void testEqualToFullValidationDuringSimulation() throws ValidationException {
+		sim = new Simulation(dataSim, new StrategyAlgorithmic());
+		sim.init();
+		state = sim.getState();
+
+		IncrementalValidation validation = new IncrementalValidation(state, 0);
+		while (sim.isFinished() == false) {
+			sim.simulateNextStep();
+			assertEquals(null, getFullValidationMessage());
+			validation.validateState();
+		}
+		assertTrue(sim.getSimulationResult().getSumCharged() > 0);
+	}
+
+	private static Car buildOnePhaseCar(int id) {
+		Car car = CarFactory.builder().set(CarModel.MERCEDES_GLC_350e)
+				.id(id)
+				.availableTimeslots(32, 95, 96)
+				.availableTimestamps(LocalTime.ofSecondOfDay(32*900), LocalTime.ofSecondOfDay(24*3600-1))
+				.build();
+		car.setCurrentPlan(new double[96]);
+		return car;
+	}
+
+	@Test
+	public void testChangedAndRemovedPowerAssignments() throws ValidationException {
+		sim = new Simulation(dataSim, new StrategyAlgorithmic());
+		sim.init();
+		state = sim.getState();
+		state.currentTimeSeconds = 32*900;
+		state.currentTimeslot = TimeUtil.getTimeslotFromSeconds(state.currentTimeSeconds);
+
+		Car car1 = buildOnePhaseCar(100);
+		Car car2 = buildOnePhaseCar(101);
+		double current = car1.maxCurrentPerPhase;
+		ChargingStation chargingStation1 = dataSim.getChargingStation(0);
+		ChargingStation chargingStation2 = dataSim.getChargingStation(1);
+		for (ChargingStation chargingStation : new ChargingStation[] {chargingStation1, chargingStation2}) {
+			chargingStation.fusePhase1 = 200;
+			chargingStation.setPhaseMatching(Phase.PHASE_1, Phase.PHASE_2, Phase.PHASE_3);
+		}
+
+		Fuse fuseRoot = new Fuse(0, 1.5*current);
+		Fuse fuseChild = new Fuse(1, current);
+		fuseRoot.addChild(fuseChild);
+		fuseChild.addChild(chargingStation1);
+		fuseRoot.addChild(chargingStation2);
+		state.fuseTree = new FuseTree(fuseRoot, 100);
+
+		IncrementalValidation validation = new IncrementalValidation(state, 0);
+		validation.validateState();
+
+		state.addCarAssignment(car1, chargingStation1);
+		state.addPowerAssignment(car1, chargingStation1, current, 0, 0);
+		validation.validateState();
+
+		// Only the child fuse is broken
+		state.getCurrentPowerAssignment(car1).setPhase1(1.2*current);
+		try {
+			validation.validateState();
+			fail("Fuse 1 should have been broken");
+		}
+		catch (FuseTreeException e) {
+			assertEquals(getFullValidationMessage(), e.getMessage());
+			assertEquals(1.2*current, e.getSumConsumed()[0], 1e-8);
+		}
+
+		state.getCurrentPowerAssignment(car1).setPhase1(current);
+		validation.validateState();
+
+		// Root fuse is broken by both cars
+		state.addCarAssignment(car2, chargingStation2);
+		state.addPowerAssignment(car2, chargingStation2, current, 0, 0);
+		try {
+			validation.validateState();
+			fail("Root fuse should have been broken");
+		}
+		catch (FuseTreeException e) {
+			assertEquals(getFullValidationMessage(), e.getMessage());
+			assertEquals(2*current, e.getSumConsumed()[0], 1e-8);
+		}
+
+		// Removed power assignments must no longer count
+		state.removePowerAssignment(car1);
+		validation.validateState();
+		state.removePowerAssignment(car2);
+		state.removeCarAssignment(car2);
+		validation.validateState();
+		state.addPowerAssignment(car1, chargingStation1, current, 0, 0);
+		validation.validateState();
+		assertEquals(null, getFullValidationMessage());
+	}
+
+	@Test
+	public void testSameOrderAsFullValidation() throws ValidationException {
+		sim = new Simulation(dataSim, new StrategyAlgorithmic());
+		sim.init();
+		state = sim.getState();
+		state.currentTimeSeconds = 32*900;
+		state.currentTimeslot = TimeUtil.getTimeslotFromSeconds(state.currentTimeSeconds);
+
+		Car car = buildOnePhaseCar(100);
+		double current = car.maxCurrentPerPhase;
+		ChargingStation chargingStation = dataSim.getChargingStation(0);
+		chargingStation.fusePhase1 = 200;
+		chargingStation.setPhaseMatching(Phase.PHASE_1, Phase.PHASE_2, Phase.PHASE_3);
+		Fuse fuseRoot = new Fuse(0, 2*current);
+		fuseRoot.addChild(chargingStation);
+		state.fuseTree = new FuseTree(fuseRoot, 100);
+
+		IncrementalValidation validation = new IncrementalValidation(state, 0);
+		state.addCarAssignment(car, chargingStation);
+		state.addPowerAssignment(car, chargingStation, current, 0, 0);
+		validation.validateState();
+
+		// Breaks the charging station in the fuse tree (checked first) and R3 of the unchanged power assignment
+		chargingStation.fusePhase1 = current / 2;
+		try {
+			validation.validateState();
+			fail("Charging station should have been broken");
+		}
+		catch (FuseTreeException e) {
+			assertEquals(getFullValidationMessage(), e.getMessage());
+		}
+	}
+
+}
@@ -30,6 +30,7 @@ import com.sap.charging.realTime.StrategyAlgorithmic;
 import com.sap.charging.realTime.model.CarAssignment;
 import com.sap.charging.realTime.model.PowerAssignment;
 import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
 import com.sap.charging.sim.common.SimulationUnitTest;
 import com.sap.charging.sim.eval.exception.CarAssignmentException;
 import com.sap.charging.sim.eval.exception.FuseTreeException;
@@ -49,7 +50,7 @@ public class ValidationTest extends SimulationUnitTest {
 
     @BeforeEach
     public void setup() {
-    	Simulation.verbosity = 0; 
+    	SimulationContext.getGlobal().setVerbosity(0); 
     	sim = new Simulation(dataSim, new StrategyAlgorithmic()); 
     	sim.init(); 
     	state = sim.getState(); 
@@ -413,7 +414,7 @@ public class ValidationTest extends SimulationUnitTest {
         chargingStation.fusePhase3 = 200; 
         
         state.getCurrentPowerAssignment(car).setPhase1(200); 
-        //Simulation.verbosity = 3; 
+        //SimulationContext.getGlobal().setVerbosity(3); 
         // Invalid root (at car arrival)
         try {
             Validation.checkSummedChildConsumptionAtTimeslot(fuseRoot, state, state.currentTimeslot);
@@ -481,7 +482,7 @@ public class ValidationTest extends SimulationUnitTest {
         chargingStation.fusePhase1 = 200; 
         
         state.getCurrentPowerAssignment(threePhaseCar).setPhase1(200); 
-        //Simulation.verbosity = 3; 
+        //SimulationContext.getGlobal().setVerbosity(3); 
         // Invalid root
         try {
             Validation.checkSummedChildConsumptionAtTimeslot(fuseRoot, state, state.currentTimeslot);
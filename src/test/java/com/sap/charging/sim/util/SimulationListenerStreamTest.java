@@ -0,0 +1,207 @@
+package com.sap.charging.sim.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sap.charging.dataGeneration.DataGeneratorRandom;
+import com.sap.charging.model.CarFactory.CarModel;
+import com.sap.charging.realTime.StrategyGreedy;
+import com.sap.charging.sim.Simulation;
+import com.sap.charging.sim.SimulationContext;
+
+public class SimulationListenerStreamTest {
+
+	private Path directory;
+	private Path path;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		SimulationContext.getGlobal().setVerbosity(0);
+		directory = Files.createTempDirectory("simulationListener");
+		path = directory.resolve("sim.csv");
+	}
+
+	@AfterEach
+	public void cleanup() throws IOException {
+		for (Path file : Files.list(directory).toArray(Path[]::new)) {
+			Files.delete(file);
+		}
+		Files.delete(directory);
+	}
+
+	private List<String> readLines() throws IOException {
+		return Files.readAllLines(path, StandardCharsets.US_ASCII);
+	}
+
+	private double[] parseRow(String line) {
+		String[] values = line.split(";");
+		double[] result = new double[values.length];
+		for (int i=0;i<values.length;i++) {
+			result[i] = Double.parseDouble(values[i]);
+		}
+		return result;
+	}
+
+	@Test
+	public void testAggregation() throws IOException {
+		try (SimulationListenerStream listener = new SimulationListenerStream(path, 10, 4)) {
+			listener.add(0, 10, 32);
+			listener.add(5, 20, 32); // Seconds 1-4 keep 10A
+			listener.add(12, 0, 16); // Seconds 6-9 and 10-11 keep 20A
+			listener.add(13, 5, 16);
+
+			try {
+				listener.add(13, 5, 16);
+				fail("Steps that are not increasing should throw an exception");
+			}
+			catch (IllegalArgumentException e) {
+			}
+		}
+
+		List<String> lines = readLines();
+		assertEquals("step;currentMin;currentMean;currentMax;currentPlanLimitMin;currentPlanLimitMean;currentPlanLimitMax", lines.get(0));
+		assertEquals(3, lines.size());
+
+		double[] window0 = parseRow(lines.get(1));
+		assertEquals(0, window0[0], 0);
+		assertEquals(10, window0[1], 0);
+		assertEquals(15, window0[2], 1e-8);
+		assertEquals(20, window0[3], 0);
+		assertEquals(32, window0[5], 0);
+
+		// Last window ends with the last step
+		double[] window1 = parseRow(lines.get(2));
+		assertEquals(10, window1[0], 0);
+		assertEquals(0, window1[1], 0);
+		assertEquals((20 + 20 + 0 + 5) / 4.0, window1[2], 1e-8);
+		assertEquals(20, window1[3], 0);
+		assertEquals(16, window1[4], 0);
+		assertEquals((32 + 32 + 16 + 16) / 4.0, window1[5], 1e-8);
+		assertEquals(32, window1[6], 0);
+	}
+
+	@Test
+	public void testLongHorizon() throws IOException {
+		int nSeconds = 7 * 24 * 3600;
+		try (SimulationListenerStream listener = new SimulationListenerStream(path, 60, 16)) {
+			for (int t=0;t<nSeconds;t++) {
+				listener.add(t, t % 120, 32);
+				// Rows are written as soon as the buffer is full
+				assertEquals(listener.getBufferSize() * (t / 60 / listener.getBufferSize()), listener.getNumberOfWrittenRows());
+			}
+		}
+
+		List<String> lines = readLines();
+		assertEquals(1 + nSeconds / 60, lines.size());
+		double[] row = parseRow(lines.get(lines.size() - 1));
+		assertEquals(nSeconds - 60, row[0], 0);
+		assertEquals(60, row[1], 0);
+		assertEquals(89.5, row[2], 1e-8);
+		assertEquals(119, row[3], 0);
+	}
+
+	private DataGeneratorRandom buildData() {
+		return buildData(false);
+	}
+
+	private DataGeneratorRandom buildData(boolean nonlinear) {
+		DataGeneratorRandom data = new DataGeneratorRandom(0, false);
+		if (nonlinear) {
+			data.setCarModels(new CarModel[] {CarModel.RENAULT_ZOE_ZE40});
+			data.setIdealCars(true);
+			data.setIdealChargingStations(true);
+			data.setNonlinearCharging(true);
+		}
+		data.generateEnergyPriceHistory(96)
+			.generateCars(20)
+			.generateChargingStations(20)
+			.generateFuseTree(20, true);
+		return data;
+	}
+
+	@Test
+	public void testSimulation() throws IOException {
+		SimulationListenerCSV listenerCSV = new SimulationListenerCSV();
+		Simulation sim = new Simulation(buildData(), new StrategyGreedy());
+		sim.addStateListener(listenerCSV);
+		sim.setStreamStorage(path.toString(), 1);
+		sim.init();
+		sim.simulate();
+
+		// Same content as the in memory CSV
+		String expected = listenerCSV.getCSVString();
+		assertEquals(expected, new String(Files.readAllBytes(path), StandardCharsets.US_ASCII));
+
+		// Aggregated per minute, also with time skipping
+		Simulation simSkipping = new Simulation(buildData(), new StrategyGreedy());
+		simSkipping.setEnableTimeSkipping(true);
+		simSkipping.setStreamStorage(path.toString(), 60);
+		simSkipping.init();
+		simSkipping.simulate();
+
+		List<String> lines = readLines();
+		assertEquals(1 + 96 * 15, lines.size());
+		for (int i=0;i<listenerCSV.rows.size();i+=60) {
+			double min = Double.POSITIVE_INFINITY;
+			double sum = 0;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int j=i;j<i+60;j++) {
+				double current = listenerCSV.rows.get(j).current;
+				min = Math.min(min, current);
+				sum += current;
+				max = Math.max(max, current);
+			}
+			double[] row = parseRow(lines.get(1 + i / 60));
+			assertEquals(listenerCSV.rows.get(i).step, row[0], 0);
+			assertEquals(min, row[1], 1e-8);
+			assertEquals(sum / 60, row[2], 1e-8);
+			assertEquals(max, row[3], 1e-8);
+		}
+	}
+
+	@Test
+	public void testSimulationNonlinear() throws IOException {
+		Simulation sim = new Simulation(buildData(true), new StrategyGreedy());
+		sim.setStreamStorage(path.toString(), 1);
+		sim.init();
+		sim.simulate();
+		List<String> expected = readLines();
+
+		// Currents of nonlinear cars taper, time skipping has to write the same rows
+		Simulation simSkipping = new Simulation(buildData(true), new StrategyGreedy());
+		simSkipping.setEnableTimeSkipping(true);
+		simSkipping.setStreamStorage(path.toString(), 1);
+		simSkipping.init();
+		simSkipping.simulate();
+		List<String> lines = readLines();
+
+		assertEquals(expected.size(), lines.size());
+		int nTaperingRows = 0;
+		double[] lastRow = null;
+		for (int i=1;i<lines.size();i++) {
+			double[] expectedRow = parseRow(expected.get(i));
+			double[] row = parseRow(lines.get(i));
+			assertEquals(expectedRow[0], row[0], 0);
+			assertEquals(expectedRow[1], row[1], 1e-6);
+			assertEquals(expectedRow[2], row[2], 0);
+			// Current decreases while the plans stay the same
+			if (lastRow != null && expectedRow[1] < lastRow[1] - 1e-3 && expectedRow[2] == lastRow[2]) {
+				nTaperingRows++;
+			}
+			lastRow = expectedRow;
+		}
+		assertTrue(nTaperingRows > 0);
+	}
+
+}
@@ -0,0 +1,131 @@
+package com.sap.charging.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.message.ParameterizedMessageFactory;
+import org.apache.logging.log4j.simple.SimpleLogger;
+import org.apache.logging.log4j.util.PropertiesUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LoggableTest {
+
+	private List<String> messages;
+	private int nToString;
+
+	private class TestLoggable implements Loggable {
+		private final int verbosity;
+		private final LogSink logSink;
+		public TestLoggable(int verbosity, LogSink logSink) {
+			this.verbosity = verbosity;
+			this.logSink = logSink;
+		}
+		@Override
+		public int getVerbosity() {
+			return verbosity;
+		}
+		@Override
+		public LogSink getLogSink() {
+			return logSink;
+		}
+	}
+
+	private final Object countingArgument = new Object() {
+		@Override
+		public String toString() {
+			nToString++;
+			return "arg";
+		}
+	};
+
+	@BeforeEach
+	public void setup() {
+		messages = new ArrayList<>();
+		nToString = 0;
+	}
+
+	private LogSink getCollectingSink() {
+		return (message, insertNewLine) -> messages.add(message);
+	}
+
+	@Test
+	public void testParameterizedMessage() {
+		TestLoggable loggable = new TestLoggable(2, getCollectingSink());
+		loggable.log(2, "k={}, plan={}", 5, new double[] {1, 2});
+		loggable.log(2, "{} {} {} {} {}", 1, 2, 3, 4, 5);
+		assertEquals("LoggableTest::testParameterizedMessage k=5, plan=[1.0, 2.0]", messages.get(0));
+		assertEquals("LoggableTest::testParameterizedMessage 1 2 3 4 5", messages.get(1));
+	}
+
+	@Test
+	public void testMessageNotBuiltBelowVerbosity() {
+		TestLoggable loggable = new TestLoggable(1, getCollectingSink());
+		loggable.log(2, "value={}", countingArgument);
+		loggable.log(2, () -> "value=" + countingArgument);
+		assertEquals(0, messages.size());
+		assertEquals(0, nToString);
+
+		loggable.log(1, "value={}", countingArgument);
+		assertEquals(1, messages.size());
+		assertEquals(1, nToString);
+	}
+
+	@Test
+	public void testMessageNotBuiltIfSinkDisabled() {
+		TestLoggable loggable = new TestLoggable(3, LogSink.NONE);
+		assertFalse(loggable.isLogEnabled(0));
+		loggable.log(1, "value={}", countingArgument);
+		loggable.log(1, () -> "value=" + countingArgument);
+		assertEquals(0, nToString);
+	}
+
+	@Test
+	public void testThrowable() {
+		TestLoggable loggable = new TestLoggable(0, getCollectingSink());
+		loggable.log(1, new IllegalStateException("failed"), "value={}", countingArgument);
+		assertEquals(0, nToString);
+
+		loggable.log(0, new IllegalStateException("failed"), "value={}", countingArgument);
+		String[] lines = messages.get(0).split("\\R");
+		assertEquals("LoggableTest::testThrowable value=arg", lines[0]);
+		assertEquals("java.lang.IllegalStateException: failed", lines[1]);
+		assertTrue(lines[2].trim().startsWith("at com.sap.charging.util.LoggableTest.testThrowable"));
+	}
+
+	@Test
+	public void testLog4j2LogSink() {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		SimpleLogger logger = new SimpleLogger("test", Level.DEBUG, false, false, false, false, null,
+				ParameterizedMessageFactory.INSTANCE, new PropertiesUtil(new Properties()), new PrintStream(output, true));
+		Log4j2LogSink sink = new Log4j2LogSink(logger);
+		TestLoggable loggable = new TestLoggable(3, sink);
+
+		assertEquals(Level.INFO, Log4j2LogSink.getLevel(1));
+		assertEquals(Level.DEBUG, Log4j2LogSink.getLevel(2));
+		assertEquals(Level.TRACE, Log4j2LogSink.getLevel(3));
+		assertTrue(loggable.isLogEnabled(2));
+		assertFalse(loggable.isLogEnabled(3));
+
+		loggable.log(3, "trace value={}", countingArgument);
+		assertEquals(0, nToString);
+
+		// Partial lines are written together
+		loggable.log(2, "first, ", false, false);
+		loggable.log(2, "second", false, true);
+		loggable.log(1, "info");
+		String[] lines = output.toString().split("\\R");
+		assertEquals(2, lines.length);
+		assertEquals("DEBUG first, second", lines[0]);
+		assertEquals("INFO LoggableTest::testLog4j2LogSink info", lines[1]);
+	}
+
+}
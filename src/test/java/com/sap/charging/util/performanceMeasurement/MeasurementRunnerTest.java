@@ -0,0 +1,215 @@
+package com.sap.charging.util.performanceMeasurement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sap.charging.sim.SimulationContext;
+import com.sap.charging.util.LogSink;
+import com.sap.charging.util.sqlite.SQLiteAttributeKey;
+import com.sap.charging.util.sqlite.SQLiteWriteBehindDB;
+
+public class MeasurementRunnerTest {
+
+	public static class TestMeasurement extends PerformanceMeasurement<TestMeasurement> {
+		@SQLiteAttributeKey
+		public final int nCars;
+		@SQLiteAttributeKey
+		public final int seed;
+
+		public TestMeasurement() {
+			this(null, 0, 0);
+		}
+		public TestMeasurement(String method, int nCars, int seed) {
+			super(null, null, method);
+			this.nCars = nCars;
+			this.seed = seed;
+		}
+		@Override
+		public TestMeasurement cloneWithMethod(String method) {
+			return new TestMeasurement(method, nCars, seed);
+		}
+		@Override
+		public String getTableName() {
+			return "testMeasurements";
+		}
+	}
+
+	/**
+	 * nCars=-1 fails, nCars=-2 runs until interrupted
+	 */
+	private static class TestExecutor extends MeasurementExecutor<TestMeasurement> {
+		private final AtomicInteger nRunning = new AtomicInteger();
+		private final AtomicInteger maxRunning = new AtomicInteger();
+		private final AtomicInteger nExecuted = new AtomicInteger();
+
+		public TestExecutor(SQLiteWriteBehindDB db, boolean forceMeasurement) {
+			super(db, forceMeasurement);
+		}
+		@Override
+		public void accept(TestMeasurement measurement) {
+			nExecuted.incrementAndGet();
+			maxRunning.accumulateAndGet(nRunning.incrementAndGet(), Math::max);
+			try {
+				if (measurement.nCars == -1) {
+					throw new IllegalStateException("Measurement failed");
+				}
+				Thread.sleep(measurement.nCars == -2 ? 60000 : 20);
+				if (forceMeasurement == true && db.rowExists(measurement)) {
+					db.deleteRow(measurement);
+				}
+				db.insert(measurement);
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			} finally {
+				nRunning.decrementAndGet();
+			}
+		}
+	}
+
+	private Path directory;
+	private SQLiteWriteBehindDB db;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("measurements");
+		db = new SQLiteWriteBehindDB("jdbc:sqlite:" + directory.resolve("test.db").toString());
+	}
+
+	@AfterEach
+	public void cleanup() throws IOException {
+		db.close();
+		for (Path path : Files.list(directory).toArray(Path[]::new)) {
+			Files.delete(path);
+		}
+		Files.delete(directory);
+	}
+
+	private MeasurementRunner<TestMeasurement> createRunner(TestExecutor executor, int nThreads) {
+		MeasurementRunner<TestMeasurement> runner = new MeasurementRunner<>(executor, nThreads);
+		runner.setVerbosity(0);
+		return runner;
+	}
+
+	private List<TestMeasurement> getMeasurements() {
+		return new ParameterGrid()
+				.add("nCars", 10, 20, 30)
+				.add("seed", 0, 1, 2, 3, 4)
+				.expand(cell -> new TestMeasurement("method", cell.getInt("nCars"), cell.getInt("seed")));
+	}
+
+	@Test
+	public void testRunAndResume() {
+		List<TestMeasurement> measurements = getMeasurements();
+
+		// First run stops after some measurements
+		TestExecutor executor = new TestExecutor(db, false);
+		MeasurementRunner.Summary summary = createRunner(executor, 3).run(measurements.subList(0, 6));
+		assertEquals(6, summary.getSucceeded());
+		assertTrue(executor.maxRunning.get() <= 3);
+
+		// Resumed run skips measurements in the DB (including queued ones)
+		executor = new TestExecutor(db, false);
+		summary = createRunner(executor, 4).run(measurements);
+		assertEquals(15, summary.total);
+		assertEquals(6, summary.getSkipped());
+		assertEquals(9, summary.getSucceeded());
+		assertEquals(9, executor.nExecuted.get());
+		assertTrue(executor.maxRunning.get() <= 4);
+
+		// Everything is measured again with forceMeasurement
+		executor = new TestExecutor(db, true);
+		summary = createRunner(executor, 4).run(measurements);
+		assertEquals(0, summary.getSkipped());
+		assertEquals(15, summary.getSucceeded());
+
+		db.flush();
+		assertEquals(15, db.getAllRows("testMeasurements", TestMeasurement.class).size());
+	}
+
+	@Test
+	public void testFailuresAndTimeouts() {
+		List<TestMeasurement> measurements = new ArrayList<>(getMeasurements().subList(0, 4));
+		measurements.add(new TestMeasurement("method", -1, 0));
+		measurements.add(new TestMeasurement("method", -2, 0));
+
+		TestExecutor executor = new TestExecutor(db, false);
+		MeasurementRunner<TestMeasurement> runner = createRunner(executor, 2);
+		runner.setTimeoutSeconds(1);
+		long start = System.currentTimeMillis();
+		// Measurements run on threads without a bound SimulationContext, so errors are written to the global log sink
+		List<String> messages = Collections.synchronizedList(new ArrayList<>());
+		SimulationContext global = SimulationContext.getGlobal();
+		LogSink logSink = global.getLogSink();
+		global.setLogSink((message, insertNewLine) -> messages.add(message));
+		MeasurementRunner.Summary summary;
+		try {
+			summary = runner.run(measurements);
+		}
+		finally {
+			global.setLogSink(logSink);
+		}
+
+		assertTrue(System.currentTimeMillis() - start < 30000);
+		assertEquals(4, summary.getSucceeded());
+		assertEquals(1, summary.getFailed());
+		assertEquals(1, summary.getTimedOut());
+		assertEquals(6, summary.getDone());
+		assertTrue(db.rowExists(new TestMeasurement("method", -1, 0)) == false);
+		assertTrue(db.rowExists(new TestMeasurement("method", -2, 0)) == false);
+
+		// The error is logged with its stack trace
+		String errorMessage = messages.stream().filter(message -> message.contains("Error during measurement")).findFirst().get();
+		assertTrue(errorMessage.contains("java.lang.IllegalStateException: Measurement failed"));
+		assertTrue(errorMessage.contains("at com.sap.charging.util.performanceMeasurement.MeasurementRunnerTest$TestExecutor.accept"));
+	}
+
+	@Test
+	public void testParameterGrid() {
+		ParameterGrid grid = new ParameterGrid()
+				.add("nCars", new int[] {10, 20})
+				.add("randomness", new double[] {0.1, 0.2, 0.3})
+				.add("reschedule", new boolean[] {true})
+				.add("method", "a", "b");
+		assertEquals(12, grid.size());
+
+		List<ParameterGrid.Cell> cells = grid.getCells();
+		assertEquals(12, cells.size());
+		// First parameter is the outermost loop
+		assertEquals(10, cells.get(0).getInt("nCars"));
+		assertEquals("a", cells.get(0).getString("method"));
+		assertEquals("b", cells.get(1).getString("method"));
+		assertEquals(0.2, cells.get(2).getDouble("randomness"), 0);
+		assertEquals(20, cells.get(11).getInt("nCars"));
+		assertEquals(0.3, cells.get(11).getDouble("randomness"), 0);
+		assertTrue(cells.get(11).getBoolean("reschedule"));
+
+		assertEquals(0, new ParameterGrid().add("nCars", new int[0]).add("seed", 1, 2).size());
+
+		try {
+			cells.get(0).get("seed");
+			fail("Unknown parameters should throw an exception");
+		}
+		catch (IllegalArgumentException e) {
+		}
+		try {
+			grid.add("nCars", 30);
+			fail("Duplicate parameters should throw an exception");
+		}
+		catch (IllegalArgumentException e) {
+		}
+	}
+
+}
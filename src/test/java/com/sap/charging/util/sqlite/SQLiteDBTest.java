@@ -0,0 +1,203 @@
+package com.sap.charging.util.sqlite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class SQLiteDBTest {
+
+	public static class TestRow extends SQLiteTableRow {
+		@SQLiteAttributeKey
+		public final String method;
+		@SQLiteAttributeKey
+		public final int nCars;
+		@SQLiteAttributeKey
+		public final double fuseSize;
+		public String result;
+
+		public TestRow() {
+			this(null, 0, 0, null);
+		}
+		public TestRow(String method, int nCars, double fuseSize, String result) {
+			this.method = method;
+			this.nCars = nCars;
+			this.fuseSize = fuseSize;
+			this.result = result;
+		}
+		@Override
+		public String getTableName() {
+			return "testRows";
+		}
+	}
+
+	private Path directory;
+	private String dbUrl;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("sqlite");
+		dbUrl = "jdbc:sqlite:" + directory.resolve("test.db").toString();
+	}
+
+	@AfterEach
+	public void cleanup() throws IOException {
+		for (Path path : Files.list(directory).toArray(Path[]::new)) {
+			Files.delete(path);
+		}
+		Files.delete(directory);
+	}
+
+	private String getJournalMode(SQLiteDB db) throws SQLException {
+		ResultSet resultSet = db.executeQuery("PRAGMA journal_mode");
+		resultSet.next();
+		return resultSet.getString(1);
+	}
+
+	@Test
+	public void testPreparedStatements() throws SQLException {
+		try (SQLiteDB db = new SQLiteDB(dbUrl, true)) {
+			assertEquals("wal", getJournalMode(db));
+
+			// Values are passed as parameters, no quoting needed
+			TestRow row = new TestRow("it's", 10, 90.5, "{\"value\": 'x'}");
+			assertFalse(db.rowExists(row));
+			db.insert(row);
+			assertTrue(db.rowExists(row));
+			assertFalse(db.rowExists(new TestRow("it's", 10, 90, null)));
+
+			TestRow retrieved = new TestRow("it's", 10, 90.5, null);
+			db.retrieveRow(retrieved);
+			assertEquals(row.result, retrieved.result);
+
+			db.deleteRow(row);
+			assertFalse(db.rowExists(row));
+		}
+	}
+
+	@Test
+	public void testInsertBatch() {
+		try (SQLiteDB db = new SQLiteDB(dbUrl, true)) {
+			List<TestRow> rows = new ArrayList<>();
+			for (int n=0;n<50;n++) {
+				rows.add(new TestRow("method", n, 90, "result" + n));
+			}
+			db.insert(rows);
+			assertEquals(50, db.getAllRows("testRows", TestRow.class).size());
+
+			// Duplicate primary key: The whole batch is rolled back
+			try {
+				db.insert(Arrays.asList(new TestRow("method", 50, 90, null), new TestRow("method", 0, 90, null)));
+				fail("Duplicate key should throw an exception");
+			}
+			catch (RuntimeException e) {
+			}
+			assertFalse(db.rowExists(new TestRow("method", 50, 90, null)));
+			assertEquals(50, db.getAllRows("testRows", TestRow.class).size());
+		}
+	}
+
+	@Test
+	public void testWriteBehind() {
+		SQLiteWriteBehindDB db = new SQLiteWriteBehindDB(dbUrl, 10);
+		List<TestRow> rows = new ArrayList<>();
+		for (int n=0;n<95;n++) {
+			TestRow row = new TestRow("method", n, 90, "result" + n);
+			db.insert(row);
+			// Changes after the insert are not written
+			row.result = "changed";
+			rows.add(row);
+			// Queued rows exist already
+			assertTrue(db.rowExists(new TestRow("method", n, 90, null)));
+		}
+		db.flush();
+		assertEquals(0, db.getNumberOfPendingRows());
+
+		try (SQLiteDB reader = new SQLiteDB(dbUrl)) {
+			for (int n=0;n<95;n++) {
+				TestRow retrieved = new TestRow("method", n, 90, null);
+				reader.retrieveRow(retrieved);
+				assertEquals("result" + n, retrieved.result);
+			}
+		}
+
+		// Deletes wait for queued inserts of the row
+		TestRow row = new TestRow("method", 95, 90, null);
+		db.insert(row);
+		db.deleteRow(row);
+		assertFalse(db.rowExists(row));
+
+		db.close();
+		try {
+			db.insert(row);
+			fail("Inserting into a closed SQLiteWriteBehindDB should throw an exception");
+		}
+		catch (IllegalStateException e) {
+		}
+	}
+
+	@Test
+	public void testWriteBehindError() {
+		SQLiteWriteBehindDB db = new SQLiteWriteBehindDB(dbUrl);
+		db.insert(new TestRow("method", 0, 90, null));
+		db.flush();
+		db.insert(new TestRow("method", 0, 90, null));
+		try {
+			db.close();
+			fail("Failed writes should be reported on close");
+		}
+		catch (IllegalStateException e) {
+		}
+	}
+
+	@Test
+	@Timeout(30)
+	public void testWriteBehindWriterStopped() {
+		SQLiteWriteBehindDB db = new SQLiteWriteBehindDB(dbUrl, 1);
+		db.insert(new TestRow("method", 0, 90, null) {
+			@Override
+			public String getParameterizedInsertStatement() {
+				throw new Error("Writer thread error");
+			}
+		});
+		for (int n=1;n<10;n++) {
+			db.insert(new TestRow("method", n, 90, null));
+		}
+		// Doesn't wait for the rows that are not written anymore
+		try {
+			db.flush();
+			fail("The error of the writer thread should be reported");
+		}
+		catch (IllegalStateException e) {
+			assertEquals("Writer thread error", e.getCause().getMessage());
+		}
+		assertEquals(0, db.getNumberOfPendingRows());
+		try {
+			db.insert(new TestRow("method", 10, 90, null));
+			fail("Inserting without writer thread should throw an exception");
+		}
+		catch (IllegalStateException e) {
+		}
+		try {
+			db.close();
+			fail("Failed writes should be reported on close");
+		}
+		catch (IllegalStateException e) {
+		}
+	}
+
+}